@@ -4,7 +4,9 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
 @EnableRetry
+@EnableScheduling
 @SpringBootApplication
 @EnableFeignClients(basePackages = "app.lunch")
 public class SchoolLunchApplication {
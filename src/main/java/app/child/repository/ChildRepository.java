@@ -1,7 +1,9 @@
 package app.child.repository;
 
 import app.child.model.Child;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -12,4 +14,13 @@ import java.util.UUID;
 public interface ChildRepository extends JpaRepository<Child, UUID> {
 
     List<Child> findByParentId(@Param("parentId") UUID parentId);
+
+    @Query("select distinct c.school from Child c where c.school is not null order by c.school")
+    List<String> findSchools();
+
+    @Query("select c.id from Child c where c.id > :after order by c.id")
+    List<UUID> findIdsAfter(@Param("after") UUID after, Pageable pageable);
+
+    @Query("select c.id from Child c where c.school = :school and c.id > :after order by c.id")
+    List<UUID> findIdsBySchool(@Param("school") String school, @Param("after") UUID after, Pageable pageable);
 }
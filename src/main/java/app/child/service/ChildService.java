@@ -3,7 +3,10 @@ package app.child.service;
 import app.child.model.Child;
 import app.child.repository.ChildRepository;
 import app.expetion.DomainException;
+import app.lunch.capacity.MealCapacityLedger;
 import app.lunch.client.dto.LunchOrder;
+import app.lunch.repository.LunchSettlementRepository;
+import app.lunch.repository.LunchSubscriptionRepository;
 import app.lunch.service.LunchService;
 import app.parent.model.Parent;
 import app.parent.service.ParentService;
@@ -23,7 +26,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
@@ -34,16 +39,25 @@ public class ChildService {
     private final ParentService parentService;
     private final LunchService lunchService;
     private final WalletService walletService;
+    private final LunchSubscriptionRepository lunchSubscriptionRepository;
+    private final MealCapacityLedger mealCapacityLedger;
+    private final LunchSettlementRepository lunchSettlementRepository;
     
     @Value("${app.upload.dir:src/main/resources/static/images/children}")
     private String personalImg;
 
     public ChildService(ChildRepository childRepository, ParentService parentService, 
-                       LunchService lunchService, WalletService walletService) {
+                       LunchService lunchService, WalletService walletService,
+                       LunchSubscriptionRepository lunchSubscriptionRepository,
+                       MealCapacityLedger mealCapacityLedger,
+                       LunchSettlementRepository lunchSettlementRepository) {
         this.childRepository = childRepository;
         this.parentService = parentService;
         this.lunchService = lunchService;
         this.walletService = walletService;
+        this.lunchSubscriptionRepository = lunchSubscriptionRepository;
+        this.mealCapacityLedger = mealCapacityLedger;
+        this.lunchSettlementRepository = lunchSettlementRepository;
     }
 
     public List<Child> getChildrenByParentId(UUID id) {
@@ -73,14 +87,14 @@ public class ChildService {
         Child child = getChildById(childId);
         Parent parent = child.getParent();
 
-        List<LunchOrder> lunches = lunchService.getAllLunchesIncludingDeleted(childId);
+        List<LunchOrder> paidLunches = lunchService.getLunchesWithStatus(childId, "PAID");
+        // lunch-svc keeps served lunches as PAID; the daily settlement records them here
+        Set<UUID> servedLunches = new HashSet<>(lunchSettlementRepository.findIdsByChildId(childId));
         
         BigDecimal totalRefund = BigDecimal.ZERO;
 
-        for (LunchOrder lunch : lunches) {
-
-            String status = lunch.getStatus();
-            if (status != null && status.equalsIgnoreCase("PAID")) {
+        for (LunchOrder lunch : paidLunches) {
+            if (!servedLunches.contains(lunch.getId())) {
                 totalRefund = totalRefund.add(lunch.getTotal());
             }
         }
@@ -95,6 +109,7 @@ public class ChildService {
                 "Refund for deleted child: " + child.getFirstName() + " " + child.getLastName());
         }
         
+        lunchSubscriptionRepository.deleteByChildId(childId);
         childRepository.deleteById(childId);
 
         log.info("Successfully deleted child: {} ({})", child.getFirstName(), childId);
@@ -144,6 +159,7 @@ public class ChildService {
         }
 
         childRepository.save(child);
+        mealCapacityLedger.forgetChild(childId);
 
         log.info("Successfully updated profile for child: {}", childId);
     }
@@ -1,5 +1,6 @@
 package app.config;
 
+import app.deadline.DeadlineInterceptor;
 import org.springframework.boot.autoconfigure.security.servlet.PathRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,12 +9,26 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.web.filter.HiddenHttpMethodFilter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 @EnableMethodSecurity
 public class WebConfiguration implements WebMvcConfigurer {
 
+    private final DeadlineInterceptor deadlineInterceptor;
+
+    public WebConfiguration(DeadlineInterceptor deadlineInterceptor) {
+        this.deadlineInterceptor = deadlineInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Bulk orders, subscriptions and child deletes with refunds would not finish within the page budget
+        registry.addInterceptor(deadlineInterceptor)
+                .addPathPatterns("/children/*/lunches", "/children/*/lunches/*");
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 
@@ -24,7 +39,8 @@ public class WebConfiguration implements WebMvcConfigurer {
                        .requestMatchers("/", "/register", "/login").permitAll()
                        .requestMatchers("/actuator/**").permitAll()
                        .requestMatchers("/api/**").permitAll()
-                       .requestMatchers("/home/users", "/home/users/**").hasRole("ADMIN")
+                       .requestMatchers("/home/users", "/home/users/**", "/home/closures").hasRole("ADMIN")
+                       .requestMatchers("/home/forecast", "/home/forecast/**").hasRole("ADMIN")
                        .anyRequest().authenticated())
                 .formLogin(form -> form
                         .loginPage("/login")
@@ -0,0 +1,31 @@
+package app.deadline;
+
+import java.time.Duration;
+
+public class Deadline {
+
+    private final long expiresAtNanos;
+
+    private final Duration budget;
+
+    private Deadline(long expiresAtNanos, Duration budget) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.budget = budget;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos(), budget);
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    public Duration getBudget() {
+        return budget;
+    }
+}
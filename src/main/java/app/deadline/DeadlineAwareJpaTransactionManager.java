@@ -0,0 +1,43 @@
+package app.deadline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import java.time.Duration;
+import java.util.Optional;
+
+public class DeadlineAwareJpaTransactionManager extends JpaTransactionManager {
+
+    private final transient MeterRegistry meterRegistry;
+
+    public DeadlineAwareJpaTransactionManager(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        super(entityManagerFactory);
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Spring applies the transaction timeout to every query created inside it, so this bounds JPA queries too
+    @Override
+    protected int determineTimeout(TransactionDefinition definition) {
+
+        int configured = super.determineTimeout(definition);
+        Optional<Deadline> deadline = RequestDeadline.current();
+
+        if (deadline.isEmpty()) {
+            return configured;
+        }
+
+        Duration remaining = deadline.get().remaining();
+        if (remaining.isZero()) {
+            meterRegistry.counter("request.deadline.exceeded", "stage", "jpa").increment();
+            throw new TransactionTimedOutException("Request deadline exceeded before starting a transaction");
+        }
+
+        // JDBC query timeouts have one-second granularity
+        int remainingSeconds = (int) Math.max(1, (remaining.toMillis() + 999) / 1000);
+        return configured == TransactionDefinition.TIMEOUT_DEFAULT
+                ? remainingSeconds : Math.min(configured, remainingSeconds);
+    }
+}
@@ -0,0 +1,62 @@
+package app.deadline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+
+@Slf4j
+@Component
+public class DeadlineInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String DEADLINE_ATTRIBUTE = DeadlineInterceptor.class.getName() + ".deadline";
+
+    private final Duration requestBudget;
+    private final MeterRegistry meterRegistry;
+
+    public DeadlineInterceptor(@Value("${deadline.request-budget:6s}") Duration requestBudget,
+                               MeterRegistry meterRegistry) {
+        this.requestBudget = requestBudget;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+
+        // An async redispatch keeps the deadline set when the request first arrived
+        Deadline deadline = (Deadline) request.getAttribute(DEADLINE_ATTRIBUTE);
+        if (deadline == null) {
+            deadline = Deadline.after(requestBudget);
+            request.setAttribute(DEADLINE_ATTRIBUTE, deadline);
+        }
+
+        RequestDeadline.set(deadline);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        RequestDeadline.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+
+        Deadline deadline = (Deadline) request.getAttribute(DEADLINE_ATTRIBUTE);
+
+        if (deadline != null && deadline.isExpired()) {
+            meterRegistry.counter("request.deadline.exceeded", "stage", "request").increment();
+            log.debug("Request {} {} finished after its {} deadline",
+                    request.getMethod(), request.getRequestURI(), deadline.getBudget());
+        }
+
+        RequestDeadline.clear();
+    }
+}
@@ -0,0 +1,6 @@
+package app.lunch.capacity;
+
+import java.time.LocalDate;
+
+public record MealCapacityKey(String school, LocalDate day, String meal) {
+}
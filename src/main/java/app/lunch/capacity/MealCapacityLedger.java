@@ -0,0 +1,210 @@
+package app.lunch.capacity;
+
+import app.child.model.Child;
+import app.child.repository.ChildRepository;
+import app.lunch.model.MealCapacityUsage;
+import app.lunch.repository.LunchOrderReplicaRepository;
+import app.lunch.repository.MealCapacityUsageRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class MealCapacityLedger {
+
+    private final MealCapacityProperties properties;
+    private final ChildRepository childRepository;
+    private final LunchOrderReplicaRepository lunchOrderReplicaRepository;
+    private final MealCapacityUsageRepository mealCapacityUsageRepository;
+    private final MeterRegistry meterRegistry;
+    private final Map<MealCapacityKey, AtomicInteger> reserved = new ConcurrentHashMap<>();
+    private final Map<UUID, String> schools = new ConcurrentHashMap<>();
+
+    public MealCapacityLedger(MealCapacityProperties properties, ChildRepository childRepository,
+                              LunchOrderReplicaRepository lunchOrderReplicaRepository,
+                              MealCapacityUsageRepository mealCapacityUsageRepository,
+                              MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.childRepository = childRepository;
+        this.lunchOrderReplicaRepository = lunchOrderReplicaRepository;
+        this.mealCapacityUsageRepository = mealCapacityUsageRepository;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("lunch.capacity.keys", reserved, Map::size)
+                .description("School, day and meal combinations with reserved portions")
+                .register(meterRegistry);
+    }
+
+    // A compare-and-set loop on the key's counter: no locks, and a sold out meal never reaches lunch-svc
+    public boolean tryReserve(UUID childId, String dayOfWeek, String meal, int portions, LocalDateTime orderedOn) {
+
+        if (!properties.isEnabled()) {
+            return true;
+        }
+
+        Optional<MealCapacityKey> key = key(childId, dayOfWeek, meal, orderedOn);
+        if (key.isEmpty()) {
+            return true;
+        }
+
+        AtomicInteger counter = reserved.computeIfAbsent(key.get(), ignored -> new AtomicInteger());
+        int capacity = properties.portionsFor(meal);
+
+        while (true) {
+            int current = counter.get();
+            if (current + portions > capacity) {
+                meterRegistry.counter("lunch.capacity.reservations", "outcome", "sold_out").increment();
+                log.debug("{} is sold out: {} of {} portions reserved", key.get(), current, capacity);
+                return false;
+            }
+            if (counter.compareAndSet(current, current + portions)) {
+                meterRegistry.counter("lunch.capacity.reservations", "outcome", "reserved").increment();
+                return true;
+            }
+        }
+    }
+
+    public void release(UUID childId, String dayOfWeek, String meal, int portions, LocalDateTime orderedOn) {
+
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        key(childId, dayOfWeek, meal, orderedOn)
+                .map(reserved::get)
+                .ifPresent(counter -> counter.getAndUpdate(current -> Math.max(0, current - portions)));
+    }
+
+    public int remaining(String school, LocalDate day, String meal) {
+
+        AtomicInteger counter = reserved.get(new MealCapacityKey(school, day, meal));
+        return properties.portionsFor(meal) - (counter == null ? 0 : counter.get());
+    }
+
+    // The school is read once per child; a child moving school drops the cached value
+    public void forgetChild(UUID childId) {
+        schools.remove(childId);
+    }
+
+    // Counts come from the order replica; the persisted usage covers orders the replica has not synced yet
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        Map<MealCapacityKey, Integer> counts = new HashMap<>();
+
+        for (OrderedPortions order : lunchOrderReplicaRepository.findOrderedPortionsSince(
+                Instant.now().minus(Duration.ofDays(7)))) {
+            if (order.getDayOfWeek() == null || order.getMeal() == null || order.getCreatedOn() == null) {
+                continue;
+            }
+            LocalDate day = day(order.getDayOfWeek(),
+                    LocalDateTime.ofInstant(order.getCreatedOn(), ZoneId.systemDefault()));
+            if (!day.isBefore(today)) {
+                counts.merge(new MealCapacityKey(order.getSchool(), day, order.getMeal()),
+                        order.getQuantity() == null ? 1 : order.getQuantity(), Integer::sum);
+            }
+        }
+
+        // Portions released after the last persist are still counted here, so a restart can over-count a day.
+        // That is intentional: the ledger then turns orders away early rather than overselling the kitchen.
+        for (MealCapacityUsage usage : mealCapacityUsageRepository.findByDayGreaterThanEqual(today)) {
+            counts.merge(new MealCapacityKey(usage.getSchool(), usage.getDay(), usage.getMeal()),
+                    usage.getPortions(), Math::max);
+        }
+
+        reserved.clear();
+        counts.forEach((key, portions) -> reserved.put(key, new AtomicInteger(portions)));
+        log.info("Rebuilt meal capacity ledger with {} school, day and meal counters", reserved.size());
+    }
+
+    @Transactional
+    public int persist() {
+
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+
+        LocalDate today = LocalDate.now();
+        reserved.keySet().removeIf(key -> key.day().isBefore(today));
+        mealCapacityUsageRepository.deleteByDayBefore(today);
+
+        Map<MealCapacityKey, MealCapacityUsage> stored = mealCapacityUsageRepository.findByDayGreaterThanEqual(today)
+                .stream()
+                .collect(Collectors.toMap(usage -> new MealCapacityKey(usage.getSchool(), usage.getDay(),
+                        usage.getMeal()), Function.identity()));
+
+        LocalDateTime now = LocalDateTime.now();
+        int written = 0;
+
+        for (Map.Entry<MealCapacityKey, AtomicInteger> entry : reserved.entrySet()) {
+            int portions = entry.getValue().get();
+            MealCapacityUsage usage = stored.get(entry.getKey());
+
+            if (usage == null) {
+                usage = MealCapacityUsage.builder()
+                        .school(entry.getKey().school())
+                        .day(entry.getKey().day())
+                        .meal(entry.getKey().meal())
+                        .build();
+            } else if (usage.getPortions() == portions) {
+                continue;
+            }
+
+            usage.setPortions(portions);
+            usage.setUpdatedOn(now);
+            mealCapacityUsageRepository.save(usage);
+            written++;
+        }
+
+        if (written > 0) {
+            log.debug("Persisted {} meal capacity counters", written);
+        }
+        return written;
+    }
+
+    private Optional<MealCapacityKey> key(UUID childId, String dayOfWeek, String meal, LocalDateTime orderedOn) {
+
+        // Looked up outside the map, so a child's first order does not query under a bin lock of other children
+        String school = schools.get(childId);
+
+        if (school == null) {
+            school = childRepository.findById(childId).map(Child::getSchool).orElse(null);
+            if (school == null) {
+                return Optional.empty();
+            }
+            schools.putIfAbsent(childId, school);
+        }
+        return Optional.of(new MealCapacityKey(school, day(dayOfWeek, orderedOn), meal));
+    }
+
+    // The date an order for this week day is served on, as shown on the lunches page
+    private LocalDate day(String dayOfWeek, LocalDateTime orderedOn) {
+        return orderedOn.toLocalDate().with(TemporalAdjusters.nextOrSame(DayOfWeek.valueOf(dayOfWeek.toUpperCase())));
+    }
+}
@@ -0,0 +1,25 @@
+package app.lunch.capacity;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "lunch-svc.capacity")
+public class MealCapacityProperties {
+
+    private boolean enabled = false;
+
+    // Portions a school kitchen cooks of each meal per day, unless the meal has its own limit
+    private int defaultPortions = 300;
+
+    private Map<String, Integer> portions = new HashMap<>();
+
+    public int portionsFor(String meal) {
+        return portions.getOrDefault(meal, defaultPortions);
+    }
+}
@@ -0,0 +1,16 @@
+package app.lunch.capacity;
+
+import java.time.Instant;
+
+public interface OrderedPortions {
+
+    String getSchool();
+
+    String getDayOfWeek();
+
+    String getMeal();
+
+    Integer getQuantity();
+
+    Instant getCreatedOn();
+}
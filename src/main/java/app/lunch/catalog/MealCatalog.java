@@ -0,0 +1,36 @@
+package app.lunch.catalog;
+
+import app.lunch.client.dto.Meal;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Getter
+public class MealCatalog {
+
+    private final List<Meal> meals;
+    private final String etag;
+    private final Instant fetchedOn;
+    private final Map<String, Meal> mealsByCode;
+
+    public MealCatalog(List<Meal> meals, String etag, Instant fetchedOn) {
+        this.meals = List.copyOf(meals);
+        this.etag = etag;
+        this.fetchedOn = fetchedOn;
+        this.mealsByCode = this.meals.stream()
+                .collect(Collectors.toUnmodifiableMap(Meal::getCode, Function.identity(), (first, second) -> first));
+    }
+
+    public MealCatalog revalidated(Instant fetchedOn) {
+        return new MealCatalog(meals, etag, fetchedOn);
+    }
+
+    public Optional<Meal> find(String code) {
+        return Optional.ofNullable(mealsByCode.get(code));
+    }
+}
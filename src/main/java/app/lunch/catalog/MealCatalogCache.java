@@ -0,0 +1,75 @@
+package app.lunch.catalog;
+
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.client.dto.Meal;
+import app.lunch.client.dto.MealOption;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Component
+public class MealCatalogCache {
+
+    private static final List<Meal> FALLBACK_MEALS = Arrays.stream(MealOption.values())
+            .map(option -> new Meal(option.name(), option.getDisplayName(), null))
+            .toList();
+
+    private final LunchServiceGateway lunchServiceGateway;
+    private final MeterRegistry meterRegistry;
+    private final AtomicReference<MealCatalog> catalog = new AtomicReference<>();
+
+    public MealCatalogCache(LunchServiceGateway lunchServiceGateway, MeterRegistry meterRegistry) {
+        this.lunchServiceGateway = lunchServiceGateway;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("lunch.catalog.meals", this, cache -> cache.current().map(c -> c.getMeals().size()).orElse(0))
+                .description("Meals in the cached lunch-svc catalog")
+                .register(meterRegistry);
+    }
+
+    public Optional<MealCatalog> current() {
+        return Optional.ofNullable(catalog.get());
+    }
+
+    // Until the first fetch succeeds the page falls back to the built-in meals, without prices
+    public List<Meal> meals() {
+        return current().map(MealCatalog::getMeals).orElse(FALLBACK_MEALS);
+    }
+
+    public void refresh() {
+
+        MealCatalog cached = catalog.get();
+        ResponseEntity<List<Meal>> response = lunchServiceGateway.getMeals(cached == null ? null : cached.getEtag());
+
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            if (cached != null) {
+                catalog.compareAndSet(cached, cached.revalidated(Instant.now()));
+            }
+            meterRegistry.counter("lunch.catalog.refresh", "outcome", "not_modified").increment();
+            log.debug("Meal catalog {} is still current", cached == null ? null : cached.getEtag());
+            return;
+        }
+
+        List<Meal> meals = response.getBody() == null ? List.of() : response.getBody();
+        if (meals.isEmpty()) {
+            meterRegistry.counter("lunch.catalog.refresh", "outcome", "empty").increment();
+            log.warn("lunch-svc returned an empty meal catalog, keeping the cached one");
+            return;
+        }
+
+        MealCatalog fresh = new MealCatalog(meals, response.getHeaders().getETag(), Instant.now());
+        catalog.set(fresh);
+        meterRegistry.counter("lunch.catalog.refresh", "outcome", "modified").increment();
+        log.info("Loaded meal catalog {} with {} meals", fresh.getEtag(), meals.size());
+    }
+}
@@ -2,25 +2,50 @@ package app.lunch.client;
 
 import app.lunch.client.dto.LunchOrder;
 import app.lunch.client.dto.LunchOrderRequest;
+import app.lunch.client.dto.Meal;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
-@FeignClient(name = "lunch-service", url = "${lunch-svc.base-url}")
+@FeignClient(name = "lunch-service", url = "${lunch-svc.base-url}",
+        configuration = LunchServiceClientConfiguration.class)
 public interface LunchServiceClient {
 
     @GetMapping("/children/{childId}/lunches")
     List<LunchOrder> getLunches(@PathVariable UUID childId);
 
+    @GetMapping("/children/{childId}/lunches")
+    List<LunchOrder> findLunches(@PathVariable UUID childId,
+                                 @RequestParam(value = "status", required = false) String status,
+                                 @RequestParam(value = "dayOfWeek", required = false) String dayOfWeek,
+                                 @RequestParam(value = "includeDeleted", required = false) Boolean includeDeleted);
+
+    @GetMapping("/children/{childId}/lunches/{lunchId}")
+    LunchOrder getLunch(@PathVariable UUID childId, @PathVariable UUID lunchId);
+
+    @GetMapping("/children/{childId}/lunches/occupied-days")
+    List<String> getOccupiedDays(@PathVariable UUID childId);
+
     @PostMapping("/children/{childId}/lunches")
     LunchOrder createLunch(@PathVariable UUID childId, @RequestBody LunchOrderRequest lunchRequest);
 
     @DeleteMapping("/children/{childId}/lunches/{lunchId}")
     void deleteLunch(@PathVariable UUID childId, @PathVariable UUID lunchId);
+
+    @GetMapping("/meals")
+    ResponseEntity<List<Meal>> getMeals(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String etag);
+
+    @GetMapping("/lunches/changes")
+    List<LunchOrder> getLunchChanges(@RequestParam("since") Instant since);
 }
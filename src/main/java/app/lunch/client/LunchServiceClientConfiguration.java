@@ -0,0 +1,84 @@
+package app.lunch.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import feign.Client;
+import feign.RequestInterceptor;
+import feign.codec.Decoder;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import feign.optionals.OptionalDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LunchServiceClientConfiguration {
+
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    @Bean
+    public Client lunchTransportClient(LunchTransportProperties properties,
+                                       ObjectProvider<CloseableHttpClient> httpClient5,
+                                       MeterRegistry meterRegistry) {
+
+        Client transport = switch (properties.getType()) {
+            case HC5 -> new ApacheHttp5Client(httpClient5.getObject());
+            case HTTP2 -> new Http2Client(HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(properties.getConnectTimeout())
+                    .build());
+            case JDK -> new Client.Default(null, null);
+        };
+
+        return new LunchTransportClient(transport, properties, meterRegistry);
+    }
+
+    @Bean
+    public Decoder lunchServiceDecoder(ObjectFactory<HttpMessageConverters> messageConverters,
+                                       ObjectMapper objectMapper) {
+        return new OptionalDecoder(new ResponseEntityDecoder(new SpringDecoder(
+                withSmile(messageConverters, objectMapper))));
+    }
+
+    // Request bodies stay JSON; only responses are negotiated, with JSON as the fallback
+    @Bean
+    public RequestInterceptor lunchServiceAcceptHeader(LunchTransportProperties properties) {
+        return template -> {
+            if (template.headers().containsKey(HttpHeaders.ACCEPT)) {
+                return;
+            }
+            if (properties.getWireFormat() == LunchTransportProperties.WireFormat.SMILE) {
+                template.header(HttpHeaders.ACCEPT, SMILE.toString(), "application/json;q=0.9");
+            } else {
+                template.header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+            }
+        };
+    }
+
+    public static ObjectFactory<HttpMessageConverters> withSmile(ObjectFactory<HttpMessageConverters> messageConverters,
+                                                                 ObjectMapper objectMapper) {
+
+        MappingJackson2SmileHttpMessageConverter smile = new MappingJackson2SmileHttpMessageConverter(
+                objectMapper.copyWith(new SmileFactory()));
+
+        return () -> {
+            List<HttpMessageConverter<?>> converters = new ArrayList<>();
+            converters.add(smile);
+            converters.addAll(messageConverters.getObject().getConverters());
+            return new HttpMessageConverters(false, converters);
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package app.lunch.client;
+
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.client.dto.LunchOrderRequest;
+import app.lunch.client.dto.Meal;
+import app.lunch.resilience.AdaptiveConcurrencyLimiter;
+import app.lunch.resilience.HedgedReadExecutor;
+import app.lunch.resilience.SingleFlight;
+import feign.FeignException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class LunchServiceGateway {
+
+    private final LunchServiceClient lunchServiceClient;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final HedgedReadExecutor hedgedReadExecutor;
+    private final SingleFlight singleFlight;
+
+    public LunchServiceGateway(LunchServiceClient lunchServiceClient,
+                               CircuitBreakerRegistry circuitBreakerRegistry,
+                               AdaptiveConcurrencyLimiter concurrencyLimiter,
+                               HedgedReadExecutor hedgedReadExecutor,
+                               SingleFlight singleFlight) {
+        this.lunchServiceClient = lunchServiceClient;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.hedgedReadExecutor = hedgedReadExecutor;
+        this.singleFlight = singleFlight;
+    }
+
+    public List<LunchOrder> getLunches(UUID childId) {
+        return read("getLunches", childId, () -> lunchServiceClient.getLunches(childId));
+    }
+
+    public List<LunchOrder> findLunches(UUID childId, String status, String dayOfWeek, Boolean includeDeleted) {
+        return read("findLunches", childId + ":" + status + ":" + dayOfWeek + ":" + includeDeleted,
+                () -> lunchServiceClient.findLunches(childId, status, dayOfWeek, includeDeleted));
+    }
+
+    public LunchOrder getLunch(UUID childId, UUID lunchId) {
+        return read("getLunch", childId + ":" + lunchId, () -> lunchServiceClient.getLunch(childId, lunchId));
+    }
+
+    public List<String> getOccupiedDays(UUID childId) {
+        return read("getOccupiedDays", childId, () -> lunchServiceClient.getOccupiedDays(childId));
+    }
+
+    public LunchOrder createLunch(UUID childId, LunchOrderRequest lunchRequest) {
+        return call("createLunch", () -> lunchServiceClient.createLunch(childId, lunchRequest));
+    }
+
+    public void deleteLunch(UUID childId, UUID lunchId) {
+        call("deleteLunch", () -> {
+            lunchServiceClient.deleteLunch(childId, lunchId);
+            return null;
+        });
+    }
+
+    public List<LunchOrder> getLunchChanges(Instant since) {
+        return call("getLunchChanges", () -> lunchServiceClient.getLunchChanges(since));
+    }
+
+    // Feign treats any non-2xx status as an error, but a 304 is the expected answer to a revalidation
+    public ResponseEntity<List<Meal>> getMeals(String etag) {
+        return call("getMeals", () -> {
+            try {
+                return lunchServiceClient.getMeals(etag);
+            } catch (FeignException e) {
+                if (e.status() == HttpStatus.NOT_MODIFIED.value()) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+                }
+                throw e;
+            }
+        });
+    }
+
+    public CircuitBreaker circuitBreaker(String operation) {
+        return circuitBreakerRegistry.circuitBreaker("lunch-" + operation);
+    }
+
+    // Identical reads in flight share one call, and that call may be hedged
+    private <T> T read(String operation, Object key, Supplier<T> remoteCall) {
+        return singleFlight.execute(operation, key,
+                () -> hedgedReadExecutor.execute(operation, () -> call(operation, remoteCall)));
+    }
+
+    private <T> T call(String operation, Supplier<T> remoteCall) {
+        CircuitBreaker circuitBreaker = circuitBreaker(operation);
+
+        log.debug("Calling lunch-svc {}: circuit={}, in flight={}, limit={}", operation, circuitBreaker.getState(),
+                concurrencyLimiter.getInflight(), concurrencyLimiter.getLimit());
+
+        return concurrencyLimiter.execute(operation, CircuitBreaker.decorateSupplier(circuitBreaker, remoteCall));
+    }
+}
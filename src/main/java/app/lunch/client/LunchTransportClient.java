@@ -0,0 +1,148 @@
+package app.lunch.client;
+
+import app.deadline.Deadline;
+import app.deadline.DeadlineExceededException;
+import app.deadline.RequestDeadline;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.hc5.ApacheHttp5Client;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class LunchTransportClient implements Client {
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String GZIP = "gzip";
+
+    private final Client delegate;
+    private final LunchTransportProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final boolean delegateCompressesRequests;
+
+    public LunchTransportClient(Client delegate, LunchTransportProperties properties) {
+        this(delegate, properties, Metrics.globalRegistry);
+    }
+
+    public LunchTransportClient(Client delegate, LunchTransportProperties properties, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.delegateCompressesRequests = delegate instanceof ApacheHttp5Client;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+
+        Request.Options endpointOptions = withinDeadline(request, properties.optionsFor(endpoint(request)));
+
+        if (!properties.getCompression().isEnabled()) {
+            return delegate.execute(request, endpointOptions);
+        }
+
+        Response response = delegate.execute(compress(request), endpointOptions);
+
+        return decompress(response);
+    }
+
+    private Request.Options withinDeadline(Request request, Request.Options options) {
+
+        Optional<Deadline> deadline = RequestDeadline.current();
+
+        if (deadline.isEmpty()) {
+            return options;
+        }
+
+        long remainingMillis = deadline.get().remaining().toMillis();
+        if (remainingMillis <= 0) {
+            meterRegistry.counter("request.deadline.exceeded", "stage", "feign").increment();
+            throw new DeadlineExceededException("feign",
+                    "Request deadline exceeded before calling lunch-svc " + request.httpMethod() + " " + request.url());
+        }
+
+        return new Request.Options(
+                Math.min(options.connectTimeoutMillis(), remainingMillis), TimeUnit.MILLISECONDS,
+                Math.min(options.readTimeoutMillis(), remainingMillis), TimeUnit.MILLISECONDS,
+                options.isFollowRedirects());
+    }
+
+    private String endpoint(Request request) {
+        if (request.requestTemplate() == null || request.requestTemplate().methodMetadata() == null
+                || request.requestTemplate().methodMetadata().method() == null) {
+            return null;
+        }
+        return request.requestTemplate().methodMetadata().method().getName();
+    }
+
+    private Request compress(Request request) throws IOException {
+
+        Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(request.headers());
+        headers.putIfAbsent(ACCEPT_ENCODING, List.of(GZIP));
+
+        byte[] body = request.body();
+
+        if (body != null && body.length >= properties.getCompression().getMinRequestSize()
+                && !headers.containsKey(CONTENT_ENCODING)) {
+            // feign-hc5 gzips the entity itself once it sees the Content-Encoding header
+            if (!delegateCompressesRequests) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 2);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(body);
+                }
+                body = compressed.toByteArray();
+            }
+            headers.put(CONTENT_ENCODING, List.of(GZIP));
+            headers.remove("Content-Length");
+        }
+
+        return Request.create(request.httpMethod(), request.url(), headers, body, request.charset(),
+                request.requestTemplate());
+    }
+
+    private Response decompress(Response response) throws IOException {
+
+        Collection<String> encoding = response.headers().get(CONTENT_ENCODING);
+
+        if (response.body() == null || encoding == null || encoding.stream().noneMatch(GZIP::equalsIgnoreCase)) {
+            return response;
+        }
+
+        Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(response.headers());
+        headers.remove(CONTENT_ENCODING);
+        headers.remove("Content-Length");
+
+        return response.toBuilder()
+                .headers(headers)
+                .body(gunzip(response.body().asInputStream()), null)
+                .build();
+    }
+
+    // Client.Default inflates gzip bodies on its own but leaves the header in place
+    private InputStream gunzip(InputStream body) throws IOException {
+
+        BufferedInputStream buffered = new BufferedInputStream(body);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+
+        boolean gzipped = first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >> 8);
+        return gzipped ? new GZIPInputStream(buffered) : buffered;
+    }
+}
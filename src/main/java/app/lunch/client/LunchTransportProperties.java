@@ -0,0 +1,69 @@
+package app.lunch.client;
+
+import feign.Request;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "lunch-svc.transport")
+public class LunchTransportProperties {
+
+    private TransportType type = TransportType.HC5;
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    private Duration readTimeout = Duration.ofSeconds(5);
+
+    private Map<String, Endpoint> endpoints = new HashMap<>();
+
+    private Compression compression = new Compression();
+
+    private WireFormat wireFormat = WireFormat.SMILE;
+
+    public Request.Options optionsFor(String endpoint) {
+
+        Endpoint settings = endpoint == null ? null : endpoints.get(endpoint);
+
+        Duration connect = settings != null && settings.getConnectTimeout() != null
+                ? settings.getConnectTimeout() : connectTimeout;
+        Duration read = settings != null && settings.getReadTimeout() != null
+                ? settings.getReadTimeout() : readTimeout;
+
+        return new Request.Options(connect.toMillis(), TimeUnit.MILLISECONDS,
+                read.toMillis(), TimeUnit.MILLISECONDS, true);
+    }
+
+    public enum TransportType {
+        HC5,
+        HTTP2,
+        JDK
+    }
+
+    public enum WireFormat {
+        JSON,
+        SMILE
+    }
+
+    @Data
+    public static class Endpoint {
+
+        private Duration connectTimeout;
+
+        private Duration readTimeout;
+    }
+
+    @Data
+    public static class Compression {
+
+        private boolean enabled = true;
+
+        private int minRequestSize = 2048;
+    }
+}
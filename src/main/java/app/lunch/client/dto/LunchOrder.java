@@ -19,4 +19,5 @@ public class LunchOrder {
     private BigDecimal total;
     private String status;
     private Instant createdOn;
+    private Instant updatedOn;
 }
@@ -9,6 +9,8 @@ import java.util.UUID;
 @Builder
 public class LunchOrderRequest {
 
+    private UUID orderId;
+
     private UUID parentId;
 
     private UUID childId;
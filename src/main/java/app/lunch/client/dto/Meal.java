@@ -0,0 +1,16 @@
+package app.lunch.client.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Meal {
+    private String code;
+    private String displayName;
+    private BigDecimal unitPrice;
+}
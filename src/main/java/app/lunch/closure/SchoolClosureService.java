@@ -0,0 +1,321 @@
+package app.lunch.closure;
+
+import app.child.repository.ChildRepository;
+import app.lunch.capacity.MealCapacityLedger;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.forecast.KitchenForecastService;
+import app.lunch.model.LunchRefund;
+import app.lunch.model.LunchRefundStatus;
+import app.lunch.model.SchoolClosure;
+import app.lunch.model.SchoolClosureStatus;
+import app.lunch.occupancy.WeeklyOccupancyIndex;
+import app.lunch.refund.LunchRefundProcessor;
+import app.lunch.refund.LunchRefundService;
+import app.lunch.repository.SchoolClosureRepository;
+import app.lunch.service.LunchReplicaService;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+public class SchoolClosureService {
+
+    private static final UUID FIRST_CHILD = new UUID(0, 0);
+    private static final String DELETED_STATUS = "DELETED";
+    private static final String COMPLETED_STATUS = "COMPLETED";
+
+    private final SchoolClosureRepository schoolClosureRepository;
+    private final ChildRepository childRepository;
+    private final LunchServiceGateway lunchServiceGateway;
+    private final LunchReplicaService lunchReplicaService;
+    private final LunchRefundService lunchRefundService;
+    private final LunchRefundProcessor lunchRefundProcessor;
+    private final MealCapacityLedger mealCapacityLedger;
+    private final WeeklyOccupancyIndex weeklyOccupancyIndex;
+    private final KitchenForecastService kitchenForecastService;
+    private final Executor lunchTaskExecutor;
+    private final int parallelism;
+    private final int chunkSize;
+    private final Duration refundHold;
+    private final Duration claimTimeout;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "school-closure");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SchoolClosureService(SchoolClosureRepository schoolClosureRepository, ChildRepository childRepository,
+                                LunchServiceGateway lunchServiceGateway, LunchReplicaService lunchReplicaService,
+                                LunchRefundService lunchRefundService, LunchRefundProcessor lunchRefundProcessor,
+                                MealCapacityLedger mealCapacityLedger, WeeklyOccupancyIndex weeklyOccupancyIndex,
+                                KitchenForecastService kitchenForecastService,
+                                @Qualifier("lunchTaskExecutor") Executor lunchTaskExecutor,
+                                @Value("${lunch-svc.closures.parallelism:8}") int parallelism,
+                                @Value("${lunch-svc.closures.chunk-size:200}") int chunkSize,
+                                @Value("${lunch-svc.closures.refund-hold:15m}") Duration refundHold,
+                                @Value("${lunch-svc.closures.claim-timeout:10m}") Duration claimTimeout,
+                                MeterRegistry meterRegistry) {
+        this.schoolClosureRepository = schoolClosureRepository;
+        this.childRepository = childRepository;
+        this.lunchServiceGateway = lunchServiceGateway;
+        this.lunchReplicaService = lunchReplicaService;
+        this.lunchRefundService = lunchRefundService;
+        this.lunchRefundProcessor = lunchRefundProcessor;
+        this.mealCapacityLedger = mealCapacityLedger;
+        this.weeklyOccupancyIndex = weeklyOccupancyIndex;
+        this.kitchenForecastService = kitchenForecastService;
+        this.lunchTaskExecutor = lunchTaskExecutor;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.refundHold = refundHold;
+        this.claimTimeout = claimTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public List<String> getSchools() {
+        return childRepository.findSchools();
+    }
+
+    public List<SchoolClosure> getRecentClosures() {
+        return schoolClosureRepository.findTop20ByOrderByStartedOnDesc();
+    }
+
+    // Closures run one at a time in the background; the admin page polls their progress
+    public SchoolClosure start(String school, LocalDate day) {
+
+        SchoolClosure closure = open(school, day);
+        coordinator.execute(() -> run(closure));
+        return closure;
+    }
+
+    public SchoolClosure open(String school, LocalDate day) {
+
+        if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Lunches are not served on weekends.");
+        }
+        if (day.isBefore(LocalDate.now())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Lunches of past days cannot be cancelled.");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        SchoolClosure existing = schoolClosureRepository.findBySchoolAndDay(school, day).orElse(null);
+
+        if (existing != null) {
+            if (schoolClosureRepository.restart(existing.getId(), now, now.minus(claimTimeout)) == 0) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Lunches of this school for that day are already being cancelled.");
+            }
+            return schoolClosureRepository.findById(existing.getId()).orElseThrow();
+        }
+
+        try {
+            return schoolClosureRepository.saveAndFlush(SchoolClosure.builder()
+                    .school(school)
+                    .day(day)
+                    .status(SchoolClosureStatus.RUNNING)
+                    .refunded(BigDecimal.ZERO)
+                    .startedOn(now)
+                    .updatedOn(now)
+                    .claimedOn(now)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Lunches of this school for that day are already being cancelled.");
+        }
+    }
+
+    public SchoolClosure run(SchoolClosure closure) {
+
+        log.info("Cancelling lunches of {} for {}", closure.getSchool(), closure.getDay());
+        SchoolClosureStatus status = SchoolClosureStatus.COMPLETED;
+
+        try {
+            UUID after = FIRST_CHILD;
+            while (true) {
+                List<UUID> childIds = childRepository.findIdsBySchool(closure.getSchool(), after,
+                        PageRequest.of(0, chunkSize));
+
+                if (childIds.isEmpty()) {
+                    break;
+                }
+
+                cancelChunk(closure, childIds);
+                after = childIds.get(childIds.size() - 1);
+            }
+        } catch (RuntimeException e) {
+            log.error("Cancelling lunches of {} for {} failed", closure.getSchool(), closure.getDay(), e);
+            status = SchoolClosureStatus.FAILED;
+        }
+
+        // Refunds were held back until now, so the processor makes a single credit per wallet
+        lunchRefundService.releaseBatch(closure.getId());
+        try {
+            lunchRefundProcessor.process();
+        } catch (RuntimeException e) {
+            log.warn("Refunds of closure {} are left to the refund worker: {}", closure.getId(), e.getMessage());
+        }
+
+        List<LunchRefund> refunds = lunchRefundService.getBatch(closure.getId()).stream()
+                .filter(refund -> refund.getStatus() != LunchRefundStatus.HELD)
+                .toList();
+        schoolClosureRepository.finish(closure.getId(), status,
+                (int) refunds.stream().map(LunchRefund::getWalletId).distinct().count(),
+                refunds.stream().map(LunchRefund::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add),
+                LocalDateTime.now());
+
+        meterRegistry.counter("lunch.closures", "outcome", status.name().toLowerCase()).increment();
+        SchoolClosure finished = schoolClosureRepository.findById(closure.getId()).orElseThrow();
+        log.info("Closure of {} for {} is {}: {} of {} lunches cancelled, {} failed", finished.getSchool(),
+                finished.getDay(), status, finished.getCancelled(), finished.getOrders(), finished.getFailed());
+        return finished;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+    }
+
+    // Children of the chunk are drained by a bounded number of lanes, so lunch-svc sees at most that many deletes
+    private void cancelChunk(SchoolClosure closure, List<UUID> childIds) {
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger orders = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Runnable lane = () -> {
+            int index;
+            while ((index = next.getAndIncrement()) < childIds.size()) {
+                cancelChild(closure, childIds.get(index), orders, cancelled, failed);
+            }
+        };
+
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (int i = 0; i < Math.min(parallelism, childIds.size()); i++) {
+            try {
+                running.add(CompletableFuture.runAsync(lane, lunchTaskExecutor));
+            } catch (RejectedExecutionException e) {
+                log.debug("Lunch executor is saturated, running school closure lane on the caller");
+                lane.run();
+            }
+        }
+
+        CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).join();
+
+        schoolClosureRepository.progress(closure.getId(), childIds.size(), orders.get(), cancelled.get(),
+                failed.get(), LocalDateTime.now());
+    }
+
+    private void cancelChild(SchoolClosure closure, UUID childId, AtomicInteger orders, AtomicInteger cancelled,
+                             AtomicInteger failed) {
+
+        String dayOfWeek = closure.getDay().getDayOfWeek().name();
+        List<LunchOrder> lunches;
+        try {
+            lunches = lunchReplicaService.findLunches(childId)
+                    .orElseGet(() -> lunchServiceGateway.findLunches(childId, null, dayOfWeek, false));
+        } catch (RuntimeException e) {
+            log.warn("Lunches of child {} could not be read for closure {}: {}", childId, closure.getId(),
+                    e.getMessage());
+            failed.incrementAndGet();
+            return;
+        }
+
+        List<LunchOrder> affected = lunches.stream()
+                .filter(lunch -> dayOfWeek.equalsIgnoreCase(lunch.getDayOfWeek()))
+                .filter(lunch -> !DELETED_STATUS.equalsIgnoreCase(lunch.getStatus())
+                        && !COMPLETED_STATUS.equalsIgnoreCase(lunch.getStatus()))
+                .filter(lunch -> closure.getDay().equals(servedOn(lunch)))
+                .toList();
+
+        for (LunchOrder lunch : affected) {
+            orders.incrementAndGet();
+            if (cancel(closure, childId, lunch)) {
+                cancelled.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+        }
+
+        if (!affected.isEmpty()) {
+            weeklyOccupancyIndex.invalidate(childId);
+        }
+    }
+
+    private boolean cancel(SchoolClosure closure, UUID childId, LunchOrder lunch) {
+
+        boolean refundable = lunch.getWalletId() != null && lunch.getTotal() != null && lunch.getTotal().signum() > 0;
+        boolean held = refundable && lunchRefundService.hold(lunch.getId(), childId, lunch.getWalletId(),
+                lunch.getTotal(), closure.getId());
+
+        try {
+            lunchServiceGateway.deleteLunch(childId, lunch.getId());
+        } catch (RuntimeException e) {
+            // Only a rejected delete is known not to have happened; other holds are checked by the reconciler
+            if (held && e instanceof FeignException feign && feign.status() >= 400 && feign.status() < 500) {
+                lunchRefundService.discard(lunch.getId());
+            }
+            log.warn("Lunch order {} could not be cancelled for closure {}: {}", lunch.getId(), closure.getId(),
+                    e.getMessage());
+            meterRegistry.counter("lunch.closures.orders", "outcome", "failed").increment();
+            return false;
+        }
+
+        if (refundable) {
+            lunchRefundService.release(lunch.getId(), LocalDateTime.now().plus(refundHold));
+        }
+
+        if (lunch.getMeal() != null) {
+            mealCapacityLedger.release(childId, lunch.getDayOfWeek(), lunch.getMeal(),
+                    lunch.getQuantity() == null ? 1 : lunch.getQuantity(), orderedOn(lunch));
+        }
+        kitchenForecastService.recordCancelled(lunch.getId());
+
+        try {
+            lunchReplicaService.remove(lunch.getId());
+        } catch (RuntimeException e) {
+            log.warn("Failed to remove lunch order {} from the replica, the next sync will catch up: {}",
+                    lunch.getId(), e.getMessage());
+        }
+
+        meterRegistry.counter("lunch.closures.orders", "outcome", "cancelled").increment();
+        return true;
+    }
+
+    private LocalDate servedOn(LunchOrder lunch) {
+        return orderedOn(lunch).toLocalDate()
+                .with(TemporalAdjusters.nextOrSame(DayOfWeek.valueOf(lunch.getDayOfWeek().toUpperCase())));
+    }
+
+    private LocalDateTime orderedOn(LunchOrder lunch) {
+        return lunch.getCreatedOn() == null ? LocalDateTime.now()
+                : LocalDateTime.ofInstant(lunch.getCreatedOn(), ZoneId.systemDefault());
+    }
+}
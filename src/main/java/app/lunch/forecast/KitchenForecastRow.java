@@ -0,0 +1,6 @@
+package app.lunch.forecast;
+
+import java.time.LocalDate;
+
+public record KitchenForecastRow(String school, LocalDate day, String meal, int portions) {
+}
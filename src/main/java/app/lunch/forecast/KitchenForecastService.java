@@ -0,0 +1,306 @@
+package app.lunch.forecast;
+
+import app.child.model.Child;
+import app.child.repository.ChildRepository;
+import app.lunch.capacity.MealCapacityKey;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.client.dto.LunchOrder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+public class KitchenForecastService {
+
+    private static final UUID FIRST_CHILD = new UUID(0, 0);
+    private static final String UNKNOWN_SCHOOL = "";
+    private static final String DELETED_STATUS = "DELETED";
+    private static final int HORIZON_DAYS = 7;
+
+    private final ChildRepository childRepository;
+    private final LunchServiceGateway lunchServiceGateway;
+    private final Executor lunchTaskExecutor;
+    private final int parallelism;
+    private final int chunkSize;
+    private final MeterRegistry meterRegistry;
+    private final Map<UUID, Portion> portions = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<UUID>> ordersByChild = new ConcurrentHashMap<>();
+    private final Map<MealCapacityKey, AtomicInteger> totals = new ConcurrentHashMap<>();
+    private final Map<UUID, String> schools = new ConcurrentHashMap<>();
+    private final AtomicBoolean recomputing = new AtomicBoolean();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Forecast forecast;
+    private volatile LocalDateTime recomputedOn;
+
+    public KitchenForecastService(ChildRepository childRepository, LunchServiceGateway lunchServiceGateway,
+                                  @Qualifier("lunchTaskExecutor") Executor lunchTaskExecutor,
+                                  @Value("${lunch-svc.forecast.parallelism:8}") int parallelism,
+                                  @Value("${lunch-svc.forecast.chunk-size:200}") int chunkSize,
+                                  MeterRegistry meterRegistry) {
+        this.childRepository = childRepository;
+        this.lunchServiceGateway = lunchServiceGateway;
+        this.lunchTaskExecutor = lunchTaskExecutor;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("lunch.forecast.orders", portions, Map::size)
+                .description("Lunch orders of the coming week counted in the kitchen forecast")
+                .register(meterRegistry);
+    }
+
+    // Served from the local aggregates only; the sorted rows are kept until the next change bumps the version
+    public List<KitchenForecastRow> getForecast() {
+
+        LocalDate today = LocalDate.now();
+        long current = version.get();
+        Forecast cached = forecast;
+        if (cached != null && cached.version() == current && today.equals(cached.day())) {
+            return cached.rows();
+        }
+
+        List<KitchenForecastRow> rows = totals.entrySet().stream()
+                .filter(total -> total.getValue().get() > 0 && !total.getKey().day().isBefore(today))
+                .map(total -> new KitchenForecastRow(total.getKey().school(), total.getKey().day(),
+                        total.getKey().meal(), total.getValue().get()))
+                .sorted(Comparator.comparing(KitchenForecastRow::day)
+                        .thenComparing(KitchenForecastRow::school)
+                        .thenComparing(KitchenForecastRow::meal))
+                .toList();
+
+        forecast = new Forecast(current, today, rows);
+        return rows;
+    }
+
+    public String getForecastCsv() {
+
+        StringBuilder csv = new StringBuilder("school,day,meal,portions\n");
+        for (KitchenForecastRow row : getForecast()) {
+            csv.append(csvValue(row.school())).append(',')
+                    .append(row.day()).append(',')
+                    .append(csvValue(row.meal())).append(',')
+                    .append(row.portions()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    public LocalDateTime getRecomputedOn() {
+        return recomputedOn;
+    }
+
+    // Each order is counted once by id, so a create recorded again by the reconciler adds up once
+    public void recordOrdered(LunchOrder lunchOrder) {
+
+        if (lunchOrder == null || lunchOrder.getId() == null) {
+            return;
+        }
+        if (DELETED_STATUS.equalsIgnoreCase(lunchOrder.getStatus())) {
+            recordCancelled(lunchOrder.getId());
+            return;
+        }
+
+        Portion portion;
+        try {
+            portion = portion(lunchOrder);
+        } catch (RuntimeException e) {
+            // The order was placed all the same; the next recompute counts it
+            log.warn("Lunch order {} could not be added to the kitchen forecast: {}", lunchOrder.getId(),
+                    e.getMessage());
+            return;
+        }
+        if (portion == null) {
+            recordCancelled(lunchOrder.getId());
+            return;
+        }
+
+        Portion previous = portions.put(lunchOrder.getId(), portion);
+        if (previous != null) {
+            subtract(previous);
+        }
+        ordersByChild.computeIfAbsent(portion.childId(), id -> ConcurrentHashMap.newKeySet()).add(lunchOrder.getId());
+        totals.computeIfAbsent(portion.key(), key -> new AtomicInteger()).addAndGet(portion.portions());
+        version.incrementAndGet();
+    }
+
+    public void recordCancelled(UUID lunchOrderId) {
+
+        if (lunchOrderId == null) {
+            return;
+        }
+
+        Portion removed = portions.remove(lunchOrderId);
+        if (removed != null) {
+            subtract(removed);
+            Set<UUID> orders = ordersByChild.get(removed.childId());
+            if (orders != null) {
+                orders.remove(lunchOrderId);
+            }
+            version.incrementAndGet();
+        }
+    }
+
+    public void replaceChild(UUID childId, List<LunchOrder> lunches) {
+
+        Set<UUID> previous = ordersByChild.remove(childId);
+        if (previous != null) {
+            previous.forEach(this::recordCancelled);
+        }
+        lunches.forEach(this::recordOrdered);
+    }
+
+    // Children are read from lunch-svc in parallel lanes; orders placed meanwhile are recorded as they happen
+    public int recompute() {
+
+        if (!recomputing.compareAndSet(false, true)) {
+            log.debug("Kitchen forecast is already being recomputed");
+            return 0;
+        }
+
+        try {
+            long started = System.nanoTime();
+            Set<UUID> visited = ConcurrentHashMap.newKeySet();
+
+            for (String school : childRepository.findSchools()) {
+                UUID after = FIRST_CHILD;
+                while (true) {
+                    List<UUID> childIds = childRepository.findIdsBySchool(school, after, PageRequest.of(0, chunkSize));
+                    if (childIds.isEmpty()) {
+                        break;
+                    }
+                    childIds.forEach(childId -> schools.put(childId, school));
+                    recomputeChunk(childIds, visited);
+                    after = childIds.get(childIds.size() - 1);
+                }
+            }
+
+            // Children that left every school, and days that have passed, drop out of the forecast
+            for (UUID childId : List.copyOf(ordersByChild.keySet())) {
+                if (!visited.contains(childId)) {
+                    replaceChild(childId, List.of());
+                }
+            }
+            LocalDate today = LocalDate.now();
+            List.copyOf(portions.entrySet()).stream()
+                    .filter(entry -> entry.getValue().key().day().isBefore(today))
+                    .forEach(entry -> recordCancelled(entry.getKey()));
+            totals.entrySet().removeIf(total -> total.getValue().get() <= 0 || total.getKey().day().isBefore(today));
+            version.incrementAndGet();
+
+            recomputedOn = LocalDateTime.now();
+            meterRegistry.timer("lunch.forecast.recompute").record(System.nanoTime() - started,
+                    TimeUnit.NANOSECONDS);
+            log.info("Recomputed kitchen forecast from {} children: {} orders", visited.size(), portions.size());
+            return visited.size();
+        } finally {
+            recomputing.set(false);
+        }
+    }
+
+    public boolean isRecomputing() {
+        return recomputing.get();
+    }
+
+    private void recomputeChunk(List<UUID> childIds, Set<UUID> visited) {
+
+        AtomicInteger next = new AtomicInteger();
+        Runnable lane = () -> {
+            int index;
+            while ((index = next.getAndIncrement()) < childIds.size()) {
+                UUID childId = childIds.get(index);
+                try {
+                    replaceChild(childId, lunchServiceGateway.getLunches(childId));
+                    visited.add(childId);
+                } catch (RuntimeException e) {
+                    // The counts already held for the child stay until the next recompute
+                    visited.add(childId);
+                    meterRegistry.counter("lunch.forecast.recompute.failures").increment();
+                    log.warn("Lunches of child {} could not be read for the kitchen forecast: {}", childId,
+                            e.getMessage());
+                }
+            }
+        };
+
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (int i = 0; i < Math.min(parallelism, childIds.size()); i++) {
+            try {
+                running.add(CompletableFuture.runAsync(lane, lunchTaskExecutor));
+            } catch (RejectedExecutionException e) {
+                log.debug("Lunch executor is saturated, running kitchen forecast lane on the caller");
+                lane.run();
+            }
+        }
+
+        CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private Portion portion(LunchOrder lunchOrder) {
+
+        if (lunchOrder.getChildId() == null || lunchOrder.getDayOfWeek() == null || lunchOrder.getMeal() == null) {
+            return null;
+        }
+
+        LocalDateTime orderedOn = lunchOrder.getCreatedOn() == null ? LocalDateTime.now()
+                : LocalDateTime.ofInstant(lunchOrder.getCreatedOn(), ZoneId.systemDefault());
+        LocalDate day = orderedOn.toLocalDate()
+                .with(TemporalAdjusters.nextOrSame(DayOfWeek.valueOf(lunchOrder.getDayOfWeek().toUpperCase())));
+        LocalDate today = LocalDate.now();
+
+        if (day.isBefore(today) || !day.isBefore(today.plusDays(HORIZON_DAYS))) {
+            return null;
+        }
+
+        String school = schools.computeIfAbsent(lunchOrder.getChildId(), id -> childRepository.findById(id)
+                .map(Child::getSchool)
+                .orElse(UNKNOWN_SCHOOL));
+        if (UNKNOWN_SCHOOL.equals(school)) {
+            schools.remove(lunchOrder.getChildId());
+            return null;
+        }
+
+        return new Portion(lunchOrder.getChildId(), new MealCapacityKey(school, day, lunchOrder.getMeal()),
+                lunchOrder.getQuantity() == null ? 1 : lunchOrder.getQuantity());
+    }
+
+    private void subtract(Portion portion) {
+
+        AtomicInteger total = totals.get(portion.key());
+        if (total != null) {
+            total.addAndGet(-portion.portions());
+        }
+    }
+
+    private String csvValue(String value) {
+        return value.contains(",") || value.contains("\"") ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+    }
+
+    private record Portion(UUID childId, MealCapacityKey key, int portions) {
+    }
+
+    private record Forecast(long version, LocalDate day, List<KitchenForecastRow> rows) {
+    }
+}
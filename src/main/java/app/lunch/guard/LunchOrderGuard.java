@@ -0,0 +1,113 @@
+package app.lunch.guard;
+
+import app.lunch.model.LunchOrderReservation;
+import app.lunch.repository.LunchOrderReservationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+public class LunchOrderGuard {
+
+    private static final String ALREADY_ORDERING = "A lunch for this day is already being ordered.";
+    private static final String ALREADY_PLACING = "This lunch order is already being placed.";
+
+    private final LunchOrderReservationRepository lunchOrderReservationRepository;
+    private final boolean enabled;
+    private final Duration reservationTtl;
+    private final MeterRegistry meterRegistry;
+    private final Map<UUID, UUID> inFlight = new ConcurrentHashMap<>();
+
+    public LunchOrderGuard(LunchOrderReservationRepository lunchOrderReservationRepository,
+                           @Value("${lunch-svc.order-guard.enabled:true}") boolean enabled,
+                           @Value("${lunch-svc.order-guard.reservation-ttl:30s}") Duration reservationTtl,
+                           MeterRegistry meterRegistry) {
+        this.lunchOrderReservationRepository = lunchOrderReservationRepository;
+        this.enabled = enabled;
+        this.reservationTtl = reservationTtl;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("lunch.order.guard.inflight", inFlight, Map::size)
+                .description("Lunch orders currently being placed by this instance")
+                .register(meterRegistry);
+    }
+
+    // The in-process map turns away a second click without a query; the reservation covers other nodes
+    public void acquire(UUID childId, String dayOfWeek, UUID orderId) {
+
+        if (!enabled) {
+            return;
+        }
+
+        UUID key = key(childId, dayOfWeek);
+        UUID holder = inFlight.putIfAbsent(key, orderId);
+
+        if (holder != null) {
+            meterRegistry.counter("lunch.order.guard.rejected", "source", "local").increment();
+            log.debug("Lunch order {} for child {} on {} rejected, order {} is in flight", orderId, childId,
+                    dayOfWeek, holder);
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    holder.equals(orderId) ? ALREADY_PLACING : ALREADY_ORDERING);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            lunchOrderReservationRepository.deleteExpired(key, now);
+            lunchOrderReservationRepository.saveAndFlush(LunchOrderReservation.builder()
+                    .id(key)
+                    .childId(childId)
+                    .dayOfWeek(dayOfWeek.toUpperCase())
+                    .orderId(orderId)
+                    .expiresOn(now.plus(reservationTtl))
+                    .createdOn(now)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            inFlight.remove(key, orderId);
+            meterRegistry.counter("lunch.order.guard.rejected", "source", "reservation").increment();
+            log.debug("Lunch order {} for child {} on {} rejected, another node holds the reservation", orderId,
+                    childId, dayOfWeek);
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ALREADY_ORDERING);
+        } catch (RuntimeException e) {
+            inFlight.remove(key, orderId);
+            throw e;
+        }
+    }
+
+    public void release(UUID childId, String dayOfWeek, UUID orderId) {
+
+        if (!enabled) {
+            return;
+        }
+
+        UUID key = key(childId, dayOfWeek);
+        try {
+            lunchOrderReservationRepository.release(key, orderId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release the reservation of lunch order {}, it expires on its own: {}", orderId,
+                    e.getMessage());
+        } finally {
+            inFlight.remove(key, orderId);
+        }
+    }
+
+    public int deleteExpiredReservations() {
+        return enabled ? lunchOrderReservationRepository.deleteAllExpired(LocalDateTime.now()) : 0;
+    }
+
+    private UUID key(UUID childId, String dayOfWeek) {
+        return UUID.nameUUIDFromBytes((childId + ":" + dayOfWeek.toUpperCase()).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,279 @@
+package app.lunch.intake;
+
+import app.deadline.DeadlineExceededException;
+import app.expetion.ClientErrorException;
+import app.expetion.DomainException;
+import app.lunch.model.LunchOrderIntake;
+import app.lunch.model.LunchOrderIntakeStatus;
+import app.lunch.repository.LunchOrderIntakeRepository;
+import app.lunch.resilience.ConcurrencyLimitExceededException;
+import app.lunch.resilience.LunchRetryListener;
+import app.lunch.service.LunchService;
+import app.web.dto.LunchRequest;
+import app.web.util.ErrorMessageExtractor;
+import feign.FeignException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+@Slf4j
+@Service
+public class LunchOrderIntakeService {
+
+    private static final String NOT_RESPONDING = "The lunch service is not responding. Please try again later.";
+
+    private final LunchOrderIntakeRepository lunchOrderIntakeRepository;
+    private final LunchService lunchService;
+    private final ErrorMessageExtractor errorMessageExtractor;
+    private final Executor lunchTaskExecutor;
+    private final boolean enabled;
+    private final int workers;
+    private final long permitIntervalNanos;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration processingTimeout;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong nextPermitNanos = new AtomicLong(System.nanoTime());
+
+    public LunchOrderIntakeService(LunchOrderIntakeRepository lunchOrderIntakeRepository, LunchService lunchService,
+                                   ErrorMessageExtractor errorMessageExtractor,
+                                   @Qualifier("lunchTaskExecutor") Executor lunchTaskExecutor,
+                                   @Value("${lunch-svc.intake.enabled:false}") boolean enabled,
+                                   @Value("${lunch-svc.intake.workers:4}") int workers,
+                                   @Value("${lunch-svc.intake.rate-per-second:20}") double ratePerSecond,
+                                   @Value("${lunch-svc.intake.batch-size:100}") int batchSize,
+                                   @Value("${lunch-svc.intake.max-attempts:5}") int maxAttempts,
+                                   @Value("${lunch-svc.intake.processing-timeout:2m}") Duration processingTimeout,
+                                   MeterRegistry meterRegistry) {
+        this.lunchOrderIntakeRepository = lunchOrderIntakeRepository;
+        this.lunchService = lunchService;
+        this.errorMessageExtractor = errorMessageExtractor;
+        this.lunchTaskExecutor = lunchTaskExecutor;
+        this.enabled = enabled;
+        this.workers = Math.max(1, workers);
+        this.permitIntervalNanos = (long) (1_000_000_000L / Math.max(0.1, ratePerSecond));
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.processingTimeout = processingTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Checks the cached occupancy of the child, so accepting an order rarely waits for lunch-svc
+    public LunchOrderIntake accept(UUID parentId, UUID childId, LunchRequest lunchRequest) {
+
+        LocalDateTime acceptedOn = LocalDateTime.now();
+        String dayOfWeek = lunchRequest.getDayOfWeek().toUpperCase();
+
+        if (openDays(childId).stream().noneMatch(day -> day.name().equals(dayOfWeek))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Lunch for this day can no longer be ordered.");
+        }
+
+        lunchService.quote(lunchRequest.getMeal(), lunchRequest.getQuantity());
+
+        UUID orderId = lunchRequest.getOrderId() != null ? lunchRequest.getOrderId() : UUID.randomUUID();
+
+        try {
+            LunchOrderIntake intake = lunchOrderIntakeRepository.saveAndFlush(LunchOrderIntake.builder()
+                    .id(orderId)
+                    .parentId(parentId)
+                    .childId(childId)
+                    .meal(lunchRequest.getMeal())
+                    .quantity(lunchRequest.getQuantity())
+                    .dayOfWeek(dayOfWeek)
+                    .acceptedOn(acceptedOn)
+                    .status(LunchOrderIntakeStatus.QUEUED)
+                    .updatedOn(acceptedOn)
+                    .build());
+
+            meterRegistry.counter("lunch.intake.orders", "outcome", "accepted").increment();
+            log.debug("Queued lunch order {} for child {} on {}", orderId, childId, dayOfWeek);
+            return intake;
+        } catch (DataIntegrityViolationException e) {
+            // The same form was submitted twice
+            return lunchOrderIntakeRepository.findById(orderId)
+                    .filter(existing -> existing.getChildId().equals(childId))
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.CONFLICT,
+                            "This lunch order belongs to another child."));
+        }
+    }
+
+    public List<LunchOrderIntake> getRecentOrders(UUID childId) {
+        return lunchOrderIntakeRepository.findTop10ByChildIdOrderByAcceptedOnDesc(childId);
+    }
+
+    public int drain() {
+
+        LocalDateTime now = LocalDateTime.now();
+        int requeued = lunchOrderIntakeRepository.requeueStale(now.minus(processingTimeout), now);
+        if (requeued > 0) {
+            log.warn("Queued again {} lunch orders whose worker did not finish them", requeued);
+        }
+
+        AtomicBoolean unavailable = new AtomicBoolean();
+        int processed = 0;
+
+        while (!unavailable.get()) {
+            List<LunchOrderIntake> batch = lunchOrderIntakeRepository.findByStatusOrderByAcceptedOnAscIdAsc(
+                    LunchOrderIntakeStatus.QUEUED, PageRequest.of(0, batchSize));
+
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<LunchOrderIntake> claimed = batch.stream()
+                    .filter(intake -> lunchOrderIntakeRepository.claim(intake.getId(), LunchOrderIntakeStatus.QUEUED,
+                            LunchOrderIntakeStatus.PROCESSING, LocalDateTime.now()) == 1)
+                    .toList();
+
+            processAll(claimed, unavailable);
+            processed += claimed.size();
+        }
+
+        if (processed > 0) {
+            log.info("Processed {} queued lunch orders", processed);
+        }
+        return processed;
+    }
+
+    // Workers take orders strictly in arrival order and each create waits for its slot under the rate
+    private void processAll(List<LunchOrderIntake> claimed, AtomicBoolean unavailable) {
+
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            int index;
+            while ((index = next.getAndIncrement()) < claimed.size()) {
+                LunchOrderIntake intake = claimed.get(index);
+                if (unavailable.get()) {
+                    finish(intake, LunchOrderIntakeStatus.QUEUED, null, 0);
+                    continue;
+                }
+                awaitPermit();
+                process(intake, unavailable);
+            }
+        };
+
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (int i = 0; i < Math.min(workers, claimed.size()); i++) {
+            try {
+                running.add(CompletableFuture.runAsync(worker, lunchTaskExecutor));
+            } catch (RejectedExecutionException e) {
+                log.debug("Lunch executor is saturated, running lunch order intake worker on the caller");
+                worker.run();
+            }
+        }
+
+        CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void process(LunchOrderIntake intake, AtomicBoolean unavailable) {
+
+        meterRegistry.timer("lunch.intake.wait").record(Duration.between(intake.getAcceptedOn(), LocalDateTime.now()));
+
+        LunchRequest lunchRequest = new LunchRequest();
+        lunchRequest.setOrderId(intake.getId());
+        lunchRequest.setMeal(intake.getMeal());
+        lunchRequest.setQuantity(intake.getQuantity());
+        lunchRequest.setDayOfWeek(intake.getDayOfWeek());
+
+        try {
+            lunchService.createLunch(intake.getParentId(), intake.getChildId(), lunchRequest);
+            finish(intake, LunchOrderIntakeStatus.PLACED, null, 1);
+        } catch (RuntimeException e) {
+            if (!isUnavailable(e)) {
+                finish(intake, LunchOrderIntakeStatus.FAILED, message(e), 1);
+                return;
+            }
+
+            unavailable.set(true);
+            if (intake.getAttempts() + 1 >= maxAttempts) {
+                finish(intake, LunchOrderIntakeStatus.FAILED, NOT_RESPONDING, 1);
+            } else {
+                finish(intake, LunchOrderIntakeStatus.QUEUED, null, 1);
+                log.debug("lunch-svc is unavailable, lunch order {} stays queued: {}", intake.getId(),
+                        e.getMessage());
+            }
+        }
+    }
+
+    // While lunch-svc cannot be asked only the calendar is checked. Placing the order does not check the day again:
+    // the cutoff is honoured at arrival, so an order accepted before 10:00 is placed even if that is later
+    private List<DayOfWeek> openDays(UUID childId) {
+        try {
+            return lunchService.getAvailableDaysForLunch(childId);
+        } catch (RuntimeException e) {
+            log.debug("Occupied days of child {} are unavailable, accepting on the calendar: {}", childId,
+                    e.getMessage());
+            return lunchService.getAvailableDaysForLunch(List.of());
+        }
+    }
+
+    private void finish(LunchOrderIntake intake, LunchOrderIntakeStatus status, String message, int tried) {
+
+        lunchOrderIntakeRepository.finish(intake.getId(), status, message, tried, LocalDateTime.now());
+        meterRegistry.counter("lunch.intake.orders", "outcome", status.name().toLowerCase()).increment();
+    }
+
+    private void awaitPermit() {
+
+        long now = System.nanoTime();
+        long permit = Math.max(now, nextPermitNanos.getAndAccumulate(now,
+                (next, current) -> Math.max(next, current) + permitIntervalNanos));
+
+        if (permit > now) {
+            LockSupport.parkNanos(permit - now);
+        }
+    }
+
+    private boolean isUnavailable(RuntimeException e) {
+        return e instanceof ResponseStatusException statusException
+                && statusException.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE
+                || LunchRetryListener.isTransient(e)
+                || e instanceof CallNotPermittedException
+                || e instanceof ConcurrencyLimitExceededException
+                || e instanceof DeadlineExceededException;
+    }
+
+    private String message(RuntimeException e) {
+
+        if (e instanceof ClientErrorException clientError) {
+            return errorMessageExtractor.extractErrorMessage(clientError.getFeignException());
+        }
+        if (e instanceof FeignException feignException) {
+            return errorMessageExtractor.extractErrorMessage(feignException);
+        }
+        if (e instanceof ResponseStatusException statusException) {
+            return statusException.getReason();
+        }
+        if (e instanceof DomainException) {
+            return e.getMessage();
+        }
+        log.warn("Queued lunch order failed unexpectedly", e);
+        return "An error occurred while creating lunch. Please try again later.";
+    }
+}
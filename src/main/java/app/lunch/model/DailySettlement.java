@@ -0,0 +1,54 @@
+package app.lunch.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "daily_settlement", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_daily_settlement_day", columnNames = {"served_on"})
+})
+public class DailySettlement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "served_on", nullable = false)
+    private LocalDate day;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DailySettlementStatus status;
+
+    // Checkpoint: the lunches of every child up to and including this one are settled
+    private UUID lastChildId;
+
+    private int children;
+
+    private int orders;
+
+    private int portions;
+
+    @Column(nullable = false)
+    private BigDecimal total;
+
+    private LocalDateTime claimedOn;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+
+    private LocalDateTime finishedOn;
+}
@@ -0,0 +1,7 @@
+package app.lunch.model;
+
+public enum DailySettlementStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED
+}
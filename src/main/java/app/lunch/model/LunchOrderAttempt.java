@@ -0,0 +1,57 @@
+package app.lunch.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "lunch_order_attempt", indexes = {
+        @Index(name = "idx_lunch_order_attempt_status_updated", columnList = "status, updatedOn")
+})
+public class LunchOrderAttempt {
+
+    // The client-generated lunch order id, sent to lunch-svc with every try
+    @Id
+    private UUID id;
+
+    // Lets Spring Data persist rather than merge, so a second attempt with the same id is rejected
+    @Version
+    private Long version;
+
+    @Column(nullable = false)
+    private UUID parentId;
+
+    @Column(nullable = false)
+    private UUID childId;
+
+    @Column(nullable = false)
+    private UUID walletId;
+
+    private UUID holdId;
+
+    private String meal;
+
+    private Integer quantity;
+
+    private String dayOfWeek;
+
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LunchOrderAttemptStatus status;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+}
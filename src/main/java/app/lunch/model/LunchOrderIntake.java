@@ -0,0 +1,58 @@
+package app.lunch.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "lunch_order_intake", indexes = {
+        @Index(name = "idx_lunch_order_intake_status_accepted", columnList = "status, acceptedOn"),
+        @Index(name = "idx_lunch_order_intake_child_accepted", columnList = "childId, acceptedOn")
+})
+public class LunchOrderIntake {
+
+    // The lunch order id, so the worker's create is idempotent like a direct order
+    @Id
+    private UUID id;
+
+    @Version
+    private Long version;
+
+    @Column(nullable = false)
+    private UUID parentId;
+
+    @Column(nullable = false)
+    private UUID childId;
+
+    @Column(nullable = false)
+    private String meal;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(nullable = false)
+    private String dayOfWeek;
+
+    // Arrival time: the cutoff was checked against it and the queue is drained in this order
+    @Column(nullable = false)
+    private LocalDateTime acceptedOn;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LunchOrderIntakeStatus status;
+
+    private int attempts;
+
+    @Column(length = 500)
+    private String message;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+}
@@ -0,0 +1,9 @@
+package app.lunch.model;
+
+public enum LunchOrderIntakeStatus {
+
+    QUEUED,
+    PROCESSING,
+    PLACED,
+    FAILED
+}
@@ -0,0 +1,51 @@
+package app.lunch.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "lunch_order", indexes = {
+        @Index(name = "idx_lunch_order_child", columnList = "childId"),
+        @Index(name = "idx_lunch_order_updated", columnList = "updatedOn")
+})
+public class LunchOrderReplica {
+
+    @Id
+    private UUID id;
+
+    private UUID parentId;
+
+    private UUID walletId;
+
+    @Column(nullable = false)
+    private UUID childId;
+
+    private String meal;
+
+    private Integer quantity;
+
+    private String dayOfWeek;
+
+    private BigDecimal unitPrice;
+
+    private BigDecimal total;
+
+    private String status;
+
+    private Instant createdOn;
+
+    private Instant updatedOn;
+
+    @Column(nullable = false)
+    private LocalDateTime syncedOn;
+}
@@ -0,0 +1,41 @@
+package app.lunch.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "lunch_order_reservation", indexes = {
+        @Index(name = "idx_lunch_order_reservation_expires", columnList = "expiresOn")
+})
+public class LunchOrderReservation {
+
+    // Derived from the child and the week day, so a second node placing the same lunch collides on insert
+    @Id
+    private UUID id;
+
+    @Version
+    private Long version;
+
+    @Column(nullable = false)
+    private UUID childId;
+
+    @Column(nullable = false)
+    private String dayOfWeek;
+
+    @Column(nullable = false)
+    private UUID orderId;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresOn;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+}
@@ -0,0 +1,59 @@
+package app.lunch.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "lunch_refund", indexes = {
+        @Index(name = "idx_lunch_refund_status_created", columnList = "status, createdOn"),
+        @Index(name = "idx_lunch_refund_batch", columnList = "batchId")
+})
+public class LunchRefund {
+
+    // The cancelled lunch order id, so a lunch is refunded at most once
+    @Id
+    private UUID id;
+
+    @Version
+    private Long version;
+
+    @Column(nullable = false)
+    private UUID childId;
+
+    @Column(nullable = false)
+    private UUID walletId;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LunchRefundStatus status;
+
+    private int attempts;
+
+    @Column(length = 500)
+    private String message;
+
+    private UUID transactionId;
+
+    // Refunds of one bulk cancellation wait for it to finish, so each wallet gets a single credit
+    private UUID batchId;
+
+    private LocalDateTime availableOn;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+}
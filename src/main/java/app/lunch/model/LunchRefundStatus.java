@@ -0,0 +1,9 @@
+package app.lunch.model;
+
+public enum LunchRefundStatus {
+    HELD,
+    PENDING,
+    PROCESSING,
+    REFUNDED,
+    FAILED
+}
@@ -0,0 +1,46 @@
+package app.lunch.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "lunch_settlement", indexes = {
+        @Index(name = "idx_lunch_settlement_child", columnList = "childId"),
+        @Index(name = "idx_lunch_settlement_day", columnList = "served_on")
+})
+public class LunchSettlement {
+
+    // The lunch order id: an order is settled at most once
+    @Id
+    private UUID id;
+
+    @Version
+    private Long version;
+
+    @Column(nullable = false)
+    private UUID childId;
+
+    private UUID walletId;
+
+    @Column(name = "served_on", nullable = false)
+    private LocalDate day;
+
+    private String meal;
+
+    private int quantity;
+
+    private BigDecimal total;
+
+    @Column(nullable = false)
+    private LocalDateTime settledOn;
+}
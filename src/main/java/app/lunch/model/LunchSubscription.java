@@ -0,0 +1,46 @@
+package app.lunch.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "lunch_subscription", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_lunch_subscription_child_day", columnNames = {"childId", "dayOfWeek"})
+}, indexes = {
+        @Index(name = "idx_lunch_subscription_parent", columnList = "parentId")
+})
+public class LunchSubscription {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID parentId;
+
+    @Column(nullable = false)
+    private UUID childId;
+
+    @Column(nullable = false)
+    private String dayOfWeek;
+
+    @Column(nullable = false)
+    private String meal;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+}
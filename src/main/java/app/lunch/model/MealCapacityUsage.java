@@ -0,0 +1,38 @@
+package app.lunch.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "meal_capacity_usage", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_meal_capacity_usage", columnNames = {"school", "served_on", "meal"})
+})
+public class MealCapacityUsage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private String school;
+
+    @Column(name = "served_on", nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private String meal;
+
+    private int portions;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+}
@@ -0,0 +1,57 @@
+package app.lunch.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "school_closure", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_school_closure_school_day", columnNames = {"school", "closed_on"})
+})
+public class SchoolClosure {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private String school;
+
+    @Column(name = "closed_on", nullable = false)
+    private LocalDate day;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SchoolClosureStatus status;
+
+    private int children;
+
+    private int orders;
+
+    private int cancelled;
+
+    private int failed;
+
+    private int wallets;
+
+    private BigDecimal refunded;
+
+    @Column(nullable = false)
+    private LocalDateTime startedOn;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+
+    private LocalDateTime claimedOn;
+
+    private LocalDateTime finishedOn;
+}
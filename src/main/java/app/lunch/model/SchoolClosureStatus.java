@@ -0,0 +1,7 @@
+package app.lunch.model;
+
+public enum SchoolClosureStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
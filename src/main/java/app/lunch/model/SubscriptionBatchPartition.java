@@ -0,0 +1,57 @@
+package app.lunch.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "subscription_batch_partition", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_subscription_batch_week_school", columnNames = {"weekStart", "school"})
+})
+public class SubscriptionBatchPartition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private LocalDate weekStart;
+
+    @Column(nullable = false)
+    private String school;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SubscriptionBatchStatus status;
+
+    // Checkpoint: every parent up to and including this one has been processed
+    private UUID lastParentId;
+
+    private int parents;
+
+    private int placed;
+
+    private int pending;
+
+    private int failed;
+
+    @Column(nullable = false)
+    private BigDecimal charged;
+
+    private LocalDateTime claimedOn;
+
+    @Column(nullable = false)
+    private LocalDateTime createdOn;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedOn;
+}
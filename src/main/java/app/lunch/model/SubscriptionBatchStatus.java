@@ -0,0 +1,8 @@
+package app.lunch.model;
+
+public enum SubscriptionBatchStatus {
+
+    PENDING,
+    RUNNING,
+    COMPLETED
+}
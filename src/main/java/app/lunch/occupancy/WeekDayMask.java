@@ -0,0 +1,58 @@
+package app.lunch.occupancy;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Bit n stands for the week day with ordinal n, so Monday is bit 0 and Sunday is bit 6
+public final class WeekDayMask {
+
+    public static final int SCHOOL_DAYS = 0b0011111;
+
+    private static final int ALL_DAYS = 0b1111111;
+
+    private WeekDayMask() {
+    }
+
+    public static int bit(DayOfWeek day) {
+        return 1 << day.ordinal();
+    }
+
+    public static int bit(String day) {
+        return day == null || day.isEmpty() ? 0 : bit(DayOfWeek.valueOf(day.toUpperCase()));
+    }
+
+    public static int of(Collection<String> days) {
+        int mask = 0;
+        for (String day : days) {
+            mask |= bit(day);
+        }
+        return mask;
+    }
+
+    // The days of the mask in the order they next come round, starting with `from`
+    public static List<DayOfWeek> days(int mask, DayOfWeek from) {
+
+        int rotated = rotate(mask, from);
+        List<DayOfWeek> days = new ArrayList<>(Integer.bitCount(rotated));
+
+        while (rotated != 0) {
+            days.add(from.plus(Integer.numberOfTrailingZeros(rotated)));
+            rotated &= rotated - 1;
+        }
+        return days;
+    }
+
+    public static Optional<DayOfWeek> first(int mask, DayOfWeek from) {
+        int rotated = rotate(mask, from);
+        return rotated == 0 ? Optional.empty() : Optional.of(from.plus(Integer.numberOfTrailingZeros(rotated)));
+    }
+
+    private static int rotate(int mask, DayOfWeek from) {
+        int days = mask & ALL_DAYS;
+        int shift = from.ordinal();
+        return (days >>> shift | days << (7 - shift)) & ALL_DAYS;
+    }
+}
@@ -0,0 +1,67 @@
+package app.lunch.occupancy;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+// The week days each child already has a lunch on, one int per child
+@Component
+public class WeeklyOccupancyIndex {
+
+    private final Cache<UUID, Integer> masks;
+    private final MeterRegistry meterRegistry;
+
+    public WeeklyOccupancyIndex(@Value("${lunch-svc.occupancy.max-size:20000}") long maxSize,
+                                @Value("${lunch-svc.occupancy.time-to-live:10m}") Duration timeToLive,
+                                MeterRegistry meterRegistry) {
+        this.masks = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("lunch.occupancy.size", masks, Cache::estimatedSize)
+                .description("Children with an indexed set of ordered week days")
+                .register(meterRegistry);
+    }
+
+    public int occupied(UUID childId, Function<UUID, List<String>> loader) {
+
+        Integer mask = masks.getIfPresent(childId);
+        if (mask != null) {
+            meterRegistry.counter("lunch.occupancy.reads", "result", "hit").increment();
+            return mask;
+        }
+
+        meterRegistry.counter("lunch.occupancy.reads", "result", "miss").increment();
+        return masks.get(childId, id -> WeekDayMask.of(loader.apply(id)));
+    }
+
+    public void markOrdered(UUID childId, String dayOfWeek) {
+        if (childId == null) {
+            return;
+        }
+        masks.asMap().computeIfPresent(childId, (id, mask) -> mask | WeekDayMask.bit(dayOfWeek));
+    }
+
+    public void replace(UUID childId, Collection<String> days) {
+        masks.put(childId, WeekDayMask.of(days));
+    }
+
+    // Another order may still hold the day, so a removal is read again from the source
+    public void invalidate(UUID childId) {
+        if (childId == null) {
+            return;
+        }
+        masks.invalidate(childId);
+    }
+}
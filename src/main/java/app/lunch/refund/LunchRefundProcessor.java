@@ -0,0 +1,107 @@
+package app.lunch.refund;
+
+import app.lunch.model.LunchRefund;
+import app.lunch.model.LunchRefundStatus;
+import app.lunch.repository.LunchRefundRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class LunchRefundProcessor {
+
+    private final LunchRefundRepository lunchRefundRepository;
+    private final LunchRefundService lunchRefundService;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration processingTimeout;
+    private final MeterRegistry meterRegistry;
+
+    public LunchRefundProcessor(LunchRefundRepository lunchRefundRepository, LunchRefundService lunchRefundService,
+                                @Value("${lunch-svc.refunds.batch-size:200}") int batchSize,
+                                @Value("${lunch-svc.refunds.max-attempts:5}") int maxAttempts,
+                                @Value("${lunch-svc.refunds.processing-timeout:2m}") Duration processingTimeout,
+                                MeterRegistry meterRegistry) {
+        this.lunchRefundRepository = lunchRefundRepository;
+        this.lunchRefundService = lunchRefundService;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.processingTimeout = processingTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public int process() {
+
+        LocalDateTime now = LocalDateTime.now();
+        int requeued = lunchRefundRepository.requeueStale(now.minus(processingTimeout), now);
+        if (requeued > 0) {
+            log.warn("Queued again {} refunds whose worker did not finish them", requeued);
+        }
+
+        int refunded = 0;
+
+        while (true) {
+            List<LunchRefund> batch = lunchRefundRepository.findAvailable(LocalDateTime.now(),
+                    PageRequest.of(0, batchSize));
+
+            List<LunchRefund> claimed = batch.stream()
+                    .filter(refund -> lunchRefundRepository.claim(refund.getId(), LocalDateTime.now()) == 1)
+                    .toList();
+
+            Map<UUID, List<LunchRefund>> byWallet = claimed.stream()
+                    .collect(Collectors.groupingBy(LunchRefund::getWalletId, LinkedHashMap::new,
+                            Collectors.toList()));
+
+            boolean failed = false;
+            for (Map.Entry<UUID, List<LunchRefund>> wallet : byWallet.entrySet()) {
+                if (refund(wallet.getKey(), wallet.getValue())) {
+                    refunded += wallet.getValue().size();
+                } else {
+                    failed = true;
+                }
+            }
+
+            // Failed refunds wait for the next run instead of being retried straight away
+            if (failed || batch.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (refunded > 0) {
+            log.info("Refunded {} deleted lunch orders", refunded);
+        }
+        return refunded;
+    }
+
+    private boolean refund(UUID walletId, List<LunchRefund> refunds) {
+
+        try {
+            lunchRefundService.refundWallet(walletId, refunds);
+            meterRegistry.counter("lunch.refunds", "outcome", "refunded").increment(refunds.size());
+            meterRegistry.counter("lunch.refunds.credits").increment();
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Refunding {} lunch orders to wallet {} failed: {}", refunds.size(), walletId, e.getMessage());
+
+            LocalDateTime now = LocalDateTime.now();
+            for (LunchRefund refund : refunds) {
+                LunchRefundStatus to = refund.getAttempts() + 1 >= maxAttempts
+                        ? LunchRefundStatus.FAILED : LunchRefundStatus.PENDING;
+                lunchRefundRepository.retry(refund.getId(), to, e.getMessage(), now);
+                meterRegistry.counter("lunch.refunds", "outcome", to.name().toLowerCase()).increment();
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package app.lunch.refund;
+
+import app.expetion.DomainException;
+import app.lunch.model.LunchRefund;
+import app.lunch.model.LunchRefundStatus;
+import app.lunch.repository.LunchRefundRepository;
+import app.lunch.repository.LunchSettlementRepository;
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.service.TransactionService;
+import app.wallet.model.Wallet;
+import app.wallet.repository.WalletRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class LunchRefundService {
+
+    private final LunchRefundRepository lunchRefundRepository;
+    private final LunchSettlementRepository lunchSettlementRepository;
+    private final WalletRepository walletRepository;
+    private final TransactionService transactionService;
+    private final MeterRegistry meterRegistry;
+    private final Duration holdTimeout;
+
+    public LunchRefundService(LunchRefundRepository lunchRefundRepository,
+                              LunchSettlementRepository lunchSettlementRepository, WalletRepository walletRepository,
+                              TransactionService transactionService, MeterRegistry meterRegistry,
+                              @Value("${lunch-svc.refunds.hold-timeout:5m}") Duration holdTimeout) {
+        this.lunchRefundRepository = lunchRefundRepository;
+        this.lunchSettlementRepository = lunchSettlementRepository;
+        this.walletRepository = walletRepository;
+        this.transactionService = transactionService;
+        this.meterRegistry = meterRegistry;
+        this.holdTimeout = holdTimeout;
+    }
+
+    // Returns false when the lunch already has a refund, e.g. a retried cancel of the same order, or was served
+    public boolean request(UUID lunchOrderId, UUID childId, UUID walletId, BigDecimal amount) {
+        return request(lunchOrderId, childId, walletId, amount, null, LocalDateTime.now());
+    }
+
+    public boolean request(UUID lunchOrderId, UUID childId, UUID walletId, BigDecimal amount, UUID batchId,
+                           LocalDateTime availableOn) {
+        return record(lunchOrderId, childId, walletId, amount, LunchRefundStatus.PENDING, batchId, availableOn);
+    }
+
+    // Recorded before lunch-svc is asked to delete the order; it is paid only once the delete is confirmed
+    public boolean hold(UUID lunchOrderId, UUID childId, UUID walletId, BigDecimal amount) {
+        return hold(lunchOrderId, childId, walletId, amount, null);
+    }
+
+    public boolean hold(UUID lunchOrderId, UUID childId, UUID walletId, BigDecimal amount, UUID batchId) {
+        return record(lunchOrderId, childId, walletId, amount, LunchRefundStatus.HELD, batchId,
+                LocalDateTime.now().plus(holdTimeout));
+    }
+
+    public boolean release(UUID lunchOrderId) {
+        return release(lunchOrderId, LocalDateTime.now());
+    }
+
+    public boolean release(UUID lunchOrderId, LocalDateTime availableOn) {
+        return lunchRefundRepository.release(lunchOrderId, availableOn, LocalDateTime.now()) == 1;
+    }
+
+    public boolean discard(UUID lunchOrderId) {
+        return lunchRefundRepository.discard(lunchOrderId) == 1;
+    }
+
+    // Holds whose delete never reported back, e.g. the node died or every retry failed
+    public List<LunchRefund> findExpiredHolds(int limit) {
+        return lunchRefundRepository.findByStatusAndAvailableOnBefore(LunchRefundStatus.HELD, LocalDateTime.now(),
+                PageRequest.of(0, limit));
+    }
+
+    private boolean record(UUID lunchOrderId, UUID childId, UUID walletId, BigDecimal amount,
+                           LunchRefundStatus status, UUID batchId, LocalDateTime availableOn) {
+
+        if (lunchSettlementRepository.existsById(lunchOrderId)) {
+            meterRegistry.counter("lunch.refunds", "outcome", "settled").increment();
+            log.info("Lunch order {} was already served, it is not refunded", lunchOrderId);
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+
+        try {
+            lunchRefundRepository.saveAndFlush(LunchRefund.builder()
+                    .id(lunchOrderId)
+                    .childId(childId)
+                    .walletId(walletId)
+                    .amount(amount)
+                    .status(status)
+                    .batchId(batchId)
+                    .availableOn(availableOn)
+                    .createdOn(now)
+                    .updatedOn(now)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Refund for lunch order {} was already requested", lunchOrderId);
+            return false;
+        }
+
+        meterRegistry.counter("lunch.refunds", "outcome", status == LunchRefundStatus.HELD ? "held" : "requested")
+                .increment();
+        log.info("Refund of {} {} for lunch order {}", amount,
+                status == LunchRefundStatus.HELD ? "held" : "requested", lunchOrderId);
+        return true;
+    }
+
+    public int releaseBatch(UUID batchId) {
+        return lunchRefundRepository.releaseBatch(batchId, LocalDateTime.now());
+    }
+
+    public List<LunchRefund> getBatch(UUID batchId) {
+        return lunchRefundRepository.findByBatchId(batchId);
+    }
+
+    // One credit and one transaction for all claimed refunds of a wallet, committed with their status
+    @Transactional
+    public Transaction refundWallet(UUID walletId, List<LunchRefund> refunds) {
+
+        LocalDateTime now = LocalDateTime.now();
+        BigDecimal total = refunds.stream()
+                .map(LunchRefund::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        if (walletRepository.credit(walletId, total, now) == 0) {
+            throw new DomainException("Wallet not found: " + walletId);
+        }
+
+        Wallet wallet = walletRepository.findById(walletId)
+                .orElseThrow(() -> new DomainException("Wallet not found: " + walletId));
+
+        Transaction transaction = transactionService.createTransaction(wallet, total, wallet.getBalance(),
+                wallet.getCurrency(), TransactionType.REFUND, TransactionStatus.SUCCESSFUL, description(refunds),
+                null);
+
+        int marked = lunchRefundRepository.markRefunded(refunds.stream().map(LunchRefund::getId).toList(),
+                transaction.getId(), now);
+
+        if (marked != refunds.size()) {
+            throw new IllegalStateException("Only " + marked + " of " + refunds.size()
+                    + " refunds of wallet " + walletId + " were still being processed");
+        }
+
+        log.info("Refunded {} for {} deleted lunch orders to wallet {}", total, refunds.size(), walletId);
+        return transaction;
+    }
+
+    private String description(List<LunchRefund> refunds) {
+        return refunds.size() == 1
+                ? "Refund for deleted lunch order #" + refunds.get(0).getId()
+                : "Refund for " + refunds.size() + " deleted lunch orders";
+    }
+}
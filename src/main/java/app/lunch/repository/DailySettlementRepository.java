@@ -0,0 +1,56 @@
+package app.lunch.repository;
+
+import app.lunch.model.DailySettlement;
+import app.lunch.model.DailySettlementStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface DailySettlementRepository extends JpaRepository<DailySettlement, UUID> {
+
+    Optional<DailySettlement> findByDay(LocalDate day);
+
+    List<DailySettlement> findByDayBetweenAndStatus(LocalDate from, LocalDate to, DailySettlementStatus status);
+
+    // A RUNNING settlement whose claim was not renewed belongs to a crashed run and may be taken over
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update DailySettlement s set s.status = app.lunch.model.DailySettlementStatus.RUNNING, "
+            + "s.claimedOn = :now, s.updatedOn = :now where s.id = :id "
+            + "and (s.status = app.lunch.model.DailySettlementStatus.PENDING "
+            + "or (s.status = app.lunch.model.DailySettlementStatus.RUNNING and s.claimedOn < :staleBefore))")
+    int claim(@Param("id") UUID id, @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update DailySettlement s set s.lastChildId = :childId, s.children = s.children + :children, "
+            + "s.claimedOn = :now, s.updatedOn = :now "
+            + "where s.id = :id and s.status = app.lunch.model.DailySettlementStatus.RUNNING")
+    int checkpoint(@Param("id") UUID id, @Param("childId") UUID childId, @Param("children") int children,
+                   @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update DailySettlement s set s.status = app.lunch.model.DailySettlementStatus.PENDING, "
+            + "s.updatedOn = :now where s.id = :id and s.status = app.lunch.model.DailySettlementStatus.RUNNING")
+    int pause(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update DailySettlement s set s.status = app.lunch.model.DailySettlementStatus.COMPLETED, "
+            + "s.orders = :orders, s.portions = :portions, s.total = :total, s.updatedOn = :now, "
+            + "s.finishedOn = :now where s.id = :id and s.status = app.lunch.model.DailySettlementStatus.RUNNING")
+    int finish(@Param("id") UUID id, @Param("orders") int orders, @Param("portions") int portions,
+               @Param("total") BigDecimal total, @Param("now") LocalDateTime now);
+}
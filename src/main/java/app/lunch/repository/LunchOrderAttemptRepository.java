@@ -0,0 +1,30 @@
+package app.lunch.repository;
+
+import app.lunch.model.LunchOrderAttempt;
+import app.lunch.model.LunchOrderAttemptStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface LunchOrderAttemptRepository extends JpaRepository<LunchOrderAttempt, UUID> {
+
+    List<LunchOrderAttempt> findTop100ByStatusAndUpdatedOnBeforeOrderByUpdatedOnAsc(LunchOrderAttemptStatus status,
+                                                                                   LocalDateTime updatedOn);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update LunchOrderAttempt a set a.status = :to, a.updatedOn = :now where a.id = :id and a.status = :from")
+    int transition(@Param("id") UUID id, @Param("from") LunchOrderAttemptStatus from,
+                   @Param("to") LunchOrderAttemptStatus to, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update LunchOrderAttempt a set a.holdId = :holdId where a.id = :id and a.status = :status")
+    int assignHold(@Param("id") UUID id, @Param("status") LunchOrderAttemptStatus status,
+                   @Param("holdId") UUID holdId);
+}
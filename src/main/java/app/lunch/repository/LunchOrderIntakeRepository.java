@@ -0,0 +1,45 @@
+package app.lunch.repository;
+
+import app.lunch.model.LunchOrderIntake;
+import app.lunch.model.LunchOrderIntakeStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface LunchOrderIntakeRepository extends JpaRepository<LunchOrderIntake, UUID> {
+
+    List<LunchOrderIntake> findByStatusOrderByAcceptedOnAscIdAsc(LunchOrderIntakeStatus status, Pageable pageable);
+
+    List<LunchOrderIntake> findTop10ByChildIdOrderByAcceptedOnDesc(UUID childId);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update LunchOrderIntake i set i.status = :to, i.updatedOn = :now "
+            + "where i.id = :id and i.status = :from")
+    int claim(@Param("id") UUID id, @Param("from") LunchOrderIntakeStatus from,
+              @Param("to") LunchOrderIntakeStatus to, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update LunchOrderIntake i set i.status = :to, i.message = :message, i.attempts = i.attempts + :tried, "
+            + "i.updatedOn = :now where i.id = :id and i.status = app.lunch.model.LunchOrderIntakeStatus.PROCESSING")
+    int finish(@Param("id") UUID id, @Param("to") LunchOrderIntakeStatus to, @Param("message") String message,
+               @Param("tried") int tried, @Param("now") LocalDateTime now);
+
+    // Orders claimed by a worker that died are queued again at their original place
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update LunchOrderIntake i set i.status = app.lunch.model.LunchOrderIntakeStatus.QUEUED, "
+            + "i.updatedOn = :now where i.status = app.lunch.model.LunchOrderIntakeStatus.PROCESSING "
+            + "and i.updatedOn < :staleBefore")
+    int requeueStale(@Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+}
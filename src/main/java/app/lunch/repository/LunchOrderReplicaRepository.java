@@ -0,0 +1,44 @@
+package app.lunch.repository;
+
+import app.lunch.capacity.OrderedPortions;
+import app.lunch.model.LunchOrderReplica;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface LunchOrderReplicaRepository extends JpaRepository<LunchOrderReplica, UUID> {
+
+    List<LunchOrderReplica> findAllByChildIdOrderByCreatedOnAsc(UUID childId);
+
+    List<LunchOrderReplica> findAllByChildIdAndStatusOrderByCreatedOnAsc(UUID childId, String status);
+
+    Optional<LunchOrderReplica> findByIdAndChildId(UUID id, UUID childId);
+
+    @Query("select distinct o.dayOfWeek from LunchOrderReplica o where o.childId = :childId")
+    List<String> findOccupiedDays(@Param("childId") UUID childId);
+
+    void deleteAllByChildId(UUID childId);
+
+    @Query("select c.school as school, o.dayOfWeek as dayOfWeek, o.meal as meal, o.quantity as quantity, "
+            + "o.createdOn as createdOn from LunchOrderReplica o, Child c "
+            + "where c.id = o.childId and o.createdOn >= :since and (o.status is null or o.status <> 'DELETED')")
+    List<OrderedPortions> findOrderedPortionsSince(@Param("since") Instant since);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update LunchOrderReplica o set o.status = 'COMPLETED' where o.id in :ids")
+    int markCompleted(@Param("ids") Collection<UUID> ids);
+
+    @Query("select max(o.updatedOn) from LunchOrderReplica o")
+    Optional<Instant> findLatestUpdatedOn();
+}
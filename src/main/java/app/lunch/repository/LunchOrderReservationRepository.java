@@ -0,0 +1,31 @@
+package app.lunch.repository;
+
+import app.lunch.model.LunchOrderReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface LunchOrderReservationRepository extends JpaRepository<LunchOrderReservation, UUID> {
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from LunchOrderReservation r where r.id = :id and r.expiresOn < :now")
+    int deleteExpired(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from LunchOrderReservation r where r.expiresOn < :now")
+    int deleteAllExpired(@Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from LunchOrderReservation r where r.id = :id and r.orderId = :orderId")
+    int release(@Param("id") UUID id, @Param("orderId") UUID orderId);
+}
@@ -0,0 +1,76 @@
+package app.lunch.repository;
+
+import app.lunch.model.LunchRefund;
+import app.lunch.model.LunchRefundStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface LunchRefundRepository extends JpaRepository<LunchRefund, UUID> {
+
+    @Query("select r from LunchRefund r where r.status = app.lunch.model.LunchRefundStatus.PENDING "
+            + "and (r.availableOn is null or r.availableOn <= :now) order by r.createdOn, r.id")
+    List<LunchRefund> findAvailable(@Param("now") LocalDateTime now, Pageable pageable);
+
+    List<LunchRefund> findByBatchId(UUID batchId);
+
+    List<LunchRefund> findByStatusAndAvailableOnBefore(LunchRefundStatus status, LocalDateTime before,
+                                                       Pageable pageable);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update LunchRefund r set r.status = app.lunch.model.LunchRefundStatus.PENDING, "
+            + "r.availableOn = :availableOn, r.updatedOn = :now "
+            + "where r.id = :id and r.status = app.lunch.model.LunchRefundStatus.HELD")
+    int release(@Param("id") UUID id, @Param("availableOn") LocalDateTime availableOn,
+                @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from LunchRefund r where r.id = :id and r.status = app.lunch.model.LunchRefundStatus.HELD")
+    int discard(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update LunchRefund r set r.availableOn = :now, r.updatedOn = :now "
+            + "where r.batchId = :batchId and r.status = app.lunch.model.LunchRefundStatus.PENDING")
+    int releaseBatch(@Param("batchId") UUID batchId, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update LunchRefund r set r.status = app.lunch.model.LunchRefundStatus.PROCESSING, r.updatedOn = :now "
+            + "where r.id = :id and r.status = app.lunch.model.LunchRefundStatus.PENDING")
+    int claim(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update LunchRefund r set r.status = :to, r.message = :message, r.attempts = r.attempts + 1, "
+            + "r.updatedOn = :now where r.id = :id and r.status = app.lunch.model.LunchRefundStatus.PROCESSING")
+    int retry(@Param("id") UUID id, @Param("to") LunchRefundStatus to, @Param("message") String message,
+              @Param("now") LocalDateTime now);
+
+    // Runs inside the wallet credit's transaction, so the money and the status commit together
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update LunchRefund r set r.status = app.lunch.model.LunchRefundStatus.REFUNDED, "
+            + "r.transactionId = :transactionId, r.attempts = r.attempts + 1, r.updatedOn = :now "
+            + "where r.id in :ids and r.status = app.lunch.model.LunchRefundStatus.PROCESSING")
+    int markRefunded(@Param("ids") Collection<UUID> ids, @Param("transactionId") UUID transactionId,
+                     @Param("now") LocalDateTime now);
+
+    // Refunds claimed by a worker that died go back to the queue; their credit was rolled back with it
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update LunchRefund r set r.status = app.lunch.model.LunchRefundStatus.PENDING, r.updatedOn = :now "
+            + "where r.status = app.lunch.model.LunchRefundStatus.PROCESSING and r.updatedOn < :staleBefore")
+    int requeueStale(@Param("staleBefore") LocalDateTime staleBefore, @Param("now") LocalDateTime now);
+}
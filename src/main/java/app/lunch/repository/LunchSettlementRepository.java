@@ -0,0 +1,27 @@
+package app.lunch.repository;
+
+import app.lunch.model.LunchSettlement;
+import app.lunch.settlement.SettlementTotals;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface LunchSettlementRepository extends JpaRepository<LunchSettlement, UUID> {
+
+    @Query("select s.id from LunchSettlement s where s.id in :ids")
+    List<UUID> findSettledIds(@Param("ids") Collection<UUID> ids);
+
+    @Query("select s.id from LunchSettlement s where s.childId = :childId")
+    List<UUID> findIdsByChildId(@Param("childId") UUID childId);
+
+    @Query("select count(s) as orders, coalesce(sum(s.quantity), 0) as portions, "
+            + "coalesce(sum(s.total), 0) as total from LunchSettlement s where s.day = :day")
+    SettlementTotals findTotals(@Param("day") LocalDate day);
+}
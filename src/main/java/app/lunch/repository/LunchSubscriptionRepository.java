@@ -0,0 +1,35 @@
+package app.lunch.repository;
+
+import app.lunch.model.LunchSubscription;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface LunchSubscriptionRepository extends JpaRepository<LunchSubscription, UUID> {
+
+    List<LunchSubscription> findByParentIdOrderByChildIdAscDayOfWeekAsc(UUID parentId);
+
+    Optional<LunchSubscription> findByChildIdAndDayOfWeek(UUID childId, String dayOfWeek);
+
+    void deleteByChildId(UUID childId);
+
+    @Query("select distinct c.school from LunchSubscription s, Child c where c.id = s.childId")
+    List<String> findSubscribedSchools();
+
+    @Query("select distinct s.parentId from LunchSubscription s, Child c "
+            + "where c.id = s.childId and c.school = :school and s.parentId > :after order by s.parentId")
+    List<UUID> findParentIdsBySchool(@Param("school") String school, @Param("after") UUID after, Pageable pageable);
+
+    @Query("select s from LunchSubscription s, Child c "
+            + "where c.id = s.childId and c.school = :school and s.parentId in :parentIds")
+    List<LunchSubscription> findBySchoolAndParentIds(@Param("school") String school,
+                                                     @Param("parentIds") Collection<UUID> parentIds);
+}
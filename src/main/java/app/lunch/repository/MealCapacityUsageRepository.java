@@ -0,0 +1,17 @@
+package app.lunch.repository;
+
+import app.lunch.model.MealCapacityUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface MealCapacityUsageRepository extends JpaRepository<MealCapacityUsage, UUID> {
+
+    List<MealCapacityUsage> findByDayGreaterThanEqual(LocalDate day);
+
+    void deleteByDayBefore(LocalDate day);
+}
@@ -0,0 +1,51 @@
+package app.lunch.repository;
+
+import app.lunch.model.SchoolClosure;
+import app.lunch.model.SchoolClosureStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface SchoolClosureRepository extends JpaRepository<SchoolClosure, UUID> {
+
+    Optional<SchoolClosure> findBySchoolAndDay(String school, LocalDate day);
+
+    List<SchoolClosure> findTop20ByOrderByStartedOnDesc();
+
+    // A finished closure may be run again to cancel orders its first run could not reach, and a RUNNING one
+    // whose claim was not renewed belongs to a crashed run and may be taken over
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update SchoolClosure c set c.status = app.lunch.model.SchoolClosureStatus.RUNNING, c.children = 0, "
+            + "c.orders = 0, c.cancelled = 0, c.failed = 0, c.startedOn = :now, c.updatedOn = :now, "
+            + "c.claimedOn = :now, c.finishedOn = null where c.id = :id "
+            + "and (c.status <> app.lunch.model.SchoolClosureStatus.RUNNING "
+            + "or coalesce(c.claimedOn, c.updatedOn) < :staleBefore)")
+    int restart(@Param("id") UUID id, @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update SchoolClosure c set c.children = c.children + :children, c.orders = c.orders + :orders, "
+            + "c.cancelled = c.cancelled + :cancelled, c.failed = c.failed + :failed, c.claimedOn = :now, "
+            + "c.updatedOn = :now where c.id = :id")
+    int progress(@Param("id") UUID id, @Param("children") int children, @Param("orders") int orders,
+                 @Param("cancelled") int cancelled, @Param("failed") int failed, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update SchoolClosure c set c.status = :to, c.wallets = :wallets, c.refunded = :refunded, "
+            + "c.updatedOn = :now, c.finishedOn = :now where c.id = :id")
+    int finish(@Param("id") UUID id, @Param("to") SchoolClosureStatus to, @Param("wallets") int wallets,
+               @Param("refunded") BigDecimal refunded, @Param("now") LocalDateTime now);
+}
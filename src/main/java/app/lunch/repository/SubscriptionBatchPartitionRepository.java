@@ -0,0 +1,52 @@
+package app.lunch.repository;
+
+import app.lunch.model.SubscriptionBatchPartition;
+import app.lunch.model.SubscriptionBatchStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface SubscriptionBatchPartitionRepository extends JpaRepository<SubscriptionBatchPartition, UUID> {
+
+    Optional<SubscriptionBatchPartition> findByWeekStartAndSchool(LocalDate weekStart, String school);
+
+    List<SubscriptionBatchPartition> findByWeekStartAndStatusNot(LocalDate weekStart, SubscriptionBatchStatus status);
+
+    boolean existsByWeekStartAndStatusNot(LocalDate weekStart, SubscriptionBatchStatus status);
+
+    // A RUNNING partition whose claim was not renewed belongs to a crashed run and may be taken over
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update SubscriptionBatchPartition p set p.status = app.lunch.model.SubscriptionBatchStatus.RUNNING, "
+            + "p.claimedOn = :now, p.updatedOn = :now where p.id = :id "
+            + "and (p.status = app.lunch.model.SubscriptionBatchStatus.PENDING "
+            + "or (p.status = app.lunch.model.SubscriptionBatchStatus.RUNNING and p.claimedOn < :staleBefore))")
+    int claim(@Param("id") UUID id, @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update SubscriptionBatchPartition p set p.lastParentId = :parentId, p.parents = p.parents + 1, "
+            + "p.placed = p.placed + :placed, p.pending = p.pending + :pending, p.failed = p.failed + :failed, "
+            + "p.charged = p.charged + :charged, p.claimedOn = :now, p.updatedOn = :now "
+            + "where p.id = :id and p.status = app.lunch.model.SubscriptionBatchStatus.RUNNING")
+    int checkpoint(@Param("id") UUID id, @Param("parentId") UUID parentId, @Param("placed") int placed,
+                   @Param("pending") int pending, @Param("failed") int failed, @Param("charged") BigDecimal charged,
+                   @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update SubscriptionBatchPartition p set p.status = :to, p.updatedOn = :now "
+            + "where p.id = :id and p.status = app.lunch.model.SubscriptionBatchStatus.RUNNING")
+    int finish(@Param("id") UUID id, @Param("to") SubscriptionBatchStatus to, @Param("now") LocalDateTime now);
+}
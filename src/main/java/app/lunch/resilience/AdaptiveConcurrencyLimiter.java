@@ -0,0 +1,134 @@
+package app.lunch.resilience;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final double backoffRatio;
+    private final int rttWindow;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private volatile double limit;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(@Value("${lunch-svc.limiter.initial-limit:20}") int initialLimit,
+                                      @Value("${lunch-svc.limiter.min-limit:4}") int minLimit,
+                                      @Value("${lunch-svc.limiter.max-limit:200}") int maxLimit,
+                                      @Value("${lunch-svc.limiter.smoothing:0.2}") double smoothing,
+                                      @Value("${lunch-svc.limiter.rtt-tolerance:1.5}") double rttTolerance,
+                                      @Value("${lunch-svc.limiter.backoff-ratio:0.9}") double backoffRatio,
+                                      @Value("${lunch-svc.limiter.rtt-window:100}") int rttWindow,
+                                      MeterRegistry meterRegistry) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.backoffRatio = backoffRatio;
+        this.rttWindow = rttWindow;
+        this.meterRegistry = meterRegistry;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        Gauge.builder("lunch.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current concurrency limit for lunch-svc calls")
+                .register(meterRegistry);
+        Gauge.builder("lunch.limiter.inflight", this, AdaptiveConcurrencyLimiter::getInflight)
+                .description("lunch-svc calls currently in flight")
+                .register(meterRegistry);
+        Gauge.builder("lunch.limiter.rtt", this, AdaptiveConcurrencyLimiter::getLongRttMillis)
+                .description("Long-term average lunch-svc round trip in milliseconds")
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(String operation, Supplier<T> call) {
+
+        int inflightAtStart = acquire(operation);
+        long start = System.nanoTime();
+        boolean dropped = false;
+        boolean sampled = true;
+
+        try {
+            return call.get();
+        } catch (CallNotPermittedException e) {
+            sampled = false;
+            throw e;
+        } catch (RuntimeException e) {
+            dropped = LunchRetryListener.isTransient(e);
+            throw e;
+        } finally {
+            inflight.decrementAndGet();
+            if (sampled) {
+                onSample(System.nanoTime() - start, inflightAtStart, dropped);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public synchronized double getLongRttMillis() {
+        return longRttNanos / 1_000_000;
+    }
+
+    private int acquire(String operation) {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit) {
+                meterRegistry.counter("lunch.limiter.rejections", "operation", operation).increment();
+                log.debug("Rejected lunch-svc {}: {} calls in flight, limit {}", operation, current, (int) limit);
+                throw new ConcurrencyLimitExceededException(
+                        "lunch-svc concurrency limit of " + (int) limit + " reached for " + operation);
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    // Gradient limit: grows while latency stays near the long-term average, shrinks when it climbs or calls time out
+    private synchronized void onSample(long rttNanos, int inflightAtStart, boolean dropped) {
+
+        if (dropped) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+            return;
+        }
+
+        double rtt = Math.max(1, rttNanos);
+        longRttNanos = longRttNanos == 0 ? rtt : longRttNanos + (rtt - longRttNanos) / rttWindow;
+
+        // Let the baseline follow lunch-svc back down once a slow spell is over
+        if (longRttNanos / rtt > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / rtt));
+
+        // With most of the limit unused, steady latency says nothing about how far the limit can grow
+        boolean appLimited = inflightAtStart < limit / 2;
+        if (appLimited && gradient == 1.0) {
+            return;
+        }
+
+        double target = appLimited ? limit * gradient : limit * gradient + Math.sqrt(limit);
+
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + target * smoothing));
+    }
+}
@@ -0,0 +1,204 @@
+package app.lunch.resilience;
+
+import app.deadline.RequestDeadline;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class HedgedReadExecutor {
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private final double budgetRatio;
+    private final double maxBudgetTokens;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+    private double budgetTokens;
+
+    public HedgedReadExecutor(@Value("${lunch-svc.hedging.enabled:false}") boolean enabled,
+                              @Value("${lunch-svc.hedging.percentile:0.95}") double percentile,
+                              @Value("${lunch-svc.hedging.min-delay:20}") long minDelayMillis,
+                              @Value("${lunch-svc.hedging.max-delay:1000}") long maxDelayMillis,
+                              @Value("${lunch-svc.hedging.budget-ratio:0.1}") double budgetRatio,
+                              @Value("${lunch-svc.hedging.pool-size:16}") int poolSize,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.budgetRatio = budgetRatio;
+        this.maxBudgetTokens = Math.max(1, budgetRatio * 100);
+        this.budgetTokens = maxBudgetTokens;
+        this.meterRegistry = meterRegistry;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(poolSize * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "lunch-hedge-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public <T> T execute(String operation, Supplier<T> remoteCall) {
+
+        if (!enabled) {
+            return timed(operation, remoteCall).get();
+        }
+
+        Supplier<T> call = RequestDeadline.propagate(remoteCall);
+
+        long delay = hedgeDelay(operation);
+        CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+
+        Future<T> primary;
+        try {
+            primary = completionService.submit(() -> timed(operation, call).get());
+        } catch (RejectedExecutionException e) {
+            log.debug("Hedging pool is full, calling lunch-svc {} without hedging", operation);
+            return timed(operation, call).get();
+        }
+
+        Future<T> hedge = null;
+
+        try {
+            Future<T> completed = completionService.poll(delay, TimeUnit.MILLISECONDS);
+
+            if (completed == null) {
+                hedge = sendHedge(operation, completionService, call, delay);
+            }
+
+            int outstanding = hedge == null ? 1 : 2;
+            RuntimeException failure = null;
+
+            while (outstanding > 0) {
+                Future<T> next = completed != null ? completed : completionService.take();
+                completed = null;
+                outstanding--;
+
+                try {
+                    T result = next.get();
+                    if (next == hedge) {
+                        meterRegistry.counter("lunch.hedge.wins", "operation", operation).increment();
+                    }
+                    return result;
+                } catch (ExecutionException e) {
+                    failure = unwrap(e);
+                }
+            }
+
+            throw failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for lunch-svc " + operation, e);
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+            recordPrimaryCall();
+        }
+    }
+
+    public long hedgeDelay(String operation) {
+        long observed = tracker(operation).percentile(percentile, maxDelayMillis);
+        return Math.max(minDelayMillis, Math.min(maxDelayMillis, observed));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> Future<T> sendHedge(String operation, CompletionService<T> completionService,
+                                    Supplier<T> call, long delay) {
+
+        if (!tryAcquireHedge()) {
+            meterRegistry.counter("lunch.hedge.budget.exhausted", "operation", operation).increment();
+            return null;
+        }
+
+        try {
+            Future<T> hedge = completionService.submit(() -> timed(operation, call).get());
+            meterRegistry.counter("lunch.hedge.sent", "operation", operation).increment();
+            log.debug("lunch-svc {} did not answer within {} ms, sent hedged request", operation, delay);
+            return hedge;
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    private <T> Supplier<T> timed(String operation, Supplier<T> call) {
+        return () -> {
+            long start = System.nanoTime();
+            T result = call.get();
+            tracker(operation).record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return result;
+        };
+    }
+
+    private LatencyTracker tracker(String operation) {
+        LatencyTracker tracker = latencies.get(operation);
+        if (tracker != null) {
+            return tracker;
+        }
+
+        LatencyTracker created = new LatencyTracker(256);
+        LatencyTracker existing = latencies.putIfAbsent(operation, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        Gauge.builder("lunch.hedge.delay", this, hedging -> hedging.hedgeDelay(operation))
+                .description("Current hedging delay in milliseconds")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        return created;
+    }
+
+    private synchronized boolean tryAcquireHedge() {
+        if (budgetTokens < 1) {
+            return false;
+        }
+        budgetTokens -= 1;
+        return true;
+    }
+
+    private synchronized void recordPrimaryCall() {
+        budgetTokens = Math.min(maxBudgetTokens, budgetTokens + budgetRatio);
+    }
+
+    private RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+}
@@ -0,0 +1,42 @@
+package app.lunch.resilience;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class LunchRetryBudget {
+
+    private final double retryRatio;
+    private final double maxTokens;
+    private double tokens;
+
+    public LunchRetryBudget(@Value("${lunch-svc.retry.budget.ratio:0.2}") double retryRatio,
+                            @Value("${lunch-svc.retry.budget.max-tokens:10}") double maxTokens,
+                            MeterRegistry meterRegistry) {
+        this.retryRatio = retryRatio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+
+        Gauge.builder("lunch.retry.budget.tokens", this, LunchRetryBudget::getTokens)
+                .description("Retries currently allowed by the lunch-svc retry budget")
+                .register(meterRegistry);
+    }
+
+    public synchronized void recordSuccess() {
+        tokens = Math.min(maxTokens, tokens + retryRatio);
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    public synchronized double getTokens() {
+        return tokens;
+    }
+}
@@ -0,0 +1,96 @@
+package app.lunch.resilience;
+
+import app.deadline.RequestDeadline;
+import feign.FeignException;
+import feign.RetryableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Component("lunchRetryListener")
+public class LunchRetryListener implements RetryListener {
+
+    private final LunchRetryBudget retryBudget;
+    private final MeterRegistry meterRegistry;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    public LunchRetryListener(LunchRetryBudget retryBudget, MeterRegistry meterRegistry) {
+        this.retryBudget = retryBudget;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("lunch.retry.load.ratio", this, LunchRetryListener::getRetryLoadRatio)
+                .description("Extra lunch-svc calls caused by retries, relative to first attempts")
+                .register(meterRegistry);
+    }
+
+    public static boolean isTransient(Throwable throwable) {
+        return throwable instanceof RetryableException
+                || throwable instanceof FeignException.BadGateway
+                || throwable instanceof FeignException.ServiceUnavailable
+                || throwable instanceof FeignException.GatewayTimeout;
+    }
+
+    @Override
+    public <T, E extends Throwable> boolean open(RetryContext context, RetryCallback<T, E> callback) {
+        calls.increment();
+        meterRegistry.counter("lunch.retry.calls", "operation", operation(context)).increment();
+        return true;
+    }
+
+    @Override
+    public <T, E extends Throwable> void onSuccess(RetryContext context, RetryCallback<T, E> callback, T result) {
+        retryBudget.recordSuccess();
+    }
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback,
+                                                 Throwable throwable) {
+
+        if (!isTransient(throwable) || context.getRetryCount() >= maxAttempts(context)) {
+            return;
+        }
+
+        if (RequestDeadline.isExpired()) {
+            meterRegistry.counter("request.deadline.exceeded", "stage", "retry").increment();
+            log.debug("Request deadline spent, not retrying lunch-svc {}: {}",
+                    operation(context), throwable.getMessage());
+            context.setExhaustedOnly();
+            return;
+        }
+
+        if (retryBudget.tryAcquire()) {
+            retries.increment();
+            meterRegistry.counter("lunch.retry.attempts", "operation", operation(context)).increment();
+            log.debug("Retrying lunch-svc {} after attempt {}: {}",
+                    operation(context), context.getRetryCount(), throwable.getMessage());
+            return;
+        }
+
+        meterRegistry.counter("lunch.retry.budget.exhausted", "operation", operation(context)).increment();
+        log.warn("Retry budget exhausted, not retrying lunch-svc {}: {}", operation(context), throwable.getMessage());
+        context.setExhaustedOnly();
+    }
+
+    public double getRetryLoadRatio() {
+        long total = calls.sum();
+        return total == 0 ? 0 : (double) retries.sum() / total;
+    }
+
+    private String operation(RetryContext context) {
+        Object name = context.getAttribute(RetryContext.NAME);
+        return name == null ? "unknown" : name.toString();
+    }
+
+    private int maxAttempts(RetryContext context) {
+        Object maxAttempts = context.getAttribute(RetryContext.MAX_ATTEMPTS);
+        return maxAttempts instanceof Integer value ? value : Integer.MAX_VALUE;
+    }
+}
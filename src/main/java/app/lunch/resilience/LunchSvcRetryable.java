@@ -0,0 +1,37 @@
+package app.lunch.resilience;
+
+import feign.FeignException;
+import feign.RetryableException;
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Retries transient lunch-svc failures through the shared listener; the value names the operation in the metrics
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Retryable(
+        retryFor = {RetryableException.class, FeignException.BadGateway.class,
+                FeignException.ServiceUnavailable.class, FeignException.GatewayTimeout.class},
+        listeners = "lunchRetryListener",
+        maxAttemptsExpression = "${lunch-svc.retry.max-attempts:3}",
+        backoff = @Backoff(
+                delayExpression = "${lunch-svc.retry.initial-delay:100}",
+                multiplierExpression = "${lunch-svc.retry.multiplier:2}",
+                maxDelayExpression = "${lunch-svc.retry.max-delay:1000}",
+                random = true)
+)
+public @interface LunchSvcRetryable {
+
+    @AliasFor(annotation = Retryable.class, attribute = "label")
+    String value();
+
+    @AliasFor(annotation = Retryable.class, attribute = "recover")
+    String recover() default "";
+}
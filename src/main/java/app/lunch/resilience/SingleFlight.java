@@ -0,0 +1,87 @@
+package app.lunch.resilience;
+
+import app.deadline.Deadline;
+import app.deadline.DeadlineExceededException;
+import app.deadline.RequestDeadline;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class SingleFlight {
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlight(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("lunch.singleflight.inflight", inFlight, Map::size)
+                .description("Distinct lunch-svc reads currently in flight")
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Object key, Supplier<T> call) {
+
+        String flightKey = operation + ":" + key;
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(flightKey, flight);
+
+        meterRegistry.counter("lunch.singleflight.calls", "operation", operation).increment();
+
+        if (leader != null) {
+            meterRegistry.counter("lunch.singleflight.coalesced", "operation", operation).increment();
+            log.debug("Joining in-flight lunch-svc {} for {}", operation, key);
+            return (T) await(operation, leader);
+        }
+
+        try {
+            T result = call.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    private Object await(String operation, CompletableFuture<Object> leader) {
+
+        Optional<Deadline> deadline = RequestDeadline.current();
+
+        try {
+            return deadline.isPresent()
+                    ? leader.get(deadline.get().remaining().toNanos(), TimeUnit.NANOSECONDS)
+                    : leader.get();
+        } catch (TimeoutException e) {
+            meterRegistry.counter("request.deadline.exceeded", "stage", "coalesced").increment();
+            throw new DeadlineExceededException("coalesced",
+                    "Request deadline exceeded while waiting for lunch-svc " + operation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for lunch-svc " + operation, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
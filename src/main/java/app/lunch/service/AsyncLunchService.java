@@ -0,0 +1,63 @@
+package app.lunch.service;
+
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.snapshot.LunchSnapshot;
+import app.web.dto.LunchRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class AsyncLunchService {
+
+    private final LunchService lunchService;
+    private final Executor lunchTaskExecutor;
+
+    public AsyncLunchService(LunchService lunchService, @Qualifier("lunchTaskExecutor") Executor lunchTaskExecutor) {
+        this.lunchService = lunchService;
+        this.lunchTaskExecutor = lunchTaskExecutor;
+    }
+
+    public CompletableFuture<List<LunchOrder>> getLunches(UUID childId) {
+        return submit("getLunches", () -> lunchService.getLunches(childId));
+    }
+
+    public CompletableFuture<LunchSnapshot> getLunchSnapshot(UUID childId) {
+        return submit("getLunches", () -> lunchService.getLunchSnapshot(childId));
+    }
+
+    public CompletableFuture<Void> createLunch(UUID parentId, UUID childId, LunchRequest lunchRequest) {
+        return submit("createLunch", () -> {
+            lunchService.createLunch(parentId, childId, lunchRequest);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> deleteLunch(UUID childId, UUID lunchId) {
+        return submit("deleteLunch", () -> {
+            lunchService.deleteLunch(childId, lunchId);
+            return null;
+        });
+    }
+
+    // Calls go through the LunchService proxy so retries, budgets and @Recover fallbacks are unchanged
+    private <T> CompletableFuture<T> submit(String operation, Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, lunchTaskExecutor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Lunch executor is saturated, rejecting {}", operation);
+            return CompletableFuture.failedFuture(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "The lunch service is not responding. Please try again later."));
+        }
+    }
+}
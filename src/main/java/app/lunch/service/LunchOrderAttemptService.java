@@ -0,0 +1,114 @@
+package app.lunch.service;
+
+import app.lunch.model.LunchOrderAttempt;
+import app.lunch.model.LunchOrderAttemptStatus;
+import app.lunch.repository.LunchOrderAttemptRepository;
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionStatus;
+import app.wallet.model.WalletHold;
+import app.wallet.service.WalletHoldService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class LunchOrderAttemptService {
+
+    private final LunchOrderAttemptRepository lunchOrderAttemptRepository;
+    private final WalletHoldService walletHoldService;
+    private final Duration pendingTimeout;
+    private final MeterRegistry meterRegistry;
+
+    public LunchOrderAttemptService(LunchOrderAttemptRepository lunchOrderAttemptRepository,
+                                    WalletHoldService walletHoldService,
+                                    @Value("${lunch-svc.attempts.pending-timeout:1m}") Duration pendingTimeout,
+                                    MeterRegistry meterRegistry) {
+        this.lunchOrderAttemptRepository = lunchOrderAttemptRepository;
+        this.walletHoldService = walletHoldService;
+        this.pendingTimeout = pendingTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Optional<LunchOrderAttempt> find(UUID orderId) {
+        return lunchOrderAttemptRepository.findById(orderId);
+    }
+
+    // Throws DataIntegrityViolationException when an attempt with the same order id already exists
+    public LunchOrderAttempt begin(LunchOrderAttempt attempt) {
+
+        LocalDateTime now = LocalDateTime.now();
+        attempt.setStatus(LunchOrderAttemptStatus.PENDING);
+        attempt.setCreatedOn(now);
+        attempt.setUpdatedOn(now);
+
+        LunchOrderAttempt saved = lunchOrderAttemptRepository.saveAndFlush(attempt);
+        meterRegistry.counter("lunch.order.attempts", "outcome", "pending").increment();
+        return saved;
+    }
+
+    // Attempts turn PLACED in the transaction that captures their hold, so a failed capture leaves them PENDING
+    @Transactional
+    public Optional<LunchOrderPlacement> place(Map<UUID, BigDecimal> totals, WalletHold hold, String description) {
+
+        List<UUID> placed = totals.keySet().stream()
+                .filter(orderId -> transition(orderId, LunchOrderAttemptStatus.PENDING, LunchOrderAttemptStatus.PLACED))
+                .toList();
+
+        if (placed.isEmpty()) {
+            return Optional.empty();
+        }
+
+        BigDecimal total = placed.stream().map(totals::get).reduce(BigDecimal.ZERO, BigDecimal::add);
+        Transaction payment = walletHoldService.capture(hold, total, description);
+
+        if (payment.getStatus() != TransactionStatus.SUCCESSFUL) {
+            placed.forEach(orderId -> transition(orderId, LunchOrderAttemptStatus.PLACED,
+                    LunchOrderAttemptStatus.FAILED));
+        }
+
+        return Optional.of(new LunchOrderPlacement(placed, total, payment));
+    }
+
+    // A pending attempt that shared a hold gets its own part of it, so settling it alone keeps the rest reserved
+    @Transactional
+    public void setAside(UUID orderId, WalletHold shared, BigDecimal amount) {
+
+        walletHoldService.split(shared, amount, "Lunch order " + orderId).ifPresent(part -> {
+            if (lunchOrderAttemptRepository.assignHold(orderId, LunchOrderAttemptStatus.PENDING, part.getId()) == 0) {
+                walletHoldService.release(part);
+            }
+        });
+    }
+
+    @Transactional
+    public boolean markFailed(UUID orderId) {
+        return transition(orderId, LunchOrderAttemptStatus.PENDING, LunchOrderAttemptStatus.FAILED);
+    }
+
+    public List<LunchOrderAttempt> findUnresolved() {
+        return lunchOrderAttemptRepository.findTop100ByStatusAndUpdatedOnBeforeOrderByUpdatedOnAsc(
+                LunchOrderAttemptStatus.PENDING, LocalDateTime.now().minus(pendingTimeout));
+    }
+
+    private boolean transition(UUID orderId, LunchOrderAttemptStatus from, LunchOrderAttemptStatus status) {
+
+        if (lunchOrderAttemptRepository.transition(orderId, from, status, LocalDateTime.now()) == 0) {
+            return false;
+        }
+
+        meterRegistry.counter("lunch.order.attempts", "outcome", status.name().toLowerCase()).increment();
+        log.debug("Lunch order attempt {} is {}", orderId, status);
+        return true;
+    }
+}
@@ -0,0 +1,15 @@
+package app.lunch.service;
+
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public record LunchOrderPlacement(List<UUID> orderIds, BigDecimal total, Transaction payment) {
+
+    public boolean isPaid() {
+        return payment.getStatus() == TransactionStatus.SUCCESSFUL;
+    }
+}
@@ -0,0 +1,244 @@
+package app.lunch.service;
+
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.occupancy.WeeklyOccupancyIndex;
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.model.LunchOrderReplica;
+import app.lunch.repository.LunchOrderReplicaRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class LunchReplicaService {
+
+    private static final String DELETED_STATUS = "DELETED";
+
+    private final LunchOrderReplicaRepository lunchOrderReplicaRepository;
+    private final LunchServiceGateway lunchServiceGateway;
+    private final WeeklyOccupancyIndex weeklyOccupancyIndex;
+    private final boolean enabled;
+    private final Duration maxStaleness;
+    private final Duration syncOverlap;
+    private final TransactionOperations transactionOperations;
+    private final MeterRegistry meterRegistry;
+    private volatile Instant lastSyncedOn;
+    private volatile Instant watermark;
+    private volatile Map<UUID, Instant> recentChanges = Map.of();
+
+    public LunchReplicaService(LunchOrderReplicaRepository lunchOrderReplicaRepository,
+                               LunchServiceGateway lunchServiceGateway,
+                               WeeklyOccupancyIndex weeklyOccupancyIndex,
+                               @Value("${lunch-svc.replica.enabled:true}") boolean enabled,
+                               @Value("${lunch-svc.replica.max-staleness:2m}") Duration maxStaleness,
+                               @Value("${lunch-svc.replica.sync-overlap:5s}") Duration syncOverlap,
+                               TransactionOperations transactionOperations,
+                               MeterRegistry meterRegistry) {
+        this.lunchOrderReplicaRepository = lunchOrderReplicaRepository;
+        this.lunchServiceGateway = lunchServiceGateway;
+        this.weeklyOccupancyIndex = weeklyOccupancyIndex;
+        this.enabled = enabled;
+        this.maxStaleness = maxStaleness;
+        this.syncOverlap = syncOverlap;
+        this.transactionOperations = transactionOperations;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("lunch.replica.staleness", this, LunchReplicaService::getStalenessSeconds)
+                .description("Seconds since the last successful lunch-svc replica sync")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public Optional<List<LunchOrder>> findLunches(UUID childId) {
+
+        if (!isFresh()) {
+            meterRegistry.counter("lunch.replica.reads", "source", "remote").increment();
+            return Optional.empty();
+        }
+
+        meterRegistry.counter("lunch.replica.reads", "source", "replica").increment();
+        return Optional.of(lunchOrderReplicaRepository.findAllByChildIdOrderByCreatedOnAsc(childId).stream()
+                .map(this::toLunchOrder)
+                .toList());
+    }
+
+    public Optional<List<LunchOrder>> findLunches(UUID childId, String status) {
+
+        if (!isFresh()) {
+            meterRegistry.counter("lunch.replica.reads", "source", "remote").increment();
+            return Optional.empty();
+        }
+
+        meterRegistry.counter("lunch.replica.reads", "source", "replica").increment();
+        return Optional.of(lunchOrderReplicaRepository.findAllByChildIdAndStatusOrderByCreatedOnAsc(childId, status)
+                .stream()
+                .map(this::toLunchOrder)
+                .toList());
+    }
+
+    // Deleted orders are not replicated, so a miss here still has to be looked up in lunch-svc
+    public Optional<LunchOrder> findLunch(UUID childId, UUID lunchId) {
+
+        if (!isFresh()) {
+            return Optional.empty();
+        }
+
+        Optional<LunchOrder> lunchOrder = lunchOrderReplicaRepository.findByIdAndChildId(lunchId, childId)
+                .map(this::toLunchOrder);
+        meterRegistry.counter("lunch.replica.reads", "source", lunchOrder.isPresent() ? "replica" : "remote")
+                .increment();
+        return lunchOrder;
+    }
+
+    public Optional<List<String>> findOccupiedDays(UUID childId) {
+
+        if (!isFresh()) {
+            meterRegistry.counter("lunch.replica.reads", "source", "remote").increment();
+            return Optional.empty();
+        }
+
+        meterRegistry.counter("lunch.replica.reads", "source", "replica").increment();
+        return Optional.of(lunchOrderReplicaRepository.findOccupiedDays(childId));
+    }
+
+    public boolean isFresh() {
+        Instant synced = lastSyncedOn;
+        return enabled && synced != null && Duration.between(synced, Instant.now()).compareTo(maxStaleness) <= 0;
+    }
+
+    public double getStalenessSeconds() {
+        Instant synced = lastSyncedOn;
+        return synced == null ? Double.NaN : Duration.between(synced, Instant.now()).toMillis() / 1000.0;
+    }
+
+    @Transactional
+    public void save(LunchOrder lunchOrder) {
+        if (!enabled) {
+            return;
+        }
+        lunchOrderReplicaRepository.save(toReplica(lunchOrder));
+    }
+
+    @Transactional
+    public void remove(UUID lunchId) {
+        if (!enabled) {
+            return;
+        }
+        lunchOrderReplicaRepository.deleteById(lunchId);
+    }
+
+    @Transactional
+    public void replaceChild(UUID childId, List<LunchOrder> lunches) {
+        if (!enabled) {
+            return;
+        }
+        lunchOrderReplicaRepository.deleteAllByChildId(childId);
+        lunchOrderReplicaRepository.flush();
+        lunchOrderReplicaRepository.saveAll(lunches.stream().map(this::toReplica).toList());
+    }
+
+    // lunch-svc is read outside the transaction; the overlap catches changes committed late with an older timestamp
+    public int syncChanges() {
+
+        Instant since = watermark != null ? watermark
+                : lunchOrderReplicaRepository.findLatestUpdatedOn().orElse(Instant.EPOCH);
+        Instant startedOn = Instant.now();
+
+        List<LunchOrder> fetched = lunchServiceGateway.getLunchChanges(
+                Instant.EPOCH.equals(since) ? since : since.minus(syncOverlap));
+        Map<UUID, Instant> applied = recentChanges;
+        List<LunchOrder> changes = fetched.stream()
+                .filter(change -> changedOn(change) == null
+                        || !Objects.equals(applied.get(change.getId()), changedOn(change)))
+                .toList();
+
+        transactionOperations.executeWithoutResult(status -> changes.forEach(this::apply));
+
+        Instant latest = since;
+        for (LunchOrder change : fetched) {
+            Instant changedOn = changedOn(change);
+            if (changedOn != null && changedOn.isAfter(latest)) {
+                latest = changedOn;
+            }
+        }
+
+        Instant overlapStart = latest.minus(syncOverlap);
+        Map<UUID, Instant> recent = new HashMap<>(applied);
+        fetched.stream()
+                .filter(change -> changedOn(change) != null)
+                .forEach(change -> recent.put(change.getId(), changedOn(change)));
+        recent.values().removeIf(changedOn -> changedOn.isBefore(overlapStart));
+
+        recentChanges = recent;
+        watermark = latest;
+        lastSyncedOn = startedOn;
+        meterRegistry.counter("lunch.replica.sync.changes").increment(changes.size());
+
+        log.debug("Applied {} lunch order changes since {}", changes.size(), since);
+        return changes.size();
+    }
+
+    private void apply(LunchOrder change) {
+        if (DELETED_STATUS.equalsIgnoreCase(change.getStatus())) {
+            lunchOrderReplicaRepository.deleteById(change.getId());
+            weeklyOccupancyIndex.invalidate(change.getChildId());
+        } else {
+            lunchOrderReplicaRepository.save(toReplica(change));
+            weeklyOccupancyIndex.markOrdered(change.getChildId(), change.getDayOfWeek());
+        }
+    }
+
+    private Instant changedOn(LunchOrder change) {
+        return change.getUpdatedOn() != null ? change.getUpdatedOn() : change.getCreatedOn();
+    }
+
+    private LunchOrderReplica toReplica(LunchOrder lunchOrder) {
+        return LunchOrderReplica.builder()
+                .id(lunchOrder.getId())
+                .parentId(lunchOrder.getParentId())
+                .walletId(lunchOrder.getWalletId())
+                .childId(lunchOrder.getChildId())
+                .meal(lunchOrder.getMeal())
+                .quantity(lunchOrder.getQuantity())
+                .dayOfWeek(lunchOrder.getDayOfWeek())
+                .unitPrice(lunchOrder.getUnitPrice())
+                .total(lunchOrder.getTotal())
+                .status(lunchOrder.getStatus())
+                .createdOn(lunchOrder.getCreatedOn())
+                .updatedOn(lunchOrder.getUpdatedOn() != null ? lunchOrder.getUpdatedOn() : lunchOrder.getCreatedOn())
+                .syncedOn(LocalDateTime.now())
+                .build();
+    }
+
+    private LunchOrder toLunchOrder(LunchOrderReplica replica) {
+        LunchOrder lunchOrder = new LunchOrder();
+        lunchOrder.setId(replica.getId());
+        lunchOrder.setParentId(replica.getParentId());
+        lunchOrder.setWalletId(replica.getWalletId());
+        lunchOrder.setChildId(replica.getChildId());
+        lunchOrder.setMeal(replica.getMeal());
+        lunchOrder.setQuantity(replica.getQuantity());
+        lunchOrder.setDayOfWeek(replica.getDayOfWeek());
+        lunchOrder.setUnitPrice(replica.getUnitPrice());
+        lunchOrder.setTotal(replica.getTotal());
+        lunchOrder.setStatus(replica.getStatus());
+        lunchOrder.setCreatedOn(replica.getCreatedOn());
+        lunchOrder.setUpdatedOn(replica.getUpdatedOn());
+        return lunchOrder;
+    }
+}
@@ -1,70 +1,136 @@
 package app.lunch.service;
 
 import app.expetion.ClientErrorException;
-import app.lunch.client.LunchServiceClient;
+import app.lunch.capacity.MealCapacityLedger;
+import app.lunch.catalog.MealCatalog;
+import app.lunch.catalog.MealCatalogCache;
+import app.lunch.client.LunchServiceGateway;
 import app.lunch.client.dto.LunchOrder;
 import app.lunch.client.dto.LunchOrderRequest;
+import app.lunch.forecast.KitchenForecastService;
+import app.lunch.guard.LunchOrderGuard;
+import app.lunch.model.LunchOrderAttempt;
+import app.lunch.model.LunchRefund;
+import app.lunch.occupancy.WeekDayMask;
+import app.lunch.occupancy.WeeklyOccupancyIndex;
+import app.lunch.refund.LunchRefundService;
+import app.lunch.model.LunchOrderAttemptStatus;
+import app.lunch.resilience.LunchRetryListener;
+import app.lunch.resilience.LunchSvcRetryable;
+import app.lunch.snapshot.LunchSnapshot;
+import app.lunch.snapshot.LunchSnapshotStore;
 import app.web.dto.LunchRequest;
 import app.wallet.model.Wallet;
+import app.wallet.model.WalletHold;
+import app.wallet.service.WalletHoldService;
 import app.wallet.service.WalletService;
 import feign.FeignException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
-import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Recover;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.temporal.TemporalAdjusters;
-import java.util.Comparator;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Slf4j
 @Service
 public class LunchService {
 
-    private final LunchServiceClient lunchServiceClient;
-    private final WalletService walletService;
+    private static final String DELETED_STATUS = "DELETED";
+    private static final int HELD_REFUND_BATCH = 100;
+    private static final String SOLD_OUT = "This meal is sold out for that day. Please choose another meal.";
 
-    public LunchService(LunchServiceClient lunchServiceClient, WalletService walletService) {
-        this.lunchServiceClient = lunchServiceClient;
+    private final LunchServiceGateway lunchServiceGateway;
+    private final WalletService walletService;
+    private final LunchSnapshotStore lunchSnapshotStore;
+    private final LunchReplicaService lunchReplicaService;
+    private final WalletHoldService walletHoldService;
+    private final MealCatalogCache mealCatalogCache;
+    private final LunchOrderAttemptService lunchOrderAttemptService;
+    private final MealCapacityLedger mealCapacityLedger;
+    private final WeeklyOccupancyIndex weeklyOccupancyIndex;
+    private final LunchRefundService lunchRefundService;
+    private final LunchOrderGuard lunchOrderGuard;
+    private final KitchenForecastService kitchenForecastService;
+    private final BigDecimal estimatedUnitPrice;
+
+    public LunchService(LunchServiceGateway lunchServiceGateway, WalletService walletService,
+                        LunchSnapshotStore lunchSnapshotStore, LunchReplicaService lunchReplicaService,
+                        WalletHoldService walletHoldService, MealCatalogCache mealCatalogCache,
+                        LunchOrderAttemptService lunchOrderAttemptService, MealCapacityLedger mealCapacityLedger,
+                        WeeklyOccupancyIndex weeklyOccupancyIndex, LunchRefundService lunchRefundService,
+                        LunchOrderGuard lunchOrderGuard, KitchenForecastService kitchenForecastService,
+                        @Value("${lunch-svc.pricing.estimated-unit-price:4.50}") BigDecimal estimatedUnitPrice) {
+        this.lunchServiceGateway = lunchServiceGateway;
         this.walletService = walletService;
+        this.lunchSnapshotStore = lunchSnapshotStore;
+        this.lunchReplicaService = lunchReplicaService;
+        this.walletHoldService = walletHoldService;
+        this.mealCatalogCache = mealCatalogCache;
+        this.lunchOrderAttemptService = lunchOrderAttemptService;
+        this.mealCapacityLedger = mealCapacityLedger;
+        this.weeklyOccupancyIndex = weeklyOccupancyIndex;
+        this.lunchRefundService = lunchRefundService;
+        this.lunchOrderGuard = lunchOrderGuard;
+        this.kitchenForecastService = kitchenForecastService;
+        this.estimatedUnitPrice = estimatedUnitPrice;
     }
 
-    @Retryable(
-            retryFor = {Exception.class},
-            maxAttempts = 3,
-            backoff = @Backoff(delay = 250)
-    )
+    @LunchSvcRetryable(value = "getLunches", recover = "recoverGetLunches")
     public List<LunchOrder> getLunches(UUID childId) {
         log.debug("Getting lunches for child: {}", childId);
 
-        return lunchServiceClient.getLunches(childId);
+        List<LunchOrder> lunches = fetchLunches(childId);
+        lunchSnapshotStore.save(childId, lunches);
+        return lunches;
     }
 
     @Recover
     public List<LunchOrder> recoverGetLunches(Exception e, UUID childId) {
-        log.error("Failed to get lunches after all retry attempts for child: {}", childId, e);
+        return recoverGetLunchSnapshot(e, childId).getLunches();
+    }
 
-        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
-                "The lunch service is not responding. Please try again later.");
+    @LunchSvcRetryable(value = "getLunches", recover = "recoverGetLunchSnapshot")
+    public LunchSnapshot getLunchSnapshot(UUID childId) {
+        log.debug("Getting lunch snapshot for child: {}", childId);
+
+        return lunchSnapshotStore.save(childId, fetchLunches(childId));
     }
 
-    @Retryable(
-            retryFor = {Exception.class},
-            maxAttempts = 3,
-            backoff = @Backoff(delay = 250)
-    )
+    @Recover
+    public LunchSnapshot recoverGetLunchSnapshot(Exception e, UUID childId) {
+
+        LunchSnapshot snapshot = lunchSnapshotStore.serveStale(childId);
+
+        if (snapshot == null) {
+            log.error("Failed to get lunches after all retry attempts for child: {}", childId, e);
+
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "The lunch service is not responding. Please try again later.");
+        }
+
+        log.warn("lunch-svc unavailable, serving lunches for child {} as of {}: {}",
+                childId, snapshot.getFetchedOn(), e.getMessage());
+        return snapshot;
+    }
+
+    @LunchSvcRetryable(value = "getAllLunchesIncludingDeleted", recover = "recoverGetAllLunchesIncludingDeleted")
     public List<LunchOrder> getAllLunchesIncludingDeleted(UUID childId) {
         log.debug("Attempting to get all lunches (including deleted) for child: {}", childId);
 
-        return lunchServiceClient.getLunches(childId);
+        return lunchServiceGateway.findLunches(childId, null, null, true);
     }
     
     @Recover
@@ -75,48 +141,93 @@ public class LunchService {
                 "The lunch service is not responding. Please try again later.");
     }
 
-    @Retryable(
-            retryFor = {Exception.class},
-            noRetryFor = {ResponseStatusException.class},
-            maxAttempts = 3,
-            backoff = @Backoff(delay = 250)
-    )
-    public void createLunch(UUID parentId, UUID childId, LunchRequest lunchRequest) {
+    @LunchSvcRetryable(value = "getLunchesWithStatus", recover = "recoverGetLunchesWithStatus")
+    public List<LunchOrder> getLunchesWithStatus(UUID childId, String status) {
+        log.debug("Getting {} lunches for child: {}", status, childId);
 
-        Wallet wallet = walletService.getWalletByParentId(parentId);
+        return lunchReplicaService.findLunches(childId, status)
+                .orElseGet(() -> lunchServiceGateway.findLunches(childId, status, null, null));
+    }
 
-        if (wallet == null) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Wallet not found for parent " + parentId);
+    @Recover
+    public List<LunchOrder> recoverGetLunchesWithStatus(Exception e, UUID childId, String status) {
+        log.error("Failed to get {} lunches after all retry attempts for child: {}", status, childId, e);
+
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "The lunch service is not responding. Please try again later.");
+    }
+
+    @LunchSvcRetryable(value = "getLunch", recover = "recoverGetLunch")
+    public Optional<LunchOrder> getLunch(UUID childId, UUID lunchId) {
+        log.debug("Getting lunch {} for child: {}", lunchId, childId);
+
+        return lookupLunch(childId, lunchId);
+    }
+
+    @Recover
+    public Optional<LunchOrder> recoverGetLunch(Exception e, UUID childId, UUID lunchId) {
+        log.error("Failed to get lunch {} after all retry attempts for child: {}", lunchId, childId, e);
+
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "The lunch service is not responding. Please try again later.");
+    }
+
+    // Every try carries the same client-generated order id, so lunch-svc returns the order a timed-out try created
+    @LunchSvcRetryable("createLunch")
+    public void createLunch(UUID parentId, UUID childId, LunchRequest lunchRequest) {
+
+        // Retries are handed the same request, so the id is only generated once
+        if (lunchRequest.getOrderId() == null) {
+            lunchRequest.setOrderId(UUID.randomUUID());
         }
 
-        LunchOrderRequest payload = LunchOrderRequest.builder()
-                .parentId(parentId)
-                .childId(childId)
-                .walletId(wallet.getId())
-                .meal(lunchRequest.getMeal())
-                .quantity(lunchRequest.getQuantity())
-                .dayOfWeek(lunchRequest.getDayOfWeek())
-                .build();
+        Optional<LunchOrderAttempt> existing = lunchOrderAttemptService.find(lunchRequest.getOrderId());
 
-        LunchOrder createdOrder = lunchServiceClient.createLunch(childId, payload);
+        if (existing.isPresent() && (!existing.get().getParentId().equals(parentId)
+                || !existing.get().getChildId().equals(childId))) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "This lunch order belongs to another child.");
+        }
+        if (existing.isPresent() && existing.get().getStatus() == LunchOrderAttemptStatus.PLACED) {
+            log.debug("Lunch order {} was already placed", lunchRequest.getOrderId());
+            return;
+        }
+        if (existing.isPresent() && existing.get().getStatus() == LunchOrderAttemptStatus.FAILED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "This lunch order could not be placed. Please submit a new one.");
+        }
 
-        BigDecimal walletBalance = wallet.getBalance() == null ? BigDecimal.ZERO : wallet.getBalance();
-        
-        if (createdOrder.getTotal().compareTo(walletBalance) > 0) {
+        // A second submit for the same child and day is turned away before the wallet or lunch-svc see it
+        lunchOrderGuard.acquire(childId, lunchRequest.getDayOfWeek(), lunchRequest.getOrderId());
+        try {
+            LunchOrderAttempt attempt = existing.orElseGet(() -> beginAttempt(parentId, childId, lunchRequest));
+
+            LunchOrderRequest payload = LunchOrderRequest.builder()
+                    .orderId(attempt.getId())
+                    .parentId(parentId)
+                    .childId(childId)
+                    .walletId(attempt.getWalletId())
+                    .meal(attempt.getMeal())
+                    .quantity(attempt.getQuantity())
+                    .dayOfWeek(attempt.getDayOfWeek())
+                    .build();
+
+            LunchOrder createdOrder;
             try {
-                lunchServiceClient.deleteLunch(childId, createdOrder.getId());
-                log.debug("Deleted lunch order {} due to insufficient funds", createdOrder.getId());
-            } catch (Exception e) {
-                log.warn("Failed to delete lunch order {} after payment failure: {}", createdOrder.getId(), e.getMessage());
+                createdOrder = lunchServiceGateway.createLunch(childId, payload);
+            } catch (RuntimeException e) {
+                // lunch-svc may have committed before a transient failure; the attempt stays pending until resolved
+                if (!LunchRetryListener.isTransient(e)) {
+                    abandonAttempt(attempt);
+                }
+                throw e;
             }
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, 
-                    "Failed to pay for lunch order, not enough money in the wallet.");
-        }
 
-        walletService.payment(createdOrder.getWalletId(), 
-                createdOrder.getTotal(), 
-                "Payment for lunch order #" + createdOrder.getId());
+            completeAttempt(attempt, createdOrder);
+        } finally {
+            lunchOrderGuard.release(childId, lunchRequest.getDayOfWeek(), lunchRequest.getOrderId());
+        }
     }
+
     @Recover
     public void recoverCreateLunch(Exception e, UUID parentId, UUID childId, LunchRequest lunchRequest) {
 
@@ -130,43 +241,55 @@ public class LunchService {
                 "The lunch service is not responding. Please try again later.");
     }
 
-    @Retryable(
-            retryFor = {Exception.class},
-            noRetryFor = {ClientErrorException.class},
-            maxAttempts = 3,
-            backoff = @Backoff(delay = 250)
-    )
+    @LunchSvcRetryable("deleteLunch")
     public void deleteLunch(UUID childId, UUID lunchId) {
         log.debug("Attempting to delete lunch: childId={}, lunchId={}", childId, lunchId);
 
-        List<LunchOrder> lunches = lunchServiceClient.getLunches(childId);
-
-        LunchOrder lunchToDelete = lunches.stream()
-                .filter(lunch -> lunch.getId().equals(lunchId))
-                .findFirst()
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, 
+        LunchOrder lunchToDelete = lookupLunch(childId, lunchId)
+                .filter(lunch -> !DELETED_STATUS.equalsIgnoreCase(lunch.getStatus()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                         "Lunch order not found: " + lunchId));
 
+        // The refund is held before the delete, so it survives a crash or a lost response in between
+        boolean refundable = lunchToDelete.getWalletId() != null &&
+            lunchToDelete.getTotal() != null && lunchToDelete.getTotal().signum() > 0 &&
+            !lunchToDelete.getStatus().equals("COMPLETED");
+        boolean held = refundable &&
+            lunchRefundService.hold(lunchId, childId, lunchToDelete.getWalletId(), lunchToDelete.getTotal());
+
         try {
-            lunchServiceClient.deleteLunch(childId, lunchId);
+            lunchServiceGateway.deleteLunch(childId, lunchId);
         } catch (FeignException e) {
             if (e.status() >= 400 && e.status() < 500) {
                 log.debug("Caught 4xx error from lunch-svc: status={}, message={}", 
                         e.status(), e.contentUTF8());
+                if (held) {
+                    lunchRefundService.discard(lunchId);
+                }
                 throw new ClientErrorException(e);
             }
             throw e;
         }
 
-        if (lunchToDelete.getWalletId() != null &&
-            lunchToDelete.getTotal() != null && 
-            !lunchToDelete.getStatus().equals("COMPLETED")) {
-            walletService.deposit(lunchToDelete.getWalletId(), 
-                    lunchToDelete.getTotal(), 
-                    "Refund for deleted lunch order #" + lunchId);
+        if (refundable) {
+            lunchRefundService.release(lunchId);
+        }
 
-            log.info("Refund processed for deleted lunch: lunchId={}, amount={}", 
-                    lunchId, lunchToDelete.getTotal());
+        if (lunchToDelete.getDayOfWeek() != null && lunchToDelete.getMeal() != null) {
+            mealCapacityLedger.release(childId, lunchToDelete.getDayOfWeek(), lunchToDelete.getMeal(),
+                    lunchToDelete.getQuantity() == null ? 1 : lunchToDelete.getQuantity(),
+                    lunchToDelete.getCreatedOn() == null ? LocalDateTime.now()
+                            : LocalDateTime.ofInstant(lunchToDelete.getCreatedOn(), ZoneId.systemDefault()));
+        }
+
+        weeklyOccupancyIndex.invalidate(childId);
+        kitchenForecastService.recordCancelled(lunchId);
+
+        try {
+            lunchReplicaService.remove(lunchId);
+        } catch (Exception e) {
+            log.warn("Failed to remove lunch order {} from the replica, the next sync will catch up: {}",
+                    lunchId, e.getMessage());
         }
     }
     
@@ -175,6 +298,9 @@ public class LunchService {
         if (e instanceof ClientErrorException) {
             throw (ClientErrorException) e;
         }
+        if (e instanceof ResponseStatusException) {
+            throw (ResponseStatusException) e;
+        }
         
         log.error("Failed to delete lunch after all retry attempts: childId={}, lunchId={}", 
                 childId, lunchId, e);
@@ -183,50 +309,262 @@ public class LunchService {
                 "The lunch service is not responding. Please try again later.");
     }
 
+    public int reconcilePendingOrders() {
+
+        int resolved = 0;
+
+        for (LunchOrderAttempt attempt : lunchOrderAttemptService.findUnresolved()) {
+            Optional<LunchOrder> order;
+            try {
+                order = Optional.ofNullable(lunchServiceGateway.getLunch(attempt.getChildId(), attempt.getId()));
+            } catch (FeignException.NotFound e) {
+                order = Optional.empty();
+            } catch (Exception e) {
+                log.debug("lunch-svc still unavailable, stopping lunch order reconciliation: {}", e.getMessage());
+                break;
+            }
+
+            try {
+                if (order.isPresent() && !DELETED_STATUS.equalsIgnoreCase(order.get().getStatus())) {
+                    completeAttempt(attempt, order.get());
+                } else {
+                    abandonAttempt(attempt);
+                }
+            } catch (ResponseStatusException e) {
+                log.info("Pending lunch order {} could not be paid: {}", attempt.getId(), e.getReason());
+            } catch (RuntimeException e) {
+                // The attempt stays pending and is picked up again on the next run
+                log.warn("Pending lunch order {} could not be settled: {}", attempt.getId(), e.getMessage());
+                continue;
+            }
+            resolved++;
+        }
+
+        if (resolved > 0) {
+            log.info("Resolved {} pending lunch orders", resolved);
+        }
+        return resolved;
+    }
+
+    // Pays held refunds whose order lunch-svc did delete and drops the rest
+    public int reconcileHeldRefunds() {
+
+        int resolved = 0;
+
+        for (LunchRefund refund : lunchRefundService.findExpiredHolds(HELD_REFUND_BATCH)) {
+            Optional<LunchOrder> order;
+            try {
+                order = Optional.ofNullable(lunchServiceGateway.getLunch(refund.getChildId(), refund.getId()));
+            } catch (FeignException.NotFound e) {
+                order = Optional.empty();
+            } catch (Exception e) {
+                log.debug("lunch-svc still unavailable, stopping held refund reconciliation: {}", e.getMessage());
+                break;
+            }
+
+            if (order.isEmpty() || DELETED_STATUS.equalsIgnoreCase(order.get().getStatus())) {
+                lunchRefundService.release(refund.getId());
+            } else {
+                log.info("Lunch order {} was not deleted, dropping its held refund", refund.getId());
+                lunchRefundService.discard(refund.getId());
+            }
+            resolved++;
+        }
+
+        if (resolved > 0) {
+            log.info("Resolved {} held lunch refunds", resolved);
+        }
+        return resolved;
+    }
+
+    private LunchOrderAttempt beginAttempt(UUID parentId, UUID childId, LunchRequest lunchRequest) {
+
+        Wallet wallet = walletService.getWalletByParentId(parentId);
+
+        if (wallet == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Wallet not found for parent " + parentId);
+        }
+
+        BigDecimal expectedTotal = quote(lunchRequest.getMeal(), lunchRequest.getQuantity());
+        LocalDateTime orderedOn = LocalDateTime.now();
+
+        if (!mealCapacityLedger.tryReserve(childId, lunchRequest.getDayOfWeek(), lunchRequest.getMeal(),
+                lunchRequest.getQuantity(), orderedOn)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, SOLD_OUT);
+        }
+
+        Optional<WalletHold> reserved = walletHoldService.reserve(wallet.getId(), expectedTotal,
+                "Lunch order for child " + childId + " on " + lunchRequest.getDayOfWeek());
+
+        if (reserved.isEmpty()) {
+            mealCapacityLedger.release(childId, lunchRequest.getDayOfWeek(), lunchRequest.getMeal(),
+                    lunchRequest.getQuantity(), orderedOn);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Failed to pay for lunch order, not enough money in the wallet.");
+        }
+
+        WalletHold hold = reserved.get();
+
+        try {
+            return lunchOrderAttemptService.begin(LunchOrderAttempt.builder()
+                    .id(lunchRequest.getOrderId())
+                    .parentId(parentId)
+                    .childId(childId)
+                    .walletId(wallet.getId())
+                    .holdId(hold.getId())
+                    .meal(lunchRequest.getMeal())
+                    .quantity(lunchRequest.getQuantity())
+                    .dayOfWeek(lunchRequest.getDayOfWeek())
+                    .amount(expectedTotal)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            walletHoldService.release(hold);
+            mealCapacityLedger.release(childId, lunchRequest.getDayOfWeek(), lunchRequest.getMeal(),
+                    lunchRequest.getQuantity(), orderedOn);
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "This lunch order is already being placed.");
+        }
+    }
+
+    private void completeAttempt(LunchOrderAttempt attempt, LunchOrder createdOrder) {
+
+        if (createdOrder.getTotal() != null && createdOrder.getTotal().compareTo(attempt.getAmount()) != 0) {
+            log.debug("lunch-svc priced order {} at {}, quoted {}", createdOrder.getId(), createdOrder.getTotal(),
+                    attempt.getAmount());
+        }
+
+        // A concurrent try or the reconciler may have settled the attempt already
+        Optional<LunchOrderPlacement> placement = lunchOrderAttemptService.place(
+                Map.of(attempt.getId(), createdOrder.getTotal()), hold(attempt),
+                "Payment for lunch order #" + createdOrder.getId());
+
+        if (placement.isEmpty()) {
+            log.debug("Lunch order {} was already resolved", attempt.getId());
+            return;
+        }
+
+        if (!placement.get().isPaid()) {
+            releaseCapacity(attempt);
+            try {
+                lunchServiceGateway.deleteLunch(attempt.getChildId(), createdOrder.getId());
+                log.debug("Deleted lunch order {} due to insufficient funds", createdOrder.getId());
+            } catch (Exception e) {
+                log.warn("Failed to delete lunch order {} after payment failure: {}", createdOrder.getId(), e.getMessage());
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, 
+                    "Failed to pay for lunch order, not enough money in the wallet.");
+        }
+
+        saveToReplica(createdOrder);
+        weeklyOccupancyIndex.markOrdered(attempt.getChildId(), attempt.getDayOfWeek());
+        kitchenForecastService.recordOrdered(createdOrder);
+    }
+
+    private void abandonAttempt(LunchOrderAttempt attempt) {
+        if (lunchOrderAttemptService.markFailed(attempt.getId())) {
+            walletHoldService.release(hold(attempt));
+            releaseCapacity(attempt);
+        }
+    }
+
+    private void releaseCapacity(LunchOrderAttempt attempt) {
+        mealCapacityLedger.release(attempt.getChildId(), attempt.getDayOfWeek(), attempt.getMeal(),
+                attempt.getQuantity(), attempt.getCreatedOn());
+    }
+
+    private WalletHold hold(LunchOrderAttempt attempt) {
+        return walletHoldService.getHold(attempt.getHoldId())
+                .orElseThrow(() -> new IllegalStateException("Wallet hold " + attempt.getHoldId()
+                        + " of lunch order " + attempt.getId() + " was not found"));
+    }
+
+    // Priced from the cached catalog only, so unaffordable orders never reach lunch-svc
+    public BigDecimal quote(String meal, int quantity) {
+
+        BigDecimal units = BigDecimal.valueOf(quantity);
+        Optional<MealCatalog> catalog = mealCatalogCache.current();
+
+        if (catalog.isEmpty()) {
+            return estimatedUnitPrice.multiply(units);
+        }
+
+        return catalog.get().find(meal)
+                .map(offered -> offered.getUnitPrice() == null ? estimatedUnitPrice : offered.getUnitPrice())
+                .map(unitPrice -> unitPrice.multiply(units))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "The selected meal is not on the menu."));
+    }
+
+    private List<LunchOrder> fetchLunches(UUID childId) {
+
+        Optional<List<LunchOrder>> replicated = lunchReplicaService.findLunches(childId);
+        if (replicated.isPresent()) {
+            return replicated.get();
+        }
+
+        List<LunchOrder> lunches = lunchServiceGateway.getLunches(childId);
+        weeklyOccupancyIndex.replace(childId, lunches.stream().map(LunchOrder::getDayOfWeek).toList());
+        try {
+            lunchReplicaService.replaceChild(childId, lunches);
+        } catch (Exception e) {
+            log.warn("Failed to refresh the lunch replica for child {}: {}", childId, e.getMessage());
+        }
+        return lunches;
+    }
+
+    private Optional<LunchOrder> lookupLunch(UUID childId, UUID lunchId) {
+
+        Optional<LunchOrder> replicated = lunchReplicaService.findLunch(childId, lunchId);
+        if (replicated.isPresent()) {
+            return replicated;
+        }
+
+        try {
+            return Optional.ofNullable(lunchServiceGateway.getLunch(childId, lunchId));
+        } catch (FeignException.NotFound e) {
+            return Optional.empty();
+        }
+    }
+
+    private List<String> fetchOccupiedDays(UUID childId) {
+        return lunchReplicaService.findOccupiedDays(childId)
+                .orElseGet(() -> lunchServiceGateway.getOccupiedDays(childId));
+    }
+
+    private void saveToReplica(LunchOrder lunchOrder) {
+        try {
+            lunchReplicaService.save(lunchOrder);
+        } catch (Exception e) {
+            log.warn("Failed to add lunch order {} to the replica, the next sync will catch up: {}",
+                    lunchOrder.getId(), e.getMessage());
+        }
+    }
+
     public List<DayOfWeek> getAvailableDaysForLunch(UUID childId) {
-        List<LunchOrder> lunches = getLunches(childId);
+        int occupied = weeklyOccupancyIndex.occupied(childId, this::fetchOccupiedDays);
+        return WeekDayMask.days(availableDays(occupied), DayOfWeek.MONDAY);
+    }
 
-        List<String> usedDays = lunches.stream()
-                .map(LunchOrder::getDayOfWeek)
-                .filter(day -> day != null && !day.isEmpty())
-                .map(String::toUpperCase)
-                .toList();
-        
-        LocalDate today = LocalDate.now();
-        LocalTime currentTime = LocalTime.now();
-        DayOfWeek todayDayOfWeek = today.getDayOfWeek();
-        
-        boolean excludeToday = currentTime.isAfter(LocalTime.of(10, 0));
-        
-        List<DayOfWeek> weekDays = List.of(
-                DayOfWeek.MONDAY,
-                DayOfWeek.TUESDAY,
-                DayOfWeek.WEDNESDAY,
-                DayOfWeek.THURSDAY,
-                DayOfWeek.FRIDAY
-        );
-        
-        return weekDays.stream()
-                .filter(day -> {
-                    String dayName = day.name();
-                    if (usedDays.contains(dayName)) {
-                        return false;
-                    }
-                    if (excludeToday && day == todayDayOfWeek) {
-                        return false;
-                    }
-                    return true;
-                })
-                .sorted(Comparator.comparing(day -> today.with(TemporalAdjusters.nextOrSame(day))))
-                .toList();
+    public List<DayOfWeek> getAvailableDaysForLunch(List<LunchOrder> lunches) {
+        int occupied = WeekDayMask.of(lunches.stream().map(LunchOrder::getDayOfWeek).toList());
+        return WeekDayMask.days(availableDays(occupied), DayOfWeek.MONDAY);
     }
 
-    public String getEarliestAvailableDay(UUID childId) {
-        List<DayOfWeek> availableDays = getAvailableDaysForLunch(childId);
-        if (availableDays.isEmpty()) {
-            return null;
+    // School days without a lunch yet, minus today once the 10:00 cutoff has passed
+    private int availableDays(int occupied) {
+
+        int available = WeekDayMask.SCHOOL_DAYS & ~occupied;
+
+        if (LocalTime.now().isAfter(LocalTime.of(10, 0))) {
+            available &= ~WeekDayMask.bit(LocalDate.now().getDayOfWeek());
         }
-        return availableDays.get(0).name();
+        return available;
+    }
+
+    public String getEarliestAvailableDay(UUID childId) {
+        int occupied = weeklyOccupancyIndex.occupied(childId, this::fetchOccupiedDays);
+        return WeekDayMask.first(availableDays(occupied), DayOfWeek.MONDAY)
+                .map(DayOfWeek::name)
+                .orElse(null);
     }
 
 }
@@ -0,0 +1,247 @@
+package app.lunch.settlement;
+
+import app.child.repository.ChildRepository;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.model.DailySettlement;
+import app.lunch.model.DailySettlementStatus;
+import app.lunch.model.LunchSettlement;
+import app.lunch.repository.DailySettlementRepository;
+import app.lunch.repository.LunchOrderReplicaRepository;
+import app.lunch.repository.LunchSettlementRepository;
+import app.lunch.service.LunchReplicaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+public class LunchSettlementService {
+
+    private static final UUID FIRST_CHILD = new UUID(0, 0);
+    private static final String DELETED_STATUS = "DELETED";
+
+    private final DailySettlementRepository dailySettlementRepository;
+    private final LunchSettlementRepository lunchSettlementRepository;
+    private final LunchOrderReplicaRepository lunchOrderReplicaRepository;
+    private final ChildRepository childRepository;
+    private final LunchServiceGateway lunchServiceGateway;
+    private final LunchReplicaService lunchReplicaService;
+    private final Executor lunchTaskExecutor;
+    private final int parallelism;
+    private final int chunkSize;
+    private final int catchUpDays;
+    private final Duration claimTimeout;
+    private final MeterRegistry meterRegistry;
+
+    public LunchSettlementService(DailySettlementRepository dailySettlementRepository,
+                                  LunchSettlementRepository lunchSettlementRepository,
+                                  LunchOrderReplicaRepository lunchOrderReplicaRepository,
+                                  ChildRepository childRepository, LunchServiceGateway lunchServiceGateway,
+                                  LunchReplicaService lunchReplicaService,
+                                  @Qualifier("lunchTaskExecutor") Executor lunchTaskExecutor,
+                                  @Value("${lunch-svc.settlement.parallelism:4}") int parallelism,
+                                  @Value("${lunch-svc.settlement.chunk-size:200}") int chunkSize,
+                                  @Value("${lunch-svc.settlement.catch-up-days:7}") int catchUpDays,
+                                  @Value("${lunch-svc.settlement.claim-timeout:10m}") Duration claimTimeout,
+                                  MeterRegistry meterRegistry) {
+        this.dailySettlementRepository = dailySettlementRepository;
+        this.lunchSettlementRepository = lunchSettlementRepository;
+        this.lunchOrderReplicaRepository = lunchOrderReplicaRepository;
+        this.childRepository = childRepository;
+        this.lunchServiceGateway = lunchServiceGateway;
+        this.lunchReplicaService = lunchReplicaService;
+        this.lunchTaskExecutor = lunchTaskExecutor;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.catchUpDays = Math.max(0, catchUpDays);
+        this.claimTimeout = claimTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Settles the given day and any school day before it that a missed or failed run left open
+    public int settleThrough(LocalDate lastDay) {
+
+        Set<LocalDate> settled = new HashSet<>();
+        dailySettlementRepository.findByDayBetweenAndStatus(lastDay.minusDays(catchUpDays), lastDay,
+                DailySettlementStatus.COMPLETED).forEach(settlement -> settled.add(settlement.getDay()));
+
+        int orders = 0;
+        for (LocalDate day = lastDay.minusDays(catchUpDays); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            if (day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY
+                    && !settled.contains(day)) {
+                orders += settle(day);
+            }
+        }
+        return orders;
+    }
+
+    public int settle(LocalDate day) {
+
+        DailySettlement settlement = open(day);
+        LocalDateTime now = LocalDateTime.now();
+
+        if (dailySettlementRepository.claim(settlement.getId(), now, now.minus(claimTimeout)) == 0) {
+            log.debug("Settlement of {} is completed or claimed by another run", day);
+            return 0;
+        }
+
+        UUID after = settlement.getLastChildId() != null ? settlement.getLastChildId() : FIRST_CHILD;
+        int settledOrders = 0;
+
+        while (true) {
+            List<UUID> childIds = childRepository.findIdsAfter(after, PageRequest.of(0, chunkSize));
+
+            if (childIds.isEmpty()) {
+                break;
+            }
+
+            Queue<LunchOrder> served = new ConcurrentLinkedQueue<>();
+            if (!readChunk(day, childIds, served)) {
+                dailySettlementRepository.pause(settlement.getId(), LocalDateTime.now());
+                log.warn("Settlement of {} paused after child {}, resuming on the next run", day, after);
+                return settledOrders;
+            }
+
+            settledOrders += settleChunk(day, served);
+            after = childIds.get(childIds.size() - 1);
+            dailySettlementRepository.checkpoint(settlement.getId(), after, childIds.size(), LocalDateTime.now());
+        }
+
+        // Totals come from the settled lunches, so a chunk repeated after a crash is not counted twice
+        SettlementTotals totals = lunchSettlementRepository.findTotals(day);
+        dailySettlementRepository.finish(settlement.getId(), totals.getOrders().intValue(),
+                totals.getPortions().intValue(), totals.getTotal(), LocalDateTime.now());
+
+        meterRegistry.counter("lunch.settlement.days").increment();
+        log.info("Settled {}: {} lunches, {} portions, {} in total", day, totals.getOrders(), totals.getPortions(),
+                totals.getTotal());
+        return settledOrders;
+    }
+
+    public DailySettlement getSettlement(LocalDate day) {
+        return dailySettlementRepository.findByDay(day).orElse(null);
+    }
+
+    private DailySettlement open(LocalDate day) {
+
+        return dailySettlementRepository.findByDay(day).orElseGet(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                return dailySettlementRepository.saveAndFlush(DailySettlement.builder()
+                        .day(day)
+                        .status(DailySettlementStatus.PENDING)
+                        .total(BigDecimal.ZERO)
+                        .createdOn(now)
+                        .updatedOn(now)
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Settlement of {} was opened concurrently", day);
+                return dailySettlementRepository.findByDay(day).orElseThrow();
+            }
+        });
+    }
+
+    // Children of the chunk are read by a bounded number of lanes; one failed read leaves the chunk for a later run
+    private boolean readChunk(LocalDate day, List<UUID> childIds, Queue<LunchOrder> served) {
+
+        String dayOfWeek = day.getDayOfWeek().name();
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        Runnable lane = () -> {
+            int index;
+            while (!failed.get() && (index = next.getAndIncrement()) < childIds.size()) {
+                UUID childId = childIds.get(index);
+                try {
+                    lunchReplicaService.findLunches(childId)
+                            .orElseGet(() -> lunchServiceGateway.findLunches(childId, null, dayOfWeek, false))
+                            .stream()
+                            .filter(lunch -> dayOfWeek.equalsIgnoreCase(lunch.getDayOfWeek()))
+                            .filter(lunch -> !DELETED_STATUS.equalsIgnoreCase(lunch.getStatus()))
+                            .filter(lunch -> day.equals(servedOn(lunch)))
+                            .forEach(served::add);
+                } catch (RuntimeException e) {
+                    log.warn("Lunches of child {} could not be read for the settlement of {}: {}", childId, day,
+                            e.getMessage());
+                    failed.set(true);
+                }
+            }
+        };
+
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (int i = 0; i < Math.min(parallelism, childIds.size()); i++) {
+            try {
+                running.add(CompletableFuture.runAsync(lane, lunchTaskExecutor));
+            } catch (RejectedExecutionException e) {
+                log.debug("Lunch executor is saturated, running settlement lane on the caller");
+                lane.run();
+            }
+        }
+
+        CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).join();
+        return !failed.get();
+    }
+
+    private int settleChunk(LocalDate day, Queue<LunchOrder> served) {
+
+        if (served.isEmpty()) {
+            return 0;
+        }
+
+        List<UUID> ids = served.stream().map(LunchOrder::getId).toList();
+        Set<UUID> alreadySettled = new HashSet<>(lunchSettlementRepository.findSettledIds(ids));
+        LocalDateTime now = LocalDateTime.now();
+
+        List<LunchSettlement> settlements = served.stream()
+                .filter(lunch -> !alreadySettled.contains(lunch.getId()))
+                .map(lunch -> LunchSettlement.builder()
+                        .id(lunch.getId())
+                        .childId(lunch.getChildId())
+                        .walletId(lunch.getWalletId())
+                        .day(day)
+                        .meal(lunch.getMeal())
+                        .quantity(lunch.getQuantity() == null ? 1 : lunch.getQuantity())
+                        .total(lunch.getTotal())
+                        .settledOn(now)
+                        .build())
+                .toList();
+
+        lunchSettlementRepository.saveAll(settlements);
+        lunchOrderReplicaRepository.markCompleted(ids);
+
+        meterRegistry.counter("lunch.settlement.orders").increment(settlements.size());
+        return settlements.size();
+    }
+
+    private LocalDate servedOn(LunchOrder lunch) {
+
+        LocalDateTime orderedOn = lunch.getCreatedOn() == null ? LocalDateTime.now()
+                : LocalDateTime.ofInstant(lunch.getCreatedOn(), ZoneId.systemDefault());
+        return orderedOn.toLocalDate()
+                .with(TemporalAdjusters.nextOrSame(DayOfWeek.valueOf(lunch.getDayOfWeek().toUpperCase())));
+    }
+}
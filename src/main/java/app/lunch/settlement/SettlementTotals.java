@@ -0,0 +1,12 @@
+package app.lunch.settlement;
+
+import java.math.BigDecimal;
+
+public interface SettlementTotals {
+
+    Long getOrders();
+
+    Long getPortions();
+
+    BigDecimal getTotal();
+}
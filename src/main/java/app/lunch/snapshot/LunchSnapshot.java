@@ -0,0 +1,23 @@
+package app.lunch.snapshot;
+
+import app.lunch.client.dto.LunchOrder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class LunchSnapshot {
+
+    private final List<LunchOrder> lunches;
+
+    private final Instant fetchedOn;
+
+    private final boolean stale;
+
+    public LunchSnapshot asStale() {
+        return new LunchSnapshot(lunches, fetchedOn, true);
+    }
+}
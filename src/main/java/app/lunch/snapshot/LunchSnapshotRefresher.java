@@ -0,0 +1,71 @@
+package app.lunch.snapshot;
+
+import app.lunch.client.LunchServiceGateway;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Component
+public class LunchSnapshotRefresher {
+
+    private final LunchServiceGateway lunchServiceGateway;
+    private final LunchSnapshotStore lunchSnapshotStore;
+    private final Executor lunchTaskExecutor;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    public LunchSnapshotRefresher(LunchServiceGateway lunchServiceGateway, LunchSnapshotStore lunchSnapshotStore,
+                                  @Qualifier("lunchTaskExecutor") Executor lunchTaskExecutor) {
+        this.lunchServiceGateway = lunchServiceGateway;
+        this.lunchSnapshotStore = lunchSnapshotStore;
+        this.lunchTaskExecutor = lunchTaskExecutor;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        lunchServiceGateway.circuitBreaker("getLunches").getEventPublisher()
+                .onStateTransition(event -> {
+                    CircuitBreaker.State state = event.getStateTransition().getToState();
+                    if (state == CircuitBreaker.State.HALF_OPEN || state == CircuitBreaker.State.CLOSED) {
+                        scheduleRefresh();
+                    }
+                });
+    }
+
+    public void scheduleRefresh() {
+        try {
+            lunchTaskExecutor.execute(this::refreshStale);
+        } catch (RejectedExecutionException e) {
+            log.debug("Lunch executor is saturated, stale snapshots will be refreshed on the next transition");
+        }
+    }
+
+    // While half-open these calls double as the circuit breaker's probe requests
+    public void refreshStale() {
+
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            for (UUID childId : lunchSnapshotStore.getStaleChildren()) {
+                try {
+                    lunchSnapshotStore.save(childId, lunchServiceGateway.getLunches(childId));
+                    log.debug("Refreshed stale lunch snapshot for child {}", childId);
+                } catch (Exception e) {
+                    log.debug("lunch-svc still unavailable, stopping snapshot refresh: {}", e.getMessage());
+                    return;
+                }
+            }
+        } finally {
+            refreshing.set(false);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package app.lunch.snapshot;
+
+import app.lunch.client.dto.LunchOrder;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class LunchSnapshotStore {
+
+    private final Cache<UUID, LunchSnapshot> snapshots;
+    private final Set<UUID> staleChildren = ConcurrentHashMap.newKeySet();
+    private final MeterRegistry meterRegistry;
+
+    public LunchSnapshotStore(@Value("${lunch-svc.snapshot.max-size:5000}") long maxSize,
+                              @Value("${lunch-svc.snapshot.time-to-live:24h}") Duration timeToLive,
+                              MeterRegistry meterRegistry) {
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("lunch.snapshot.size", snapshots, Cache::estimatedSize)
+                .description("Children with a last-known-good lunch list")
+                .register(meterRegistry);
+        Gauge.builder("lunch.snapshot.stale", staleChildren, Set::size)
+                .description("Children whose lunch list was last served from a stale snapshot")
+                .register(meterRegistry);
+    }
+
+    public LunchSnapshot save(UUID childId, List<LunchOrder> lunches) {
+
+        LunchSnapshot snapshot = new LunchSnapshot(lunches == null ? List.of() : List.copyOf(lunches),
+                Instant.now(), false);
+
+        snapshots.put(childId, snapshot);
+        staleChildren.remove(childId);
+        return snapshot;
+    }
+
+    public LunchSnapshot serveStale(UUID childId) {
+
+        LunchSnapshot snapshot = snapshots.getIfPresent(childId);
+
+        if (snapshot == null) {
+            meterRegistry.counter("lunch.snapshot.misses").increment();
+            return null;
+        }
+
+        staleChildren.add(childId);
+        meterRegistry.counter("lunch.snapshot.stale.served").increment();
+        return snapshot.asStale();
+    }
+
+    public Set<UUID> getStaleChildren() {
+        staleChildren.removeIf(childId -> snapshots.getIfPresent(childId) == null);
+        return Set.copyOf(staleChildren);
+    }
+}
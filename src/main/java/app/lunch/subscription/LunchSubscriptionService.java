@@ -0,0 +1,85 @@
+package app.lunch.subscription;
+
+import app.child.service.ChildService;
+import app.expetion.DomainException;
+import app.lunch.model.LunchSubscription;
+import app.lunch.repository.LunchSubscriptionRepository;
+import app.lunch.service.LunchService;
+import app.web.dto.LunchSubscriptionRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class LunchSubscriptionService {
+
+    private static final Set<DayOfWeek> SCHOOL_DAYS = Set.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY,
+            DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY);
+
+    private final LunchSubscriptionRepository lunchSubscriptionRepository;
+    private final ChildService childService;
+    private final LunchService lunchService;
+
+    public LunchSubscriptionService(LunchSubscriptionRepository lunchSubscriptionRepository,
+                                    ChildService childService, LunchService lunchService) {
+        this.lunchSubscriptionRepository = lunchSubscriptionRepository;
+        this.childService = childService;
+        this.lunchService = lunchService;
+    }
+
+    public List<LunchSubscription> getSubscriptions(UUID parentId) {
+        return lunchSubscriptionRepository.findByParentIdOrderByChildIdAscDayOfWeekAsc(parentId);
+    }
+
+    public LunchSubscription subscribe(UUID parentId, LunchSubscriptionRequest request) {
+
+        childService.checkChildParent(parentId, request.getChildId());
+
+        String dayOfWeek = request.getDayOfWeek().toUpperCase();
+        if (SCHOOL_DAYS.stream().noneMatch(day -> day.name().equals(dayOfWeek))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Lunches can be ordered only for school days.");
+        }
+
+        // Rejects meals that are not on the menu
+        lunchService.quote(request.getMeal(), request.getQuantity());
+
+        LocalDateTime now = LocalDateTime.now();
+        LunchSubscription subscription = lunchSubscriptionRepository
+                .findByChildIdAndDayOfWeek(request.getChildId(), dayOfWeek)
+                .orElseGet(() -> LunchSubscription.builder()
+                        .parentId(parentId)
+                        .childId(request.getChildId())
+                        .dayOfWeek(dayOfWeek)
+                        .createdOn(now)
+                        .build());
+        subscription.setMeal(request.getMeal());
+        subscription.setQuantity(request.getQuantity());
+        subscription.setUpdatedOn(now);
+
+        LunchSubscription saved = lunchSubscriptionRepository.save(subscription);
+        log.info("Child {} is subscribed to {} x {} every {}", request.getChildId(), request.getQuantity(),
+                request.getMeal(), dayOfWeek);
+        return saved;
+    }
+
+    public void cancel(UUID parentId, UUID subscriptionId) {
+
+        LunchSubscription subscription = lunchSubscriptionRepository.findById(subscriptionId)
+                .orElseThrow(() -> new DomainException("Subscription not found"));
+
+        if (!subscription.getParentId().equals(parentId)) {
+            throw new DomainException("You can cancel only your own subscriptions.");
+        }
+
+        lunchSubscriptionRepository.delete(subscription);
+        log.info("Cancelled lunch subscription {} of child {}", subscriptionId, subscription.getChildId());
+    }
+}
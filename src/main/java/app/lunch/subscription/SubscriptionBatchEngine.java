@@ -0,0 +1,265 @@
+package app.lunch.subscription;
+
+import app.lunch.model.LunchSubscription;
+import app.lunch.model.SubscriptionBatchPartition;
+import app.lunch.model.SubscriptionBatchStatus;
+import app.lunch.repository.LunchSubscriptionRepository;
+import app.lunch.repository.SubscriptionBatchPartitionRepository;
+import app.lunch.resilience.ConcurrencyLimitExceededException;
+import app.lunch.resilience.LunchRetryListener;
+import app.lunch.weekly.WeeklyOrderItemResult;
+import app.lunch.weekly.WeeklyOrderItemStatus;
+import app.lunch.weekly.WeeklyOrderResult;
+import app.lunch.weekly.WeeklyOrderService;
+import app.web.dto.WeeklyLunchItem;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class SubscriptionBatchEngine {
+
+    private static final UUID FIRST_PARENT = new UUID(0, 0);
+
+    private final LunchSubscriptionRepository lunchSubscriptionRepository;
+    private final SubscriptionBatchPartitionRepository partitionRepository;
+    private final WeeklyOrderService weeklyOrderService;
+    private final int parallelism;
+    private final int chunkSize;
+    private final Duration timeWindow;
+    private final Duration claimTimeout;
+    private final MeterRegistry meterRegistry;
+
+    public SubscriptionBatchEngine(LunchSubscriptionRepository lunchSubscriptionRepository,
+                                   SubscriptionBatchPartitionRepository partitionRepository,
+                                   WeeklyOrderService weeklyOrderService,
+                                   @Value("${lunch-svc.subscriptions.parallelism:4}") int parallelism,
+                                   @Value("${lunch-svc.subscriptions.chunk-size:200}") int chunkSize,
+                                   @Value("${lunch-svc.subscriptions.time-window:4h}") Duration timeWindow,
+                                   @Value("${lunch-svc.subscriptions.claim-timeout:10m}") Duration claimTimeout,
+                                   MeterRegistry meterRegistry) {
+        this.lunchSubscriptionRepository = lunchSubscriptionRepository;
+        this.partitionRepository = partitionRepository;
+        this.weeklyOrderService = weeklyOrderService;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.timeWindow = timeWindow;
+        this.claimTimeout = claimTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public LocalDate nextWeekStart() {
+        return LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+    }
+
+    public int run(LocalDate weekStart) {
+
+        for (String school : lunchSubscriptionRepository.findSubscribedSchools()) {
+            openPartition(weekStart, school);
+        }
+        return resume(weekStart);
+    }
+
+    // Picks up partitions left unfinished by a crashed or timed out run, starting after their checkpoint
+    public int resume(LocalDate weekStart) {
+
+        List<SubscriptionBatchPartition> open = partitionRepository.findByWeekStartAndStatusNot(weekStart,
+                SubscriptionBatchStatus.COMPLETED);
+
+        if (open.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime deadline = LocalDateTime.now().plus(timeWindow);
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger parents = new AtomicInteger();
+        Runnable lane = () -> {
+            int index;
+            while ((index = next.getAndIncrement()) < open.size()) {
+                parents.addAndGet(process(open.get(index), deadline));
+            }
+        };
+
+        // Schools are drained by their own threads: each parent's creates already fan out on the lunch executor
+        int lanes = Math.min(parallelism, open.size());
+        ExecutorService executor = Executors.newFixedThreadPool(lanes);
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < lanes; i++) {
+                running.add(executor.submit(lane));
+            }
+            for (Future<?> future : running) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Subscription batch for week {} failed", weekStart, e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info("Subscription batch for week {}: {} partitions, {} parents processed", weekStart, open.size(),
+                parents.get());
+        return parents.get();
+    }
+
+    public boolean isUnfinished(LocalDate weekStart) {
+        return partitionRepository.existsByWeekStartAndStatusNot(weekStart, SubscriptionBatchStatus.COMPLETED);
+    }
+
+    private void openPartition(LocalDate weekStart, String school) {
+
+        if (partitionRepository.findByWeekStartAndSchool(weekStart, school).isPresent()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            partitionRepository.saveAndFlush(SubscriptionBatchPartition.builder()
+                    .weekStart(weekStart)
+                    .school(school)
+                    .status(SubscriptionBatchStatus.PENDING)
+                    .charged(BigDecimal.ZERO)
+                    .createdOn(now)
+                    .updatedOn(now)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Subscription batch partition for {} in week {} was opened concurrently", school, weekStart);
+        }
+    }
+
+    private int process(SubscriptionBatchPartition partition, LocalDateTime deadline) {
+
+        LocalDateTime now = LocalDateTime.now();
+        if (partitionRepository.claim(partition.getId(), now, now.minus(claimTimeout)) == 0) {
+            log.debug("Subscription batch partition {} is claimed by another run", partition.getSchool());
+            return 0;
+        }
+
+        UUID after = partition.getLastParentId() != null ? partition.getLastParentId() : FIRST_PARENT;
+        int processed = 0;
+
+        while (true) {
+            List<UUID> parentIds = lunchSubscriptionRepository.findParentIdsBySchool(partition.getSchool(), after,
+                    PageRequest.of(0, chunkSize));
+
+            if (parentIds.isEmpty()) {
+                finish(partition, SubscriptionBatchStatus.COMPLETED);
+                return processed;
+            }
+
+            Map<UUID, List<LunchSubscription>> byParent = lunchSubscriptionRepository
+                    .findBySchoolAndParentIds(partition.getSchool(), parentIds).stream()
+                    .collect(Collectors.groupingBy(LunchSubscription::getParentId));
+
+            for (UUID parentId : parentIds) {
+                if (LocalDateTime.now().isAfter(deadline)) {
+                    log.warn("Subscription batch window closed, {} stops after parent {}", partition.getSchool(),
+                            after);
+                    finish(partition, SubscriptionBatchStatus.PENDING);
+                    return processed;
+                }
+
+                if (!placeWeek(partition, parentId, byParent.getOrDefault(parentId, List.of()))) {
+                    finish(partition, SubscriptionBatchStatus.PENDING);
+                    return processed;
+                }
+
+                after = parentId;
+                processed++;
+            }
+        }
+    }
+
+    // One weekly order per parent: a single hold and a single wallet payment for all of their subscriptions
+    private boolean placeWeek(SubscriptionBatchPartition partition, UUID parentId,
+                              List<LunchSubscription> subscriptions) {
+
+        List<WeeklyLunchItem> items = subscriptions.stream()
+                .map(subscription -> item(subscription, partition.getWeekStart()))
+                .toList();
+
+        WeeklyOrderResult result;
+        try {
+            result = weeklyOrderService.placeWeek(parentId, items, partition.getWeekStart());
+        } catch (RuntimeException e) {
+            if (isLunchSvcUnavailable(e)) {
+                log.warn("lunch-svc is unavailable, pausing subscription batch for {}: {}", partition.getSchool(),
+                        e.getMessage());
+                return false;
+            }
+            log.warn("Subscriptions of parent {} could not be ordered: {}", parentId, e.getMessage());
+            result = new WeeklyOrderResult(List.of(), BigDecimal.ZERO);
+            meterRegistry.counter("lunch.subscriptions.parents", "outcome", "failed").increment();
+        }
+
+        // Nothing was charged for these items, so the parent is ordered again once lunch-svc is back
+        if (result.getItems().stream().anyMatch(item -> item.getStatus() == WeeklyOrderItemStatus.FAILED
+                && isLunchSvcUnavailable(item.getFailure()))) {
+            log.warn("lunch-svc is unavailable, pausing subscription batch for {}", partition.getSchool());
+            return false;
+        }
+
+        partitionRepository.checkpoint(partition.getId(), parentId,
+                (int) result.count(WeeklyOrderItemStatus.PLACED),
+                (int) result.count(WeeklyOrderItemStatus.PENDING),
+                (int) result.count(WeeklyOrderItemStatus.FAILED),
+                result.getCharged(), LocalDateTime.now());
+
+        for (WeeklyOrderItemResult item : result.getItems()) {
+            meterRegistry.counter("lunch.subscriptions.items",
+                    "outcome", item.getStatus().name().toLowerCase()).increment();
+        }
+        return true;
+    }
+
+    // Derived from the subscription and the week, so an order replayed after a crash is recognised
+    private WeeklyLunchItem item(LunchSubscription subscription, LocalDate weekStart) {
+
+        WeeklyLunchItem item = new WeeklyLunchItem();
+        item.setOrderId(UUID.nameUUIDFromBytes((subscription.getId() + ":" + weekStart)
+                .getBytes(StandardCharsets.UTF_8)));
+        item.setChildId(subscription.getChildId());
+        item.setDayOfWeek(subscription.getDayOfWeek());
+        item.setMeal(subscription.getMeal());
+        item.setQuantity(subscription.getQuantity());
+        return item;
+    }
+
+    private void finish(SubscriptionBatchPartition partition, SubscriptionBatchStatus status) {
+
+        partitionRepository.finish(partition.getId(), status, LocalDateTime.now());
+        meterRegistry.counter("lunch.subscriptions.partitions", "outcome", status.name().toLowerCase()).increment();
+        log.info("Subscription batch partition {} for week {} is {}", partition.getSchool(),
+                partition.getWeekStart(), status);
+    }
+
+    private boolean isLunchSvcUnavailable(Throwable throwable) {
+        return throwable != null && (LunchRetryListener.isTransient(throwable)
+                || throwable instanceof CallNotPermittedException
+                || throwable instanceof ConcurrencyLimitExceededException);
+    }
+}
@@ -0,0 +1,28 @@
+package app.lunch.weekly;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+public class WeeklyOrderItemResult {
+
+    private UUID orderId;
+    private UUID childId;
+    private String childName;
+    private String dayOfWeek;
+    private String meal;
+    private int quantity;
+    private BigDecimal total;
+    private WeeklyOrderItemStatus status;
+    private String message;
+    private RuntimeException failure;
+    private LocalDateTime reservedOn;
+
+    void fail(String message) {
+        this.status = WeeklyOrderItemStatus.FAILED;
+        this.message = message;
+    }
+}
@@ -0,0 +1,7 @@
+package app.lunch.weekly;
+
+public enum WeeklyOrderItemStatus {
+    PLACED,
+    PENDING,
+    FAILED
+}
@@ -0,0 +1,19 @@
+package app.lunch.weekly;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class WeeklyOrderResult {
+
+    private final List<WeeklyOrderItemResult> items;
+    private final BigDecimal charged;
+
+    public long count(WeeklyOrderItemStatus status) {
+        return items.stream().filter(item -> item.getStatus() == status).count();
+    }
+}
@@ -0,0 +1,447 @@
+package app.lunch.weekly;
+
+import app.child.model.Child;
+import app.child.service.ChildService;
+import app.lunch.capacity.MealCapacityLedger;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.client.dto.LunchOrderRequest;
+import app.lunch.forecast.KitchenForecastService;
+import app.lunch.guard.LunchOrderGuard;
+import app.lunch.model.LunchOrderAttempt;
+import app.lunch.occupancy.WeekDayMask;
+import app.lunch.occupancy.WeeklyOccupancyIndex;
+import app.lunch.resilience.LunchRetryListener;
+import app.lunch.service.LunchOrderAttemptService;
+import app.lunch.service.LunchOrderPlacement;
+import app.lunch.service.LunchReplicaService;
+import app.lunch.service.LunchService;
+import app.wallet.model.Wallet;
+import app.wallet.model.WalletHold;
+import app.wallet.service.WalletHoldService;
+import app.wallet.service.WalletService;
+import app.web.dto.WeeklyLunchItem;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class WeeklyOrderService {
+
+    private static final String NOT_ENOUGH_MONEY = "Not enough money in the wallet for these lunches.";
+    private static final String DELETED_STATUS = "DELETED";
+
+    private final ChildService childService;
+    private final LunchService lunchService;
+    private final LunchServiceGateway lunchServiceGateway;
+    private final LunchOrderAttemptService lunchOrderAttemptService;
+    private final LunchReplicaService lunchReplicaService;
+    private final WalletService walletService;
+    private final WalletHoldService walletHoldService;
+    private final MealCapacityLedger mealCapacityLedger;
+    private final WeeklyOccupancyIndex weeklyOccupancyIndex;
+    private final LunchOrderGuard lunchOrderGuard;
+    private final KitchenForecastService kitchenForecastService;
+    private final Executor lunchTaskExecutor;
+    private final int parallelism;
+    private final MeterRegistry meterRegistry;
+
+    public WeeklyOrderService(ChildService childService, LunchService lunchService,
+                              LunchServiceGateway lunchServiceGateway,
+                              LunchOrderAttemptService lunchOrderAttemptService,
+                              LunchReplicaService lunchReplicaService, WalletService walletService,
+                              WalletHoldService walletHoldService, MealCapacityLedger mealCapacityLedger,
+                              WeeklyOccupancyIndex weeklyOccupancyIndex, LunchOrderGuard lunchOrderGuard,
+                              KitchenForecastService kitchenForecastService,
+                              @Qualifier("lunchTaskExecutor") Executor lunchTaskExecutor,
+                              @Value("${lunch-svc.weekly.parallelism:4}") int parallelism,
+                              MeterRegistry meterRegistry) {
+        this.childService = childService;
+        this.lunchService = lunchService;
+        this.lunchServiceGateway = lunchServiceGateway;
+        this.lunchOrderAttemptService = lunchOrderAttemptService;
+        this.lunchReplicaService = lunchReplicaService;
+        this.walletService = walletService;
+        this.walletHoldService = walletHoldService;
+        this.mealCapacityLedger = mealCapacityLedger;
+        this.weeklyOccupancyIndex = weeklyOccupancyIndex;
+        this.lunchOrderGuard = lunchOrderGuard;
+        this.kitchenForecastService = kitchenForecastService;
+        this.lunchTaskExecutor = lunchTaskExecutor;
+        this.parallelism = Math.max(1, parallelism);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public WeeklyOrderResult placeWeek(UUID parentId, List<WeeklyLunchItem> requested) {
+        return placeWeek(parentId, requested, null);
+    }
+
+    // With a week given the items are for that coming week, so today's cutoff and this week's lunches do not apply
+    public WeeklyOrderResult placeWeek(UUID parentId, List<WeeklyLunchItem> requested, LocalDate weekStart) {
+
+        Wallet wallet = walletService.getWalletByParentId(parentId);
+
+        if (wallet == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Wallet not found for parent " + parentId);
+        }
+
+        Map<UUID, Child> children = childService.getChildrenByParentId(parentId).stream()
+                .collect(Collectors.toMap(Child::getId, Function.identity()));
+
+        List<WeeklyOrderItemResult> results = new ArrayList<>();
+        List<WeeklyOrderItemResult> toOrder = validate(requested, children, results, weekStart);
+
+        BigDecimal charged = BigDecimal.ZERO;
+        if (!toOrder.isEmpty()) {
+            charged = order(parentId, wallet, toOrder);
+        }
+
+        results.forEach(item -> meterRegistry.counter("lunch.weekly.items",
+                "outcome", item.getStatus().name().toLowerCase()).increment());
+        log.info("Weekly order for parent {}: {} items, {} placed, charged {}", parentId, results.size(),
+                results.stream().filter(item -> item.getStatus() == WeeklyOrderItemStatus.PLACED).count(), charged);
+
+        return new WeeklyOrderResult(results, charged);
+    }
+
+    private List<WeeklyOrderItemResult> validate(List<WeeklyLunchItem> requested, Map<UUID, Child> children,
+                                                 List<WeeklyOrderItemResult> results, LocalDate weekStart) {
+
+        Function<UUID, List<DayOfWeek>> open = weekStart == null ? lunchService::getAvailableDaysForLunch
+                : childId -> openDays(childId, weekStart);
+        Map<UUID, List<DayOfWeek>> availableDays = new HashMap<>();
+        Set<String> childDays = new HashSet<>();
+        List<WeeklyOrderItemResult> toOrder = new ArrayList<>();
+
+        for (WeeklyLunchItem item : requested) {
+            if (item.getMeal() == null || item.getMeal().isBlank()) {
+                continue;
+            }
+
+            WeeklyOrderItemResult result = new WeeklyOrderItemResult();
+            result.setOrderId(item.getOrderId() != null ? item.getOrderId() : UUID.randomUUID());
+            result.setChildId(item.getChildId());
+            result.setDayOfWeek(item.getDayOfWeek());
+            result.setMeal(item.getMeal());
+            result.setQuantity(item.getQuantity());
+            results.add(result);
+
+            Child child = children.get(item.getChildId());
+            if (child == null) {
+                result.fail("You can order lunches only for your own children.");
+                continue;
+            }
+            result.setChildName(child.getFirstName());
+
+            Optional<LunchOrderAttempt> previous = lunchOrderAttemptService.find(result.getOrderId());
+            if (previous.isPresent()) {
+                result.setTotal(previous.get().getAmount());
+                result.setStatus(WeeklyOrderItemStatus.valueOf(previous.get().getStatus().name()));
+                result.setMessage("This lunch was already submitted.");
+                continue;
+            }
+
+            if (!childDays.add(item.getChildId() + ":" + item.getDayOfWeek())) {
+                result.fail("Only one lunch can be ordered per child and day.");
+                continue;
+            }
+
+            List<DayOfWeek> days;
+            try {
+                days = availableDays.computeIfAbsent(child.getId(), open);
+            } catch (RuntimeException e) {
+                result.setFailure(e);
+                result.fail("The lunch service is not responding. Please try again later.");
+                continue;
+            }
+            if (days.stream().noneMatch(day -> day.name().equalsIgnoreCase(item.getDayOfWeek()))) {
+                result.fail("Lunch for this day is already ordered or can no longer be ordered.");
+                continue;
+            }
+
+            try {
+                result.setTotal(lunchService.quote(item.getMeal(), item.getQuantity()));
+            } catch (ResponseStatusException e) {
+                result.fail(e.getReason());
+                continue;
+            }
+
+            LocalDateTime reservedOn = LocalDateTime.now();
+            if (!mealCapacityLedger.tryReserve(item.getChildId(), item.getDayOfWeek(), item.getMeal(),
+                    item.getQuantity(), reservedOn)) {
+                result.fail("This meal is sold out for that day.");
+                continue;
+            }
+            result.setReservedOn(reservedOn);
+
+            toOrder.add(result);
+        }
+
+        return toOrder;
+    }
+
+    private BigDecimal order(UUID parentId, Wallet wallet, List<WeeklyOrderItemResult> toOrder) {
+
+        BigDecimal expectedTotal = toOrder.stream()
+                .map(WeeklyOrderItemResult::getTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        Optional<WalletHold> reserved = walletHoldService.reserve(wallet.getId(), expectedTotal,
+                "Weekly lunch order of " + toOrder.size() + " lunches");
+
+        if (reserved.isEmpty()) {
+            toOrder.forEach(item -> fail(item, NOT_ENOUGH_MONEY));
+            return BigDecimal.ZERO;
+        }
+
+        WalletHold hold = reserved.get();
+        List<WeeklyOrderItemResult> started = new ArrayList<>();
+        Map<UUID, BigDecimal> quoted = new HashMap<>();
+
+        for (WeeklyOrderItemResult item : toOrder) {
+            try {
+                lunchOrderAttemptService.begin(LunchOrderAttempt.builder()
+                        .id(item.getOrderId())
+                        .parentId(parentId)
+                        .childId(item.getChildId())
+                        .walletId(wallet.getId())
+                        .holdId(hold.getId())
+                        .meal(item.getMeal())
+                        .quantity(item.getQuantity())
+                        .dayOfWeek(item.getDayOfWeek())
+                        .amount(item.getTotal())
+                        .build());
+                started.add(item);
+                quoted.put(item.getOrderId(), item.getTotal());
+            } catch (DataIntegrityViolationException e) {
+                fail(item, "This lunch is already being placed.");
+            }
+        }
+
+        Map<UUID, LunchOrder> created = new ConcurrentHashMap<>();
+        createAll(parentId, wallet, started, created);
+
+        return settle(hold, started, created, quoted);
+    }
+
+    // A fixed number of lanes drain a shared queue, so at most `parallelism` creates are in flight
+    private void createAll(UUID parentId, Wallet wallet, List<WeeklyOrderItemResult> items,
+                           Map<UUID, LunchOrder> created) {
+
+        AtomicInteger next = new AtomicInteger();
+        Runnable lane = () -> {
+            int index;
+            while ((index = next.getAndIncrement()) < items.size()) {
+                create(parentId, wallet, items.get(index), created);
+            }
+        };
+
+        List<CompletableFuture<Void>> lanes = new ArrayList<>();
+        for (int i = 0; i < Math.min(parallelism, items.size()); i++) {
+            try {
+                lanes.add(CompletableFuture.runAsync(lane, lunchTaskExecutor));
+            } catch (RejectedExecutionException e) {
+                log.debug("Lunch executor is saturated, running weekly order lane on the caller");
+                lane.run();
+            }
+        }
+
+        CompletableFuture.allOf(lanes.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void create(UUID parentId, Wallet wallet, WeeklyOrderItemResult item, Map<UUID, LunchOrder> created) {
+
+        LunchOrderRequest payload = LunchOrderRequest.builder()
+                .orderId(item.getOrderId())
+                .parentId(parentId)
+                .childId(item.getChildId())
+                .walletId(wallet.getId())
+                .meal(item.getMeal())
+                .quantity(item.getQuantity())
+                .dayOfWeek(item.getDayOfWeek())
+                .build();
+
+        // A single lunch submitted for the same child and day meanwhile must not reach lunch-svc twice
+        try {
+            lunchOrderGuard.acquire(item.getChildId(), item.getDayOfWeek(), item.getOrderId());
+        } catch (RuntimeException e) {
+            item.setFailure(e);
+            lunchOrderAttemptService.markFailed(item.getOrderId());
+            fail(item, e instanceof ResponseStatusException conflict ? conflict.getReason()
+                    : "This lunch could not be ordered right now. Please try again.");
+            return;
+        }
+
+        try {
+            LunchOrder order = lunchServiceGateway.createLunch(item.getChildId(), payload);
+            created.put(item.getOrderId(), order);
+            item.setTotal(order.getTotal());
+            item.setStatus(WeeklyOrderItemStatus.PLACED);
+        } catch (RuntimeException e) {
+            item.setFailure(e);
+            if (LunchRetryListener.isTransient(e)) {
+                // lunch-svc may still have committed it; the reconciler settles the attempt
+                item.setStatus(WeeklyOrderItemStatus.PENDING);
+                item.setMessage("The lunch service has not confirmed this lunch yet.");
+            } else {
+                lunchOrderAttemptService.markFailed(item.getOrderId());
+                fail(item, "The lunch service rejected this lunch.");
+            }
+        } finally {
+            lunchOrderGuard.release(item.getChildId(), item.getDayOfWeek(), item.getOrderId());
+        }
+    }
+
+    private BigDecimal settle(WalletHold hold, List<WeeklyOrderItemResult> items, Map<UUID, LunchOrder> created,
+                              Map<UUID, BigDecimal> quoted) {
+
+        // Unconfirmed lunches keep their part of the hold for the reconciler; the rest covers placed and failed ones
+        setAside(hold, pending(items), quoted);
+
+        Map<UUID, BigDecimal> totals = items.stream()
+                .filter(item -> item.getStatus() == WeeklyOrderItemStatus.PLACED)
+                .collect(Collectors.toMap(WeeklyOrderItemResult::getOrderId, WeeklyOrderItemResult::getTotal));
+
+        Optional<LunchOrderPlacement> placement = Optional.empty();
+        if (!totals.isEmpty()) {
+            try {
+                placement = lunchOrderAttemptService.place(totals, remaining(hold),
+                        "Payment for " + totals.size() + " lunch orders");
+            } catch (RuntimeException e) {
+                // The attempts stay pending with their part of the hold, and the reconciler pays for them once it can
+                log.warn("Weekly lunch orders could not be paid, leaving them to the reconciler: {}", e.getMessage());
+                List<WeeklyOrderItemResult> unpaid = items.stream()
+                        .filter(item -> totals.containsKey(item.getOrderId()))
+                        .toList();
+                unpaid.forEach(item -> {
+                    item.setFailure(e);
+                    item.setStatus(WeeklyOrderItemStatus.PENDING);
+                    item.setMessage("The payment for this lunch has not been confirmed yet.");
+                });
+                setAside(hold, unpaid, quoted);
+            }
+        }
+
+        if (placement.isEmpty()) {
+            walletHoldService.release(remaining(hold));
+            return BigDecimal.ZERO;
+        }
+
+        Set<UUID> placedIds = new HashSet<>(placement.get().orderIds());
+        List<WeeklyOrderItemResult> placed = items.stream()
+                .filter(item -> placedIds.contains(item.getOrderId()))
+                .toList();
+
+        if (!placement.get().isPaid()) {
+            for (WeeklyOrderItemResult item : placed) {
+                try {
+                    lunchServiceGateway.deleteLunch(item.getChildId(), item.getOrderId());
+                } catch (Exception e) {
+                    log.warn("Failed to delete lunch order {} after payment failure: {}", item.getOrderId(),
+                            e.getMessage());
+                }
+                fail(item, NOT_ENOUGH_MONEY);
+            }
+            return BigDecimal.ZERO;
+        }
+
+        for (WeeklyOrderItemResult item : placed) {
+            LunchOrder order = created.get(item.getOrderId());
+            saveToReplica(order);
+            weeklyOccupancyIndex.markOrdered(item.getChildId(), item.getDayOfWeek());
+            kitchenForecastService.recordOrdered(order);
+        }
+        return placement.get().total();
+    }
+
+    private List<WeeklyOrderItemResult> pending(List<WeeklyOrderItemResult> items) {
+        return items.stream().filter(item -> item.getStatus() == WeeklyOrderItemStatus.PENDING).toList();
+    }
+
+    private void setAside(WalletHold hold, List<WeeklyOrderItemResult> items, Map<UUID, BigDecimal> quoted) {
+
+        for (WeeklyOrderItemResult item : items) {
+            try {
+                lunchOrderAttemptService.setAside(item.getOrderId(), hold, quoted.get(item.getOrderId()));
+            } catch (RuntimeException e) {
+                log.warn("Lunch order {} keeps the shared weekly hold: {}", item.getOrderId(), e.getMessage());
+            }
+        }
+    }
+
+    private WalletHold remaining(WalletHold hold) {
+        return walletHoldService.getHold(hold.getId()).orElse(hold);
+    }
+
+    // School days of the week that no lunch of the child is served on yet; lunches of other weeks do not count
+    private List<DayOfWeek> openDays(UUID childId, LocalDate weekStart) {
+
+        LocalDate weekEnd = weekStart.plusWeeks(1);
+        int booked = WeekDayMask.of(lunchReplicaService.findLunches(childId)
+                .orElseGet(() -> lunchServiceGateway.getLunches(childId)).stream()
+                .filter(lunch -> lunch.getDayOfWeek() != null && !DELETED_STATUS.equalsIgnoreCase(lunch.getStatus()))
+                .filter(lunch -> {
+                    LocalDate servedOn = servedOn(lunch);
+                    return !servedOn.isBefore(weekStart) && servedOn.isBefore(weekEnd);
+                })
+                .map(LunchOrder::getDayOfWeek)
+                .toList());
+        return WeekDayMask.days(WeekDayMask.SCHOOL_DAYS & ~booked, DayOfWeek.MONDAY);
+    }
+
+    private LocalDate servedOn(LunchOrder lunch) {
+
+        LocalDateTime orderedOn = lunch.getCreatedOn() == null ? LocalDateTime.now()
+                : LocalDateTime.ofInstant(lunch.getCreatedOn(), ZoneId.systemDefault());
+        return orderedOn.toLocalDate()
+                .with(TemporalAdjusters.nextOrSame(DayOfWeek.valueOf(lunch.getDayOfWeek().toUpperCase())));
+    }
+
+    // The portions reserved in validate go back to the kitchen once the lunch will not be served
+    private void fail(WeeklyOrderItemResult item, String message) {
+
+        item.fail(message);
+        if (item.getReservedOn() != null) {
+            mealCapacityLedger.release(item.getChildId(), item.getDayOfWeek(), item.getMeal(), item.getQuantity(),
+                    item.getReservedOn());
+            item.setReservedOn(null);
+        }
+    }
+
+    private void saveToReplica(LunchOrder lunchOrder) {
+        try {
+            lunchReplicaService.save(lunchOrder);
+        } catch (Exception e) {
+            log.warn("Failed to add lunch order {} to the replica, the next sync will catch up: {}",
+                    lunchOrder.getId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package app.scheduling;
+
+import app.lunch.forecast.KitchenForecastService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class KitchenForecastRefresher {
+
+    private final KitchenForecastService kitchenForecastService;
+
+    public KitchenForecastRefresher(KitchenForecastService kitchenForecastService) {
+        this.kitchenForecastService = kitchenForecastService;
+    }
+
+    // Creates and cancels keep the forecast current; the recompute catches changes made outside this app
+    @Scheduled(initialDelayString = "${lunch-svc.forecast.initial-delay:30000}",
+            fixedDelayString = "${lunch-svc.forecast.recompute-interval:21600000}")
+    public void recomputeForecast() {
+        try {
+            kitchenForecastService.recompute();
+        } catch (Exception e) {
+            log.warn("Recomputing the kitchen forecast failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+}
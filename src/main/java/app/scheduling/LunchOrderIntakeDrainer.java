@@ -0,0 +1,27 @@
+package app.scheduling;
+
+import app.lunch.intake.LunchOrderIntakeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class LunchOrderIntakeDrainer {
+
+    private final LunchOrderIntakeService lunchOrderIntakeService;
+
+    public LunchOrderIntakeDrainer(LunchOrderIntakeService lunchOrderIntakeService) {
+        this.lunchOrderIntakeService = lunchOrderIntakeService;
+    }
+
+    @Scheduled(initialDelayString = "${lunch-svc.intake.poll-interval:500}",
+            fixedDelayString = "${lunch-svc.intake.poll-interval:500}")
+    public void drainQueuedOrders() {
+        try {
+            lunchOrderIntakeService.drain();
+        } catch (Exception e) {
+            log.warn("Draining queued lunch orders failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package app.scheduling;
+
+import app.lunch.service.LunchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class LunchOrderReconciler {
+
+    private final LunchService lunchService;
+
+    public LunchOrderReconciler(LunchService lunchService) {
+        this.lunchService = lunchService;
+    }
+
+    @Scheduled(initialDelayString = "${lunch-svc.attempts.reconcile-interval:30000}",
+            fixedDelayString = "${lunch-svc.attempts.reconcile-interval:30000}")
+    public void reconcilePendingOrders() {
+        try {
+            lunchService.reconcilePendingOrders();
+        } catch (Exception e) {
+            log.warn("Pending lunch order reconciliation failed, retrying on the next run: {}", e.getMessage());
+        }
+        try {
+            lunchService.reconcileHeldRefunds();
+        } catch (Exception e) {
+            log.warn("Held lunch refund reconciliation failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package app.scheduling;
+
+import app.lunch.guard.LunchOrderGuard;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class LunchOrderReservationSweeper {
+
+    private final LunchOrderGuard lunchOrderGuard;
+
+    public LunchOrderReservationSweeper(LunchOrderGuard lunchOrderGuard) {
+        this.lunchOrderGuard = lunchOrderGuard;
+    }
+
+    // Reservations are released when their order finishes; only those of a crashed instance are left to expire
+    @Scheduled(initialDelayString = "${lunch-svc.order-guard.sweep-interval:300000}",
+            fixedDelayString = "${lunch-svc.order-guard.sweep-interval:300000}")
+    public void deleteExpiredReservations() {
+        try {
+            int deleted = lunchOrderGuard.deleteExpiredReservations();
+            if (deleted > 0) {
+                log.debug("Deleted {} expired lunch order reservations", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("Deleting expired lunch order reservations failed, retrying on the next run: {}",
+                    e.getMessage());
+        }
+    }
+}
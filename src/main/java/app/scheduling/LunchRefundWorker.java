@@ -0,0 +1,27 @@
+package app.scheduling;
+
+import app.lunch.refund.LunchRefundProcessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class LunchRefundWorker {
+
+    private final LunchRefundProcessor lunchRefundProcessor;
+
+    public LunchRefundWorker(LunchRefundProcessor lunchRefundProcessor) {
+        this.lunchRefundProcessor = lunchRefundProcessor;
+    }
+
+    @Scheduled(initialDelayString = "${lunch-svc.refunds.poll-interval:2000}",
+            fixedDelayString = "${lunch-svc.refunds.poll-interval:2000}")
+    public void processRefunds() {
+        try {
+            lunchRefundProcessor.process();
+        } catch (Exception e) {
+            log.warn("Processing lunch refunds failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+}
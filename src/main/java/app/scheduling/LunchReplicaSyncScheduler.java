@@ -0,0 +1,29 @@
+package app.scheduling;
+
+import app.lunch.service.LunchReplicaService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "lunch-svc.replica.enabled", havingValue = "true", matchIfMissing = true)
+public class LunchReplicaSyncScheduler {
+
+    private final LunchReplicaService lunchReplicaService;
+
+    public LunchReplicaSyncScheduler(LunchReplicaService lunchReplicaService) {
+        this.lunchReplicaService = lunchReplicaService;
+    }
+
+    @Scheduled(initialDelayString = "${lunch-svc.replica.initial-delay:5000}",
+            fixedDelayString = "${lunch-svc.replica.sync-interval:30000}")
+    public void syncLunchOrders() {
+        try {
+            lunchReplicaService.syncChanges();
+        } catch (Exception e) {
+            log.warn("Lunch order replica sync failed, reads fall back to lunch-svc once stale: {}", e.getMessage());
+        }
+    }
+}
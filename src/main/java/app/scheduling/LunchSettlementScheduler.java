@@ -0,0 +1,30 @@
+package app.scheduling;
+
+import app.lunch.settlement.LunchSettlementService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+@Slf4j
+@Component
+public class LunchSettlementScheduler {
+
+    private final LunchSettlementService lunchSettlementService;
+
+    public LunchSettlementScheduler(LunchSettlementService lunchSettlementService) {
+        this.lunchSettlementService = lunchSettlementService;
+    }
+
+    @Scheduled(cron = "${lunch-svc.settlement.cron:0 0 16 * * MON-FRI}")
+    public void settleServedLunches() {
+        LocalDate today = LocalDate.now();
+        try {
+            lunchSettlementService.settleThrough(today);
+        } catch (Exception e) {
+            log.warn("Settling lunches served through {} failed, resuming on the next run: {}", today,
+                    e.getMessage());
+        }
+    }
+}
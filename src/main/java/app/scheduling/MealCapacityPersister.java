@@ -0,0 +1,27 @@
+package app.scheduling;
+
+import app.lunch.capacity.MealCapacityLedger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class MealCapacityPersister {
+
+    private final MealCapacityLedger mealCapacityLedger;
+
+    public MealCapacityPersister(MealCapacityLedger mealCapacityLedger) {
+        this.mealCapacityLedger = mealCapacityLedger;
+    }
+
+    @Scheduled(initialDelayString = "${lunch-svc.capacity.persist-interval:60000}",
+            fixedDelayString = "${lunch-svc.capacity.persist-interval:60000}")
+    public void persistCapacity() {
+        try {
+            mealCapacityLedger.persist();
+        } catch (Exception e) {
+            log.warn("Persisting meal capacity counters failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+}
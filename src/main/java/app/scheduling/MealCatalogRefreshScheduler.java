@@ -0,0 +1,27 @@
+package app.scheduling;
+
+import app.lunch.catalog.MealCatalogCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class MealCatalogRefreshScheduler {
+
+    private final MealCatalogCache mealCatalogCache;
+
+    public MealCatalogRefreshScheduler(MealCatalogCache mealCatalogCache) {
+        this.mealCatalogCache = mealCatalogCache;
+    }
+
+    @Scheduled(initialDelayString = "${lunch-svc.catalog.initial-delay:0}",
+            fixedDelayString = "${lunch-svc.catalog.refresh-interval:300000}")
+    public void refreshMealCatalog() {
+        try {
+            mealCatalogCache.refresh();
+        } catch (Exception e) {
+            log.warn("Meal catalog refresh failed, keeping the cached catalog: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package app.scheduling;
+
+import app.lunch.subscription.SubscriptionBatchEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+@Slf4j
+@Component
+public class SubscriptionBatchScheduler {
+
+    private final SubscriptionBatchEngine subscriptionBatchEngine;
+
+    public SubscriptionBatchScheduler(SubscriptionBatchEngine subscriptionBatchEngine) {
+        this.subscriptionBatchEngine = subscriptionBatchEngine;
+    }
+
+    // Runs once the school week is over, so lunch-svc serves every subscribed day, Friday too, in the coming week
+    @Scheduled(cron = "${lunch-svc.subscriptions.cron:0 0 6 * * SAT}")
+    public void placeNextWeek() {
+        LocalDate weekStart = subscriptionBatchEngine.nextWeekStart();
+        try {
+            subscriptionBatchEngine.run(weekStart);
+        } catch (Exception e) {
+            log.warn("Subscription batch for week {} failed, resuming on the next check: {}", weekStart,
+                    e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${lunch-svc.subscriptions.resume-interval:600000}",
+            fixedDelayString = "${lunch-svc.subscriptions.resume-interval:600000}")
+    public void resumeUnfinished() {
+        LocalDate weekStart = subscriptionBatchEngine.nextWeekStart();
+        try {
+            if (subscriptionBatchEngine.isUnfinished(weekStart)) {
+                subscriptionBatchEngine.resume(weekStart);
+            }
+        } catch (Exception e) {
+            log.warn("Resuming the subscription batch for week {} failed: {}", weekStart, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package app.scheduling;
+
+import app.wallet.service.WalletHoldService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class WalletHoldSweeper {
+
+    private final WalletHoldService walletHoldService;
+
+    public WalletHoldSweeper(WalletHoldService walletHoldService) {
+        this.walletHoldService = walletHoldService;
+    }
+
+    @Scheduled(initialDelayString = "${wallet.hold.sweep-interval:30000}",
+            fixedDelayString = "${wallet.hold.sweep-interval:30000}")
+    public void releaseExpiredHolds() {
+        try {
+            while (walletHoldService.releaseExpiredHolds() > 0) {
+                log.debug("Released a batch of expired wallet holds, checking for more");
+            }
+        } catch (Exception e) {
+            log.warn("Releasing expired wallet holds failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+}
@@ -27,6 +27,9 @@ public class Wallet {
     @Column(nullable = false)
     private BigDecimal balance;
 
+    @Builder.Default
+    private BigDecimal reserved = BigDecimal.ZERO;
+
     @Column(nullable = false)
     private Currency currency;
 
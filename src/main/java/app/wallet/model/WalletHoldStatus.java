@@ -0,0 +1,8 @@
+package app.wallet.model;
+
+public enum WalletHoldStatus {
+    HELD,
+    CAPTURED,
+    RELEASED,
+    EXPIRED
+}
@@ -0,0 +1,28 @@
+package app.wallet.repository;
+
+import app.wallet.model.WalletHold;
+import app.wallet.model.WalletHoldStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface WalletHoldRepository extends JpaRepository<WalletHold, UUID> {
+
+    List<WalletHold> findTop100ByStatusAndExpiresOnBeforeOrderByExpiresOnAsc(WalletHoldStatus status,
+                                                                             LocalDateTime expiresOn);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update WalletHold h set h.status = :to where h.id = :id and h.status = :from")
+    int transition(@Param("id") UUID id, @Param("from") WalletHoldStatus from, @Param("to") WalletHoldStatus to);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update WalletHold h set h.amount = h.amount - :amount "
+            + "where h.id = :id and h.status = :status and h.amount >= :amount")
+    int shrink(@Param("id") UUID id, @Param("status") WalletHoldStatus status, @Param("amount") BigDecimal amount);
+}
@@ -2,11 +2,41 @@ package app.wallet.repository;
 
 import app.wallet.model.Wallet;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 public interface WalletRepository extends JpaRepository<Wallet, UUID> {
 
    Wallet findByOwnerId(UUID uuid);
 
+   @Modifying(flushAutomatically = true, clearAutomatically = true)
+   @Query("update Wallet w set w.reserved = coalesce(w.reserved, 0) + :amount, w.updatedOn = :now "
+           + "where w.id = :id and w.balance - coalesce(w.reserved, 0) >= :amount")
+   int reserve(@Param("id") UUID id, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+   @Modifying(flushAutomatically = true, clearAutomatically = true)
+   @Query("update Wallet w set w.reserved = coalesce(w.reserved, 0) - :amount, w.updatedOn = :now where w.id = :id")
+   int release(@Param("id") UUID id, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+   @Modifying(flushAutomatically = true, clearAutomatically = true)
+   @Query("update Wallet w set w.balance = w.balance - :amount, "
+           + "w.reserved = coalesce(w.reserved, 0) - :reserved, w.updatedOn = :now "
+           + "where w.id = :id and w.balance - (coalesce(w.reserved, 0) - :reserved) >= :amount")
+   int capture(@Param("id") UUID id, @Param("amount") BigDecimal amount, @Param("reserved") BigDecimal reserved,
+               @Param("now") LocalDateTime now);
+
+   @Modifying(flushAutomatically = true, clearAutomatically = true)
+   @Query("update Wallet w set w.balance = w.balance - :amount, w.updatedOn = :now "
+           + "where w.id = :id and w.balance - coalesce(w.reserved, 0) >= :amount")
+   int debit(@Param("id") UUID id, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+   @Modifying(flushAutomatically = true, clearAutomatically = true)
+   @Query("update Wallet w set w.balance = coalesce(w.balance, 0) + :amount, w.updatedOn = :now where w.id = :id")
+   int credit(@Param("id") UUID id, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
 }
@@ -0,0 +1,180 @@
+package app.wallet.service;
+
+import app.expetion.DomainException;
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionStatus;
+import app.transaction.model.TransactionType;
+import app.transaction.service.TransactionService;
+import app.wallet.model.Wallet;
+import app.wallet.model.WalletHold;
+import app.wallet.model.WalletHoldStatus;
+import app.wallet.repository.WalletHoldRepository;
+import app.wallet.repository.WalletRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class WalletHoldService {
+
+    private final WalletRepository walletRepository;
+    private final WalletHoldRepository walletHoldRepository;
+    private final TransactionService transactionService;
+    private final Duration holdTimeToLive;
+    private final MeterRegistry meterRegistry;
+
+    public WalletHoldService(WalletRepository walletRepository, WalletHoldRepository walletHoldRepository,
+                             TransactionService transactionService,
+                             @Value("${wallet.hold.time-to-live:2m}") Duration holdTimeToLive,
+                             MeterRegistry meterRegistry) {
+        this.walletRepository = walletRepository;
+        this.walletHoldRepository = walletHoldRepository;
+        this.transactionService = transactionService;
+        this.holdTimeToLive = holdTimeToLive;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Transactional
+    public Optional<WalletHold> reserve(UUID walletId, BigDecimal amount, String description) {
+
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new DomainException("Reserved amount must be greater than 0.");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+
+        if (walletRepository.reserve(walletId, amount, now) == 0) {
+            meterRegistry.counter("wallet.hold.rejected").increment();
+            log.debug("Not enough available funds to reserve {} in wallet {}", amount, walletId);
+            return Optional.empty();
+        }
+
+        WalletHold hold = walletHoldRepository.save(WalletHold.builder()
+                .walletId(walletId)
+                .amount(amount)
+                .status(WalletHoldStatus.HELD)
+                .description(description)
+                .createdOn(now)
+                .expiresOn(now.plus(holdTimeToLive))
+                .build());
+
+        meterRegistry.counter("wallet.hold.reserved").increment();
+        log.debug("Reserved {} in wallet {} with hold {}", amount, walletId, hold.getId());
+        return Optional.of(hold);
+    }
+
+    public Optional<WalletHold> getHold(UUID holdId) {
+        return walletHoldRepository.findById(holdId);
+    }
+
+    @Transactional
+    public Transaction capture(WalletHold hold, BigDecimal amount, String description) {
+
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new DomainException("Payment amount must be greater than 0.");
+        }
+
+        // The sweeper may have expired the hold meanwhile; the debit then has to fit in the available funds alone
+        boolean held = walletHoldRepository.transition(hold.getId(), WalletHoldStatus.HELD,
+                WalletHoldStatus.CAPTURED) == 1;
+        BigDecimal reserved = held ? hold.getAmount() : BigDecimal.ZERO;
+
+        boolean debited = walletRepository.capture(hold.getWalletId(), amount, reserved, LocalDateTime.now()) == 1;
+
+        if (!debited && held) {
+            walletHoldRepository.transition(hold.getId(), WalletHoldStatus.CAPTURED, WalletHoldStatus.RELEASED);
+            walletRepository.release(hold.getWalletId(), reserved, LocalDateTime.now());
+        }
+
+        Wallet wallet = getWallet(hold.getWalletId());
+
+        if (!debited) {
+            meterRegistry.counter("wallet.hold.captured", "outcome", "insufficient").increment();
+            log.warn("Capture failed due to insufficient funds: walletId={}, amount={}, held={}",
+                    wallet.getId(), amount, hold.getAmount());
+
+            return transactionService.createTransaction(wallet, amount, wallet.getBalance(), wallet.getCurrency(),
+                    TransactionType.PAYMENT, TransactionStatus.FAILED, description, "Not enough balance in wallet.");
+        }
+
+        meterRegistry.counter("wallet.hold.captured", "outcome", held ? "held" : "expired").increment();
+        log.info("Successfully captured payment: walletId={}, amount={}, held={}. New balance: {}",
+                wallet.getId(), amount, hold.getAmount(), wallet.getBalance());
+
+        return transactionService.createTransaction(wallet, amount, wallet.getBalance(), wallet.getCurrency(),
+                TransactionType.PAYMENT, TransactionStatus.SUCCESSFUL, description, null);
+    }
+
+    // Moves part of a held amount into a hold of its own; the wallet's reserved total stays the same
+    @Transactional
+    public Optional<WalletHold> split(WalletHold hold, BigDecimal amount, String description) {
+
+        if (walletHoldRepository.shrink(hold.getId(), WalletHoldStatus.HELD, amount) == 0) {
+            log.debug("Hold {} is no longer held or is smaller than {}, not splitting it", hold.getId(), amount);
+            return Optional.empty();
+        }
+
+        WalletHold part = walletHoldRepository.save(WalletHold.builder()
+                .walletId(hold.getWalletId())
+                .amount(amount)
+                .status(WalletHoldStatus.HELD)
+                .description(description)
+                .createdOn(LocalDateTime.now())
+                .expiresOn(hold.getExpiresOn())
+                .build());
+
+        log.debug("Split {} off hold {} into hold {}", amount, hold.getId(), part.getId());
+        return Optional.of(part);
+    }
+
+    @Transactional
+    public void release(WalletHold hold) {
+        release(hold, WalletHoldStatus.RELEASED);
+    }
+
+    @Transactional
+    public int releaseExpiredHolds() {
+
+        List<WalletHold> expired = walletHoldRepository.findTop100ByStatusAndExpiresOnBeforeOrderByExpiresOnAsc(
+                WalletHoldStatus.HELD, LocalDateTime.now());
+
+        int released = 0;
+        for (WalletHold hold : expired) {
+            if (release(hold, WalletHoldStatus.EXPIRED)) {
+                released++;
+            }
+        }
+
+        if (released > 0) {
+            meterRegistry.counter("wallet.hold.expired").increment(released);
+            log.info("Released {} expired wallet holds", released);
+        }
+        return released;
+    }
+
+    private boolean release(WalletHold hold, WalletHoldStatus status) {
+
+        if (walletHoldRepository.transition(hold.getId(), WalletHoldStatus.HELD, status) == 0) {
+            return false;
+        }
+
+        walletRepository.release(hold.getWalletId(), hold.getAmount(), LocalDateTime.now());
+        log.debug("Released hold {} of {} in wallet {}", hold.getId(), hold.getAmount(), hold.getWalletId());
+        return true;
+    }
+
+    private Wallet getWallet(UUID walletId) {
+        return walletRepository.findById(walletId)
+                .orElseThrow(() -> new DomainException("Wallet by id [%s] was not found.".formatted(walletId)));
+    }
+}
@@ -3,7 +3,6 @@ package app.wallet.service;
 import app.child.model.Child;
 import app.child.service.ChildService;
 import app.expetion.DomainException;
-import app.lunch.client.dto.LunchOrder;
 import app.lunch.service.LunchService;
 import app.parent.model.Parent;
 import app.transaction.model.Transaction;
@@ -74,15 +73,10 @@ public class WalletService {
             throw new DomainException("Deposit amount must be greater than 0.");
         }
 
+        // A single update, so a top-up never overwrites the holds reserved while it runs
+        walletRepository.credit(walletId, amount, LocalDateTime.now());
         Wallet wallet = getById(walletId);
 
-        BigDecimal currentBalance = wallet.getBalance() == null ? BigDecimal.ZERO : wallet.getBalance();
-        BigDecimal newBalance = currentBalance.add(amount);
-
-        wallet.setBalance(newBalance);
-        wallet.setUpdatedOn(LocalDateTime.now());
-        walletRepository.save(wallet);
-
         Transaction transaction = transactionService.createTransaction(
                 wallet,
                 amount,
@@ -94,7 +88,7 @@ public class WalletService {
                 null
         );
 
-        log.info("Successfully deposited {} to wallet: {}. New balance: {}", amount, walletId, newBalance);
+        log.info("Successfully deposited {} to wallet: {}. New balance: {}", amount, walletId, wallet.getBalance());
 
         return transaction;
 
@@ -107,12 +101,11 @@ public class WalletService {
             throw new DomainException("Payment amount must be greater than 0.");
         }
 
+        // The funds are checked and debited in one update, so reserved money stays out of reach
+        boolean debited = walletRepository.debit(walletId, amount, LocalDateTime.now()) == 1;
         Wallet wallet = getById(walletId);
 
-        BigDecimal currentBalance = wallet.getBalance() == null ? BigDecimal.ZERO : wallet.getBalance();
-
-        if (currentBalance.compareTo(amount) < 0) {
-
+        if (!debited) {
             Transaction transaction = transactionService.createTransaction(
                     wallet,
                     amount,
@@ -125,16 +118,11 @@ public class WalletService {
             );
 
             log.warn("Payment failed due to insufficient funds: walletId={}, amount={}. Current balance: {}",
-                    walletId, amount, currentBalance);
+                    walletId, amount, wallet.getBalance());
 
             return transaction;
         }
 
-        BigDecimal newBalance = currentBalance.subtract(amount);
-        wallet.setBalance(newBalance);
-        wallet.setUpdatedOn(LocalDateTime.now());
-        walletRepository.save(wallet);
-
         Transaction transaction = transactionService.createTransaction(
                 wallet,
                 amount,
@@ -147,7 +135,7 @@ public class WalletService {
         );
 
         log.info("Successfully processed payment: walletId={}, amount={}. New balance: {}", 
-                walletId, amount, newBalance);
+                walletId, amount, wallet.getBalance());
 
         return transaction;
 
@@ -224,12 +212,7 @@ public class WalletService {
 
         for (Child child : children) {
             try {
-                List<LunchOrder> lunches = lunchService.getAllLunchesIncludingDeleted(child.getId());
-
-                boolean found = lunches.stream()
-                        .anyMatch(lunch -> lunch.getId().equals(lunchOrderId));
-
-                if (found) {
+                if (lunchService.getLunch(child.getId(), lunchOrderId).isPresent()) {
                     return child;
                 }
             } catch (Exception e) {
@@ -0,0 +1,50 @@
+package app.web.controller;
+
+import app.lunch.forecast.KitchenForecastService;
+import app.parent.service.ParentService;
+import app.security.UserData;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.time.LocalDate;
+
+@Controller
+@RequestMapping("/home/forecast")
+@PreAuthorize("hasRole('ADMIN')")
+public class KitchenForecastController {
+
+    private final ParentService parentService;
+    private final KitchenForecastService kitchenForecastService;
+
+    public KitchenForecastController(ParentService parentService, KitchenForecastService kitchenForecastService) {
+        this.parentService = parentService;
+        this.kitchenForecastService = kitchenForecastService;
+    }
+
+    @GetMapping
+    public ModelAndView getForecastPage(@AuthenticationPrincipal UserData userData) {
+
+        ModelAndView modelAndView = new ModelAndView("forecast");
+        modelAndView.addObject("parent", parentService.getById(userData.getUserId()));
+        modelAndView.addObject("rows", kitchenForecastService.getForecast());
+        modelAndView.addObject("recomputedOn", kitchenForecastService.getRecomputedOn());
+        return modelAndView;
+    }
+
+    @GetMapping("/csv")
+    public ResponseEntity<String> getForecastCsv() {
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"kitchen-forecast-" + LocalDate.now() + ".csv\"")
+                .contentType(new MediaType("text", "csv"))
+                .body(kitchenForecastService.getForecastCsv());
+    }
+}
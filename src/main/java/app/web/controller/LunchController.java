@@ -1,9 +1,14 @@
 package app.web.controller;
 
+import app.child.model.Child;
 import app.child.service.ChildService;
+import app.deadline.DeadlineExceededException;
 import app.expetion.ClientErrorException;
+import app.lunch.catalog.MealCatalogCache;
 import app.lunch.client.dto.LunchOrder;
-import app.lunch.client.dto.MealOption;
+import app.lunch.client.dto.Meal;
+import app.lunch.intake.LunchOrderIntakeService;
+import app.lunch.service.AsyncLunchService;
 import app.lunch.service.LunchService;
 import app.security.UserData;
 import app.web.dto.LunchRequest;
@@ -24,9 +29,14 @@ import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/children")
@@ -34,139 +44,186 @@ public class LunchController {
 
     private final ChildService childService;
     private final LunchService lunchService;
+    private final AsyncLunchService asyncLunchService;
+    private final MealCatalogCache mealCatalogCache;
+    private final LunchOrderIntakeService lunchOrderIntakeService;
     private final ErrorMessageExtractor errorMessageExtractor;
 
-    public LunchController(ChildService childService, LunchService lunchService, 
+    public LunchController(ChildService childService, LunchService lunchService,
+                           AsyncLunchService asyncLunchService, MealCatalogCache mealCatalogCache,
+                           LunchOrderIntakeService lunchOrderIntakeService,
                            ErrorMessageExtractor errorMessageExtractor) {
         this.childService = childService;
         this.lunchService = lunchService;
+        this.asyncLunchService = asyncLunchService;
+        this.mealCatalogCache = mealCatalogCache;
+        this.lunchOrderIntakeService = lunchOrderIntakeService;
         this.errorMessageExtractor = errorMessageExtractor;
     }
 
 
     @GetMapping("/{childId}/lunches")
-    public ModelAndView getLunches(@AuthenticationPrincipal UserData userData,
-                                   @PathVariable UUID childId, @ModelAttribute("lunchRequest") LunchRequest lunchRequest) {
+    public CompletableFuture<ModelAndView> getLunches(@AuthenticationPrincipal UserData userData,
+                                                      @PathVariable UUID childId,
+                                                      @ModelAttribute("lunchRequest") LunchRequest lunchRequest) {
 
         childService.checkChildParent(userData.getUserId(), childId);
-        
-        List<LunchOrder> lunches = Collections.emptyList();
 
-        String errorMessage = null;
+        Child child = childService.getChildById(childId);
+
+        return asyncLunchService.getLunchSnapshot(childId)
+                .handle((snapshot, failure) -> {
+                    if (failure != null) {
+                        return lunchesView(child, Collections.emptyList(), openDays(childId), errorMessage(failure,
+                                "An error occurred while loading lunches. Please try again later."), lunchRequest);
+                    }
+
+                    ModelAndView modelAndView = lunchesView(child, snapshot.getLunches(),
+                            lunchService.getAvailableDaysForLunch(snapshot.getLunches()), null, lunchRequest);
+                    if (snapshot.isStale()) {
+                        modelAndView.addObject("dataAsOf",
+                                LocalDateTime.ofInstant(snapshot.getFetchedOn(), ZoneId.systemDefault()));
+                    }
+                    return modelAndView;
+                });
+    }
 
-        try {
-            lunches = lunchService.getLunches(childId);
-        } catch (FeignException e) {
-            errorMessage = errorMessageExtractor.extractErrorMessage(e);
-        } catch (ResponseStatusException e) {
-            if (e.getStatusCode() == org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE) {
-                errorMessage = "The lunch service is not responding. Please try again later.";
-            } else {
-                errorMessage = e.getReason();
+    @PostMapping("/{childId}/lunches")
+    public CompletableFuture<ModelAndView> createLunch(@AuthenticationPrincipal UserData userData,
+                                                       @PathVariable UUID childId,
+                                                       @Valid @ModelAttribute("lunchRequest") LunchRequest lunchRequest,
+                                                       BindingResult bindingResult,
+                                                       RedirectAttributes redirectAttributes) {
+
+        childService.checkChildParent(userData.getUserId(), childId);
+
+        ModelAndView redirect = new ModelAndView("redirect:/children/" + childId + "/lunches");
+
+        if (bindingResult.hasErrors()) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Please fix the highlighted errors.");
+            redirectAttributes.addFlashAttribute("validLunchRequest", bindingResult);
+            redirectAttributes.addFlashAttribute("lunchRequest", lunchRequest);
+            return CompletableFuture.completedFuture(redirect);
+        }
+
+        // Queued orders are accepted right away and placed by the intake workers at a controlled rate
+        if (lunchOrderIntakeService.isEnabled()) {
+            try {
+                lunchOrderIntakeService.accept(userData.getUserId(), childId, lunchRequest);
+                redirectAttributes.addFlashAttribute("successMessage",
+                        "Lunch order received. It will be placed in a moment.");
+            } catch (ResponseStatusException e) {
+                redirectAttributes.addFlashAttribute("errorMessage", e.getReason());
             }
-        } catch (Exception e) {
-            errorMessage = "An error occurred while loading lunches. Please try again later.";
+            return CompletableFuture.completedFuture(redirect);
+        }
+
+        return asyncLunchService.createLunch(userData.getUserId(), childId, lunchRequest)
+                .handle((created, failure) -> {
+                    if (failure == null) {
+                        redirectAttributes.addFlashAttribute("successMessage", "Lunch added successfully!");
+                    } else {
+                        redirectAttributes.addFlashAttribute("errorMessage", errorMessage(failure,
+                                "An error occurred while creating lunch. Please try again later."));
+                    }
+                    return redirect;
+                });
+    }
+
+    @DeleteMapping("/{childId}/lunches/{lunchId}")
+    public CompletableFuture<ModelAndView> deleteLunch(@AuthenticationPrincipal UserData userData,
+                                                       @PathVariable UUID childId, @PathVariable UUID lunchId,
+                                                       RedirectAttributes redirectAttributes) {
+
+        childService.checkChildParent(userData.getUserId(), childId);
+
+        return asyncLunchService.deleteLunch(childId, lunchId)
+                .handle((deleted, failure) -> {
+                    if (failure == null) {
+                        redirectAttributes.addFlashAttribute("successMessage", "Lunch removed.");
+                    } else {
+                        redirectAttributes.addFlashAttribute("errorMessage", errorMessage(failure,
+                                "An error occurred while deleting lunch. Please try again later."));
+                    }
+                    return new ModelAndView("redirect:/children/" + childId + "/lunches");
+                });
+    }
+
+    // Without the lunches only the occupancy index knows the open days; if it cannot tell, ordering is disabled
+    private List<DayOfWeek> openDays(UUID childId) {
+        try {
+            return lunchService.getAvailableDaysForLunch(childId);
+        } catch (RuntimeException e) {
+            return List.of();
         }
+    }
+
+    private ModelAndView lunchesView(Child child, List<LunchOrder> lunches, List<DayOfWeek> availableDays,
+                                     String errorMessage, LunchRequest lunchRequest) {
 
-        List<DayOfWeek> availableDays = lunchService.getAvailableDaysForLunch(childId);
-        String earliestDay = lunchService.getEarliestAvailableDay(childId);
+        String earliestDay = availableDays.isEmpty() ? null : availableDays.get(0).name();
 
         ModelAndView modelAndView = new ModelAndView("lunches");
-        modelAndView.addObject("child", childService.getChildById(childId));
-        modelAndView.addObject("parent", childService.getChildById(childId).getParent());
+        modelAndView.addObject("child", child);
+        modelAndView.addObject("parent", child.getParent());
         modelAndView.addObject("lunches", lunches);
-        modelAndView.addObject("mealOptions", MealOption.values());
+        List<Meal> mealOptions = mealCatalogCache.meals();
+        modelAndView.addObject("mealOptions", mealOptions);
+        modelAndView.addObject("mealNames", mealOptions.stream()
+                .collect(Collectors.toMap(Meal::getCode, Meal::getDisplayName, (first, second) -> first)));
         modelAndView.addObject("dayOptions", availableDays);
-        
+        modelAndView.addObject("queuedOrders", lunchOrderIntakeService.getRecentOrders(child.getId()));
+
         if (errorMessage != null) {
             modelAndView.addObject("errorMessage", errorMessage);
         }
-        
+
         if (lunches.isEmpty() && errorMessage == null) {
             modelAndView.addObject("infoMessage", "No lunches ordered.");
         }
         if (availableDays.isEmpty() && errorMessage == null) {
             modelAndView.addObject("infoMessage", "Great! All days of the week are covered for lunch.");
         }
-        
+
         if (lunchRequest == null) {
             lunchRequest = new LunchRequest();
         }
         if (earliestDay != null) {
             String currentDayOfWeek = lunchRequest.getDayOfWeek();
-            if (currentDayOfWeek == null || 
+            if (currentDayOfWeek == null ||
                 availableDays.stream().noneMatch(day -> day.name().equals(currentDayOfWeek)) ||
                 !earliestDay.equals(currentDayOfWeek)) {
                 lunchRequest.setDayOfWeek(earliestDay);
             }
         }
 
+        // Resubmitting the same form replays the same order instead of placing a second one
+        lunchRequest.setOrderId(UUID.randomUUID());
+
         modelAndView.addObject("lunchRequest", lunchRequest);
         return modelAndView;
-
     }
 
-    @PostMapping("/{childId}/lunches")
-    public ModelAndView createLunch(@AuthenticationPrincipal UserData userData, @PathVariable UUID childId,
-                                    @Valid @ModelAttribute("lunchRequest") LunchRequest lunchRequest,
-                                    BindingResult bindingResult, RedirectAttributes redirectAttributes) {
+    private String errorMessage(Throwable failure, String defaultMessage) {
 
-        childService.checkChildParent(userData.getUserId(), childId);
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
 
-        if (bindingResult.hasErrors()) {
-            redirectAttributes.addFlashAttribute("errorMessage", "Please fix the highlighted errors.");
-            redirectAttributes.addFlashAttribute("validLunchRequest", bindingResult);
-            redirectAttributes.addFlashAttribute("lunchRequest", lunchRequest);
-            return new ModelAndView("redirect:/children/" + childId + "/lunches");
+        if (cause instanceof ClientErrorException e) {
+            return errorMessageExtractor.extractErrorMessage(e.getFeignException());
         }
-
-        try {
-            lunchService.createLunch(userData.getUserId(), childId, lunchRequest);
-            redirectAttributes.addFlashAttribute("successMessage", "Lunch added successfully!");
-        } catch (FeignException e) {
-            redirectAttributes.addFlashAttribute("errorMessage", errorMessageExtractor.extractErrorMessage(e));
-        } catch (org.springframework.web.server.ResponseStatusException e) {
-            if (e.getStatusCode() == org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE) {
-                redirectAttributes.addFlashAttribute("errorMessage", 
-                        "The lunch service is not responding. Please try again later.");
-            } else {
-                redirectAttributes.addFlashAttribute("errorMessage", e.getReason());
-            }
-        } catch (Exception e) {
-            redirectAttributes.addFlashAttribute("errorMessage", 
-                    "An error occurred while creating lunch. Please try again later.");
+        if (cause instanceof FeignException e) {
+            return errorMessageExtractor.extractErrorMessage(e);
         }
-
-        return new ModelAndView("redirect:/children/" + childId + "/lunches");
-    }
-
-    @DeleteMapping("/{childId}/lunches/{lunchId}")
-    public ModelAndView deleteLunch(@AuthenticationPrincipal UserData userData, @PathVariable UUID childId,
-                                    @PathVariable UUID lunchId, RedirectAttributes redirectAttributes) {
-
-        childService.checkChildParent(userData.getUserId(), childId);
-
-        try {
-            lunchService.deleteLunch(childId, lunchId);
-            redirectAttributes.addFlashAttribute("successMessage", "Lunch removed.");
-        } catch (ClientErrorException e) {
-            String errorMessage = errorMessageExtractor.extractErrorMessage(e.getFeignException());
-            redirectAttributes.addFlashAttribute("errorMessage", errorMessage);
-        } catch (FeignException e) {
-            redirectAttributes.addFlashAttribute("errorMessage", errorMessageExtractor.extractErrorMessage(e));
-        } catch (org.springframework.web.server.ResponseStatusException e) {
+        if (cause instanceof DeadlineExceededException) {
+            return "The lunch service is not responding. Please try again later.";
+        }
+        if (cause instanceof ResponseStatusException e) {
             if (e.getStatusCode() == org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE) {
-                redirectAttributes.addFlashAttribute("errorMessage", 
-                        "The lunch service is not responding. Please try again later.");
-            } else {
-                redirectAttributes.addFlashAttribute("errorMessage", e.getReason());
+                return "The lunch service is not responding. Please try again later.";
             }
-        } catch (Exception e) {
-            redirectAttributes.addFlashAttribute("errorMessage", 
-                    "An error occurred while deleting lunch. Please try again later.");
+            return e.getReason();
         }
-
-        return new ModelAndView("redirect:/children/" + childId + "/lunches");
+        return defaultMessage;
     }
 }
-
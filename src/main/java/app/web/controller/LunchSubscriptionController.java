@@ -0,0 +1,112 @@
+package app.web.controller;
+
+import app.child.model.Child;
+import app.child.service.ChildService;
+import app.expetion.DomainException;
+import app.lunch.catalog.MealCatalogCache;
+import app.lunch.client.dto.Meal;
+import app.lunch.subscription.LunchSubscriptionService;
+import app.parent.model.Parent;
+import app.parent.service.ParentService;
+import app.security.UserData;
+import app.web.dto.LunchSubscriptionRequest;
+import jakarta.validation.Valid;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.stereotype.Controller;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Controller
+@RequestMapping("/children/subscriptions")
+public class LunchSubscriptionController {
+
+    private final ParentService parentService;
+    private final ChildService childService;
+    private final LunchSubscriptionService lunchSubscriptionService;
+    private final MealCatalogCache mealCatalogCache;
+
+    public LunchSubscriptionController(ParentService parentService, ChildService childService,
+                                       LunchSubscriptionService lunchSubscriptionService,
+                                       MealCatalogCache mealCatalogCache) {
+        this.parentService = parentService;
+        this.childService = childService;
+        this.lunchSubscriptionService = lunchSubscriptionService;
+        this.mealCatalogCache = mealCatalogCache;
+    }
+
+    @GetMapping
+    public ModelAndView getSubscriptionsPage(@AuthenticationPrincipal UserData userData) {
+
+        return subscriptionsView(parentService.getById(userData.getUserId()), new LunchSubscriptionRequest());
+    }
+
+    @PostMapping
+    public ModelAndView subscribe(@AuthenticationPrincipal UserData userData,
+                                  @Valid @ModelAttribute("subscriptionRequest") LunchSubscriptionRequest request,
+                                  BindingResult bindingResult) {
+
+        Parent parent = parentService.getById(userData.getUserId());
+
+        if (bindingResult.hasErrors()) {
+            ModelAndView modelAndView = subscriptionsView(parent, request);
+            modelAndView.addObject("errorMessage", "Please fix the highlighted errors.");
+            return modelAndView;
+        }
+
+        try {
+            lunchSubscriptionService.subscribe(parent.getId(), request);
+        } catch (ResponseStatusException e) {
+            ModelAndView modelAndView = subscriptionsView(parent, request);
+            modelAndView.addObject("errorMessage", e.getReason());
+            return modelAndView;
+        } catch (DomainException e) {
+            ModelAndView modelAndView = subscriptionsView(parent, request);
+            modelAndView.addObject("errorMessage", e.getMessage());
+            return modelAndView;
+        }
+
+        ModelAndView modelAndView = subscriptionsView(parent, new LunchSubscriptionRequest());
+        modelAndView.addObject("successMessage", "The lunch will be ordered automatically every week.");
+        return modelAndView;
+    }
+
+    @DeleteMapping("/{subscriptionId}")
+    public String cancel(@AuthenticationPrincipal UserData userData, @PathVariable UUID subscriptionId) {
+
+        lunchSubscriptionService.cancel(userData.getUserId(), subscriptionId);
+
+        return "redirect:/children/subscriptions";
+    }
+
+    private ModelAndView subscriptionsView(Parent parent, LunchSubscriptionRequest subscriptionRequest) {
+
+        List<Child> children = childService.getChildrenByParentId(parent.getId());
+        List<Meal> mealOptions = mealCatalogCache.meals();
+
+        ModelAndView modelAndView = new ModelAndView("subscriptions");
+        modelAndView.addObject("parent", parent);
+        modelAndView.addObject("children", children);
+        modelAndView.addObject("childNames", children.stream()
+                .collect(Collectors.toMap(Child::getId, Child::getFirstName)));
+        modelAndView.addObject("subscriptions", lunchSubscriptionService.getSubscriptions(parent.getId()));
+        modelAndView.addObject("weekDays", List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+                DayOfWeek.THURSDAY, DayOfWeek.FRIDAY));
+        modelAndView.addObject("mealOptions", mealOptions);
+        modelAndView.addObject("mealNames", mealOptions.stream()
+                .collect(Collectors.toMap(Meal::getCode, Meal::getDisplayName, (first, second) -> first)));
+        modelAndView.addObject("subscriptionRequest", subscriptionRequest);
+        return modelAndView;
+    }
+}
@@ -0,0 +1,83 @@
+package app.web.controller;
+
+import app.lunch.closure.SchoolClosureService;
+import app.lunch.model.SchoolClosure;
+import app.lunch.model.SchoolClosureStatus;
+import app.parent.model.Parent;
+import app.parent.service.ParentService;
+import app.security.UserData;
+import app.web.dto.SchoolClosureRequest;
+import jakarta.validation.Valid;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.stereotype.Controller;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.util.List;
+
+@Controller
+@RequestMapping("/home/closures")
+@PreAuthorize("hasRole('ADMIN')")
+public class SchoolClosureController {
+
+    private final ParentService parentService;
+    private final SchoolClosureService schoolClosureService;
+
+    public SchoolClosureController(ParentService parentService, SchoolClosureService schoolClosureService) {
+        this.parentService = parentService;
+        this.schoolClosureService = schoolClosureService;
+    }
+
+    @GetMapping
+    public ModelAndView getClosuresPage(@AuthenticationPrincipal UserData userData) {
+
+        return closuresView(parentService.getById(userData.getUserId()), new SchoolClosureRequest());
+    }
+
+    @PostMapping
+    public ModelAndView close(@AuthenticationPrincipal UserData userData,
+                              @Valid @ModelAttribute("closureRequest") SchoolClosureRequest request,
+                              BindingResult bindingResult, RedirectAttributes redirectAttributes) {
+
+        Parent parent = parentService.getById(userData.getUserId());
+
+        if (bindingResult.hasErrors()) {
+            ModelAndView modelAndView = closuresView(parent, request);
+            modelAndView.addObject("errorMessage", "Please choose a school and a day.");
+            return modelAndView;
+        }
+
+        try {
+            schoolClosureService.start(request.getSchool(), request.getDay());
+        } catch (ResponseStatusException e) {
+            ModelAndView modelAndView = closuresView(parent, request);
+            modelAndView.addObject("errorMessage", e.getReason());
+            return modelAndView;
+        }
+
+        redirectAttributes.addFlashAttribute("successMessage",
+                "Lunches of " + request.getSchool() + " for " + request.getDay() + " are being cancelled.");
+        return new ModelAndView("redirect:/home/closures");
+    }
+
+    private ModelAndView closuresView(Parent parent, SchoolClosureRequest closureRequest) {
+
+        List<SchoolClosure> closures = schoolClosureService.getRecentClosures();
+
+        ModelAndView modelAndView = new ModelAndView("closures");
+        modelAndView.addObject("parent", parent);
+        modelAndView.addObject("schools", schoolClosureService.getSchools());
+        modelAndView.addObject("closures", closures);
+        modelAndView.addObject("running", closures.stream()
+                .anyMatch(closure -> closure.getStatus() == SchoolClosureStatus.RUNNING));
+        modelAndView.addObject("closureRequest", closureRequest);
+        return modelAndView;
+    }
+}
@@ -0,0 +1,155 @@
+package app.web.controller;
+
+import app.child.model.Child;
+import app.child.service.ChildService;
+import app.lunch.catalog.MealCatalogCache;
+import app.lunch.client.dto.Meal;
+import app.lunch.service.LunchService;
+import app.lunch.weekly.WeeklyOrderItemResult;
+import app.lunch.weekly.WeeklyOrderItemStatus;
+import app.lunch.weekly.WeeklyOrderResult;
+import app.lunch.weekly.WeeklyOrderService;
+import app.parent.model.Parent;
+import app.parent.service.ParentService;
+import app.security.UserData;
+import app.web.dto.WeeklyLunchItem;
+import app.web.dto.WeeklyLunchRequest;
+import app.web.util.ErrorMessageExtractor;
+import feign.FeignException;
+import jakarta.validation.Valid;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.stereotype.Controller;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.time.DayOfWeek;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Controller
+@RequestMapping("/children/weekly-lunches")
+public class WeeklyLunchController {
+
+    private final ParentService parentService;
+    private final ChildService childService;
+    private final LunchService lunchService;
+    private final WeeklyOrderService weeklyOrderService;
+    private final MealCatalogCache mealCatalogCache;
+    private final ErrorMessageExtractor errorMessageExtractor;
+
+    public WeeklyLunchController(ParentService parentService, ChildService childService, LunchService lunchService,
+                                 WeeklyOrderService weeklyOrderService, MealCatalogCache mealCatalogCache,
+                                 ErrorMessageExtractor errorMessageExtractor) {
+        this.parentService = parentService;
+        this.childService = childService;
+        this.lunchService = lunchService;
+        this.weeklyOrderService = weeklyOrderService;
+        this.mealCatalogCache = mealCatalogCache;
+        this.errorMessageExtractor = errorMessageExtractor;
+    }
+
+    @GetMapping
+    public ModelAndView getWeeklyLunchesPage(@AuthenticationPrincipal UserData userData) {
+
+        return weeklyLunchesView(parentService.getById(userData.getUserId()));
+    }
+
+    @PostMapping
+    public ModelAndView placeWeeklyLunches(@AuthenticationPrincipal UserData userData,
+                                           @Valid @ModelAttribute("weeklyLunchRequest") WeeklyLunchRequest request,
+                                           BindingResult bindingResult) {
+
+        Parent parent = parentService.getById(userData.getUserId());
+
+        if (bindingResult.hasErrors()) {
+            ModelAndView modelAndView = weeklyLunchesView(parent);
+            modelAndView.addObject("errorMessage", "Please fix the highlighted errors.");
+            return modelAndView;
+        }
+
+        if (request.getItems().stream().allMatch(item -> item.getMeal() == null || item.getMeal().isBlank())) {
+            ModelAndView modelAndView = weeklyLunchesView(parent);
+            modelAndView.addObject("infoMessage", "Choose a meal for at least one day.");
+            return modelAndView;
+        }
+
+        WeeklyOrderResult result;
+        try {
+            result = weeklyOrderService.placeWeek(parent.getId(), request.getItems());
+        } catch (ResponseStatusException e) {
+            ModelAndView modelAndView = weeklyLunchesView(parent);
+            modelAndView.addObject("errorMessage", e.getReason());
+            return modelAndView;
+        }
+
+        for (WeeklyOrderItemResult item : result.getItems()) {
+            if (item.getStatus() == WeeklyOrderItemStatus.FAILED && item.getFailure() instanceof FeignException e
+                    && e.status() >= 400 && e.status() < 500) {
+                item.setMessage(errorMessageExtractor.extractErrorMessage(e));
+            }
+        }
+
+        ModelAndView modelAndView = weeklyLunchesView(parent);
+        modelAndView.addObject("result", result);
+
+        long placed = result.count(WeeklyOrderItemStatus.PLACED);
+        if (placed == result.getItems().size()) {
+            modelAndView.addObject("successMessage", placed + " lunches ordered, " + result.getCharged()
+                    + " paid from the wallet.");
+        } else {
+            modelAndView.addObject("errorMessage", placed + " of " + result.getItems().size()
+                    + " lunches ordered. See the details below.");
+        }
+        return modelAndView;
+    }
+
+    private ModelAndView weeklyLunchesView(Parent parent) {
+
+        List<Child> children = childService.getChildrenByParentId(parent.getId());
+        WeeklyLunchRequest weeklyLunchRequest = new WeeklyLunchRequest();
+        boolean lunchSvcAvailable = true;
+
+        for (Child child : children) {
+            List<DayOfWeek> availableDays;
+            try {
+                availableDays = lunchService.getAvailableDaysForLunch(child.getId());
+            } catch (RuntimeException e) {
+                availableDays = Collections.emptyList();
+                lunchSvcAvailable = false;
+            }
+
+            for (DayOfWeek day : availableDays) {
+                WeeklyLunchItem item = new WeeklyLunchItem();
+                item.setOrderId(UUID.randomUUID());
+                item.setChildId(child.getId());
+                item.setDayOfWeek(day.name());
+                weeklyLunchRequest.getItems().add(item);
+            }
+        }
+
+        List<Meal> mealOptions = mealCatalogCache.meals();
+
+        ModelAndView modelAndView = new ModelAndView("weekly-lunches");
+        modelAndView.addObject("parent", parent);
+        modelAndView.addObject("childNames", children.stream()
+                .collect(Collectors.toMap(Child::getId, Child::getFirstName)));
+        modelAndView.addObject("mealOptions", mealOptions);
+        modelAndView.addObject("mealNames", mealOptions.stream()
+                .collect(Collectors.toMap(Meal::getCode, Meal::getDisplayName, (first, second) -> first)));
+        modelAndView.addObject("weeklyLunchRequest", weeklyLunchRequest);
+
+        if (!lunchSvcAvailable) {
+            modelAndView.addObject("errorMessage", "The lunch service is not responding. Please try again later.");
+        } else if (weeklyLunchRequest.getItems().isEmpty()) {
+            modelAndView.addObject("infoMessage", "Great! All days of the week are covered for lunch.");
+        }
+        return modelAndView;
+    }
+}
@@ -5,9 +5,13 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
+import java.util.UUID;
+
 @Data
 public class LunchRequest {
 
+    private UUID orderId;
+
     @NotBlank
     private String dayOfWeek = "MONDAY";
 
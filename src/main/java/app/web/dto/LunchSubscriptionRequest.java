@@ -0,0 +1,25 @@
+package app.web.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class LunchSubscriptionRequest {
+
+    @NotNull
+    private UUID childId;
+
+    @NotBlank
+    private String dayOfWeek = "MONDAY";
+
+    @NotBlank
+    private String meal;
+
+    @Min(1)
+    @NotNull
+    private Integer quantity = 1;
+}
@@ -0,0 +1,27 @@
+package app.web.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class WeeklyLunchItem {
+
+    private UUID orderId;
+
+    @NotNull
+    private UUID childId;
+
+    @NotBlank
+    private String dayOfWeek;
+
+    // Left blank when no lunch is wanted for the day
+    private String meal;
+
+    @Min(1)
+    @NotNull
+    private Integer quantity = 1;
+}
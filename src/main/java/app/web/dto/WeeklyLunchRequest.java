@@ -0,0 +1,14 @@
+package app.web.dto;
+
+import jakarta.validation.Valid;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class WeeklyLunchRequest {
+
+    @Valid
+    private List<WeeklyLunchItem> items = new ArrayList<>();
+}
@@ -2,9 +2,11 @@ package app.web.util;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import feign.FeignException;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -12,15 +14,17 @@ import java.util.regex.Pattern;
 public class ErrorMessageExtractor {
     
     private final ObjectMapper objectMapper;
+    private final ObjectMapper smileMapper;
     
     public ErrorMessageExtractor(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
+        this.smileMapper = objectMapper.copyWith(new SmileFactory());
     }
 
     public String extractErrorMessage(FeignException e) {
 
         try {
-            String responseBody = e.contentUTF8();
+            String responseBody = isSmile(e) ? smileMapper.readTree(e.content()).toString() : e.contentUTF8();
 
             if (responseBody != null && !responseBody.trim().isEmpty()) {
                 try {
@@ -109,6 +113,17 @@ public class ErrorMessageExtractor {
         return "Error occurred: " + e.status();
     }
 
+    private boolean isSmile(FeignException e) {
+        if (e.responseHeaders() == null || e.content() == null) {
+            return false;
+        }
+        return e.responseHeaders().entrySet().stream()
+                .filter(header -> header.getKey().equalsIgnoreCase("Content-Type"))
+                .map(java.util.Map.Entry::getValue)
+                .flatMap(Collection::stream)
+                .anyMatch(value -> value.startsWith("application/x-jackson-smile"));
+    }
+
     private String cleanErrorMessage(String message) {
         if (message == null || message.trim().isEmpty()) {
             return message;
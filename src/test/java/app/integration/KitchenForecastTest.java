@@ -0,0 +1,150 @@
+package app.integration;
+
+import app.child.model.Child;
+import app.child.model.ChildGender;
+import app.child.repository.ChildRepository;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.forecast.KitchenForecastRow;
+import app.lunch.forecast.KitchenForecastService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(SimpleMeterRegistry.class)
+class KitchenForecastTest {
+
+    @Autowired
+    private ChildRepository childRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    private LunchSvcStub stub;
+    private ThreadPoolTaskExecutor executor;
+    private KitchenForecastService forecastService;
+    private String day;
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        stub = LunchSvcStub.start();
+
+        LunchServiceGateway gateway = LunchServiceFixture.gateway(stub, meterRegistry);
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.initialize();
+
+        forecastService = new KitchenForecastService(childRepository, gateway, executor, 3, 2, meterRegistry);
+        day = LocalDate.now().getDayOfWeek().name();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+        executor.shutdown();
+        childRepository.deleteAll();
+    }
+
+    @Test
+    void shouldRecomputeCountsPerSchoolDayAndMealAcrossChildrenInParallel() {
+
+        for (int i = 0; i < 5; i++) {
+            Child child = child("North");
+            stub.addOrder(child.getId(), "BEAN_WITH_SALAD", day, "PAID");
+            stub.addOrder(child.getId(), "FRIED_CHICKEN", day, "DELETED");
+        }
+        Child south = child("South");
+        stub.addOrder(south.getId(), "BEAN_WITH_SALAD", day, "PAID");
+        stub.addOrder(south.getId(), "FRIED_CHICKEN", day, "PAID");
+        stub.setLatencyMillis(30);
+
+        assertEquals(6, forecastService.recompute());
+
+        assertEquals(List.of(
+                new KitchenForecastRow("North", LocalDate.now(), "BEAN_WITH_SALAD", 5),
+                new KitchenForecastRow("South", LocalDate.now(), "BEAN_WITH_SALAD", 1),
+                new KitchenForecastRow("South", LocalDate.now(), "FRIED_CHICKEN", 1)),
+                forecastService.getForecast());
+        assertTrue(stub.maxConcurrentRequests() > 1 && stub.maxConcurrentRequests() <= 3,
+                "max " + stub.maxConcurrentRequests());
+
+        int requests = stub.requestCount();
+        assertTrue(forecastService.getForecastCsv().contains("North," + LocalDate.now() + ",BEAN_WITH_SALAD,5\n"));
+        assertEquals(requests, stub.requestCount());
+    }
+
+    @Test
+    void shouldCountEachOrderOnceWhenRecordedFromSeveralPaths() {
+
+        Child child = child("North");
+        LunchOrder order = stub.addOrder(child.getId(), "BEAN_WITH_SALAD", day, "PAID");
+        order.setQuantity(2);
+
+        forecastService.recordOrdered(order);
+        forecastService.recordOrdered(order);
+        assertEquals(2, forecastService.getForecast().get(0).portions());
+
+        LunchOrder other = stub.addOrder(child.getId(), "BEAN_WITH_SALAD", day, "PAID");
+        forecastService.recordOrdered(other);
+        assertEquals(3, forecastService.getForecast().get(0).portions());
+
+        forecastService.recordCancelled(order.getId());
+        forecastService.recordCancelled(order.getId());
+        assertEquals(1, forecastService.getForecast().get(0).portions());
+
+        other.setStatus("DELETED");
+        forecastService.recordOrdered(other);
+        assertTrue(forecastService.getForecast().isEmpty());
+        assertEquals(0, stub.requestCount());
+    }
+
+    @Test
+    void shouldNotKeepAForecastBuiltWhileOrdersWereRecorded() throws Exception {
+
+        Child child = child("North");
+        List<LunchOrder> orders = stub.addOrders(child.getId(), 500);
+        orders.forEach(order -> order.setDayOfWeek(day));
+        AtomicBoolean recording = new AtomicBoolean(true);
+
+        CompletableFuture<Void> reader = CompletableFuture.runAsync(() -> {
+            while (recording.get()) {
+                forecastService.getForecast();
+            }
+        }, executor);
+        orders.forEach(forecastService::recordOrdered);
+        recording.set(false);
+        reader.get();
+
+        assertEquals(500, forecastService.getForecast().stream().mapToInt(KitchenForecastRow::portions).sum());
+    }
+
+    private Child child(String school) {
+        return childRepository.save(Child.builder()
+                .firstName("Child")
+                .lastName("Of " + school)
+                .school(school)
+                .grade(3)
+                .gender(ChildGender.FEMALE)
+                .build());
+    }
+}
@@ -0,0 +1,223 @@
+package app.integration;
+
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.guard.LunchOrderGuard;
+import app.lunch.repository.LunchOrderAttemptRepository;
+import app.lunch.repository.LunchOrderReservationRepository;
+import app.lunch.service.LunchOrderAttemptService;
+import app.lunch.service.LunchService;
+import app.transaction.service.TransactionService;
+import app.wallet.model.Wallet;
+import app.wallet.repository.WalletHoldRepository;
+import app.wallet.repository.WalletRepository;
+import app.wallet.service.WalletHoldService;
+import app.wallet.service.WalletService;
+import app.web.dto.LunchRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({LunchOrderAttemptService.class, WalletHoldService.class, TransactionService.class,
+        SimpleMeterRegistry.class})
+class LunchOrderGuardTest {
+
+    @Autowired
+    private LunchOrderAttemptService lunchOrderAttemptService;
+
+    @Autowired
+    private LunchOrderAttemptRepository lunchOrderAttemptRepository;
+
+    @Autowired
+    private LunchOrderReservationRepository lunchOrderReservationRepository;
+
+    @Autowired
+    private WalletHoldService walletHoldService;
+
+    @Autowired
+    private WalletHoldRepository walletHoldRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    private LunchOrderGuard guard;
+    private UUID childId;
+
+    @BeforeEach
+    void setUp() {
+        guard = guard(Duration.ofSeconds(30));
+        childId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        lunchOrderReservationRepository.deleteAll();
+        lunchOrderAttemptRepository.deleteAll();
+        walletHoldRepository.deleteAll();
+    }
+
+    @Test
+    void shouldRejectASecondSubmitForTheSameChildAndDayWithoutAQuery() {
+
+        double rejectedBefore = rejected("local");
+        UUID orderId = UUID.randomUUID();
+        guard.acquire(childId, "MONDAY", orderId);
+
+        ResponseStatusException sameOrder = assertThrows(ResponseStatusException.class,
+                () -> guard.acquire(childId, "MONDAY", orderId));
+        ResponseStatusException otherOrder = assertThrows(ResponseStatusException.class,
+                () -> guard.acquire(childId, "monday", UUID.randomUUID()));
+
+        assertEquals(HttpStatus.CONFLICT, sameOrder.getStatusCode());
+        assertEquals(HttpStatus.CONFLICT, otherOrder.getStatusCode());
+        assertEquals(2, rejected("local") - rejectedBefore);
+        assertEquals(1, lunchOrderReservationRepository.count());
+
+        guard.acquire(childId, "TUESDAY", UUID.randomUUID());
+        guard.acquire(UUID.randomUUID(), "MONDAY", UUID.randomUUID());
+        assertEquals(3, lunchOrderReservationRepository.count());
+    }
+
+    @Test
+    void shouldRejectASubmitThatAnotherInstanceHoldsUntilItIsReleased() {
+
+        double rejectedBefore = rejected("reservation");
+        LunchOrderGuard otherInstance = guard(Duration.ofSeconds(30));
+        UUID orderId = UUID.randomUUID();
+        guard.acquire(childId, "MONDAY", orderId);
+
+        assertThrows(ResponseStatusException.class, () -> otherInstance.acquire(childId, "MONDAY", UUID.randomUUID()));
+        assertEquals(1, rejected("reservation") - rejectedBefore);
+
+        // Releasing with another order id leaves the holder's reservation in place
+        guard.release(childId, "MONDAY", UUID.randomUUID());
+        assertThrows(ResponseStatusException.class, () -> otherInstance.acquire(childId, "MONDAY", UUID.randomUUID()));
+
+        guard.release(childId, "MONDAY", orderId);
+        assertEquals(0, lunchOrderReservationRepository.count());
+        otherInstance.acquire(childId, "MONDAY", UUID.randomUUID());
+        assertEquals(1, lunchOrderReservationRepository.count());
+    }
+
+    @Test
+    void shouldTakeOverTheReservationOfACrashedInstanceOnceItExpires() {
+
+        LunchOrderGuard crashed = guard(Duration.ZERO);
+        crashed.acquire(childId, "MONDAY", UUID.randomUUID());
+        crashed.acquire(UUID.randomUUID(), "MONDAY", UUID.randomUUID());
+
+        guard.acquire(childId, "MONDAY", UUID.randomUUID());
+
+        assertEquals(1, guard.deleteExpiredReservations());
+        assertEquals(1, lunchOrderReservationRepository.count());
+    }
+
+    @Test
+    void shouldSendOneOfTwoConcurrentSubmitsToLunchSvc() throws Exception {
+
+        LunchSvcStub stub = LunchSvcStub.start();
+        try {
+            LunchService lunchService = lunchService(stub);
+            UUID parentId = UUID.randomUUID();
+            stub.setLatencyMillis(200);
+
+            CountDownLatch start = new CountDownLatch(1);
+            List<CompletableFuture<Void>> submits = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                submits.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    lunchService.createLunch(parentId, childId, lunchRequest());
+                }));
+            }
+            start.countDown();
+
+            int rejected = 0;
+            for (CompletableFuture<Void> submit : submits) {
+                try {
+                    submit.join();
+                } catch (RuntimeException e) {
+                    assertInstanceOf(ResponseStatusException.class, e.getCause());
+                    rejected++;
+                }
+            }
+
+            assertEquals(1, rejected);
+            assertEquals(1, stub.requestCount());
+            assertEquals(1, stub.orders(childId).size());
+            assertEquals(1, lunchOrderAttemptRepository.count());
+            assertEquals(0, lunchOrderReservationRepository.count());
+        } finally {
+            stub.close();
+        }
+    }
+
+    private LunchOrderGuard guard(Duration reservationTtl) {
+        return new LunchOrderGuard(lunchOrderReservationRepository, true, reservationTtl, meterRegistry);
+    }
+
+    private double rejected(String source) {
+        return meterRegistry.counter("lunch.order.guard.rejected", "source", source).count();
+    }
+
+    private LunchService lunchService(LunchSvcStub stub) {
+
+        LunchServiceGateway gateway = LunchServiceFixture.gateway(stub, meterRegistry);
+
+        Wallet wallet = walletRepository.save(Wallet.builder()
+                .balance(new BigDecimal("10.00"))
+                .currency(Currency.getInstance("EUR"))
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+        WalletService walletService = mock(WalletService.class);
+        when(walletService.getWalletByParentId(any())).thenReturn(wallet);
+
+        return LunchServiceFixture.lunchService(gateway, meterRegistry)
+                .walletService(walletService)
+                .walletHoldService(walletHoldService)
+                .lunchOrderAttemptService(lunchOrderAttemptService)
+                .lunchOrderGuard(guard)
+                .build();
+    }
+
+    private LunchRequest lunchRequest() {
+        LunchRequest lunchRequest = new LunchRequest();
+        lunchRequest.setMeal("BEAN_WITH_SALAD");
+        lunchRequest.setDayOfWeek("MONDAY");
+        lunchRequest.setQuantity(1);
+        return lunchRequest;
+    }
+}
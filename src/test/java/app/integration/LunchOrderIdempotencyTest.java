@@ -0,0 +1,212 @@
+package app.integration;
+
+import app.expetion.DomainException;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.model.LunchOrderAttempt;
+import app.lunch.model.LunchOrderAttemptStatus;
+import app.lunch.repository.LunchOrderAttemptRepository;
+import app.lunch.service.LunchOrderAttemptService;
+import app.lunch.service.LunchService;
+import app.transaction.service.TransactionService;
+import app.wallet.model.Wallet;
+import app.wallet.repository.WalletHoldRepository;
+import app.wallet.repository.WalletRepository;
+import app.wallet.service.WalletHoldService;
+import app.wallet.service.WalletService;
+import app.web.dto.LunchRequest;
+import feign.FeignException;
+import feign.RetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "lunch-svc.attempts.pending-timeout=0s")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({LunchOrderAttemptService.class, WalletHoldService.class, TransactionService.class,
+        SimpleMeterRegistry.class})
+class LunchOrderIdempotencyTest {
+
+    @Autowired
+    private LunchOrderAttemptService lunchOrderAttemptService;
+
+    @Autowired
+    private LunchOrderAttemptRepository lunchOrderAttemptRepository;
+
+    @Autowired
+    private WalletHoldService walletHoldService;
+
+    @Autowired
+    private WalletHoldRepository walletHoldRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    private LunchSvcStub stub;
+    private LunchService lunchService;
+    private UUID parentId;
+    private UUID childId;
+    private UUID walletId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        stub = LunchSvcStub.start();
+
+        LunchServiceGateway gateway = LunchServiceFixture.gateway(stub, meterRegistry);
+
+        parentId = UUID.randomUUID();
+        childId = UUID.randomUUID();
+        Wallet wallet = walletRepository.save(Wallet.builder()
+                .balance(new BigDecimal("10.00"))
+                .currency(Currency.getInstance("EUR"))
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+        walletId = wallet.getId();
+
+        WalletService walletService = mock(WalletService.class);
+        when(walletService.getWalletByParentId(parentId)).thenReturn(wallet);
+
+        lunchService = LunchServiceFixture.lunchService(gateway, meterRegistry)
+                .walletService(walletService)
+                .walletHoldService(walletHoldService)
+                .lunchOrderAttemptService(lunchOrderAttemptService)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+        lunchOrderAttemptRepository.deleteAll();
+        walletHoldRepository.deleteAll();
+    }
+
+    @Test
+    void shouldPlaceOneOrderAndTakeOnePaymentWhenACommittedCreateIsRetried() {
+
+        LunchRequest lunchRequest = lunchRequest();
+        stub.dropCreateResponses(1);
+
+        assertThrows(RetryableException.class, () -> lunchService.createLunch(parentId, childId, lunchRequest));
+        lunchService.createLunch(parentId, childId, lunchRequest);
+
+        assertEquals(1, stub.orders(childId).size());
+        assertEquals(lunchRequest.getOrderId(), stub.orders(childId).get(0).getId());
+        assertEquals(LunchOrderAttemptStatus.PLACED, attempt(lunchRequest.getOrderId()).getStatus());
+        assertEquals(1, walletHoldRepository.count());
+        assertEquals(0, new BigDecimal("5.50").compareTo(wallet().getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(wallet().getReserved()));
+    }
+
+    @Test
+    void shouldIgnoreAResubmittedOrderThatWasAlreadyPlaced() {
+
+        LunchRequest lunchRequest = lunchRequest();
+
+        lunchService.createLunch(parentId, childId, lunchRequest);
+        lunchService.createLunch(parentId, childId, lunchRequest);
+
+        assertEquals(1, stub.orders(childId).size());
+        assertEquals(1, stub.requestCount());
+        assertEquals(0, new BigDecimal("5.50").compareTo(wallet().getBalance()));
+    }
+
+    @Test
+    void shouldSettleAbandonedAttemptsAgainstLunchSvc() {
+
+        LunchRequest committed = lunchRequest();
+        stub.dropCreateResponses(1);
+        assertThrows(RetryableException.class, () -> lunchService.createLunch(parentId, childId, committed));
+
+        LunchRequest lost = lunchRequest();
+        stub.failCreates(1);
+        assertThrows(FeignException.ServiceUnavailable.class,
+                () -> lunchService.createLunch(parentId, childId, lost));
+        assertEquals(0, new BigDecimal("9.00").compareTo(wallet().getReserved()));
+
+        assertEquals(2, lunchService.reconcilePendingOrders());
+
+        assertEquals(LunchOrderAttemptStatus.PLACED, attempt(committed.getOrderId()).getStatus());
+        assertEquals(LunchOrderAttemptStatus.FAILED, attempt(lost.getOrderId()).getStatus());
+        assertEquals(0, new BigDecimal("5.50").compareTo(wallet().getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(wallet().getReserved()));
+    }
+
+    @Test
+    void shouldLeaveTheAttemptPendingWhenTheCaptureFails() {
+
+        LunchRequest lunchRequest = lunchRequest();
+        stub.setMealPrice("BEAN_WITH_SALAD", BigDecimal.ZERO);
+
+        assertThrows(DomainException.class, () -> lunchService.createLunch(parentId, childId, lunchRequest));
+
+        assertEquals(LunchOrderAttemptStatus.PENDING, attempt(lunchRequest.getOrderId()).getStatus());
+        assertEquals(0, new BigDecimal("10.00").compareTo(wallet().getBalance()));
+        assertEquals(0, new BigDecimal("4.50").compareTo(wallet().getReserved()));
+        assertEquals(0, lunchService.reconcilePendingOrders());
+
+        stub.orders(childId).get(0).setTotal(new BigDecimal("4.50"));
+        assertEquals(1, lunchService.reconcilePendingOrders());
+
+        assertEquals(LunchOrderAttemptStatus.PLACED, attempt(lunchRequest.getOrderId()).getStatus());
+        assertEquals(0, new BigDecimal("5.50").compareTo(wallet().getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(wallet().getReserved()));
+    }
+
+    @Test
+    void shouldRejectASecondAttemptWithTheSameOrderId() {
+
+        UUID orderId = UUID.randomUUID();
+        lunchOrderAttemptService.begin(attemptFor(orderId));
+
+        assertThrows(DataIntegrityViolationException.class, () -> lunchOrderAttemptService.begin(attemptFor(orderId)));
+    }
+
+    private LunchOrderAttempt attemptFor(UUID orderId) {
+        return LunchOrderAttempt.builder()
+                .id(orderId)
+                .parentId(parentId)
+                .childId(childId)
+                .walletId(walletId)
+                .build();
+    }
+
+    private LunchRequest lunchRequest() {
+        LunchRequest lunchRequest = new LunchRequest();
+        lunchRequest.setMeal("BEAN_WITH_SALAD");
+        lunchRequest.setDayOfWeek("MONDAY");
+        lunchRequest.setQuantity(1);
+        return lunchRequest;
+    }
+
+    private LunchOrderAttempt attempt(UUID orderId) {
+        return lunchOrderAttemptRepository.findById(orderId).orElseThrow();
+    }
+
+    private Wallet wallet() {
+        return walletRepository.findById(walletId).orElseThrow();
+    }
+}
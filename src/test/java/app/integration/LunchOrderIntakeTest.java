@@ -0,0 +1,244 @@
+package app.integration;
+
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.intake.LunchOrderIntakeService;
+import app.lunch.model.LunchOrderIntake;
+import app.lunch.model.LunchOrderIntakeStatus;
+import app.lunch.repository.LunchOrderAttemptRepository;
+import app.lunch.repository.LunchOrderIntakeRepository;
+import app.lunch.service.LunchOrderAttemptService;
+import app.lunch.service.LunchService;
+import app.transaction.repository.TransactionRepository;
+import app.transaction.service.TransactionService;
+import app.wallet.model.Wallet;
+import app.wallet.repository.WalletHoldRepository;
+import app.wallet.repository.WalletRepository;
+import app.wallet.service.WalletHoldService;
+import app.wallet.service.WalletService;
+import app.web.dto.LunchRequest;
+import app.web.util.ErrorMessageExtractor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({LunchOrderAttemptService.class, WalletHoldService.class, TransactionService.class,
+        SimpleMeterRegistry.class})
+class LunchOrderIntakeTest {
+
+    @Autowired
+    private LunchOrderAttemptService lunchOrderAttemptService;
+
+    @Autowired
+    private LunchOrderAttemptRepository lunchOrderAttemptRepository;
+
+    @Autowired
+    private LunchOrderIntakeRepository lunchOrderIntakeRepository;
+
+    @Autowired
+    private WalletHoldService walletHoldService;
+
+    @Autowired
+    private WalletHoldRepository walletHoldRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    private LunchSvcStub stub;
+    private ThreadPoolTaskExecutor executor;
+    private LunchService lunchService;
+    private UUID parentId;
+    private UUID walletId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        stub = LunchSvcStub.start();
+
+        LunchServiceGateway gateway = LunchServiceFixture.gateway(stub, meterRegistry);
+
+        parentId = UUID.randomUUID();
+        Wallet wallet = walletRepository.save(Wallet.builder()
+                .balance(new BigDecimal("30.00"))
+                .currency(Currency.getInstance("EUR"))
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+        walletId = wallet.getId();
+
+        WalletService walletService = mock(WalletService.class);
+        when(walletService.getWalletByParentId(parentId)).thenReturn(wallet);
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.initialize();
+
+        lunchService = LunchServiceFixture.lunchService(gateway, meterRegistry)
+                .walletService(walletService)
+                .walletHoldService(walletHoldService)
+                .lunchOrderAttemptService(lunchOrderAttemptService)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+        executor.shutdown();
+        lunchOrderIntakeRepository.deleteAll();
+        lunchOrderAttemptRepository.deleteAll();
+        transactionRepository.deleteAll();
+        walletHoldRepository.deleteAll();
+    }
+
+    @Test
+    void shouldDrainTheQueueInArrivalOrderAtTheConfiguredRate() {
+
+        LunchOrderIntakeService intakeService = intakeService(1, 20);
+        List<UUID> children = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            UUID childId = UUID.randomUUID();
+            children.add(childId);
+            intakeService.accept(parentId, childId, request(openDay()));
+        }
+        assertTrue(stub.requestLines().stream().noneMatch(line -> line.startsWith("POST")));
+
+        long start = System.nanoTime();
+        assertEquals(6, intakeService.drain());
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertTrue(elapsed.toMillis() >= 200, "drained in " + elapsed.toMillis() + "ms");
+        List<String> creates = stub.requestLines().stream().filter(line -> line.startsWith("POST")).toList();
+        for (int i = 0; i < children.size(); i++) {
+            assertTrue(creates.get(i).contains(children.get(i).toString()), creates.get(i));
+        }
+        assertTrue(lunchOrderIntakeRepository.findAll().stream()
+                .allMatch(intake -> intake.getStatus() == LunchOrderIntakeStatus.PLACED));
+        assertEquals(0, new BigDecimal("3.00").compareTo(wallet().getBalance()));
+    }
+
+    @Test
+    void shouldKeepOrdersQueuedWhileLunchSvcIsDownAndPlaceThemOnce() {
+
+        LunchOrderIntakeService intakeService = intakeService(2, 100);
+        UUID childId = UUID.randomUUID();
+        List<DayOfWeek> days = lunchService.getAvailableDaysForLunch(List.of());
+        LunchOrderIntake first = intakeService.accept(parentId, childId, request(days.get(0)));
+        LunchOrderIntake second = intakeService.accept(parentId, childId, request(days.get(1)));
+        stub.failCreates(2);
+
+        intakeService.drain();
+
+        assertEquals(LunchOrderIntakeStatus.QUEUED, intake(first).getStatus());
+        assertEquals(LunchOrderIntakeStatus.QUEUED, intake(second).getStatus());
+        assertEquals(1, intake(first).getAttempts());
+
+        intakeService.drain();
+        intakeService.drain();
+
+        assertEquals(LunchOrderIntakeStatus.PLACED, intake(first).getStatus());
+        assertEquals(LunchOrderIntakeStatus.PLACED, intake(second).getStatus());
+        assertEquals(2, stub.orders(childId).size());
+        assertEquals(0, new BigDecimal("21.00").compareTo(wallet().getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(wallet().getReserved()));
+    }
+
+    @Test
+    void shouldReportOrdersThatCannotBePaidAsFailed() {
+
+        LunchOrderIntakeService intakeService = intakeService(1, 100);
+        UUID childId = UUID.randomUUID();
+        LunchRequest expensive = request(openDay());
+        expensive.setQuantity(7);
+
+        LunchOrderIntake intake = intakeService.accept(parentId, childId, expensive);
+        intakeService.drain();
+
+        assertEquals(LunchOrderIntakeStatus.FAILED, intake(intake).getStatus());
+        assertEquals("Failed to pay for lunch order, not enough money in the wallet.", intake(intake).getMessage());
+        assertTrue(stub.orders(childId).isEmpty());
+    }
+
+    @Test
+    void shouldRejectDaysThatCanNoLongerBeOrderedOnArrival() {
+
+        LunchOrderIntakeService intakeService = intakeService(1, 100);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> intakeService.accept(parentId, UUID.randomUUID(), request(DayOfWeek.SATURDAY)));
+
+        assertEquals("Lunch for this day can no longer be ordered.", exception.getReason());
+        assertEquals(0, lunchOrderIntakeRepository.count());
+    }
+
+    @Test
+    void shouldRejectADayTheChildAlreadyHasALunchFor() {
+
+        LunchOrderIntakeService intakeService = intakeService(1, 100);
+        UUID childId = UUID.randomUUID();
+        DayOfWeek day = openDay();
+        stub.addOrder(childId, "BEAN_WITH_SALAD", day.name(), "PAID");
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> intakeService.accept(parentId, childId, request(day)));
+
+        assertEquals("Lunch for this day can no longer be ordered.", exception.getReason());
+        assertEquals(0, lunchOrderIntakeRepository.count());
+    }
+
+    private LunchOrderIntakeService intakeService(int workers, double ratePerSecond) {
+        return new LunchOrderIntakeService(lunchOrderIntakeRepository, lunchService,
+                new ErrorMessageExtractor(new ObjectMapper()), executor, true, workers, ratePerSecond, 100, 5,
+                Duration.ofMinutes(2), meterRegistry);
+    }
+
+    private DayOfWeek openDay() {
+        return lunchService.getAvailableDaysForLunch(List.of()).get(0);
+    }
+
+    private LunchRequest request(DayOfWeek day) {
+        LunchRequest request = new LunchRequest();
+        request.setOrderId(UUID.randomUUID());
+        request.setDayOfWeek(day.name());
+        request.setMeal("BEAN_WITH_SALAD");
+        return request;
+    }
+
+    private LunchOrderIntake intake(LunchOrderIntake intake) {
+        return lunchOrderIntakeRepository.findById(intake.getId()).orElseThrow();
+    }
+
+    private Wallet wallet() {
+        return walletRepository.findById(walletId).orElseThrow();
+    }
+}
@@ -0,0 +1,191 @@
+package app.integration;
+
+import app.expetion.ClientErrorException;
+import app.lunch.client.LunchServiceClient;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.client.LunchTransportClient;
+import app.lunch.client.LunchTransportProperties;
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.forecast.KitchenForecastService;
+import app.lunch.model.LunchRefund;
+import app.lunch.model.LunchRefundStatus;
+import app.lunch.refund.LunchRefundService;
+import app.lunch.service.LunchReplicaService;
+import app.lunch.service.LunchService;
+import app.wallet.service.WalletService;
+import feign.Client;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LunchQueryTest {
+
+    private LunchSvcStub stub;
+    private LunchServiceClient client;
+    private WalletService walletService;
+    private LunchRefundService lunchRefundService;
+    private KitchenForecastService kitchenForecastService;
+    private LunchService lunchService;
+    private UUID childId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        stub = LunchSvcStub.start();
+        client = stub.client(new LunchTransportClient(new Client.Default(null, null), new LunchTransportProperties()));
+
+        LunchServiceGateway gateway = LunchServiceFixture.gateway(client, meterRegistry);
+
+        LunchReplicaService lunchReplicaService = mock(LunchReplicaService.class);
+        when(lunchReplicaService.findLunch(any(), any())).thenReturn(Optional.empty());
+        when(lunchReplicaService.findLunches(any(), anyString())).thenReturn(Optional.empty());
+        when(lunchReplicaService.findOccupiedDays(any())).thenReturn(Optional.empty());
+
+        walletService = mock(WalletService.class);
+        lunchRefundService = mock(LunchRefundService.class);
+        kitchenForecastService = mock(KitchenForecastService.class);
+        lunchService = LunchServiceFixture.lunchService(gateway, meterRegistry)
+                .walletService(walletService)
+                .lunchReplicaService(lunchReplicaService)
+                .lunchRefundService(lunchRefundService)
+                .kitchenForecastService(kitchenForecastService)
+                .build();
+        childId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void shouldFilterLunchesOnTheServer() {
+
+        stub.addOrder(childId, "FRIED_CHICKEN_WITH_YOGURT_SOUS", "MONDAY", "PAID");
+        stub.addOrder(childId, "FRIED_CHICKEN_WITH_YOGURT_SOUS", "TUESDAY", "COMPLETED");
+        stub.addOrder(childId, "FRIED_CHICKEN_WITH_YOGURT_SOUS", "WEDNESDAY", "DELETED");
+
+        assertEquals(2, client.getLunches(childId).size());
+        assertEquals(1, client.findLunches(childId, "PAID", null, null).size());
+        assertEquals("TUESDAY", client.findLunches(childId, null, "TUESDAY", null).get(0).getDayOfWeek());
+        assertEquals(3, client.findLunches(childId, null, null, true).size());
+        assertEquals(List.of("GET /children/" + childId + "/lunches",
+                        "GET /children/" + childId + "/lunches?status=PAID",
+                        "GET /children/" + childId + "/lunches?dayOfWeek=TUESDAY",
+                        "GET /children/" + childId + "/lunches?includeDeleted=true"),
+                stub.requestLines());
+    }
+
+    @Test
+    void shouldLookUpSingleOrderIncludingDeletedOnes() {
+
+        LunchOrder deleted = stub.addOrder(childId, "FRIED_CHICKEN_WITH_YOGURT_SOUS", "MONDAY", "DELETED");
+
+        assertEquals(deleted.getId(), lunchService.getLunch(childId, deleted.getId()).orElseThrow().getId());
+        assertTrue(lunchService.getLunch(childId, UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void shouldComputeAvailableDaysFromOccupiedDaysProjection() {
+
+        stub.addOrder(childId, "FRIED_CHICKEN_WITH_YOGURT_SOUS", "MONDAY", "PAID");
+        stub.addOrder(childId, "FRIED_CHICKEN_WITH_YOGURT_SOUS", "FRIDAY", "PAID");
+        stub.addOrder(childId, "FRIED_CHICKEN_WITH_YOGURT_SOUS", "TUESDAY", "DELETED");
+
+        List<DayOfWeek> availableDays = lunchService.getAvailableDaysForLunch(childId);
+
+        assertFalse(availableDays.contains(DayOfWeek.MONDAY));
+        assertFalse(availableDays.contains(DayOfWeek.FRIDAY));
+        assertEquals(availableDays.stream().sorted().toList(), availableDays);
+        assertEquals(availableDays.isEmpty() ? null : availableDays.get(0).name(),
+                lunchService.getEarliestAvailableDay(childId));
+        assertEquals(List.of("GET /children/" + childId + "/lunches/occupied-days"), stub.requestLines());
+    }
+
+    @Test
+    void shouldDeleteLunchWithoutDownloadingTheWholeList() {
+
+        stub.addOrders(childId, 50);
+        LunchOrder order = stub.addOrder(childId, "FRIED_CHICKEN_WITH_YOGURT_SOUS", "THURSDAY", "PAID");
+
+        lunchService.deleteLunch(childId, order.getId());
+
+        assertEquals(List.of("GET /children/" + childId + "/lunches/" + order.getId(),
+                        "DELETE /children/" + childId + "/lunches/" + order.getId()),
+                stub.requestLines());
+        verify(lunchRefundService).hold(order.getId(), childId, order.getWalletId(), new BigDecimal("4.50"));
+        verify(lunchRefundService).release(order.getId());
+        verify(kitchenForecastService).recordCancelled(order.getId());
+        verifyNoInteractions(walletService);
+    }
+
+    @Test
+    void shouldDropTheHeldRefundWhenLunchSvcRejectsTheDelete() {
+
+        LunchOrder order = stub.addOrder(childId, "FRIED_CHICKEN_WITH_YOGURT_SOUS", "THURSDAY", "PAID");
+        when(lunchRefundService.hold(order.getId(), childId, order.getWalletId(), new BigDecimal("4.50")))
+                .thenAnswer(invocation -> {
+                    order.setStatus("DELETED");
+                    return true;
+                });
+
+        assertThrows(ClientErrorException.class, () -> lunchService.deleteLunch(childId, order.getId()));
+
+        verify(lunchRefundService).discard(order.getId());
+        verify(lunchRefundService, never()).release(any());
+    }
+
+    @Test
+    void shouldReleaseHeldRefundsOnlyForOrdersLunchSvcDeleted() {
+
+        LunchOrder deleted = stub.addOrder(childId, "FRIED_CHICKEN_WITH_YOGURT_SOUS", "MONDAY", "DELETED");
+        LunchOrder active = stub.addOrder(childId, "FRIED_CHICKEN_WITH_YOGURT_SOUS", "TUESDAY", "PAID");
+        UUID missing = UUID.randomUUID();
+        when(lunchRefundService.findExpiredHolds(anyInt())).thenReturn(List.of(
+                held(deleted.getId()), held(active.getId()), held(missing)));
+
+        assertEquals(3, lunchService.reconcileHeldRefunds());
+
+        verify(lunchRefundService).release(deleted.getId());
+        verify(lunchRefundService).release(missing);
+        verify(lunchRefundService).discard(active.getId());
+        verify(lunchRefundService, never()).release(active.getId());
+    }
+
+    @Test
+    void shouldFetchOnlyLunchesWithRequestedStatus() {
+
+        stub.addOrder(childId, "FRIED_CHICKEN_WITH_YOGURT_SOUS", "MONDAY", "PAID");
+        stub.addOrder(childId, "FRIED_CHICKEN_WITH_YOGURT_SOUS", "TUESDAY", "COMPLETED");
+
+        List<LunchOrder> paid = lunchService.getLunchesWithStatus(childId, "PAID");
+
+        assertEquals(1, paid.size());
+        assertEquals("MONDAY", paid.get(0).getDayOfWeek());
+    }
+
+    private LunchRefund held(UUID lunchId) {
+        return LunchRefund.builder()
+                .id(lunchId)
+                .childId(childId)
+                .walletId(UUID.randomUUID())
+                .amount(new BigDecimal("4.50"))
+                .status(LunchRefundStatus.HELD)
+                .build();
+    }
+}
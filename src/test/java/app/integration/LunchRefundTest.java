@@ -0,0 +1,178 @@
+package app.integration;
+
+import app.lunch.model.LunchRefund;
+import app.lunch.model.LunchRefundStatus;
+import app.lunch.refund.LunchRefundProcessor;
+import app.lunch.refund.LunchRefundService;
+import app.lunch.repository.LunchRefundRepository;
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionType;
+import app.transaction.repository.TransactionRepository;
+import app.transaction.service.TransactionService;
+import app.wallet.model.Wallet;
+import app.wallet.repository.WalletRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({LunchRefundService.class, TransactionService.class, SimpleMeterRegistry.class})
+class LunchRefundTest {
+
+    private static final BigDecimal PRICE = new BigDecimal("4.50");
+
+    @Autowired
+    private LunchRefundService lunchRefundService;
+
+    @Autowired
+    private LunchRefundRepository lunchRefundRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    @AfterEach
+    void tearDown() {
+        lunchRefundRepository.deleteAll();
+        transactionRepository.deleteAll();
+    }
+
+    @Test
+    void shouldCreditEachWalletOnceForAllOfItsRefunds() {
+
+        UUID first = wallet();
+        UUID second = wallet();
+        UUID childId = UUID.randomUUID();
+        List<UUID> lunches = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        for (UUID lunchId : lunches) {
+            assertTrue(lunchRefundService.request(lunchId, childId, first, PRICE));
+        }
+        UUID other = UUID.randomUUID();
+        lunchRefundService.request(other, UUID.randomUUID(), second, PRICE);
+        assertFalse(lunchRefundService.request(lunches.get(0), childId, first, PRICE));
+
+        assertEquals(4, processor(5).process());
+
+        assertEquals(0, new BigDecimal("23.50").compareTo(balance(first)));
+        assertEquals(0, new BigDecimal("14.50").compareTo(balance(second)));
+        List<Transaction> refunds = transactionRepository.findAll().stream()
+                .filter(transaction -> transaction.getType() == TransactionType.REFUND)
+                .toList();
+        assertEquals(2, refunds.size());
+        assertTrue(refunds.stream().anyMatch(transaction -> transaction.getDescription()
+                .equals("Refund for deleted lunch order #" + other)));
+        assertTrue(lunchRefundRepository.findAll().stream()
+                .allMatch(refund -> refund.getStatus() == LunchRefundStatus.REFUNDED
+                        && refund.getTransactionId() != null));
+
+        assertEquals(0, processor(5).process());
+        assertEquals(0, new BigDecimal("23.50").compareTo(balance(first)));
+    }
+
+    @Test
+    void shouldRetryARefundThatCannotBeCreditedAndGiveUpAfterTheLastAttempt() {
+
+        UUID lunchId = UUID.randomUUID();
+        lunchRefundService.request(lunchId, UUID.randomUUID(), UUID.randomUUID(), PRICE);
+        LunchRefundProcessor processor = processor(2);
+
+        assertEquals(0, processor.process());
+        assertEquals(LunchRefundStatus.PENDING, refund(lunchId).getStatus());
+        assertEquals(1, refund(lunchId).getAttempts());
+
+        assertEquals(0, processor.process());
+        assertEquals(LunchRefundStatus.FAILED, refund(lunchId).getStatus());
+        assertNotNull(refund(lunchId).getMessage());
+        assertTrue(transactionRepository.findAll().isEmpty());
+    }
+
+    @Test
+    void shouldRefundAgainWhenTheWorkerDiedBeforeCommitting() {
+
+        UUID walletId = wallet();
+        UUID lunchId = UUID.randomUUID();
+        LocalDateTime crashedOn = LocalDateTime.now().minusMinutes(10);
+        lunchRefundRepository.save(LunchRefund.builder()
+                .id(lunchId)
+                .childId(UUID.randomUUID())
+                .walletId(walletId)
+                .amount(PRICE)
+                .status(LunchRefundStatus.PROCESSING)
+                .createdOn(crashedOn)
+                .updatedOn(crashedOn)
+                .build());
+
+        assertEquals(1, processor(5).process());
+
+        assertEquals(LunchRefundStatus.REFUNDED, refund(lunchId).getStatus());
+        assertEquals(0, new BigDecimal("14.50").compareTo(balance(walletId)));
+    }
+
+    @Test
+    void shouldPayAHeldRefundOnlyOnceItIsReleased() {
+
+        UUID walletId = wallet();
+        UUID deleted = UUID.randomUUID();
+        UUID kept = UUID.randomUUID();
+        assertTrue(lunchRefundService.hold(deleted, UUID.randomUUID(), walletId, PRICE));
+        assertTrue(lunchRefundService.hold(kept, UUID.randomUUID(), walletId, PRICE));
+        assertFalse(lunchRefundService.request(deleted, UUID.randomUUID(), walletId, PRICE));
+
+        assertEquals(0, processor(5).process());
+        assertEquals(LunchRefundStatus.HELD, refund(deleted).getStatus());
+
+        assertTrue(lunchRefundService.release(deleted));
+        assertTrue(lunchRefundService.discard(kept));
+        assertFalse(lunchRefundService.discard(deleted));
+
+        assertEquals(1, processor(5).process());
+        assertEquals(LunchRefundStatus.REFUNDED, refund(deleted).getStatus());
+        assertTrue(lunchRefundRepository.findById(kept).isEmpty());
+        assertEquals(0, new BigDecimal("14.50").compareTo(balance(walletId)));
+    }
+
+    private LunchRefundProcessor processor(int maxAttempts) {
+        return new LunchRefundProcessor(lunchRefundRepository, lunchRefundService, 100, maxAttempts,
+                Duration.ofMinutes(2), meterRegistry);
+    }
+
+    private UUID wallet() {
+        return walletRepository.save(Wallet.builder()
+                .balance(new BigDecimal("10.00"))
+                .currency(Currency.getInstance("EUR"))
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build()).getId();
+    }
+
+    private BigDecimal balance(UUID walletId) {
+        return walletRepository.findById(walletId).orElseThrow().getBalance();
+    }
+
+    private LunchRefund refund(UUID lunchId) {
+        return lunchRefundRepository.findById(lunchId).orElseThrow();
+    }
+}
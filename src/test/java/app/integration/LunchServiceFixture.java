@@ -0,0 +1,140 @@
+package app.integration;
+
+import app.lunch.capacity.MealCapacityLedger;
+import app.lunch.capacity.MealCapacityProperties;
+import app.lunch.catalog.MealCatalogCache;
+import app.lunch.client.LunchServiceClient;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.client.LunchTransportClient;
+import app.lunch.client.LunchTransportProperties;
+import app.lunch.forecast.KitchenForecastService;
+import app.lunch.guard.LunchOrderGuard;
+import app.lunch.occupancy.WeeklyOccupancyIndex;
+import app.lunch.refund.LunchRefundService;
+import app.lunch.resilience.AdaptiveConcurrencyLimiter;
+import app.lunch.resilience.HedgedReadExecutor;
+import app.lunch.resilience.SingleFlight;
+import app.lunch.service.LunchOrderAttemptService;
+import app.lunch.service.LunchReplicaService;
+import app.lunch.service.LunchService;
+import app.lunch.snapshot.LunchSnapshotStore;
+import app.wallet.service.WalletHoldService;
+import app.wallet.service.WalletService;
+import feign.Client;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.mockito.Mockito.mock;
+
+// Wires the lunch-svc client stack and LunchService the way the application does, with mocks for what a test leaves out
+public final class LunchServiceFixture {
+
+    private LunchServiceFixture() {
+    }
+
+    public static LunchServiceGateway gateway(LunchSvcStub stub, MeterRegistry meterRegistry) {
+        return gateway(stub.client(new LunchTransportClient(new Client.Default(null, null),
+                new LunchTransportProperties())), meterRegistry);
+    }
+
+    public static LunchServiceGateway gateway(LunchServiceClient client, MeterRegistry meterRegistry) {
+        return new LunchServiceGateway(client, CircuitBreakerRegistry.ofDefaults(),
+                new AdaptiveConcurrencyLimiter(20, 4, 200, 0.2, 1.5, 0.9, 100, meterRegistry),
+                new HedgedReadExecutor(false, 0.95, 20, 1000, 0.1, 4, meterRegistry),
+                new SingleFlight(meterRegistry));
+    }
+
+    public static Builder lunchService(LunchServiceGateway gateway, MeterRegistry meterRegistry) {
+        return new Builder(gateway, meterRegistry);
+    }
+
+    public static final class Builder {
+
+        private final LunchServiceGateway gateway;
+        private WalletService walletService = mock(WalletService.class);
+        private LunchSnapshotStore lunchSnapshotStore;
+        private LunchReplicaService lunchReplicaService = mock(LunchReplicaService.class);
+        private WalletHoldService walletHoldService = mock(WalletHoldService.class);
+        private MealCatalogCache mealCatalogCache = mock(MealCatalogCache.class);
+        private LunchOrderAttemptService lunchOrderAttemptService = mock(LunchOrderAttemptService.class);
+        private MealCapacityLedger mealCapacityLedger;
+        private WeeklyOccupancyIndex weeklyOccupancyIndex;
+        private LunchRefundService lunchRefundService = mock(LunchRefundService.class);
+        private LunchOrderGuard lunchOrderGuard;
+        private KitchenForecastService kitchenForecastService = mock(KitchenForecastService.class);
+
+        private Builder(LunchServiceGateway gateway, MeterRegistry meterRegistry) {
+            this.gateway = gateway;
+            this.lunchSnapshotStore = new LunchSnapshotStore(100, Duration.ofHours(1), meterRegistry);
+            this.mealCapacityLedger = new MealCapacityLedger(new MealCapacityProperties(), null, null, null,
+                    meterRegistry);
+            this.weeklyOccupancyIndex = new WeeklyOccupancyIndex(100, Duration.ofMinutes(10), meterRegistry);
+            this.lunchOrderGuard = new LunchOrderGuard(null, false, Duration.ofSeconds(30), meterRegistry);
+        }
+
+        public Builder walletService(WalletService walletService) {
+            this.walletService = walletService;
+            return this;
+        }
+
+        public Builder lunchSnapshotStore(LunchSnapshotStore lunchSnapshotStore) {
+            this.lunchSnapshotStore = lunchSnapshotStore;
+            return this;
+        }
+
+        public Builder lunchReplicaService(LunchReplicaService lunchReplicaService) {
+            this.lunchReplicaService = lunchReplicaService;
+            return this;
+        }
+
+        public Builder walletHoldService(WalletHoldService walletHoldService) {
+            this.walletHoldService = walletHoldService;
+            return this;
+        }
+
+        public Builder mealCatalogCache(MealCatalogCache mealCatalogCache) {
+            this.mealCatalogCache = mealCatalogCache;
+            return this;
+        }
+
+        public Builder lunchOrderAttemptService(LunchOrderAttemptService lunchOrderAttemptService) {
+            this.lunchOrderAttemptService = lunchOrderAttemptService;
+            return this;
+        }
+
+        public Builder mealCapacityLedger(MealCapacityLedger mealCapacityLedger) {
+            this.mealCapacityLedger = mealCapacityLedger;
+            return this;
+        }
+
+        public Builder weeklyOccupancyIndex(WeeklyOccupancyIndex weeklyOccupancyIndex) {
+            this.weeklyOccupancyIndex = weeklyOccupancyIndex;
+            return this;
+        }
+
+        public Builder lunchRefundService(LunchRefundService lunchRefundService) {
+            this.lunchRefundService = lunchRefundService;
+            return this;
+        }
+
+        public Builder lunchOrderGuard(LunchOrderGuard lunchOrderGuard) {
+            this.lunchOrderGuard = lunchOrderGuard;
+            return this;
+        }
+
+        public Builder kitchenForecastService(KitchenForecastService kitchenForecastService) {
+            this.kitchenForecastService = kitchenForecastService;
+            return this;
+        }
+
+        public LunchService build() {
+            return new LunchService(gateway, walletService, lunchSnapshotStore, lunchReplicaService,
+                    walletHoldService, mealCatalogCache, lunchOrderAttemptService, mealCapacityLedger,
+                    weeklyOccupancyIndex, lunchRefundService, lunchOrderGuard, kitchenForecastService,
+                    new BigDecimal("4.50"));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package app.integration;
+
+import app.child.model.Child;
+import app.child.model.ChildGender;
+import app.child.repository.ChildRepository;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.model.DailySettlement;
+import app.lunch.model.DailySettlementStatus;
+import app.lunch.refund.LunchRefundService;
+import app.lunch.repository.DailySettlementRepository;
+import app.lunch.repository.LunchOrderReplicaRepository;
+import app.lunch.repository.LunchRefundRepository;
+import app.lunch.repository.LunchSettlementRepository;
+import app.lunch.service.LunchReplicaService;
+import app.lunch.settlement.LunchSettlementService;
+import app.transaction.service.TransactionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({LunchRefundService.class, TransactionService.class, SimpleMeterRegistry.class})
+class LunchSettlementTest {
+
+    @Autowired
+    private LunchRefundService lunchRefundService;
+
+    @Autowired
+    private LunchRefundRepository lunchRefundRepository;
+
+    @Autowired
+    private LunchSettlementRepository lunchSettlementRepository;
+
+    @Autowired
+    private DailySettlementRepository dailySettlementRepository;
+
+    @Autowired
+    private LunchOrderReplicaRepository lunchOrderReplicaRepository;
+
+    @Autowired
+    private ChildRepository childRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    private LunchSvcStub stub;
+    private ThreadPoolTaskExecutor executor;
+    private LunchSettlementService settlementService;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        stub = LunchSvcStub.start();
+
+        LunchServiceGateway gateway = LunchServiceFixture.gateway(stub, meterRegistry);
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.initialize();
+
+        settlementService = new LunchSettlementService(dailySettlementRepository, lunchSettlementRepository,
+                lunchOrderReplicaRepository, childRepository, gateway, mock(LunchReplicaService.class), executor, 3,
+                2, 7, Duration.ofMinutes(10), meterRegistry);
+        today = LocalDate.now();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+        executor.shutdown();
+        dailySettlementRepository.deleteAll();
+        lunchSettlementRepository.deleteAll();
+        lunchRefundRepository.deleteAll();
+        childRepository.deleteAll();
+    }
+
+    @Test
+    void shouldSettleTheDaysLunchesInChunksAndRecordItsTotals() {
+
+        String day = today.getDayOfWeek().name();
+        String tomorrow = today.plusDays(1).getDayOfWeek().name();
+        LunchOrder served = null;
+        LunchOrder upcoming = null;
+
+        for (int i = 0; i < 5; i++) {
+            Child child = child();
+            LunchOrder order = stub.addOrder(child.getId(), "BEAN_WITH_SALAD", day, "PAID");
+            order.setQuantity(i == 0 ? 2 : 1);
+            order.setTotal(order.getUnitPrice().multiply(BigDecimal.valueOf(order.getQuantity())));
+            stub.addOrder(child.getId(), "FRIED_CHICKEN", day, "DELETED");
+            LunchOrder next = stub.addOrder(child.getId(), "FRIED_CHICKEN", tomorrow, "PAID");
+            if (i == 0) {
+                served = order;
+                upcoming = next;
+            }
+        }
+
+        assertEquals(5, settlementService.settle(today));
+
+        DailySettlement settlement = settlementService.getSettlement(today);
+        assertEquals(DailySettlementStatus.COMPLETED, settlement.getStatus());
+        assertEquals(5, settlement.getChildren());
+        assertEquals(5, settlement.getOrders());
+        assertEquals(6, settlement.getPortions());
+        assertEquals(0, new BigDecimal("27.00").compareTo(settlement.getTotal()));
+        assertTrue(lunchSettlementRepository.existsById(served.getId()));
+        assertFalse(lunchSettlementRepository.existsById(upcoming.getId()));
+
+        int requests = stub.requestCount();
+        assertEquals(0, settlementService.settle(today));
+        assertEquals(requests, stub.requestCount());
+        assertEquals(5, lunchSettlementRepository.count());
+    }
+
+    @Test
+    void shouldNotRefundALunchThatWasAlreadyServed() {
+
+        Child child = child();
+        LunchOrder served = stub.addOrder(child.getId(), "BEAN_WITH_SALAD", today.getDayOfWeek().name(), "PAID");
+        settlementService.settle(today);
+
+        assertFalse(lunchRefundService.request(served.getId(), child.getId(), served.getWalletId(),
+                served.getTotal()));
+        assertEquals(0, lunchRefundRepository.count());
+        assertTrue(lunchRefundService.request(UUID.randomUUID(), child.getId(), served.getWalletId(),
+                served.getTotal()));
+    }
+
+    private Child child() {
+        return childRepository.save(Child.builder()
+                .firstName("Child")
+                .lastName("Of North")
+                .school("North")
+                .grade(3)
+                .gender(ChildGender.FEMALE)
+                .build());
+    }
+}
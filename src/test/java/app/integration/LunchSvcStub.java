@@ -0,0 +1,401 @@
+package app.integration;
+
+import app.lunch.client.LunchServiceClient;
+import app.lunch.client.LunchServiceClientConfiguration;
+import app.lunch.client.LunchTransportProperties;
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.client.dto.Meal;
+import app.lunch.client.dto.MealOption;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Feign;
+import feign.Retryer;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class LunchSvcStub implements AutoCloseable {
+
+    private static final String DELETED = "DELETED";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper smileMapper = objectMapper.copyWith(new SmileFactory());
+    private final Map<UUID, List<LunchOrder>> ordersByChild = new ConcurrentHashMap<>();
+    private final Map<String, BigDecimal> mealPrices = new ConcurrentSkipListMap<>();
+    private final AtomicInteger catalogVersion = new AtomicInteger(1);
+    private final Set<String> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final List<String> requestLines = new CopyOnWriteArrayList<>();
+    private final AtomicInteger gzippedResponses = new AtomicInteger();
+    private final AtomicInteger gzippedRequests = new AtomicInteger();
+    private final AtomicInteger smileResponses = new AtomicInteger();
+    private final AtomicInteger droppedResponses = new AtomicInteger();
+    private final AtomicInteger failedCreates = new AtomicInteger();
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger maxInflight = new AtomicInteger();
+    private volatile long latencyMillis;
+    private volatile boolean smileEnabled = true;
+
+    private LunchSvcStub() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.executor = Executors.newCachedThreadPool();
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+        Arrays.stream(MealOption.values()).forEach(meal -> mealPrices.put(meal.name(), new BigDecimal("4.50")));
+    }
+
+    public static LunchSvcStub start() throws IOException {
+        LunchSvcStub stub = new LunchSvcStub();
+        stub.server.start();
+        return stub;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public LunchServiceClient client(Client transport) {
+        return client(transport, new LunchTransportProperties());
+    }
+
+    public LunchServiceClient client(Client transport, LunchTransportProperties properties) {
+
+        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter(objectMapper);
+        ObjectFactory<HttpMessageConverters> converters = () -> new HttpMessageConverters(false, List.of(converter));
+        LunchServiceClientConfiguration configuration = new LunchServiceClientConfiguration();
+
+        return Feign.builder()
+                .client(transport)
+                .retryer(Retryer.NEVER_RETRY)
+                .contract(new SpringMvcContract())
+                .encoder(new SpringEncoder(converters))
+                .decoder(configuration.lunchServiceDecoder(converters, objectMapper))
+                .requestInterceptor(configuration.lunchServiceAcceptHeader(properties))
+                .target(LunchServiceClient.class, baseUrl());
+    }
+
+    public LunchOrder addOrder(UUID childId, String meal, String dayOfWeek, String status) {
+
+        LunchOrder order = order(childId, meal, 1, dayOfWeek);
+        order.setWalletId(UUID.randomUUID());
+        order.setStatus(status);
+        ordersByChild.computeIfAbsent(childId, id -> new CopyOnWriteArrayList<>()).add(order);
+        return order;
+    }
+
+    public List<LunchOrder> addOrders(UUID childId, int count) {
+
+        List<LunchOrder> orders = ordersByChild.computeIfAbsent(childId, id -> new CopyOnWriteArrayList<>());
+
+        for (int i = 0; i < count; i++) {
+            orders.add(order(childId, "FRIED_CHICKEN_WITH_YOGURT_SOUS", 1, "MONDAY"));
+        }
+        return orders;
+    }
+
+    public void setMealPrice(String meal, BigDecimal unitPrice) {
+        mealPrices.put(meal, unitPrice);
+        catalogVersion.incrementAndGet();
+    }
+
+    public List<LunchOrder> orders(UUID childId) {
+        return List.copyOf(ordersByChild.getOrDefault(childId, List.of()));
+    }
+
+    // The next creates are committed but the connection is closed before the response is written
+    public void dropCreateResponses(int count) {
+        droppedResponses.set(count);
+    }
+
+    // The next creates are answered with 503 without being committed
+    public void failCreates(int count) {
+        failedCreates.set(count);
+    }
+
+    public void setSmileEnabled(boolean smileEnabled) {
+        this.smileEnabled = smileEnabled;
+    }
+
+    public int smileResponses() {
+        return smileResponses.get();
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public int connectionsOpened() {
+        return connections.size();
+    }
+
+    public int requestCount() {
+        return requests.get();
+    }
+
+    public int maxConcurrentRequests() {
+        return maxInflight.get();
+    }
+
+    public List<String> requestLines() {
+        return List.copyOf(requestLines);
+    }
+
+    public int gzippedResponses() {
+        return gzippedResponses.get();
+    }
+
+    public int gzippedRequests() {
+        return gzippedRequests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+
+        requests.incrementAndGet();
+        requestLines.add(exchange.getRequestMethod() + " " + exchange.getRequestURI());
+        connections.add(exchange.getRemoteAddress().toString());
+
+        maxInflight.accumulateAndGet(inflight.incrementAndGet(), Math::max);
+
+        try (exchange) {
+            injectLatency();
+
+            if ("/meals".equals(exchange.getRequestURI().getPath())) {
+                serveMeals(exchange);
+                return;
+            }
+
+            String[] path = exchange.getRequestURI().getPath().split("/");
+
+            if (path.length < 4 || !"children".equals(path[1]) || !"lunches".equals(path[3])) {
+                respond(exchange, 404, Map.of("message", "Not found"));
+                return;
+            }
+
+            UUID childId = UUID.fromString(path[2]);
+            List<LunchOrder> orders = ordersByChild.computeIfAbsent(childId, id -> new CopyOnWriteArrayList<>());
+
+            String resource = path.length > 4 ? path[4] : null;
+
+            switch (exchange.getRequestMethod()) {
+                case "GET" -> {
+                    if ("occupied-days".equals(resource)) {
+                        respond(exchange, 200, orders.stream()
+                                .filter(order -> !DELETED.equals(order.getStatus()))
+                                .map(LunchOrder::getDayOfWeek)
+                                .distinct()
+                                .toList());
+                    } else if (resource != null) {
+                        UUID lunchId = UUID.fromString(resource);
+                        Optional<LunchOrder> order = orders.stream()
+                                .filter(candidate -> candidate.getId().equals(lunchId))
+                                .findFirst();
+                        if (order.isPresent()) {
+                            respond(exchange, 200, order.get());
+                        } else {
+                            respond(exchange, 404, Map.of("message", "Lunch order not found"));
+                        }
+                    } else {
+                        respond(exchange, 200, filter(orders, query(exchange)));
+                    }
+                }
+                case "POST" -> {
+                    if (failedCreates.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                        respond(exchange, 503, Map.of("message", "Service unavailable"));
+                        return;
+                    }
+                    JsonNode request = objectMapper.readTree(requestBody(exchange));
+                    UUID orderId = request.hasNonNull("orderId")
+                            ? UUID.fromString(request.path("orderId").asText()) : null;
+                    Optional<LunchOrder> replayed = orders.stream()
+                            .filter(candidate -> candidate.getId().equals(orderId))
+                            .findFirst();
+                    if (replayed.isPresent()) {
+                        respond(exchange, 200, replayed.get());
+                        return;
+                    }
+                    LunchOrder order = order(childId, request.path("meal").asText(),
+                            request.path("quantity").asInt(1), request.path("dayOfWeek").asText());
+                    order.setParentId(UUID.fromString(request.path("parentId").asText()));
+                    order.setWalletId(UUID.fromString(request.path("walletId").asText()));
+                    if (orderId != null) {
+                        order.setId(orderId);
+                    }
+                    orders.add(order);
+                    if (droppedResponses.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                        return;
+                    }
+                    respond(exchange, 201, order);
+                }
+                case "DELETE" -> {
+                    UUID lunchId = UUID.fromString(resource);
+                    Optional<LunchOrder> order = orders.stream()
+                            .filter(candidate -> candidate.getId().equals(lunchId))
+                            .filter(candidate -> !DELETED.equals(candidate.getStatus()))
+                            .findFirst();
+                    if (order.isEmpty()) {
+                        respond(exchange, 404, Map.of("message", "Lunch order not found"));
+                        return;
+                    }
+                    order.get().setStatus(DELETED);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> respond(exchange, 405, Map.of("message", "Method not allowed"));
+            }
+        } finally {
+            inflight.decrementAndGet();
+        }
+    }
+
+    private void serveMeals(HttpExchange exchange) throws IOException {
+
+        String etag = "\"meals-" + catalogVersion.get() + "\"";
+
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+
+        exchange.getResponseHeaders().set("ETag", etag);
+        respond(exchange, 200, mealPrices.entrySet().stream()
+                .map(price -> new Meal(price.getKey(), price.getKey().replace('_', ' ').toLowerCase(), price.getValue()))
+                .toList());
+    }
+
+    private List<LunchOrder> filter(List<LunchOrder> orders, Map<String, String> query) {
+
+        boolean includeDeleted = Boolean.parseBoolean(query.get("includeDeleted"));
+
+        return orders.stream()
+                .filter(order -> includeDeleted || !DELETED.equals(order.getStatus()))
+                .filter(order -> !query.containsKey("status") || query.get("status").equals(order.getStatus()))
+                .filter(order -> !query.containsKey("dayOfWeek") || query.get("dayOfWeek").equals(order.getDayOfWeek()))
+                .toList();
+    }
+
+    private Map<String, String> query(HttpExchange exchange) {
+
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        Map<String, String> query = new HashMap<>();
+
+        if (rawQuery != null) {
+            for (String parameter : rawQuery.split("&")) {
+                String[] pair = parameter.split("=", 2);
+                query.put(URLDecoder.decode(pair[0], StandardCharsets.UTF_8),
+                        pair.length > 1 ? URLDecoder.decode(pair[1], StandardCharsets.UTF_8) : "");
+            }
+        }
+        return query;
+    }
+
+    private byte[] requestBody(HttpExchange exchange) throws IOException {
+
+        InputStream body = exchange.getRequestBody();
+
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            gzippedRequests.incrementAndGet();
+            body = new GZIPInputStream(body);
+        }
+        return body.readAllBytes();
+    }
+
+    private void respond(HttpExchange exchange, int status, Object payload) throws IOException {
+
+        String accept = String.join(",", exchange.getRequestHeaders().getOrDefault("Accept", List.of()));
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        byte[] body;
+
+        if (smileEnabled && accept.contains(LunchServiceClientConfiguration.SMILE.toString())) {
+            body = smileMapper.writeValueAsBytes(payload);
+            exchange.getResponseHeaders().set("Content-Type", LunchServiceClientConfiguration.SMILE.toString());
+            smileResponses.incrementAndGet();
+        } else {
+            body = objectMapper.writeValueAsBytes(payload);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+        }
+
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            gzippedResponses.incrementAndGet();
+        }
+
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void injectLatency() {
+        if (latencyMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private LunchOrder order(UUID childId, String meal, int quantity, String dayOfWeek) {
+
+        LunchOrder order = new LunchOrder();
+        order.setId(UUID.randomUUID());
+        order.setChildId(childId);
+        order.setMeal(meal);
+        order.setQuantity(quantity);
+        order.setDayOfWeek(dayOfWeek);
+        BigDecimal unitPrice = mealPrices.getOrDefault(meal, new BigDecimal("4.50"));
+        order.setUnitPrice(unitPrice);
+        order.setTotal(unitPrice.multiply(BigDecimal.valueOf(quantity)));
+        order.setStatus("PAID");
+        order.setCreatedOn(Instant.now());
+        return order;
+    }
+}
@@ -0,0 +1,84 @@
+package app.integration;
+
+import app.lunch.client.LunchServiceClient;
+import app.lunch.client.LunchTransportClient;
+import app.lunch.client.LunchTransportProperties;
+import feign.Client;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LunchTransportBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final int CALLS_PER_THREAD = 250;
+    private static final int ORDERS_PER_CHILD = 200;
+
+    @Test
+    void compareConnectionReuseAcrossTransports() throws Exception {
+
+        LunchTransportProperties properties = new LunchTransportProperties();
+
+        try (CloseableHttpClient httpClient5 = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(THREADS)
+                        .setMaxConnPerRoute(THREADS)
+                        .build())
+                .build()) {
+
+            run("jdk (HttpURLConnection)", new Client.Default(null, null), properties);
+            run("hc5 pooled", new ApacheHttp5Client(httpClient5), properties);
+            run("jdk http2", new Http2Client(HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build()),
+                    properties);
+        }
+    }
+
+    private void run(String name, Client transport, LunchTransportProperties properties) throws Exception {
+
+        try (LunchSvcStub stub = LunchSvcStub.start()) {
+
+            LunchServiceClient client = stub.client(new LunchTransportClient(transport, properties));
+            UUID childId = UUID.randomUUID();
+            stub.addOrders(childId, ORDERS_PER_CHILD);
+
+            client.getLunches(childId);
+
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                        client.getLunches(childId);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            executor.shutdown();
+
+            int calls = THREADS * CALLS_PER_THREAD;
+            System.out.printf("%-26s calls=%d connections=%d gzipped=%d total=%d ms avg=%.3f ms%n",
+                    name, calls, stub.connectionsOpened(), stub.gzippedResponses(), elapsedMillis,
+                    (double) elapsedMillis * THREADS / calls);
+        }
+    }
+}
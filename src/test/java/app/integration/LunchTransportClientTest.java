@@ -0,0 +1,146 @@
+package app.integration;
+
+import app.lunch.client.LunchServiceClient;
+import app.lunch.client.LunchTransportClient;
+import app.lunch.client.LunchTransportProperties;
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.client.dto.LunchOrderRequest;
+import feign.RetryableException;
+import feign.hc5.ApacheHttp5Client;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LunchTransportClientTest {
+
+    private LunchSvcStub stub;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private LunchTransportProperties properties;
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        stub = LunchSvcStub.start();
+        connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(10)
+                .setMaxConnPerRoute(10)
+                .build();
+        httpClient = HttpClients.custom().setConnectionManager(connectionManager).build();
+        properties = new LunchTransportProperties();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        httpClient.close();
+        stub.close();
+    }
+
+    @Test
+    void shouldReuseOnePooledConnectionForSequentialCalls() {
+
+        LunchServiceClient client = stub.client(new LunchTransportClient(new ApacheHttp5Client(httpClient), properties));
+        UUID childId = UUID.randomUUID();
+        stub.addOrders(childId, 3);
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(3, client.getLunches(childId).size());
+        }
+
+        assertEquals(50, stub.requestCount());
+        assertEquals(1, stub.connectionsOpened());
+    }
+
+    @Test
+    void shouldPublishConnectionPoolMetrics() {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "lunch-svc").bindTo(registry);
+
+        LunchServiceClient client = stub.client(new LunchTransportClient(new ApacheHttp5Client(httpClient), properties));
+        client.getLunches(UUID.randomUUID());
+
+        assertEquals(0.0, registry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("state", "leased").gauge().value());
+        assertEquals(1.0, registry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("state", "available").gauge().value());
+        assertEquals(0.0, registry.get("httpcomponents.httpclient.pool.total.pending").gauge().value());
+    }
+
+    @Test
+    void shouldRequestAndDecodeGzipCompressedLunchLists() {
+
+        LunchServiceClient client = stub.client(new LunchTransportClient(new ApacheHttp5Client(httpClient), properties));
+        UUID childId = UUID.randomUUID();
+        List<LunchOrder> orders = stub.addOrders(childId, 500);
+
+        List<LunchOrder> lunches = client.getLunches(childId);
+
+        assertEquals(500, lunches.size());
+        assertEquals(orders.get(499).getId(), lunches.get(499).getId());
+        assertEquals(1, stub.gzippedResponses());
+    }
+
+    @Test
+    void shouldDecodeGzipResponsesOnTransportsWithoutBuiltInDecompression() {
+
+        LunchServiceClient client = stub.client(new LunchTransportClient(new feign.Client.Default(null, null), properties));
+        UUID childId = UUID.randomUUID();
+        stub.addOrders(childId, 200);
+
+        assertEquals(200, client.getLunches(childId).size());
+        assertEquals(1, stub.gzippedResponses());
+    }
+
+    @Test
+    void shouldCompressLargeRequestBodies() {
+
+        properties.getCompression().setMinRequestSize(1);
+        LunchServiceClient client = stub.client(new LunchTransportClient(new ApacheHttp5Client(httpClient), properties));
+        UUID childId = UUID.randomUUID();
+
+        LunchOrder created = client.createLunch(childId, LunchOrderRequest.builder()
+                .parentId(UUID.randomUUID())
+                .childId(childId)
+                .walletId(UUID.randomUUID())
+                .meal("BEAN_WITH_SALAD")
+                .quantity(2)
+                .dayOfWeek("TUESDAY")
+                .build());
+
+        assertEquals("BEAN_WITH_SALAD", created.getMeal());
+        assertEquals(1, stub.gzippedRequests());
+    }
+
+    @Test
+    void shouldApplyPerEndpointReadTimeout() {
+
+        LunchTransportProperties.Endpoint getLunches = new LunchTransportProperties.Endpoint();
+        getLunches.setReadTimeout(Duration.ofMillis(100));
+        properties.getEndpoints().put("getLunches", getLunches);
+
+        LunchServiceClient client = stub.client(new LunchTransportClient(new ApacheHttp5Client(httpClient), properties));
+        stub.setLatencyMillis(500);
+
+        assertThrows(RetryableException.class, () -> client.getLunches(UUID.randomUUID()));
+        assertDoesNotThrow(() -> client.createLunch(UUID.randomUUID(), LunchOrderRequest.builder()
+                .parentId(UUID.randomUUID())
+                .walletId(UUID.randomUUID())
+                .meal("BEAN_WITH_SALAD")
+                .quantity(1)
+                .dayOfWeek("MONDAY")
+                .build()));
+    }
+}
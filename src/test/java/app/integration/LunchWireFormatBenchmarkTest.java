@@ -0,0 +1,99 @@
+package app.integration;
+
+import app.lunch.client.dto.LunchOrder;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LunchWireFormatBenchmarkTest {
+
+    private static final TypeReference<List<LunchOrder>> LUNCH_LIST = new TypeReference<>() {
+    };
+    private static final int[] ORDER_COUNTS = {10, 100, 1_000, 10_000};
+
+    private final ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper smile = json.copyWith(new SmileFactory());
+
+    @Test
+    void comparePayloadSizeAndDecodeTime() throws Exception {
+
+        System.out.printf("%8s %12s %12s %12s %12s %14s %14s%n",
+                "orders", "json B", "smile B", "json gz B", "smile gz B", "json decode", "smile decode");
+
+        for (int count : ORDER_COUNTS) {
+            List<LunchOrder> orders = orders(count);
+            byte[] jsonBytes = json.writeValueAsBytes(orders);
+            byte[] smileBytes = smile.writeValueAsBytes(orders);
+
+            double jsonMicros = decodeMicros(json, jsonBytes, count);
+            double smileMicros = decodeMicros(smile, smileBytes, count);
+
+            System.out.printf("%8d %12d %12d %12d %12d %11.1f us %11.1f us%n",
+                    count, jsonBytes.length, smileBytes.length, gzip(jsonBytes).length, gzip(smileBytes).length,
+                    jsonMicros, smileMicros);
+        }
+    }
+
+    private double decodeMicros(ObjectMapper mapper, byte[] payload, int count) throws IOException {
+
+        int iterations = Math.max(20, 200_000 / count);
+
+        for (int i = 0; i < iterations; i++) {
+            mapper.readValue(payload, LUNCH_LIST);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertEquals(count, mapper.readValue(payload, LUNCH_LIST).size());
+        }
+        return (System.nanoTime() - start) / 1000.0 / iterations;
+    }
+
+    private byte[] gzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(payload);
+        }
+        return compressed.toByteArray();
+    }
+
+    private List<LunchOrder> orders(int count) {
+
+        List<LunchOrder> orders = new ArrayList<>(count);
+        UUID parentId = UUID.randomUUID();
+        UUID walletId = UUID.randomUUID();
+
+        for (int i = 0; i < count; i++) {
+            LunchOrder order = new LunchOrder();
+            order.setId(UUID.randomUUID());
+            order.setParentId(parentId);
+            order.setWalletId(walletId);
+            order.setChildId(UUID.randomUUID());
+            order.setMeal("FRIED_CHICKEN_WITH_YOGURT_SOUS");
+            order.setQuantity(1 + i % 3);
+            order.setDayOfWeek("WEDNESDAY");
+            order.setUnitPrice(new BigDecimal("4.50"));
+            order.setTotal(new BigDecimal("4.50").multiply(BigDecimal.valueOf(order.getQuantity())));
+            order.setStatus("PAID");
+            order.setCreatedOn(Instant.now());
+            order.setUpdatedOn(order.getCreatedOn());
+            orders.add(order);
+        }
+        return orders;
+    }
+}
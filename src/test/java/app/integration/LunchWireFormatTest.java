@@ -0,0 +1,94 @@
+package app.integration;
+
+import app.lunch.client.LunchServiceClient;
+import app.lunch.client.LunchTransportClient;
+import app.lunch.client.LunchTransportProperties;
+import app.lunch.client.dto.LunchOrder;
+import app.web.util.ErrorMessageExtractor;
+import feign.FeignException;
+import feign.hc5.ApacheHttp5Client;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LunchWireFormatTest {
+
+    private LunchSvcStub stub;
+    private CloseableHttpClient httpClient;
+    private LunchTransportProperties properties;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = LunchSvcStub.start();
+        httpClient = HttpClients.createDefault();
+        properties = new LunchTransportProperties();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        httpClient.close();
+        stub.close();
+    }
+
+    @Test
+    void shouldNegotiateSmileForLunchLists() {
+
+        UUID childId = UUID.randomUUID();
+        List<LunchOrder> orders = stub.addOrders(childId, 100);
+
+        List<LunchOrder> lunches = client().getLunches(childId);
+
+        assertEquals(1, stub.smileResponses());
+        assertEquals(orders.size(), lunches.size());
+        assertEquals(orders.get(42).getId(), lunches.get(42).getId());
+        assertEquals(orders.get(42).getTotal(), lunches.get(42).getTotal());
+        assertEquals(orders.get(42).getCreatedOn(), lunches.get(42).getCreatedOn());
+    }
+
+    @Test
+    void shouldFallBackToJsonWhenLunchSvcDoesNotSpeakSmile() {
+
+        UUID childId = UUID.randomUUID();
+        stub.addOrders(childId, 10);
+        stub.setSmileEnabled(false);
+
+        assertEquals(10, client().getLunches(childId).size());
+        assertEquals(0, stub.smileResponses());
+    }
+
+    @Test
+    void shouldRequestJsonOnlyWhenSmileIsSwitchedOff() {
+
+        UUID childId = UUID.randomUUID();
+        stub.addOrders(childId, 10);
+        properties.setWireFormat(LunchTransportProperties.WireFormat.JSON);
+
+        assertEquals(10, client().getLunches(childId).size());
+        assertEquals(0, stub.smileResponses());
+    }
+
+    @Test
+    void shouldExtractErrorMessageFromSmileErrorBody() {
+
+        LunchServiceClient client = client();
+
+        FeignException exception = assertThrows(FeignException.class,
+                () -> client.deleteLunch(UUID.randomUUID(), UUID.randomUUID()));
+
+        ErrorMessageExtractor extractor = new ErrorMessageExtractor(Jackson2ObjectMapperBuilder.json().build());
+        assertEquals(404, exception.status());
+        assertEquals("Lunch order not found", extractor.extractErrorMessage(exception));
+    }
+
+    private LunchServiceClient client() {
+        return stub.client(new LunchTransportClient(new ApacheHttp5Client(httpClient), properties), properties);
+    }
+}
@@ -0,0 +1,204 @@
+package app.integration;
+
+import app.child.model.Child;
+import app.child.model.ChildGender;
+import app.child.repository.ChildRepository;
+import app.lunch.capacity.MealCapacityLedger;
+import app.lunch.capacity.MealCapacityProperties;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.repository.LunchOrderAttemptRepository;
+import app.lunch.repository.LunchOrderReplicaRepository;
+import app.lunch.repository.MealCapacityUsageRepository;
+import app.lunch.service.LunchOrderAttemptService;
+import app.lunch.service.LunchService;
+import app.transaction.repository.TransactionRepository;
+import app.transaction.service.TransactionService;
+import app.wallet.model.Wallet;
+import app.wallet.repository.WalletHoldRepository;
+import app.wallet.repository.WalletRepository;
+import app.wallet.service.WalletHoldService;
+import app.wallet.service.WalletService;
+import app.web.dto.LunchRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({LunchOrderAttemptService.class, WalletHoldService.class, TransactionService.class,
+        SimpleMeterRegistry.class})
+class MealCapacityTest {
+
+    private static final String MEAL = "BEAN_WITH_SALAD";
+
+    @Autowired
+    private LunchOrderAttemptService lunchOrderAttemptService;
+
+    @Autowired
+    private LunchOrderAttemptRepository lunchOrderAttemptRepository;
+
+    @Autowired
+    private LunchOrderReplicaRepository lunchOrderReplicaRepository;
+
+    @Autowired
+    private MealCapacityUsageRepository mealCapacityUsageRepository;
+
+    @Autowired
+    private ChildRepository childRepository;
+
+    @Autowired
+    private WalletHoldService walletHoldService;
+
+    @Autowired
+    private WalletHoldRepository walletHoldRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    private LunchSvcStub stub;
+    private MealCapacityProperties properties;
+    private MealCapacityLedger ledger;
+    private LunchService lunchService;
+    private UUID parentId;
+    private Child anna;
+    private Child boris;
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        stub = LunchSvcStub.start();
+
+        LunchServiceGateway gateway = LunchServiceFixture.gateway(stub, meterRegistry);
+
+        parentId = UUID.randomUUID();
+        anna = child("Anna");
+        boris = child("Boris");
+        Wallet wallet = walletRepository.save(Wallet.builder()
+                .balance(new BigDecimal("30.00"))
+                .currency(Currency.getInstance("EUR"))
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+
+        WalletService walletService = mock(WalletService.class);
+        when(walletService.getWalletByParentId(parentId)).thenReturn(wallet);
+
+        properties = new MealCapacityProperties();
+        properties.setEnabled(true);
+        properties.setPortions(Map.of(MEAL, 2));
+        ledger = ledger();
+
+        lunchService = LunchServiceFixture.lunchService(gateway, meterRegistry)
+                .walletService(walletService)
+                .walletHoldService(walletHoldService)
+                .lunchOrderAttemptService(lunchOrderAttemptService)
+                .mealCapacityLedger(ledger)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+        mealCapacityUsageRepository.deleteAll();
+        childRepository.deleteAll();
+        lunchOrderAttemptRepository.deleteAll();
+        transactionRepository.deleteAll();
+        walletHoldRepository.deleteAll();
+    }
+
+    @Test
+    void shouldRejectASoldOutMealBeforeCallingLunchSvcAndFreeItOnDelete() {
+
+        DayOfWeek day = lunchService.getAvailableDaysForLunch(List.of()).get(0);
+        lunchService.createLunch(parentId, anna.getId(), request(day, 2));
+        int requests = stub.requestCount();
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> lunchService.createLunch(parentId, boris.getId(), request(day, 1)));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        assertEquals(requests, stub.requestCount());
+        assertEquals(1, walletHoldRepository.count());
+        assertEquals(0, ledger.remaining("North", served(day), MEAL));
+
+        lunchService.deleteLunch(anna.getId(), stub.orders(anna.getId()).get(0).getId());
+
+        assertEquals(2, ledger.remaining("North", served(day), MEAL));
+        lunchService.createLunch(parentId, boris.getId(), request(day, 1));
+        assertEquals(1, stub.orders(boris.getId()).size());
+    }
+
+    @Test
+    void shouldRestoreCountersFromThePersistedUsageOnStartup() {
+
+        DayOfWeek day = lunchService.getAvailableDaysForLunch(List.of()).get(0);
+        assertTrue(ledger.tryReserve(anna.getId(), day.name(), MEAL, 1, LocalDateTime.now()));
+        assertEquals(1, ledger.persist());
+        assertEquals(0, ledger.persist());
+
+        MealCapacityLedger restarted = ledger();
+        restarted.rebuild();
+
+        assertEquals(1, restarted.remaining("North", served(day), MEAL));
+        assertTrue(restarted.tryReserve(boris.getId(), day.name(), MEAL, 1, LocalDateTime.now()));
+        assertFalse(restarted.tryReserve(boris.getId(), day.name(), MEAL, 1, LocalDateTime.now()));
+    }
+
+    private MealCapacityLedger ledger() {
+        return new MealCapacityLedger(properties, childRepository, lunchOrderReplicaRepository,
+                mealCapacityUsageRepository, new SimpleMeterRegistry());
+    }
+
+    private Child child(String firstName) {
+        return childRepository.save(Child.builder()
+                .firstName(firstName)
+                .lastName("Petrova")
+                .school("North")
+                .grade(3)
+                .gender(ChildGender.FEMALE)
+                .build());
+    }
+
+    private LocalDate served(DayOfWeek day) {
+        return LocalDate.now().with(TemporalAdjusters.nextOrSame(day));
+    }
+
+    private LunchRequest request(DayOfWeek day, int quantity) {
+        LunchRequest request = new LunchRequest();
+        request.setOrderId(UUID.randomUUID());
+        request.setDayOfWeek(day.name());
+        request.setMeal(MEAL);
+        request.setQuantity(quantity);
+        return request;
+    }
+}
@@ -0,0 +1,89 @@
+package app.integration;
+
+import app.lunch.catalog.MealCatalog;
+import app.lunch.catalog.MealCatalogCache;
+import app.lunch.client.LunchServiceGateway;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MealCatalogTest {
+
+    private LunchSvcStub stub;
+    private SimpleMeterRegistry meterRegistry;
+    private MealCatalogCache mealCatalogCache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        meterRegistry = new SimpleMeterRegistry();
+        stub = LunchSvcStub.start();
+
+        LunchServiceGateway gateway = LunchServiceFixture.gateway(stub, meterRegistry);
+
+        mealCatalogCache = new MealCatalogCache(gateway, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void shouldFallBackToBuiltInMealsUntilTheCatalogIsLoaded() {
+
+        assertTrue(mealCatalogCache.current().isEmpty());
+        assertEquals(5, mealCatalogCache.meals().size());
+        assertNull(mealCatalogCache.meals().get(0).getUnitPrice());
+        assertEquals(0, stub.requestCount());
+    }
+
+    @Test
+    void shouldRevalidateTheCachedCatalogWithItsEtag() {
+
+        mealCatalogCache.refresh();
+        MealCatalog loaded = mealCatalogCache.current().orElseThrow();
+
+        mealCatalogCache.refresh();
+        MealCatalog revalidated = mealCatalogCache.current().orElseThrow();
+
+        assertEquals("\"meals-1\"", loaded.getEtag());
+        assertSame(loaded.getMeals(), revalidated.getMeals());
+        assertFalse(revalidated.getFetchedOn().isBefore(loaded.getFetchedOn()));
+        assertEquals(new BigDecimal("4.50"), revalidated.find("BEAN_WITH_SALAD").orElseThrow().getUnitPrice());
+        assertEquals(List.of("GET /meals", "GET /meals"), stub.requestLines());
+        assertEquals(1.0, meterRegistry.counter("lunch.catalog.refresh", "outcome", "modified").count());
+        assertEquals(1.0, meterRegistry.counter("lunch.catalog.refresh", "outcome", "not_modified").count());
+    }
+
+    @Test
+    void shouldPickUpPriceChanges() {
+
+        mealCatalogCache.refresh();
+        stub.setMealPrice("BEAN_WITH_SALAD", new BigDecimal("3.80"));
+
+        mealCatalogCache.refresh();
+        MealCatalog catalog = mealCatalogCache.current().orElseThrow();
+
+        assertEquals("\"meals-2\"", catalog.getEtag());
+        assertEquals(new BigDecimal("3.80"), catalog.find("BEAN_WITH_SALAD").orElseThrow().getUnitPrice());
+        assertEquals(2.0, meterRegistry.counter("lunch.catalog.refresh", "outcome", "modified").count());
+    }
+
+    @Test
+    void shouldKeepTheCachedCatalogWhenLunchSvcFails() {
+
+        mealCatalogCache.refresh();
+        stub.close();
+
+        assertThrows(RuntimeException.class, () -> mealCatalogCache.refresh());
+
+        assertEquals(5, mealCatalogCache.current().orElseThrow().getMeals().size());
+    }
+}
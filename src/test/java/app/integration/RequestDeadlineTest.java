@@ -0,0 +1,185 @@
+package app.integration;
+
+import app.deadline.Deadline;
+import app.deadline.DeadlineAwareJpaTransactionManager;
+import app.deadline.DeadlineExceededException;
+import app.deadline.RequestDeadline;
+import app.lunch.client.LunchServiceClient;
+import app.lunch.client.LunchTransportClient;
+import app.lunch.client.LunchTransportProperties;
+import app.lunch.resilience.LunchRetryBudget;
+import app.lunch.resilience.LunchRetryListener;
+import app.lunch.resilience.SingleFlight;
+import feign.Client;
+import feign.RetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class RequestDeadlineTest {
+
+    private LunchSvcStub stub;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = LunchSvcStub.start();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+        stub.close();
+    }
+
+    @Test
+    void shouldCutLunchSvcCallShortWhenDeadlineIsShorterThanReadTimeout() {
+
+        stub.setLatencyMillis(2000);
+        LunchServiceClient client = stub.client(
+                new LunchTransportClient(new Client.Default(null, null), new LunchTransportProperties(), meterRegistry));
+
+        RequestDeadline.set(Deadline.after(Duration.ofMillis(300)));
+
+        long start = System.nanoTime();
+        assertThrows(RetryableException.class, () -> client.getLunches(UUID.randomUUID()));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsed < 1500, "call took " + elapsed + " ms");
+    }
+
+    @Test
+    void shouldNotCallLunchSvcOnceDeadlineHasPassed() {
+
+        LunchServiceClient client = stub.client(
+                new LunchTransportClient(new Client.Default(null, null), new LunchTransportProperties(), meterRegistry));
+
+        RequestDeadline.set(Deadline.after(Duration.ZERO));
+
+        DeadlineExceededException exception = assertThrows(DeadlineExceededException.class,
+                () -> client.getLunches(UUID.randomUUID()));
+
+        assertEquals("feign", exception.getStage());
+        assertEquals(0, stub.requestCount());
+        assertEquals(1.0, meterRegistry.counter("request.deadline.exceeded", "stage", "feign").count());
+    }
+
+    @Test
+    void shouldStopRetryingOnceDeadlineHasPassed() {
+
+        RetryTemplate retryTemplate = RetryTemplate.builder()
+                .maxAttempts(3)
+                .retryOn(RetryableException.class)
+                .noBackoff()
+                .withListener(new LunchRetryListener(new LunchRetryBudget(0.5, 10, meterRegistry), meterRegistry))
+                .build();
+        AtomicInteger attempts = new AtomicInteger();
+
+        RequestDeadline.set(Deadline.after(Duration.ZERO));
+
+        assertThrows(RetryableException.class, () -> retryTemplate.execute(context -> {
+            attempts.incrementAndGet();
+            throw mock(RetryableException.class);
+        }));
+
+        assertEquals(1, attempts.get());
+        assertEquals(1.0, meterRegistry.counter("request.deadline.exceeded", "stage", "retry").count());
+    }
+
+    @Test
+    void shouldBoundCoalescedWaitByCallersDeadline() throws Exception {
+
+        SingleFlight singleFlight = new SingleFlight(meterRegistry);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService leader = Executors.newSingleThreadExecutor();
+
+        try {
+            leader.submit(() -> singleFlight.execute("getLunches", "child", () -> {
+                leaderStarted.countDown();
+                await(release);
+                return List.of();
+            }));
+            assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+            RequestDeadline.set(Deadline.after(Duration.ofMillis(100)));
+
+            DeadlineExceededException exception = assertThrows(DeadlineExceededException.class,
+                    () -> singleFlight.execute("getLunches", "child", List::of));
+
+            assertEquals("coalesced", exception.getStage());
+        } finally {
+            release.countDown();
+            leader.shutdown();
+        }
+    }
+
+    @Test
+    void shouldCarryDeadlineOntoWorkerThreads() throws Exception {
+
+        Deadline deadline = Deadline.after(Duration.ofSeconds(5));
+        RequestDeadline.set(deadline);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Supplier<Optional<Deadline>> task = RequestDeadline.propagate(RequestDeadline::current);
+
+            assertEquals(Optional.of(deadline), executor.submit(task::get).get());
+            assertTrue(executor.submit(() -> RequestDeadline.current().isEmpty()).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldLimitTransactionTimeoutToRemainingDeadline() {
+
+        var transactionManager = new DeadlineAwareJpaTransactionManager(mock(EntityManagerFactory.class),
+                meterRegistry) {
+            int timeoutFor(DefaultTransactionDefinition definition) {
+                return determineTimeout(definition);
+            }
+        };
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+
+        assertEquals(DefaultTransactionDefinition.TIMEOUT_DEFAULT, transactionManager.timeoutFor(definition));
+
+        RequestDeadline.set(Deadline.after(Duration.ofMillis(2500)));
+        assertEquals(3, transactionManager.timeoutFor(definition));
+
+        definition.setTimeout(1);
+        assertEquals(1, transactionManager.timeoutFor(definition));
+
+        RequestDeadline.set(Deadline.after(Duration.ZERO));
+        assertThrows(TransactionTimedOutException.class, () -> transactionManager.timeoutFor(definition));
+        assertEquals(1.0, meterRegistry.counter("request.deadline.exceeded", "stage", "jpa").count());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
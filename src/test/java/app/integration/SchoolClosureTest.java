@@ -0,0 +1,220 @@
+package app.integration;
+
+import app.child.model.Child;
+import app.child.model.ChildGender;
+import app.child.repository.ChildRepository;
+import app.lunch.capacity.MealCapacityLedger;
+import app.lunch.capacity.MealCapacityProperties;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.closure.SchoolClosureService;
+import app.lunch.forecast.KitchenForecastService;
+import app.lunch.model.LunchRefundStatus;
+import app.lunch.model.SchoolClosure;
+import app.lunch.model.SchoolClosureStatus;
+import app.lunch.occupancy.WeeklyOccupancyIndex;
+import app.lunch.refund.LunchRefundProcessor;
+import app.lunch.refund.LunchRefundService;
+import app.lunch.repository.LunchRefundRepository;
+import app.lunch.repository.SchoolClosureRepository;
+import app.lunch.service.LunchReplicaService;
+import app.transaction.model.TransactionType;
+import app.transaction.repository.TransactionRepository;
+import app.transaction.service.TransactionService;
+import app.wallet.model.Wallet;
+import app.wallet.repository.WalletRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Currency;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({LunchRefundService.class, TransactionService.class, SimpleMeterRegistry.class})
+class SchoolClosureTest {
+
+    private static final LocalDate WEDNESDAY = LocalDate.now().with(TemporalAdjusters.nextOrSame(DayOfWeek.WEDNESDAY));
+
+    @Autowired
+    private LunchRefundService lunchRefundService;
+
+    @Autowired
+    private LunchRefundRepository lunchRefundRepository;
+
+    @Autowired
+    private SchoolClosureRepository schoolClosureRepository;
+
+    @Autowired
+    private ChildRepository childRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    private LunchSvcStub stub;
+    private ThreadPoolTaskExecutor executor;
+    private SchoolClosureService schoolClosureService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        stub = LunchSvcStub.start();
+
+        LunchServiceGateway gateway = LunchServiceFixture.gateway(stub, meterRegistry);
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.initialize();
+
+        LunchRefundProcessor lunchRefundProcessor = new LunchRefundProcessor(lunchRefundRepository,
+                lunchRefundService, 100, 5, Duration.ofMinutes(2), meterRegistry);
+        schoolClosureService = new SchoolClosureService(schoolClosureRepository, childRepository, gateway,
+                mock(LunchReplicaService.class), lunchRefundService, lunchRefundProcessor,
+                new MealCapacityLedger(new MealCapacityProperties(), null, null, null, meterRegistry),
+                new WeeklyOccupancyIndex(100, Duration.ofMinutes(10), meterRegistry),
+                mock(KitchenForecastService.class), executor, 2, 2,
+                Duration.ofMinutes(15), Duration.ofMinutes(10), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+        executor.shutdown();
+        schoolClosureService.shutdown();
+        schoolClosureRepository.deleteAll();
+        lunchRefundRepository.deleteAll();
+        childRepository.deleteAll();
+        transactionRepository.deleteAll();
+    }
+
+    @Test
+    void shouldCancelTheSchoolsOrdersForTheDayWithOneRefundPerWallet() {
+
+        UUID first = wallet();
+        UUID second = wallet();
+        Child other = child("South");
+        LunchOrder otherSchool = order(other, "WEDNESDAY", "PAID", first);
+        LunchOrder otherDay = null;
+        LunchOrder served = null;
+
+        for (int i = 0; i < 5; i++) {
+            Child child = child("North");
+            order(child, "WEDNESDAY", "PAID", i < 3 ? first : second);
+            if (i == 0) {
+                otherDay = order(child, "MONDAY", "PAID", first);
+                served = order(child, "WEDNESDAY", "COMPLETED", first);
+            }
+        }
+        stub.setLatencyMillis(30);
+
+        SchoolClosure closure = schoolClosureService.run(schoolClosureService.open("North", WEDNESDAY));
+
+        assertEquals(SchoolClosureStatus.COMPLETED, closure.getStatus());
+        assertEquals(5, closure.getChildren());
+        assertEquals(5, closure.getOrders());
+        assertEquals(5, closure.getCancelled());
+        assertEquals(0, closure.getFailed());
+        assertEquals(2, closure.getWallets());
+        assertEquals(0, new BigDecimal("22.50").compareTo(closure.getRefunded()));
+        assertTrue(stub.maxConcurrentRequests() <= 2, "max " + stub.maxConcurrentRequests());
+
+        assertEquals("PAID", otherSchool.getStatus());
+        assertEquals("PAID", otherDay.getStatus());
+        assertEquals("COMPLETED", served.getStatus());
+
+        assertEquals(2, transactionRepository.findAll().stream()
+                .filter(transaction -> transaction.getType() == TransactionType.REFUND)
+                .count());
+        assertEquals(0, new BigDecimal("23.50").compareTo(balance(first)));
+        assertEquals(0, new BigDecimal("19.00").compareTo(balance(second)));
+        assertTrue(lunchRefundRepository.findAll().stream()
+                .allMatch(refund -> refund.getStatus() == LunchRefundStatus.REFUNDED));
+    }
+
+    @Test
+    void shouldNotCancelTheSameDayTwiceAtOnceOrCancelPastDays() {
+
+        child("North");
+        schoolClosureService.open("North", WEDNESDAY);
+
+        ResponseStatusException running = assertThrows(ResponseStatusException.class,
+                () -> schoolClosureService.open("North", WEDNESDAY));
+        assertEquals("Lunches of this school for that day are already being cancelled.", running.getReason());
+
+        ResponseStatusException past = assertThrows(ResponseStatusException.class,
+                () -> schoolClosureService.open("North", WEDNESDAY.minusWeeks(1)));
+        assertEquals("Lunches of past days cannot be cancelled.", past.getReason());
+    }
+
+    @Test
+    void shouldTakeOverAClosureWhoseRunStoppedRenewingItsClaim() {
+
+        child("North");
+        SchoolClosure crashed = schoolClosureService.open("North", WEDNESDAY);
+        crashed.setClaimedOn(LocalDateTime.now().minusMinutes(30));
+        schoolClosureRepository.save(crashed);
+
+        SchoolClosure restarted = schoolClosureService.open("North", WEDNESDAY);
+
+        assertEquals(crashed.getId(), restarted.getId());
+        assertEquals(SchoolClosureStatus.RUNNING, restarted.getStatus());
+        assertTrue(restarted.getClaimedOn().isAfter(LocalDateTime.now().minusMinutes(1)));
+        assertThrows(ResponseStatusException.class, () -> schoolClosureService.open("North", WEDNESDAY));
+    }
+
+    private Child child(String school) {
+        return childRepository.save(Child.builder()
+                .firstName("Child")
+                .lastName("Of " + school)
+                .school(school)
+                .grade(3)
+                .gender(ChildGender.FEMALE)
+                .build());
+    }
+
+    private LunchOrder order(Child child, String dayOfWeek, String status, UUID walletId) {
+
+        LunchOrder order = stub.addOrder(child.getId(), "BEAN_WITH_SALAD", dayOfWeek, status);
+        order.setWalletId(walletId);
+        return order;
+    }
+
+    private UUID wallet() {
+        return walletRepository.save(Wallet.builder()
+                .balance(new BigDecimal("10.00"))
+                .currency(Currency.getInstance("EUR"))
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build()).getId();
+    }
+
+    private BigDecimal balance(UUID walletId) {
+        return walletRepository.findById(walletId).orElseThrow().getBalance();
+    }
+}
@@ -0,0 +1,324 @@
+package app.integration;
+
+import app.child.model.Child;
+import app.child.model.ChildGender;
+import app.child.repository.ChildRepository;
+import app.child.service.ChildService;
+import app.lunch.capacity.MealCapacityLedger;
+import app.lunch.capacity.MealCapacityProperties;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.forecast.KitchenForecastService;
+import app.lunch.guard.LunchOrderGuard;
+import app.lunch.model.LunchSubscription;
+import app.lunch.model.SubscriptionBatchPartition;
+import app.lunch.model.SubscriptionBatchStatus;
+import app.lunch.repository.LunchOrderAttemptRepository;
+import app.lunch.repository.LunchSubscriptionRepository;
+import app.lunch.repository.SubscriptionBatchPartitionRepository;
+import app.lunch.occupancy.WeeklyOccupancyIndex;
+import app.lunch.service.LunchOrderAttemptService;
+import app.lunch.service.LunchReplicaService;
+import app.lunch.service.LunchService;
+import app.lunch.subscription.SubscriptionBatchEngine;
+import app.lunch.weekly.WeeklyOrderService;
+import app.transaction.model.TransactionType;
+import app.transaction.repository.TransactionRepository;
+import app.transaction.service.TransactionService;
+import app.wallet.model.Wallet;
+import app.wallet.repository.WalletHoldRepository;
+import app.wallet.repository.WalletRepository;
+import app.wallet.service.WalletHoldService;
+import app.wallet.service.WalletService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({LunchOrderAttemptService.class, WalletHoldService.class, TransactionService.class,
+        SimpleMeterRegistry.class})
+class SubscriptionBatchTest {
+
+    private static final LocalDate WEEK = LocalDate.of(2026, 10, 26);
+
+    @Autowired
+    private LunchOrderAttemptService lunchOrderAttemptService;
+
+    @Autowired
+    private LunchOrderAttemptRepository lunchOrderAttemptRepository;
+
+    @Autowired
+    private LunchSubscriptionRepository lunchSubscriptionRepository;
+
+    @Autowired
+    private SubscriptionBatchPartitionRepository partitionRepository;
+
+    @Autowired
+    private ChildRepository childRepository;
+
+    @Autowired
+    private WalletHoldService walletHoldService;
+
+    @Autowired
+    private WalletHoldRepository walletHoldRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    private LunchSvcStub stub;
+    private ThreadPoolTaskExecutor executor;
+    private LunchService lunchService;
+    private SubscriptionBatchEngine engine;
+    private WalletService walletService;
+    private ChildService childService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        stub = LunchSvcStub.start();
+
+        LunchServiceGateway gateway = LunchServiceFixture.gateway(stub, meterRegistry);
+
+        walletService = mock(WalletService.class);
+        childService = mock(ChildService.class);
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.initialize();
+
+        LunchReplicaService lunchReplicaService = mock(LunchReplicaService.class);
+        MealCapacityLedger capacity = new MealCapacityLedger(new MealCapacityProperties(), null, null, null,
+                meterRegistry);
+        WeeklyOccupancyIndex occupancy = new WeeklyOccupancyIndex(100, Duration.ofMinutes(10), meterRegistry);
+        lunchService = LunchServiceFixture.lunchService(gateway, meterRegistry)
+                .walletService(walletService)
+                .lunchReplicaService(lunchReplicaService)
+                .walletHoldService(walletHoldService)
+                .lunchOrderAttemptService(lunchOrderAttemptService)
+                .mealCapacityLedger(capacity)
+                .weeklyOccupancyIndex(occupancy)
+                .build();
+        WeeklyOrderService weeklyOrderService = new WeeklyOrderService(childService, lunchService, gateway,
+                lunchOrderAttemptService, lunchReplicaService, walletService, walletHoldService, capacity, occupancy,
+                new LunchOrderGuard(null, false, Duration.ofSeconds(30), meterRegistry),
+                mock(KitchenForecastService.class), executor, 2, meterRegistry);
+        engine = new SubscriptionBatchEngine(lunchSubscriptionRepository, partitionRepository, weeklyOrderService,
+                2, 1, Duration.ofHours(1), Duration.ofMinutes(10), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+        executor.shutdown();
+        partitionRepository.deleteAll();
+        lunchSubscriptionRepository.deleteAll();
+        childRepository.deleteAll();
+        lunchOrderAttemptRepository.deleteAll();
+        transactionRepository.deleteAll();
+        walletHoldRepository.deleteAll();
+    }
+
+    @Test
+    void shouldOrderEverySubscriptionWithOnePaymentPerParent() {
+
+        UUID anna = parentWithChildren("North", "South");
+        UUID boris = parentWithChildren("North");
+        UUID clara = parentWithChildren("South");
+
+        assertEquals(4, engine.run(WEEK));
+
+        assertEquals(4, transactionRepository.findAll().stream()
+                .filter(transaction -> transaction.getType() == TransactionType.PAYMENT)
+                .count());
+        for (UUID parentId : List.of(anna, boris, clara)) {
+            for (Child child : childService.getChildrenByParentId(parentId)) {
+                assertEquals(2, stub.orders(child.getId()).size());
+            }
+        }
+
+        SubscriptionBatchPartition north = partitionRepository.findByWeekStartAndSchool(WEEK, "North").orElseThrow();
+        assertEquals(SubscriptionBatchStatus.COMPLETED, north.getStatus());
+        assertEquals(2, north.getParents());
+        assertEquals(4, north.getPlaced());
+        assertEquals(0, new BigDecimal("18.00").compareTo(north.getCharged()));
+        assertFalse(engine.isUnfinished(WEEK));
+
+        int requests = stub.requestCount();
+        assertEquals(0, engine.run(WEEK));
+        assertEquals(requests, stub.requestCount());
+    }
+
+    @Test
+    void shouldResumeAfterTheCheckpointOfACrashedRun() {
+
+        parentWithChildren("North");
+        parentWithChildren("North");
+        parentWithChildren("North");
+
+        List<UUID> parentIds = lunchSubscriptionRepository.findParentIdsBySchool("North", new UUID(0, 0),
+                PageRequest.of(0, 10));
+        LocalDateTime crashedOn = LocalDateTime.now().minusHours(1);
+        partitionRepository.save(SubscriptionBatchPartition.builder()
+                .weekStart(WEEK)
+                .school("North")
+                .status(SubscriptionBatchStatus.RUNNING)
+                .lastParentId(parentIds.get(0))
+                .parents(1)
+                .charged(BigDecimal.ZERO)
+                .claimedOn(crashedOn)
+                .createdOn(crashedOn)
+                .updatedOn(crashedOn)
+                .build());
+
+        assertTrue(engine.isUnfinished(WEEK));
+        assertEquals(2, engine.run(WEEK));
+
+        assertTrue(stub.orders(childService.getChildrenByParentId(parentIds.get(0)).get(0).getId()).isEmpty());
+        for (UUID parentId : parentIds.subList(1, 3)) {
+            assertEquals(2, stub.orders(childService.getChildrenByParentId(parentId).get(0).getId()).size());
+        }
+
+        SubscriptionBatchPartition north = partitionRepository.findByWeekStartAndSchool(WEEK, "North").orElseThrow();
+        assertEquals(SubscriptionBatchStatus.COMPLETED, north.getStatus());
+        assertEquals(3, north.getParents());
+        assertEquals(parentIds.get(2), north.getLastParentId());
+    }
+
+    @Test
+    void shouldOrderTheSameSubscriptionsWeekAfterWeek() {
+
+        UUID parentId = parent();
+        Child child = child(parentId, "North");
+        subscribe(parentId, child, DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY);
+        LocalDate week = engine.nextWeekStart();
+
+        assertEquals(1, engine.run(week));
+        assertEquals(1, engine.run(week.plusWeeks(1)));
+
+        assertEquals(4, stub.orders(child.getId()).size());
+        for (LocalDate weekStart : List.of(week, week.plusWeeks(1))) {
+            SubscriptionBatchPartition north = partitionRepository.findByWeekStartAndSchool(weekStart, "North")
+                    .orElseThrow();
+            assertEquals(2, north.getPlaced());
+            assertEquals(0, north.getFailed());
+        }
+    }
+
+    @Test
+    void shouldOrderEverySchoolDayOfTheComingWeekWhateverTheTimeOfTheRun() {
+
+        UUID parentId = parent();
+        Child child = child(parentId, "North");
+        subscribe(parentId, child, DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY,
+                DayOfWeek.FRIDAY);
+
+        assertEquals(1, engine.run(engine.nextWeekStart()));
+
+        assertEquals(5, stub.orders(child.getId()).size());
+        assertTrue(stub.orders(child.getId()).stream().anyMatch(order -> "FRIDAY".equals(order.getDayOfWeek())));
+        SubscriptionBatchPartition north = partitionRepository.findByWeekStartAndSchool(engine.nextWeekStart(),
+                "North").orElseThrow();
+        assertEquals(5, north.getPlaced());
+        assertEquals(0, north.getFailed());
+    }
+
+    // Every child is subscribed to Monday and Tuesday
+    private UUID parentWithChildren(String... schools) {
+
+        UUID parentId = UUID.randomUUID();
+        Wallet wallet = walletRepository.save(Wallet.builder()
+                .balance(new BigDecimal("50.00"))
+                .currency(Currency.getInstance("EUR"))
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+        when(walletService.getWalletByParentId(parentId)).thenReturn(wallet);
+
+        List<Child> children = Arrays.stream(schools)
+                .map(school -> childRepository.save(Child.builder()
+                        .firstName("Child")
+                        .lastName("Of " + school)
+                        .school(school)
+                        .grade(3)
+                        .gender(ChildGender.FEMALE)
+                        .build()))
+                .toList();
+        when(childService.getChildrenByParentId(parentId)).thenReturn(children);
+
+        for (Child child : children) {
+            subscribe(parentId, child, DayOfWeek.MONDAY, DayOfWeek.TUESDAY);
+        }
+        return parentId;
+    }
+
+    private UUID parent() {
+
+        UUID parentId = UUID.randomUUID();
+        Wallet wallet = walletRepository.save(Wallet.builder()
+                .balance(new BigDecimal("50.00"))
+                .currency(Currency.getInstance("EUR"))
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+        when(walletService.getWalletByParentId(parentId)).thenReturn(wallet);
+        return parentId;
+    }
+
+    private Child child(UUID parentId, String school) {
+
+        Child child = childRepository.save(Child.builder()
+                .firstName("Child")
+                .lastName("Of " + school)
+                .school(school)
+                .grade(3)
+                .gender(ChildGender.FEMALE)
+                .build());
+        when(childService.getChildrenByParentId(parentId)).thenReturn(List.of(child));
+        return child;
+    }
+
+    private void subscribe(UUID parentId, Child child, DayOfWeek... days) {
+
+        for (DayOfWeek day : days) {
+            lunchSubscriptionRepository.save(LunchSubscription.builder()
+                    .parentId(parentId)
+                    .childId(child.getId())
+                    .dayOfWeek(day.name())
+                    .meal("BEAN_WITH_SALAD")
+                    .quantity(1)
+                    .createdOn(LocalDateTime.now())
+                    .updatedOn(LocalDateTime.now())
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package app.integration;
+
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionStatus;
+import app.transaction.service.TransactionService;
+import app.wallet.model.Wallet;
+import app.wallet.model.WalletHold;
+import app.wallet.model.WalletHoldStatus;
+import app.wallet.repository.WalletHoldRepository;
+import app.wallet.repository.WalletRepository;
+import app.wallet.service.WalletHoldService;
+import app.wallet.service.WalletService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "wallet.hold.time-to-live=0s")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({WalletHoldService.class, WalletService.class, TransactionService.class, SimpleMeterRegistry.class})
+class WalletHoldIntegrationTest {
+
+    @Autowired
+    private WalletHoldService walletHoldService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private WalletHoldRepository walletHoldRepository;
+
+    private UUID walletId;
+
+    @BeforeEach
+    void setUp() {
+        walletId = walletRepository.save(Wallet.builder()
+                .balance(new BigDecimal("10.00"))
+                .currency(Currency.getInstance("EUR"))
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        walletHoldRepository.deleteAll();
+    }
+
+    @Test
+    void shouldNeverReserveMoreThanTheBalanceUnderConcurrency() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Optional<WalletHold>>> attempts = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 8; i++) {
+                attempts.add(executor.submit(() -> walletHoldService.reserve(walletId, new BigDecimal("4.50"), "lunch")));
+            }
+
+            int reserved = 0;
+            for (Future<Optional<WalletHold>> attempt : attempts) {
+                if (attempt.get().isPresent()) {
+                    reserved++;
+                }
+            }
+
+            assertEquals(2, reserved);
+            assertEquals(0, new BigDecimal("9.00").compareTo(wallet().getReserved()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldCaptureActualTotalAndFreeTheRestOfTheHold() {
+
+        WalletHold hold = walletHoldService.reserve(walletId, new BigDecimal("5.00"), "lunch").orElseThrow();
+
+        Transaction payment = walletHoldService.capture(hold, new BigDecimal("4.50"), "Payment for lunch order");
+
+        assertEquals(TransactionStatus.SUCCESSFUL, payment.getStatus());
+        assertEquals(0, new BigDecimal("5.50").compareTo(wallet().getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(wallet().getReserved()));
+        assertEquals(WalletHoldStatus.CAPTURED, walletHoldRepository.findById(hold.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void shouldFailCaptureAndReleaseHoldWhenActualTotalIsNotCovered() {
+
+        WalletHold hold = walletHoldService.reserve(walletId, new BigDecimal("9.00"), "lunch").orElseThrow();
+
+        Transaction payment = walletHoldService.capture(hold, new BigDecimal("12.00"), "Payment for lunch order");
+
+        assertEquals(TransactionStatus.FAILED, payment.getStatus());
+        assertEquals(0, new BigDecimal("10.00").compareTo(wallet().getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(wallet().getReserved()));
+        assertEquals(WalletHoldStatus.RELEASED, walletHoldRepository.findById(hold.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void shouldReleaseExpiredHoldsOnceOnly() {
+
+        WalletHold hold = walletHoldService.reserve(walletId, new BigDecimal("4.50"), "lunch").orElseThrow();
+
+        assertEquals(1, walletHoldService.releaseExpiredHolds());
+        walletHoldService.release(hold);
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(wallet().getReserved()));
+        assertEquals(WalletHoldStatus.EXPIRED, walletHoldRepository.findById(hold.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void shouldStillCaptureFromAvailableFundsAfterHoldExpired() {
+
+        WalletHold hold = walletHoldService.reserve(walletId, new BigDecimal("4.50"), "lunch").orElseThrow();
+        walletHoldService.releaseExpiredHolds();
+
+        Transaction payment = walletHoldService.capture(hold, new BigDecimal("4.50"), "Payment for lunch order");
+
+        assertEquals(TransactionStatus.SUCCESSFUL, payment.getStatus());
+        assertEquals(0, new BigDecimal("5.50").compareTo(wallet().getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(wallet().getReserved()));
+    }
+
+    @Test
+    void shouldKeepHoldsAndTopUpsThatRunConcurrently() throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> running = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 20; i++) {
+                running.add(executor.submit(() -> walletService.deposit(walletId, new BigDecimal("1.00"), "Top-up")));
+                running.add(executor.submit(() -> walletHoldService.reserve(walletId, new BigDecimal("0.50"), "lunch")
+                        .orElseThrow()));
+                running.add(executor.submit(() -> walletService.payment(walletId, new BigDecimal("0.25"), "Fee")));
+            }
+            for (Future<?> task : running) {
+                task.get();
+            }
+
+            assertEquals(0, new BigDecimal("25.00").compareTo(wallet().getBalance()));
+            assertEquals(0, new BigDecimal("10.00").compareTo(wallet().getReserved()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldNotPayFromReservedFunds() {
+
+        walletHoldService.reserve(walletId, new BigDecimal("8.00"), "lunch").orElseThrow();
+
+        Transaction payment = walletService.payment(walletId, new BigDecimal("4.00"), "Fee");
+
+        assertEquals(TransactionStatus.FAILED, payment.getStatus());
+        assertEquals(0, new BigDecimal("10.00").compareTo(wallet().getBalance()));
+        assertEquals(0, new BigDecimal("8.00").compareTo(wallet().getReserved()));
+    }
+
+    private Wallet wallet() {
+        return walletRepository.findById(walletId).orElseThrow();
+    }
+}
@@ -0,0 +1,317 @@
+package app.integration;
+
+import app.child.model.Child;
+import app.child.service.ChildService;
+import app.lunch.capacity.MealCapacityLedger;
+import app.lunch.capacity.MealCapacityProperties;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.forecast.KitchenForecastService;
+import app.lunch.guard.LunchOrderGuard;
+import app.lunch.repository.LunchOrderAttemptRepository;
+import app.lunch.repository.LunchOrderReservationRepository;
+import app.lunch.model.LunchOrderAttempt;
+import app.lunch.model.LunchOrderAttemptStatus;
+import app.lunch.occupancy.WeeklyOccupancyIndex;
+import app.lunch.service.LunchOrderAttemptService;
+import app.lunch.service.LunchReplicaService;
+import app.lunch.service.LunchService;
+import app.lunch.weekly.WeeklyOrderItemResult;
+import app.lunch.weekly.WeeklyOrderItemStatus;
+import app.lunch.weekly.WeeklyOrderResult;
+import app.lunch.weekly.WeeklyOrderService;
+import app.transaction.model.TransactionType;
+import app.transaction.repository.TransactionRepository;
+import app.transaction.service.TransactionService;
+import app.wallet.model.Wallet;
+import app.wallet.model.WalletHold;
+import app.wallet.model.WalletHoldStatus;
+import app.wallet.repository.WalletHoldRepository;
+import app.wallet.repository.WalletRepository;
+import app.wallet.service.WalletHoldService;
+import app.wallet.service.WalletService;
+import app.web.dto.WeeklyLunchItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({LunchOrderAttemptService.class, WalletHoldService.class, TransactionService.class,
+        SimpleMeterRegistry.class})
+class WeeklyOrderTest {
+
+    @Autowired
+    private LunchOrderAttemptService lunchOrderAttemptService;
+
+    @Autowired
+    private LunchOrderAttemptRepository lunchOrderAttemptRepository;
+
+    @Autowired
+    private LunchOrderReservationRepository lunchOrderReservationRepository;
+
+    @Autowired
+    private WalletHoldService walletHoldService;
+
+    @Autowired
+    private WalletHoldRepository walletHoldRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    private LunchSvcStub stub;
+    private ThreadPoolTaskExecutor executor;
+    private LunchOrderGuard guard;
+    private KitchenForecastService kitchenForecastService;
+    private LunchService lunchService;
+    private WeeklyOrderService weeklyOrderService;
+    private UUID parentId;
+    private Child anna;
+    private Child boris;
+    private UUID walletId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        stub = LunchSvcStub.start();
+
+        LunchServiceGateway gateway = LunchServiceFixture.gateway(stub, meterRegistry);
+
+        parentId = UUID.randomUUID();
+        anna = Child.builder().id(UUID.randomUUID()).firstName("Anna").build();
+        boris = Child.builder().id(UUID.randomUUID()).firstName("Boris").build();
+
+        Wallet wallet = walletRepository.save(Wallet.builder()
+                .balance(new BigDecimal("30.00"))
+                .currency(Currency.getInstance("EUR"))
+                .createdOn(LocalDateTime.now())
+                .updatedOn(LocalDateTime.now())
+                .build());
+        walletId = wallet.getId();
+
+        WalletService walletService = mock(WalletService.class);
+        when(walletService.getWalletByParentId(parentId)).thenReturn(wallet);
+        ChildService childService = mock(ChildService.class);
+        when(childService.getChildrenByParentId(parentId)).thenReturn(List.of(anna, boris));
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.initialize();
+
+        LunchReplicaService lunchReplicaService = mock(LunchReplicaService.class);
+        MealCapacityLedger capacity = new MealCapacityLedger(new MealCapacityProperties(), null, null, null,
+                meterRegistry);
+        WeeklyOccupancyIndex occupancy = new WeeklyOccupancyIndex(100, Duration.ofMinutes(10), meterRegistry);
+        kitchenForecastService = mock(KitchenForecastService.class);
+        guard = new LunchOrderGuard(lunchOrderReservationRepository, true, Duration.ofSeconds(30), meterRegistry);
+        lunchService = LunchServiceFixture.lunchService(gateway, meterRegistry)
+                .walletService(walletService)
+                .lunchReplicaService(lunchReplicaService)
+                .walletHoldService(walletHoldService)
+                .lunchOrderAttemptService(lunchOrderAttemptService)
+                .mealCapacityLedger(capacity)
+                .weeklyOccupancyIndex(occupancy)
+                .lunchOrderGuard(guard)
+                .kitchenForecastService(kitchenForecastService)
+                .build();
+        weeklyOrderService = new WeeklyOrderService(childService, lunchService, gateway, lunchOrderAttemptService,
+                lunchReplicaService, walletService, walletHoldService, capacity, occupancy, guard,
+                kitchenForecastService, executor, 2, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+        executor.shutdown();
+        lunchOrderAttemptRepository.deleteAll();
+        transactionRepository.deleteAll();
+        walletHoldRepository.deleteAll();
+        lunchOrderReservationRepository.deleteAll();
+    }
+
+    @Test
+    void shouldOrderTheWeekForSeveralChildrenWithOnePayment() {
+
+        List<DayOfWeek> days = lunchService.getAvailableDaysForLunch(anna.getId()).subList(0, 3);
+        List<WeeklyLunchItem> items = new ArrayList<>();
+        for (DayOfWeek day : days) {
+            items.add(item(anna, day));
+            items.add(item(boris, day));
+        }
+        stub.setLatencyMillis(50);
+
+        WeeklyOrderResult result = weeklyOrderService.placeWeek(parentId, items);
+
+        assertEquals(6, result.count(WeeklyOrderItemStatus.PLACED));
+        assertEquals(0, new BigDecimal("27.00").compareTo(result.getCharged()));
+        assertEquals(3, stub.orders(anna.getId()).size());
+        assertEquals(3, stub.orders(boris.getId()).size());
+        verify(kitchenForecastService, times(6)).recordOrdered(any(LunchOrder.class));
+        assertTrue(stub.maxConcurrentRequests() <= 2, "max concurrency was " + stub.maxConcurrentRequests());
+        assertEquals(1, transactionRepository.findAll().stream()
+                .filter(transaction -> transaction.getType() == TransactionType.PAYMENT)
+                .count());
+        assertEquals(0, new BigDecimal("3.00").compareTo(wallet().getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(wallet().getReserved()));
+    }
+
+    @Test
+    void shouldReportPartialFailuresPerItem() {
+
+        List<DayOfWeek> days = lunchService.getAvailableDaysForLunch(List.of());
+        stub.addOrder(anna.getId(), "BEAN_WITH_SALAD", days.get(0).name(), "PAID");
+        Child stranger = Child.builder().id(UUID.randomUUID()).firstName("Stranger").build();
+
+        List<WeeklyLunchItem> items = List.of(
+                item(anna, days.get(0)),
+                item(anna, days.get(1)),
+                item(anna, days.get(1)),
+                item(stranger, days.get(1)),
+                item(boris, days.get(1)));
+        stub.failCreates(1);
+
+        WeeklyOrderResult result = weeklyOrderService.placeWeek(parentId, items);
+
+        List<WeeklyOrderItemStatus> statuses = result.getItems().stream().map(WeeklyOrderItemResult::getStatus).toList();
+        assertEquals(WeeklyOrderItemStatus.FAILED, statuses.get(0));
+        assertEquals(WeeklyOrderItemStatus.FAILED, statuses.get(2));
+        assertEquals(WeeklyOrderItemStatus.FAILED, statuses.get(3));
+        assertEquals(1, result.count(WeeklyOrderItemStatus.PLACED));
+        assertEquals(1, result.count(WeeklyOrderItemStatus.PENDING));
+        assertEquals(0, new BigDecimal("4.50").compareTo(result.getCharged()));
+        assertEquals(0, new BigDecimal("25.50").compareTo(wallet().getBalance()));
+        assertEquals(0, new BigDecimal("4.50").compareTo(wallet().getReserved()));
+        WeeklyOrderItemResult pending = result.getItems().stream()
+                .filter(item -> item.getStatus() == WeeklyOrderItemStatus.PENDING)
+                .findFirst().orElseThrow();
+        assertEquals(0, new BigDecimal("4.50").compareTo(pendingHold(pending).getAmount()));
+    }
+
+    @Test
+    void shouldKeepEachUnconfirmedLunchReservedForTheReconciler() {
+
+        List<DayOfWeek> days = lunchService.getAvailableDaysForLunch(anna.getId()).subList(0, 2);
+        List<WeeklyLunchItem> items = List.of(item(anna, days.get(0)), item(anna, days.get(1)));
+        stub.failCreates(2);
+
+        WeeklyOrderResult result = weeklyOrderService.placeWeek(parentId, items);
+
+        assertEquals(2, result.count(WeeklyOrderItemStatus.PENDING));
+        assertEquals(0, new BigDecimal("9.00").compareTo(wallet().getReserved()));
+        WalletHold first = pendingHold(result.getItems().get(0));
+        WalletHold second = pendingHold(result.getItems().get(1));
+        assertNotEquals(first.getId(), second.getId());
+        assertEquals(0, new BigDecimal("4.50").compareTo(first.getAmount()));
+        assertEquals(0, new BigDecimal("4.50").compareTo(second.getAmount()));
+    }
+
+    @Test
+    void shouldRejectTheWholeWeekWithoutRemoteCreatesWhenTheWalletCannotCoverIt() {
+
+        List<DayOfWeek> days = lunchService.getAvailableDaysForLunch(anna.getId());
+        List<WeeklyLunchItem> items = new ArrayList<>();
+        for (DayOfWeek day : days.subList(0, 4)) {
+            WeeklyLunchItem item = item(anna, day);
+            item.setQuantity(2);
+            items.add(item);
+        }
+
+        WeeklyOrderResult result = weeklyOrderService.placeWeek(parentId, items);
+
+        assertEquals(4, result.count(WeeklyOrderItemStatus.FAILED));
+        assertTrue(stub.orders(anna.getId()).isEmpty());
+        assertEquals(0, new BigDecimal("30.00").compareTo(wallet().getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(wallet().getReserved()));
+    }
+
+    @Test
+    void shouldLeaveTheWeekPendingWhenThePaymentCannotBeCaptured() {
+
+        List<DayOfWeek> days = lunchService.getAvailableDaysForLunch(anna.getId()).subList(0, 2);
+        List<WeeklyLunchItem> items = List.of(item(anna, days.get(0)), item(anna, days.get(1)));
+        stub.setMealPrice("BEAN_WITH_SALAD", BigDecimal.ZERO);
+
+        WeeklyOrderResult result = weeklyOrderService.placeWeek(parentId, items);
+
+        assertEquals(2, result.count(WeeklyOrderItemStatus.PENDING));
+        assertEquals(0, BigDecimal.ZERO.compareTo(result.getCharged()));
+        assertTrue(lunchOrderAttemptRepository.findAll().stream()
+                .allMatch(attempt -> attempt.getStatus() == LunchOrderAttemptStatus.PENDING));
+        assertEquals(0, new BigDecimal("30.00").compareTo(wallet().getBalance()));
+        assertEquals(0, new BigDecimal("9.00").compareTo(wallet().getReserved()));
+    }
+
+    private WeeklyLunchItem item(Child child, DayOfWeek day) {
+        WeeklyLunchItem item = new WeeklyLunchItem();
+        item.setOrderId(UUID.randomUUID());
+        item.setChildId(child.getId());
+        item.setDayOfWeek(day.name());
+        item.setMeal("BEAN_WITH_SALAD");
+        return item;
+    }
+
+    @Test
+    void shouldNotCreateALunchThatASingleOrderIsPlacingForTheSameDay() {
+
+        List<DayOfWeek> days = lunchService.getAvailableDaysForLunch(anna.getId()).subList(0, 2);
+        UUID single = UUID.randomUUID();
+        guard.acquire(anna.getId(), days.get(0).name(), single);
+
+        WeeklyOrderResult result = weeklyOrderService.placeWeek(parentId,
+                List.of(item(anna, days.get(0)), item(anna, days.get(1))));
+        guard.release(anna.getId(), days.get(0).name(), single);
+
+        assertEquals(WeeklyOrderItemStatus.FAILED, result.getItems().get(0).getStatus());
+        assertEquals(WeeklyOrderItemStatus.PLACED, result.getItems().get(1).getStatus());
+        assertEquals(List.of(days.get(1).name()), stub.orders(anna.getId()).stream()
+                .map(LunchOrder::getDayOfWeek)
+                .toList());
+        assertEquals(0, new BigDecimal("25.50").compareTo(wallet().getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(wallet().getReserved()));
+        assertTrue(lunchOrderReservationRepository.findAll().isEmpty());
+    }
+
+    private WalletHold pendingHold(WeeklyOrderItemResult item) {
+
+        LunchOrderAttempt attempt = lunchOrderAttemptRepository.findById(item.getOrderId()).orElseThrow();
+        assertEquals(LunchOrderAttemptStatus.PENDING, attempt.getStatus());
+        WalletHold hold = walletHoldRepository.findById(attempt.getHoldId()).orElseThrow();
+        assertEquals(WalletHoldStatus.HELD, hold.getStatus());
+        return hold;
+    }
+
+    private Wallet wallet() {
+        return walletRepository.findById(walletId).orElseThrow();
+    }
+}
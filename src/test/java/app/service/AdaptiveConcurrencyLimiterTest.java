@@ -0,0 +1,147 @@
+package app.service;
+
+import app.lunch.resilience.AdaptiveConcurrencyLimiter;
+import app.lunch.resilience.ConcurrencyLimitExceededException;
+import feign.RetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void shouldRejectCallsOverTheLimitAndExposeMetrics() throws Exception {
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 2, 2, 0.2, 1.5, 0.9, 100,
+                meterRegistry);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            for (int i = 0; i < 2; i++) {
+                executor.submit(() -> limiter.execute("getLunches", () -> {
+                    started.countDown();
+                    await(release);
+                    return null;
+                }));
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(ConcurrencyLimitExceededException.class, () -> limiter.execute("getLunches", () -> "late"));
+            assertEquals(2.0, meterRegistry.get("lunch.limiter.inflight").gauge().value());
+            assertEquals(2.0, meterRegistry.get("lunch.limiter.limit").gauge().value());
+            assertEquals(1.0, meterRegistry.counter("lunch.limiter.rejections", "operation", "getLunches").count());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, limiter.getInflight());
+        assertEquals("ok", limiter.execute("getLunches", () -> "ok"));
+    }
+
+    @Test
+    void shouldBackOffWhenCallsTimeOut() {
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 200, 0.2, 1.5, 0.9, 100,
+                meterRegistry);
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(RetryableException.class, () -> limiter.execute("getLunches", () -> {
+                throw mock(RetryableException.class);
+            }));
+        }
+
+        assertEquals(6, limiter.getLimit());
+
+        for (int i = 0; i < 20; i++) {
+            assertThrows(RetryableException.class, () -> limiter.execute("getLunches", () -> {
+                throw mock(RetryableException.class);
+            }));
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void shouldGrowWhileLatencyIsSteadyAndShrinkWhenItClimbs() throws Exception {
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 4, 200, 0.2, 1.5, 0.9, 1000,
+                meterRegistry);
+
+        load(limiter, 16, 30, 2);
+        int steadyLimit = limiter.getLimit();
+
+        load(limiter, 16, 5, 40);
+        int degradedLimit = limiter.getLimit();
+
+        assertTrue(steadyLimit > 16, "limit under steady latency was " + steadyLimit);
+        assertTrue(degradedLimit < steadyLimit,
+                "limit went from " + steadyLimit + " to " + degradedLimit + " when latency climbed");
+    }
+
+    private void load(AdaptiveConcurrencyLimiter limiter, int threads, int callsPerThread, long latencyMillis)
+            throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < callsPerThread; i++) {
+                        try {
+                            limiter.execute("getLunches", () -> {
+                                sleep(latencyMillis);
+                                return null;
+                            });
+                        } catch (ConcurrencyLimitExceededException e) {
+                            sleep(1);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
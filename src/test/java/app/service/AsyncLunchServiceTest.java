@@ -0,0 +1,124 @@
+package app.service;
+
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.service.AsyncLunchService;
+import app.lunch.service.LunchService;
+import app.web.dto.LunchRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncLunchServiceTest {
+
+    @Mock
+    private LunchService lunchService;
+
+    private ThreadPoolTaskExecutor executor;
+    private AsyncLunchService asyncLunchService;
+    private UUID childId;
+
+    @BeforeEach
+    void setUp() {
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("lunch-io-");
+        executor.initialize();
+
+        asyncLunchService = new AsyncLunchService(lunchService, executor);
+        childId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void shouldLoadLunchesOffTheCallingThread() throws Exception {
+
+        List<LunchOrder> lunches = List.of(new LunchOrder());
+        AtomicReference<String> thread = new AtomicReference<>();
+        when(lunchService.getLunches(childId)).thenAnswer(invocation -> {
+            thread.set(Thread.currentThread().getName());
+            return lunches;
+        });
+
+        assertEquals(lunches, asyncLunchService.getLunches(childId).get(5, TimeUnit.SECONDS));
+        assertTrue(thread.get().startsWith("lunch-io-"));
+    }
+
+    @Test
+    void shouldSurfaceRecoverFallbackThroughTheFuture() {
+
+        when(lunchService.getLunches(childId)).thenThrow(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "The lunch service is not responding. Please try again later."));
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> asyncLunchService.getLunches(childId).get(5, TimeUnit.SECONDS));
+
+        ResponseStatusException cause = assertInstanceOf(ResponseStatusException.class, exception.getCause());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, cause.getStatusCode());
+    }
+
+    @Test
+    void shouldCreateAndDeleteThroughLunchService() throws Exception {
+
+        UUID parentId = UUID.randomUUID();
+        UUID lunchId = UUID.randomUUID();
+        LunchRequest lunchRequest = new LunchRequest();
+
+        asyncLunchService.createLunch(parentId, childId, lunchRequest).get(5, TimeUnit.SECONDS);
+        asyncLunchService.deleteLunch(childId, lunchId).get(5, TimeUnit.SECONDS);
+
+        verify(lunchService).createLunch(parentId, childId, lunchRequest);
+        verify(lunchService).deleteLunch(childId, lunchId);
+    }
+
+    @Test
+    void shouldFailFastWithServiceUnavailableWhenExecutorIsSaturated() throws Exception {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(lunchService.getLunches(childId)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        CompletableFuture<List<LunchOrder>> slow = asyncLunchService.getLunches(childId);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<List<LunchOrder>> queued = asyncLunchService.getLunches(childId);
+
+        CompletableFuture<Void> rejected = asyncLunchService.deleteLunch(childId, UUID.randomUUID());
+
+        ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+        ResponseStatusException cause = assertInstanceOf(ResponseStatusException.class, exception.getCause());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, cause.getStatusCode());
+        verify(lunchService, never()).deleteLunch(any(), any());
+
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,148 @@
+package app.service;
+
+import app.lunch.resilience.HedgedReadExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgedReadExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private HedgedReadExecutor hedgedReadExecutor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (hedgedReadExecutor != null) {
+            hedgedReadExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldSendHedgeWhenPrimaryIsSlowAndReturnFirstResponse() {
+
+        hedgedReadExecutor = new HedgedReadExecutor(true, 0.95, 20, 100, 0.1, 4, meterRegistry);
+        LatencyInjectingStub stub = new LatencyInjectingStub(call -> call == 1, 2000);
+
+        String result = hedgedReadExecutor.execute("getLunches", stub);
+
+        assertEquals("response-2", result);
+        assertEquals(List.of(2), List.copyOf(stub.completed));
+        assertEquals(1.0, meterRegistry.counter("lunch.hedge.sent", "operation", "getLunches").count());
+        assertEquals(1.0, meterRegistry.counter("lunch.hedge.wins", "operation", "getLunches").count());
+    }
+
+    @Test
+    void shouldNotHedgeFastCalls() {
+
+        hedgedReadExecutor = new HedgedReadExecutor(true, 0.95, 50, 200, 0.1, 4, meterRegistry);
+        LatencyInjectingStub stub = new LatencyInjectingStub(call -> false, 0);
+
+        for (int i = 0; i < 10; i++) {
+            hedgedReadExecutor.execute("getLunches", stub);
+        }
+
+        assertEquals(10, stub.calls.get());
+        assertEquals(0.0, meterRegistry.counter("lunch.hedge.sent", "operation", "getLunches").count());
+    }
+
+    @Test
+    void shouldStopHedgingWhenBudgetIsSpent() {
+
+        hedgedReadExecutor = new HedgedReadExecutor(true, 0.95, 20, 50, 0.01, 4, meterRegistry);
+        LatencyInjectingStub stub = new LatencyInjectingStub(call -> call == 1 || call == 3, 300);
+
+        assertEquals("response-2", hedgedReadExecutor.execute("getLunches", stub));
+        assertEquals("response-3", hedgedReadExecutor.execute("getLunches", stub));
+
+        assertEquals(3, stub.calls.get());
+        assertEquals(1.0, meterRegistry.counter("lunch.hedge.sent", "operation", "getLunches").count());
+        assertEquals(1.0, meterRegistry.counter("lunch.hedge.budget.exhausted", "operation", "getLunches").count());
+    }
+
+    @Test
+    void shouldPropagateFailureWhenEveryAttemptFails() {
+
+        hedgedReadExecutor = new HedgedReadExecutor(true, 0.95, 20, 50, 0.1, 4, meterRegistry);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> hedgedReadExecutor.execute("getLunches", () -> {
+                    throw new IllegalStateException("lunch-svc down");
+                }));
+
+        assertEquals("lunch-svc down", exception.getMessage());
+    }
+
+    @Test
+    void shouldCutTailLatencyAgainstLatencyInjectingStub() {
+
+        IntPredicate everyTwentyFifthCallIsSlow = call -> call % 25 == 0;
+
+        hedgedReadExecutor = new HedgedReadExecutor(false, 0.95, 20, 200, 0.1, 4, meterRegistry);
+        long plainP99 = p99(hedgedReadExecutor, new LatencyInjectingStub(everyTwentyFifthCallIsSlow, 300));
+        hedgedReadExecutor.shutdown();
+
+        hedgedReadExecutor = new HedgedReadExecutor(true, 0.95, 20, 200, 0.1, 4, meterRegistry);
+        long hedgedP99 = p99(hedgedReadExecutor, new LatencyInjectingStub(everyTwentyFifthCallIsSlow, 300));
+
+        assertTrue(plainP99 >= 300, "unhedged p99 was " + plainP99 + " ms");
+        assertTrue(hedgedP99 < plainP99 / 2, "hedged p99 was " + hedgedP99 + " ms, unhedged " + plainP99 + " ms");
+    }
+
+    private long p99(HedgedReadExecutor executor, Supplier<String> stub) {
+
+        List<Long> latencies = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            long start = System.nanoTime();
+            executor.execute("getLunches", stub);
+            latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+
+        Collections.sort(latencies);
+        return latencies.get(98);
+    }
+
+    private static class LatencyInjectingStub implements Supplier<String> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final List<Integer> completed = new CopyOnWriteArrayList<>();
+        private final IntPredicate slowCall;
+        private final long injectedLatencyMillis;
+
+        LatencyInjectingStub(IntPredicate slowCall, long injectedLatencyMillis) {
+            this.slowCall = slowCall;
+            this.injectedLatencyMillis = injectedLatencyMillis;
+        }
+
+        @Override
+        public String get() {
+            int call = calls.incrementAndGet();
+            try {
+                Thread.sleep(slowCall.test(call) ? injectedLatencyMillis : 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("cancelled", e);
+            }
+            completed.add(call);
+            return "response-" + call;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package app.service;
+
+import app.integration.LunchServiceFixture;
+import app.lunch.catalog.MealCatalog;
+import app.lunch.catalog.MealCatalogCache;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.client.dto.Meal;
+import app.lunch.service.LunchOrderAttemptService;
+import app.lunch.service.LunchOrderPlacement;
+import app.lunch.service.LunchReplicaService;
+import app.lunch.service.LunchService;
+import app.transaction.model.Transaction;
+import app.transaction.model.TransactionStatus;
+import app.wallet.model.Wallet;
+import app.wallet.model.WalletHold;
+import app.wallet.service.WalletHoldService;
+import app.wallet.service.WalletService;
+import app.web.dto.LunchRequest;
+import feign.FeignException;
+import feign.RetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LunchOrderPaymentTest {
+
+    @Mock
+    private LunchServiceGateway lunchServiceGateway;
+
+    @Mock
+    private WalletService walletService;
+
+    @Mock
+    private LunchReplicaService lunchReplicaService;
+
+    @Mock
+    private WalletHoldService walletHoldService;
+
+    @Mock
+    private MealCatalogCache mealCatalogCache;
+
+    @Mock
+    private LunchOrderAttemptService lunchOrderAttemptService;
+
+    private LunchService lunchService;
+    private UUID parentId;
+    private UUID childId;
+    private Wallet wallet;
+    private WalletHold hold;
+    private LunchRequest lunchRequest;
+
+    @BeforeEach
+    void setUp() {
+
+        lunchService = LunchServiceFixture.lunchService(lunchServiceGateway, new SimpleMeterRegistry())
+                .walletService(walletService)
+                .lunchReplicaService(lunchReplicaService)
+                .walletHoldService(walletHoldService)
+                .mealCatalogCache(mealCatalogCache)
+                .lunchOrderAttemptService(lunchOrderAttemptService)
+                .build();
+
+        parentId = UUID.randomUUID();
+        childId = UUID.randomUUID();
+        wallet = Wallet.builder().id(UUID.randomUUID()).balance(new BigDecimal("20.00")).build();
+        hold = WalletHold.builder().id(UUID.randomUUID()).walletId(wallet.getId()).amount(new BigDecimal("9.00")).build();
+
+        lunchRequest = new LunchRequest();
+        lunchRequest.setMeal("BEAN_WITH_SALAD");
+        lunchRequest.setQuantity(2);
+        lunchRequest.setDayOfWeek("MONDAY");
+
+        when(walletService.getWalletByParentId(parentId)).thenReturn(wallet);
+        lenient().when(lunchOrderAttemptService.begin(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(lunchOrderAttemptService.place(any(), any(), anyString())).thenAnswer(invocation -> {
+            Map<UUID, BigDecimal> totals = invocation.getArgument(0);
+            BigDecimal total = totals.values().iterator().next();
+            Transaction payment = walletHoldService.capture(invocation.getArgument(1), total,
+                    invocation.getArgument(2));
+            return Optional.of(new LunchOrderPlacement(List.copyOf(totals.keySet()), total, payment));
+        });
+        lenient().when(lunchOrderAttemptService.markFailed(any())).thenReturn(true);
+        lenient().when(walletHoldService.getHold(hold.getId())).thenReturn(Optional.of(hold));
+    }
+
+    @Test
+    void shouldRejectOrderWithoutCallingLunchSvcWhenFundsCannotBeReserved() {
+
+        when(walletHoldService.reserve(eq(wallet.getId()), eq(new BigDecimal("9.00")), anyString()))
+                .thenReturn(Optional.empty());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> lunchService.createLunch(parentId, childId, lunchRequest));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(lunchServiceGateway);
+    }
+
+    @Test
+    void shouldReserveTheCataloguePriceOfTheMeal() {
+
+        when(mealCatalogCache.current()).thenReturn(Optional.of(catalog(new Meal("BEAN_WITH_SALAD", "Bean with salad",
+                new BigDecimal("3.80")))));
+        when(walletHoldService.reserve(eq(wallet.getId()), eq(new BigDecimal("7.60")), anyString()))
+                .thenReturn(Optional.empty());
+
+        assertThrows(ResponseStatusException.class, () -> lunchService.createLunch(parentId, childId, lunchRequest));
+
+        verify(walletHoldService).reserve(eq(wallet.getId()), eq(new BigDecimal("7.60")), anyString());
+        verifyNoInteractions(lunchServiceGateway);
+    }
+
+    @Test
+    void shouldRejectMealMissingFromTheCatalogueWithoutCallingLunchSvc() {
+
+        when(mealCatalogCache.current()).thenReturn(Optional.of(catalog(new Meal("BAKED_FISH_WITH_VEGETABLES",
+                "Baked fish with vegetables", new BigDecimal("5.20")))));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> lunchService.createLunch(parentId, childId, lunchRequest));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(walletHoldService, lunchServiceGateway);
+    }
+
+    @Test
+    void shouldCaptureActualTotalOfCreatedOrder() {
+
+        LunchOrder order = order(new BigDecimal("8.40"));
+        when(walletHoldService.reserve(eq(wallet.getId()), any(), anyString())).thenReturn(Optional.of(hold));
+        when(lunchServiceGateway.createLunch(eq(childId), any())).thenReturn(order);
+        when(walletHoldService.capture(hold, new BigDecimal("8.40"), "Payment for lunch order #" + order.getId()))
+                .thenReturn(Transaction.builder().status(TransactionStatus.SUCCESSFUL).build());
+
+        lunchService.createLunch(parentId, childId, lunchRequest);
+
+        verify(walletHoldService, never()).release(any());
+        verify(lunchServiceGateway, never()).deleteLunch(any(), any());
+        verify(lunchReplicaService).save(order);
+    }
+
+    @Test
+    void shouldKeepHoldWhileTheOutcomeOfATimedOutCreateIsUnknown() {
+
+        when(walletHoldService.reserve(eq(wallet.getId()), any(), anyString())).thenReturn(Optional.of(hold));
+        when(lunchServiceGateway.createLunch(eq(childId), any())).thenThrow(mock(RetryableException.class));
+
+        assertThrows(RetryableException.class, () -> lunchService.createLunch(parentId, childId, lunchRequest));
+
+        verify(walletHoldService, never()).release(any());
+        verify(lunchOrderAttemptService, never()).markFailed(any());
+    }
+
+    @Test
+    void shouldReleaseHoldWhenLunchSvcRejectsTheOrder() {
+
+        when(walletHoldService.reserve(eq(wallet.getId()), any(), anyString())).thenReturn(Optional.of(hold));
+        when(lunchServiceGateway.createLunch(eq(childId), any())).thenThrow(mock(FeignException.BadRequest.class));
+
+        assertThrows(FeignException.BadRequest.class, () -> lunchService.createLunch(parentId, childId, lunchRequest));
+
+        verify(lunchOrderAttemptService).markFailed(lunchRequest.getOrderId());
+        verify(walletHoldService).release(hold);
+        verify(walletHoldService, never()).capture(any(), any(), anyString());
+    }
+
+    @Test
+    void shouldDeleteOrderWhenActualTotalCannotBeCaptured() {
+
+        LunchOrder order = order(new BigDecimal("30.00"));
+        when(walletHoldService.reserve(eq(wallet.getId()), any(), anyString())).thenReturn(Optional.of(hold));
+        when(lunchServiceGateway.createLunch(eq(childId), any())).thenReturn(order);
+        when(walletHoldService.capture(eq(hold), eq(new BigDecimal("30.00")), anyString()))
+                .thenReturn(Transaction.builder().status(TransactionStatus.FAILED).build());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> lunchService.createLunch(parentId, childId, lunchRequest));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verify(lunchServiceGateway).deleteLunch(childId, order.getId());
+        verify(lunchReplicaService, never()).save(any());
+    }
+
+    private MealCatalog catalog(Meal... meals) {
+        return new MealCatalog(List.of(meals), "\"v1\"", Instant.now());
+    }
+
+    private LunchOrder order(BigDecimal total) {
+        LunchOrder order = new LunchOrder();
+        order.setId(UUID.randomUUID());
+        order.setChildId(childId);
+        order.setWalletId(wallet.getId());
+        order.setTotal(total);
+        return order;
+    }
+}
@@ -0,0 +1,180 @@
+package app.service;
+
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.model.LunchOrderReplica;
+import app.lunch.occupancy.WeeklyOccupancyIndex;
+import app.lunch.repository.LunchOrderReplicaRepository;
+import app.lunch.service.LunchReplicaService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LunchReplicaServiceTest {
+
+    @Mock
+    private LunchOrderReplicaRepository lunchOrderReplicaRepository;
+
+    @Mock
+    private LunchServiceGateway lunchServiceGateway;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UUID childId;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        childId = UUID.randomUUID();
+    }
+
+    @Test
+    void shouldReadFromLunchSvcUntilFirstSyncCompletes() {
+
+        LunchReplicaService replica = replica(true, Duration.ofMinutes(2));
+
+        assertTrue(replica.findLunches(childId).isEmpty());
+        assertEquals(1.0, meterRegistry.counter("lunch.replica.reads", "source", "remote").count());
+        verifyNoInteractions(lunchOrderReplicaRepository);
+    }
+
+    @Test
+    void shouldServeReadsFromReplicaAfterSync() {
+
+        LunchReplicaService replica = replica(true, Duration.ofMinutes(2));
+        when(lunchOrderReplicaRepository.findLatestUpdatedOn()).thenReturn(Optional.empty());
+        when(lunchServiceGateway.getLunchChanges(Instant.EPOCH)).thenReturn(List.of());
+
+        LunchOrderReplica stored = LunchOrderReplica.builder()
+                .id(UUID.randomUUID())
+                .childId(childId)
+                .meal("BEAN_WITH_SALAD")
+                .total(new BigDecimal("4.50"))
+                .status("PAID")
+                .syncedOn(LocalDateTime.now())
+                .build();
+        when(lunchOrderReplicaRepository.findAllByChildIdOrderByCreatedOnAsc(childId)).thenReturn(List.of(stored));
+
+        replica.syncChanges();
+        List<LunchOrder> lunches = replica.findLunches(childId).orElseThrow();
+
+        assertEquals(1, lunches.size());
+        assertEquals(stored.getId(), lunches.get(0).getId());
+        assertEquals("PAID", lunches.get(0).getStatus());
+        assertEquals(1.0, meterRegistry.counter("lunch.replica.reads", "source", "replica").count());
+    }
+
+    @Test
+    void shouldFallBackToLunchSvcOnceStalenessBoundIsExceeded() throws Exception {
+
+        LunchReplicaService replica = replica(true, Duration.ofMillis(50));
+        when(lunchOrderReplicaRepository.findLatestUpdatedOn()).thenReturn(Optional.empty());
+        when(lunchServiceGateway.getLunchChanges(any())).thenReturn(List.of());
+
+        replica.syncChanges();
+        assertTrue(replica.isFresh());
+
+        Thread.sleep(100);
+
+        assertFalse(replica.isFresh());
+        assertTrue(replica.findLunches(childId).isEmpty());
+    }
+
+    @Test
+    void shouldApplyChangesAndAdvanceWatermark() {
+
+        LunchReplicaService replica = replica(true, Duration.ofMinutes(2));
+        Instant since = Instant.parse("2026-01-05T08:00:00Z");
+        Instant latest = since.plusSeconds(90);
+        when(lunchOrderReplicaRepository.findLatestUpdatedOn()).thenReturn(Optional.of(since));
+
+        LunchOrder created = order("PAID", since.plusSeconds(30));
+        LunchOrder deleted = order("DELETED", latest);
+        when(lunchServiceGateway.getLunchChanges(since.minusSeconds(5))).thenReturn(List.of(created, deleted));
+        when(lunchServiceGateway.getLunchChanges(latest.minusSeconds(5))).thenReturn(List.of(deleted));
+
+        assertEquals(2, replica.syncChanges());
+        assertEquals(0, replica.syncChanges());
+
+        ArgumentCaptor<LunchOrderReplica> saved = ArgumentCaptor.forClass(LunchOrderReplica.class);
+        verify(lunchOrderReplicaRepository).save(saved.capture());
+        assertEquals(created.getId(), saved.getValue().getId());
+        assertEquals(childId, saved.getValue().getChildId());
+        verify(lunchOrderReplicaRepository).deleteById(deleted.getId());
+        verify(lunchServiceGateway).getLunchChanges(latest.minusSeconds(5));
+        verify(lunchOrderReplicaRepository, times(1)).findLatestUpdatedOn();
+    }
+
+    @Test
+    void shouldPickUpAChangeCommittedLateWithATimestampBehindTheWatermark() {
+
+        LunchReplicaService replica = replica(true, Duration.ofMinutes(2));
+        Instant since = Instant.parse("2026-01-05T08:00:00Z");
+        Instant latest = since.plusSeconds(90);
+        when(lunchOrderReplicaRepository.findLatestUpdatedOn()).thenReturn(Optional.of(since));
+
+        LunchOrder first = order("PAID", latest);
+        LunchOrder late = order("PAID", latest.minusSeconds(2));
+        when(lunchServiceGateway.getLunchChanges(since.minusSeconds(5))).thenReturn(List.of(first));
+        when(lunchServiceGateway.getLunchChanges(latest.minusSeconds(5))).thenReturn(List.of(late, first));
+
+        assertEquals(1, replica.syncChanges());
+        assertEquals(1, replica.syncChanges());
+
+        ArgumentCaptor<LunchOrderReplica> saved = ArgumentCaptor.forClass(LunchOrderReplica.class);
+        verify(lunchOrderReplicaRepository, times(2)).save(saved.capture());
+        assertEquals(List.of(first.getId(), late.getId()),
+                saved.getAllValues().stream().map(LunchOrderReplica::getId).toList());
+    }
+
+    @Test
+    void shouldIgnoreWritesAndNeverServeReadsWhenDisabled() {
+
+        LunchReplicaService replica = replica(false, Duration.ofMinutes(2));
+
+        replica.save(order("PAID", Instant.now()));
+        replica.remove(UUID.randomUUID());
+
+        assertFalse(replica.isFresh());
+        assertTrue(replica.findLunches(childId).isEmpty());
+        verifyNoInteractions(lunchOrderReplicaRepository);
+    }
+
+    private LunchReplicaService replica(boolean enabled, Duration maxStaleness) {
+        return new LunchReplicaService(lunchOrderReplicaRepository, lunchServiceGateway,
+                new WeeklyOccupancyIndex(100, Duration.ofMinutes(10), meterRegistry),
+                enabled, maxStaleness, Duration.ofSeconds(5),
+                TransactionOperations.withoutTransaction(), meterRegistry);
+    }
+
+    private LunchOrder order(String status, Instant updatedOn) {
+        LunchOrder order = new LunchOrder();
+        order.setId(UUID.randomUUID());
+        order.setChildId(childId);
+        order.setMeal("BEAN_WITH_SALAD");
+        order.setQuantity(1);
+        order.setDayOfWeek("MONDAY");
+        order.setTotal(new BigDecimal("4.50"));
+        order.setStatus(status);
+        order.setCreatedOn(updatedOn);
+        order.setUpdatedOn(updatedOn);
+        return order;
+    }
+}
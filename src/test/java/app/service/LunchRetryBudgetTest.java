@@ -0,0 +1,124 @@
+package app.service;
+
+import app.lunch.resilience.LunchRetryBudget;
+import app.lunch.resilience.LunchRetryListener;
+import feign.FeignException;
+import feign.RetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class LunchRetryBudgetTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LunchRetryBudget retryBudget;
+    private RetryTemplate retryTemplate;
+
+    @BeforeEach
+    void setUp() {
+
+        meterRegistry = new SimpleMeterRegistry();
+        retryBudget = new LunchRetryBudget(0.5, 2, meterRegistry);
+
+        retryTemplate = RetryTemplate.builder()
+                .maxAttempts(3)
+                .retryOn(RetryableException.class)
+                .noBackoff()
+                .withListener(new LunchRetryListener(retryBudget, meterRegistry))
+                .build();
+    }
+
+    @Test
+    void shouldRetryTransientFailuresWhileBudgetLasts() {
+
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryTemplate.execute(context -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw mock(RetryableException.class);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+        assertEquals(0.5, retryBudget.getTokens());
+        assertEquals(2.0, meterRegistry.counter("lunch.retry.attempts", "operation", "unknown").count());
+    }
+
+    @Test
+    void shouldStopRetryingWhenBudgetIsExhausted() {
+
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(RetryableException.class, () -> retryTemplate.execute(context -> {
+            attempts.incrementAndGet();
+            throw mock(RetryableException.class);
+        }));
+        assertEquals(3, attempts.get());
+
+        attempts.set(0);
+        assertThrows(RetryableException.class, () -> retryTemplate.execute(context -> {
+            attempts.incrementAndGet();
+            throw mock(RetryableException.class);
+        }));
+
+        assertEquals(1, attempts.get());
+        assertEquals(1.0, meterRegistry.counter("lunch.retry.budget.exhausted", "operation", "unknown").count());
+    }
+
+    @Test
+    void shouldRefillBudgetFromSuccessfulCalls() {
+
+        assertTrue(retryBudget.tryAcquire());
+        assertTrue(retryBudget.tryAcquire());
+        assertFalse(retryBudget.tryAcquire());
+
+        retryBudget.recordSuccess();
+        assertFalse(retryBudget.tryAcquire());
+
+        retryBudget.recordSuccess();
+        assertTrue(retryBudget.tryAcquire());
+    }
+
+    @Test
+    void shouldNotSpendBudgetOnNonTransientFailures() {
+
+        assertThrows(FeignException.BadRequest.class, () -> retryTemplate.execute(context -> {
+            throw mock(FeignException.BadRequest.class);
+        }));
+
+        assertEquals(2.0, retryBudget.getTokens());
+        assertTrue(LunchRetryListener.isTransient(mock(FeignException.ServiceUnavailable.class)));
+        assertFalse(LunchRetryListener.isTransient(mock(FeignException.InternalServerError.class)));
+    }
+
+    @Test
+    void shouldReportRetryInducedLoad() {
+
+        LunchRetryListener listener = new LunchRetryListener(retryBudget, meterRegistry);
+        RetryTemplate template = RetryTemplate.builder()
+                .maxAttempts(2)
+                .retryOn(RetryableException.class)
+                .noBackoff()
+                .withListener(listener)
+                .build();
+
+        AtomicInteger attempts = new AtomicInteger();
+        template.execute(context -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw mock(RetryableException.class);
+            }
+            return "ok";
+        });
+        template.execute(context -> "ok");
+
+        assertEquals(0.5, listener.getRetryLoadRatio());
+    }
+}
@@ -0,0 +1,153 @@
+package app.service;
+
+import app.lunch.client.LunchServiceClient;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.resilience.AdaptiveConcurrencyLimiter;
+import app.lunch.resilience.ConcurrencyLimitExceededException;
+import app.lunch.resilience.HedgedReadExecutor;
+import app.lunch.resilience.SingleFlight;
+import feign.RetryableException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LunchServiceGatewayTest {
+
+    @Mock
+    private LunchServiceClient lunchServiceClient;
+
+    private LunchServiceGateway gateway;
+    private UUID childId;
+
+    @BeforeEach
+    void setUp() {
+
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .recordExceptions(RetryableException.class)
+                .build());
+
+        AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0.2, 1.5, 0.9, 100,
+                new SimpleMeterRegistry());
+
+        HedgedReadExecutor hedgedReadExecutor = new HedgedReadExecutor(false, 0.95, 20, 1000, 0.1, 4,
+                new SimpleMeterRegistry());
+
+        gateway = new LunchServiceGateway(lunchServiceClient, circuitBreakerRegistry, concurrencyLimiter,
+                hedgedReadExecutor, new SingleFlight(new SimpleMeterRegistry()));
+        childId = UUID.randomUUID();
+    }
+
+    @Test
+    void shouldReturnLunchesWhenServiceIsHealthy() {
+
+        List<LunchOrder> lunches = List.of(new LunchOrder());
+        when(lunchServiceClient.getLunches(childId)).thenReturn(lunches);
+
+        assertEquals(lunches, gateway.getLunches(childId));
+        assertEquals(CircuitBreaker.State.CLOSED, gateway.circuitBreaker("getLunches").getState());
+    }
+
+    @Test
+    void shouldOpenCircuitAndFailFastAfterRepeatedFailures() {
+
+        when(lunchServiceClient.getLunches(childId)).thenThrow(mock(RetryableException.class));
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(RetryableException.class, () -> gateway.getLunches(childId));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, gateway.circuitBreaker("getLunches").getState());
+        assertThrows(CallNotPermittedException.class, () -> gateway.getLunches(childId));
+        verify(lunchServiceClient, times(4)).getLunches(childId);
+    }
+
+    @Test
+    void shouldKeepCircuitsSeparatePerOperation() {
+
+        when(lunchServiceClient.getLunches(childId)).thenThrow(mock(RetryableException.class));
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(RetryableException.class, () -> gateway.getLunches(childId));
+        }
+
+        gateway.deleteLunch(childId, UUID.randomUUID());
+
+        assertEquals(CircuitBreaker.State.CLOSED, gateway.circuitBreaker("deleteLunch").getState());
+        verify(lunchServiceClient).deleteLunch(eq(childId), any(UUID.class));
+    }
+
+    @Test
+    void shouldRejectCallsOverConcurrencyLimit() throws Exception {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(lunchServiceClient.getLunches(childId)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        Thread slowCall = new Thread(() -> gateway.getLunches(childId));
+        slowCall.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ConcurrencyLimitExceededException.class, () -> gateway.getLunches(UUID.randomUUID()));
+
+        release.countDown();
+        slowCall.join();
+        verify(lunchServiceClient, times(1)).getLunches(childId);
+    }
+
+    @Test
+    void shouldShareOneCallBetweenIdenticalFilteredReads() throws Exception {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<LunchOrder> lunches = List.of(new LunchOrder());
+
+        when(lunchServiceClient.findLunches(childId, "PAID", null, null)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return lunches;
+        });
+
+        CompletableFuture<List<LunchOrder>> first = CompletableFuture.supplyAsync(
+                () -> gateway.findLunches(childId, "PAID", null, null));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<List<LunchOrder>> second = CompletableFuture.supplyAsync(
+                () -> gateway.findLunches(childId, "PAID", null, null));
+
+        // The second read joins the first instead of being turned away by the concurrency limit of one
+        Thread.sleep(100);
+        release.countDown();
+
+        assertEquals(lunches, first.get(5, TimeUnit.SECONDS));
+        assertEquals(lunches, second.get(5, TimeUnit.SECONDS));
+        verify(lunchServiceClient, times(1)).findLunches(childId, "PAID", null, null);
+    }
+}
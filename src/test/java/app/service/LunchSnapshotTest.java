@@ -0,0 +1,161 @@
+package app.service;
+
+import app.integration.LunchServiceFixture;
+import app.lunch.client.LunchServiceGateway;
+import app.lunch.client.dto.LunchOrder;
+import app.lunch.resilience.LunchRetryBudget;
+import app.lunch.resilience.LunchRetryListener;
+import app.lunch.service.LunchReplicaService;
+import app.lunch.service.LunchService;
+import app.lunch.snapshot.LunchSnapshot;
+import app.lunch.snapshot.LunchSnapshotRefresher;
+import app.lunch.snapshot.LunchSnapshotStore;
+import app.wallet.service.WalletHoldService;
+import app.wallet.service.WalletService;
+import feign.RetryableException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LunchSnapshotTest {
+
+    @Mock
+    private LunchServiceGateway lunchServiceGateway;
+
+    @Mock
+    private WalletService walletService;
+
+    @Mock
+    private LunchReplicaService lunchReplicaService;
+
+    @Mock
+    private WalletHoldService walletHoldService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LunchSnapshotStore lunchSnapshotStore;
+    private LunchService lunchService;
+    private UUID childId;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lunchSnapshotStore = new LunchSnapshotStore(100, Duration.ofHours(1), meterRegistry);
+        lunchService = LunchServiceFixture.lunchService(lunchServiceGateway, meterRegistry)
+                .walletService(walletService)
+                .lunchSnapshotStore(lunchSnapshotStore)
+                .lunchReplicaService(lunchReplicaService)
+                .walletHoldService(walletHoldService)
+                .build();
+        childId = UUID.randomUUID();
+    }
+
+    @Test
+    void shouldServeLastKnownGoodLunchesDuringOutage() {
+
+        List<LunchOrder> lunches = List.of(new LunchOrder());
+        when(lunchServiceGateway.getLunches(childId)).thenReturn(lunches);
+
+        LunchSnapshot fresh = lunchService.getLunchSnapshot(childId);
+        LunchSnapshot stale = lunchService.recoverGetLunchSnapshot(mock(RetryableException.class), childId);
+
+        assertFalse(fresh.isStale());
+        assertTrue(stale.isStale());
+        assertEquals(lunches, stale.getLunches());
+        assertEquals(fresh.getFetchedOn(), stale.getFetchedOn());
+        assertEquals(Set.of(childId), lunchSnapshotStore.getStaleChildren());
+        assertEquals(1.0, meterRegistry.counter("lunch.snapshot.stale.served").count());
+    }
+
+    @Test
+    void shouldFallBackToServiceUnavailableWithoutSnapshot() {
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> lunchService.recoverGetLunches(mock(RetryableException.class), childId));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        assertEquals(1.0, meterRegistry.counter("lunch.snapshot.misses").count());
+    }
+
+    @Test
+    void shouldRecoverEachListingWithItsOwnFallbackThroughTheRetryProxy() {
+
+        when(lunchServiceGateway.getLunches(childId)).thenThrow(mock(RetryableException.class));
+        when(lunchServiceGateway.findLunches(childId, null, null, true)).thenThrow(mock(RetryableException.class));
+        List<LunchOrder> lunches = List.of(new LunchOrder());
+        lunchSnapshotStore.save(childId, lunches);
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.register(RetryConfiguration.class);
+            context.registerBean("lunchRetryListener", LunchRetryListener.class,
+                    () -> new LunchRetryListener(new LunchRetryBudget(1.0, 10, meterRegistry), meterRegistry));
+            context.registerBean(LunchService.class, () -> lunchService);
+            context.refresh();
+            LunchService proxied = context.getBean(LunchService.class);
+
+            assertEquals(lunches, proxied.getLunches(childId));
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                    () -> proxied.getAllLunchesIncludingDeleted(childId));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        }
+
+        assertEquals(1.0, meterRegistry.counter("lunch.snapshot.stale.served").count());
+    }
+
+    @Test
+    void shouldRefreshStaleSnapshotsWhenCircuitRecovers() {
+
+        CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("lunch-getLunches");
+        when(lunchServiceGateway.circuitBreaker("getLunches")).thenReturn(circuitBreaker);
+
+        LunchSnapshotRefresher refresher = new LunchSnapshotRefresher(lunchServiceGateway, lunchSnapshotStore,
+                Runnable::run);
+        refresher.subscribe();
+
+        lunchSnapshotStore.save(childId, List.of());
+        lunchSnapshotStore.serveStale(childId);
+
+        List<LunchOrder> recovered = List.of(new LunchOrder(), new LunchOrder());
+        when(lunchServiceGateway.getLunches(childId)).thenReturn(recovered);
+
+        circuitBreaker.transitionToOpenState();
+        verify(lunchServiceGateway, never()).getLunches(childId);
+
+        circuitBreaker.transitionToHalfOpenState();
+
+        assertTrue(lunchSnapshotStore.getStaleChildren().isEmpty());
+        assertEquals(recovered, lunchService.recoverGetLunches(mock(RetryableException.class), childId));
+    }
+
+    @Test
+    void shouldKeepSnapshotStaleWhileServiceIsStillDown() {
+
+        lunchSnapshotStore.save(childId, List.of());
+        lunchSnapshotStore.serveStale(childId);
+        when(lunchServiceGateway.getLunches(childId)).thenThrow(mock(RetryableException.class));
+
+        new LunchSnapshotRefresher(lunchServiceGateway, lunchSnapshotStore, Runnable::run).refreshStale();
+
+        assertEquals(Set.of(childId), lunchSnapshotStore.getStaleChildren());
+    }
+
+    @EnableRetry
+    static class RetryConfiguration {
+    }
+}
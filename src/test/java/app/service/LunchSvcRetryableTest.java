@@ -0,0 +1,104 @@
+package app.service;
+
+import app.lunch.resilience.LunchRetryBudget;
+import app.lunch.resilience.LunchRetryListener;
+import app.lunch.resilience.LunchSvcRetryable;
+import feign.RetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.retry.annotation.Recover;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class LunchSvcRetryableTest {
+
+    private AnnotationConfigApplicationContext context;
+    private SimpleMeterRegistry meterRegistry;
+    private FlakyLunchSvc flakyLunchSvc;
+
+    @BeforeEach
+    void setUp() {
+
+        meterRegistry = new SimpleMeterRegistry();
+        context = new AnnotationConfigApplicationContext();
+        context.register(RetryConfiguration.class, FlakyLunchSvc.class);
+        context.registerBean("lunchRetryListener", LunchRetryListener.class,
+                () -> new LunchRetryListener(new LunchRetryBudget(1.0, 10, meterRegistry), meterRegistry));
+        context.refresh();
+        flakyLunchSvc = context.getBean(FlakyLunchSvc.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void shouldRetryTransientFailuresUnderTheOperationName() {
+
+        flakyLunchSvc.failNext(2);
+
+        assertEquals("ok", flakyLunchSvc.getLunches());
+
+        assertEquals(3, flakyLunchSvc.calls());
+        assertEquals(2.0, meterRegistry.counter("lunch.retry.attempts", "operation", "getLunches").count());
+    }
+
+    @Test
+    void shouldRecoverWithTheNamedMethodOnceAttemptsAreSpent() {
+
+        flakyLunchSvc.failNext(5);
+
+        assertEquals("recovered", flakyLunchSvc.getLunch());
+
+        assertEquals(3, flakyLunchSvc.calls());
+    }
+
+    @EnableRetry
+    static class RetryConfiguration {
+    }
+
+    static class FlakyLunchSvc {
+
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicInteger calls = new AtomicInteger();
+
+        public void failNext(int count) {
+            failures.set(count);
+        }
+
+        public int calls() {
+            return calls.get();
+        }
+
+        @LunchSvcRetryable("getLunches")
+        public String getLunches() {
+            return call();
+        }
+
+        @LunchSvcRetryable(value = "getLunch", recover = "recoverGetLunch")
+        public String getLunch() {
+            return call();
+        }
+
+        @Recover
+        public String recoverGetLunch(Exception e) {
+            return "recovered";
+        }
+
+        private String call() {
+            calls.incrementAndGet();
+            if (failures.getAndDecrement() > 0) {
+                throw mock(RetryableException.class);
+            }
+            return "ok";
+        }
+    }
+}
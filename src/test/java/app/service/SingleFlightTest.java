@@ -0,0 +1,126 @@
+package app.service;
+
+import app.lunch.resilience.SingleFlight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight singleFlight;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight(meterRegistry);
+        executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldShareOneRemoteCallBetweenConcurrentIdenticalReads() throws Exception {
+
+        UUID childId = UUID.randomUUID();
+        AtomicInteger remoteCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = submit(5, () -> singleFlight.execute("getLunches", childId, () -> {
+            remoteCalls.incrementAndGet();
+            await(release);
+            return "lunches";
+        }));
+
+        waitForCalls(5);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("lunches", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, remoteCalls.get());
+        assertEquals(4.0, meterRegistry.counter("lunch.singleflight.coalesced", "operation", "getLunches").count());
+    }
+
+    @Test
+    void shouldShareFailureWithAllWaitingCallers() throws Exception {
+
+        UUID childId = UUID.randomUUID();
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("lunch-svc down");
+
+        List<Future<String>> results = submit(3, () -> singleFlight.execute("getLunches", childId, () -> {
+            await(release);
+            throw failure;
+        }));
+
+        waitForCalls(3);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException exception = assertThrows(ExecutionException.class,
+                    () -> result.get(5, TimeUnit.SECONDS));
+            assertSame(failure, exception.getCause());
+        }
+    }
+
+    @Test
+    void shouldNotCoalesceDifferentChildrenOrSequentialCalls() {
+
+        AtomicInteger remoteCalls = new AtomicInteger();
+        Supplier<String> call = () -> "call-" + remoteCalls.incrementAndGet();
+
+        assertEquals("call-1", singleFlight.execute("getLunches", UUID.randomUUID(), call));
+        assertEquals("call-2", singleFlight.execute("getLunches", UUID.randomUUID(), call));
+
+        UUID childId = UUID.randomUUID();
+        assertEquals("call-3", singleFlight.execute("getLunches", childId, call));
+        assertEquals("call-4", singleFlight.execute("getLunches", childId, call));
+
+        assertEquals(0.0, meterRegistry.counter("lunch.singleflight.coalesced", "operation", "getLunches").count());
+        assertEquals(0.0, meterRegistry.get("lunch.singleflight.inflight").gauge().value());
+    }
+
+    private List<Future<String>> submit(int callers, Supplier<String> call) {
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(call::get));
+        }
+        return results;
+    }
+
+    private void waitForCalls(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.counter("lunch.singleflight.calls", "operation", "getLunches").count() < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
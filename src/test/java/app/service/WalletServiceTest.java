@@ -198,16 +198,16 @@ class WalletServiceTest {
 
         BigDecimal currentBalance = new BigDecimal("200.00");
         wallet.setBalance(currentBalance);
+        debitSucceeds();
         when(walletRepository.findById(walletId)).thenReturn(java.util.Optional.of(wallet));
         when(transactionService.createTransaction(any(), any(), any(), any(), any(), any(), any(), any()))
                 .thenReturn(successfulTransaction);
 
         walletService.payment(walletId, paymentAmount, description);
 
-        ArgumentCaptor<Wallet> walletCaptor = ArgumentCaptor.forClass(Wallet.class);
-        verify(walletRepository).save(walletCaptor.capture());
+        verify(walletRepository).debit(eq(walletId), eq(paymentAmount), any(LocalDateTime.class));
         BigDecimal expectedBalance = currentBalance.subtract(paymentAmount);
-        assertEquals(expectedBalance, walletCaptor.getValue().getBalance());
+        assertEquals(expectedBalance, wallet.getBalance());
     }
 
     @Test
@@ -215,15 +215,15 @@ class WalletServiceTest {
 
         BigDecimal currentBalance = new BigDecimal("200.00");
         wallet.setBalance(currentBalance);
+        debitSucceeds();
         when(walletRepository.findById(walletId)).thenReturn(java.util.Optional.of(wallet));
         when(transactionService.createTransaction(any(), any(), any(), any(), any(), any(), any(), any()))
                 .thenReturn(successfulTransaction);
 
         walletService.payment(walletId, paymentAmount, description);
 
-        ArgumentCaptor<Wallet> walletCaptor = ArgumentCaptor.forClass(Wallet.class);
-        verify(walletRepository).save(walletCaptor.capture());
-        assertEquals(currentBalance.subtract(paymentAmount), walletCaptor.getValue().getBalance());
+        assertEquals(currentBalance.subtract(paymentAmount), wallet.getBalance());
+        verify(walletRepository, never()).save(any(Wallet.class));
     }
 
     @Test
@@ -231,28 +231,31 @@ class WalletServiceTest {
 
         LocalDateTime oldTimestamp = LocalDateTime.now().minusDays(1);
         wallet.setUpdatedOn(oldTimestamp);
+        debitSucceeds();
         when(walletRepository.findById(walletId)).thenReturn(java.util.Optional.of(wallet));
         when(transactionService.createTransaction(any(), any(), any(), any(), any(), any(), any(), any()))
                 .thenReturn(successfulTransaction);
 
         walletService.payment(walletId, paymentAmount, description);
 
-        ArgumentCaptor<Wallet> walletCaptor = ArgumentCaptor.forClass(Wallet.class);
-        verify(walletRepository).save(walletCaptor.capture());
-        assertNotNull(walletCaptor.getValue().getUpdatedOn());
-        assertTrue(walletCaptor.getValue().getUpdatedOn().isAfter(oldTimestamp));
+        ArgumentCaptor<LocalDateTime> updatedOnCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(walletRepository).debit(eq(walletId), eq(paymentAmount), updatedOnCaptor.capture());
+        assertNotNull(updatedOnCaptor.getValue());
+        assertTrue(updatedOnCaptor.getValue().isAfter(oldTimestamp));
     }
 
     @Test
-    void shouldSaveWalletToRepositoryWhenPaymentSucceeds() {
+    void shouldDebitWalletInRepositoryWhenPaymentSucceeds() {
 
+        debitSucceeds();
         when(walletRepository.findById(walletId)).thenReturn(java.util.Optional.of(wallet));
         when(transactionService.createTransaction(any(), any(), any(), any(), any(), any(), any(), any()))
                 .thenReturn(successfulTransaction);
 
         walletService.payment(walletId, paymentAmount, description);
 
-        verify(walletRepository, times(1)).save(wallet);
+        verify(walletRepository, times(1)).debit(eq(walletId), eq(paymentAmount), any(LocalDateTime.class));
+        verify(walletRepository, never()).save(any(Wallet.class));
     }
 
     @Test
@@ -260,6 +263,7 @@ class WalletServiceTest {
 
         BigDecimal currentBalance = new BigDecimal("200.00");
         wallet.setBalance(currentBalance);
+        debitSucceeds();
         when(walletRepository.findById(walletId)).thenReturn(java.util.Optional.of(wallet));
         when(transactionService.createTransaction(any(), any(), any(), any(), any(), any(), any(), any()))
                 .thenReturn(successfulTransaction);
@@ -288,6 +292,7 @@ class WalletServiceTest {
     @Test
     void shouldReturnSuccessfulTransactionWhenPaymentSucceeds() {
 
+        debitSucceeds();
         when(walletRepository.findById(walletId)).thenReturn(java.util.Optional.of(wallet));
         when(transactionService.createTransaction(any(), any(), any(), any(), any(), any(), any(), any()))
                 .thenReturn(successfulTransaction);
@@ -321,6 +326,7 @@ class WalletServiceTest {
 
         BigDecimal exactBalance = new BigDecimal("100.00");
         wallet.setBalance(exactBalance);
+        debitSucceeds();
         when(walletRepository.findById(walletId)).thenReturn(java.util.Optional.of(wallet));
         when(transactionService.createTransaction(any(), any(), any(), any(), any(), any(), any(), any()))
                 .thenReturn(successfulTransaction);
@@ -328,9 +334,7 @@ class WalletServiceTest {
         Transaction result = walletService.payment(walletId, paymentAmount, description);
 
         assertEquals(TransactionStatus.SUCCESSFUL, result.getStatus());
-        ArgumentCaptor<Wallet> walletCaptor = ArgumentCaptor.forClass(Wallet.class);
-        verify(walletRepository).save(walletCaptor.capture());
-        assertEquals(new BigDecimal("0.00"), walletCaptor.getValue().getBalance());
+        assertEquals(new BigDecimal("0.00"), wallet.getBalance());
     }
 
     @Test
@@ -339,15 +343,20 @@ class WalletServiceTest {
         wallet.setBalance(null);
         BigDecimal depositAmount = new BigDecimal("50.00");
         String depositDescription = "Initial deposit";
+        when(walletRepository.credit(eq(walletId), eq(depositAmount), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> {
+                    wallet.setBalance(depositAmount);
+                    return 1;
+                });
         when(walletRepository.findById(walletId)).thenReturn(java.util.Optional.of(wallet));
         when(transactionService.createTransaction(any(), any(), any(), any(), any(), any(), any(), any()))
                 .thenReturn(successfulTransaction);
 
         walletService.deposit(walletId, depositAmount, depositDescription);
 
-        ArgumentCaptor<Wallet> walletCaptor = ArgumentCaptor.forClass(Wallet.class);
-        verify(walletRepository).save(walletCaptor.capture());
-        assertEquals(depositAmount, walletCaptor.getValue().getBalance());
+        verify(walletRepository).credit(eq(walletId), eq(depositAmount), any(LocalDateTime.class));
+        verify(walletRepository, never()).save(any(Wallet.class));
+        assertEquals(depositAmount, wallet.getBalance());
     }
 
     @Test
@@ -376,4 +385,12 @@ class WalletServiceTest {
         verify(walletRepository, never()).save(any(Wallet.class));
     }
 
+    // Stands in for the conditional update, which the database applies to the row
+    private void debitSucceeds() {
+        when(walletRepository.debit(eq(walletId), any(BigDecimal.class), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> {
+                    wallet.setBalance(wallet.getBalance().subtract(invocation.getArgument(1)));
+                    return 1;
+                });
+    }
 }
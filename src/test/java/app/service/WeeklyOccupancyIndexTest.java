@@ -0,0 +1,85 @@
+package app.service;
+
+import app.lunch.occupancy.WeekDayMask;
+import app.lunch.occupancy.WeeklyOccupancyIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeeklyOccupancyIndexTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private WeeklyOccupancyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        index = new WeeklyOccupancyIndex(100, Duration.ofMinutes(10), meterRegistry);
+    }
+
+    @Test
+    void shouldListDaysInTheOrderTheyNextComeRound() {
+
+        int mask = WeekDayMask.of(List.of("monday", "WEDNESDAY", "FRIDAY"));
+
+        assertEquals(List.of(DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY, DayOfWeek.MONDAY),
+                WeekDayMask.days(mask, DayOfWeek.WEDNESDAY));
+        assertEquals(List.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY),
+                WeekDayMask.days(mask, DayOfWeek.SATURDAY));
+        assertEquals(Optional.of(DayOfWeek.FRIDAY), WeekDayMask.first(mask, DayOfWeek.THURSDAY));
+        assertEquals(Optional.empty(), WeekDayMask.first(0, DayOfWeek.MONDAY));
+        assertEquals(List.of(DayOfWeek.TUESDAY, DayOfWeek.THURSDAY),
+                WeekDayMask.days(WeekDayMask.SCHOOL_DAYS & ~mask, DayOfWeek.MONDAY));
+    }
+
+    @Test
+    void shouldLoadAChildOnceAndKeepItUpToDateOnNewOrders() {
+
+        UUID childId = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+
+        int loaded = index.occupied(childId, id -> {
+            loads.incrementAndGet();
+            return List.of("MONDAY");
+        });
+        index.markOrdered(childId, "TUESDAY");
+        int indexed = index.occupied(childId, id -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+
+        assertEquals(WeekDayMask.bit(DayOfWeek.MONDAY), loaded);
+        assertEquals(WeekDayMask.bit(DayOfWeek.MONDAY) | WeekDayMask.bit(DayOfWeek.TUESDAY), indexed);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.counter("lunch.occupancy.reads", "result", "hit").count());
+    }
+
+    @Test
+    void shouldReadAChildAgainAfterAnOrderIsRemoved() {
+
+        UUID childId = UUID.randomUUID();
+        index.replace(childId, List.of("MONDAY", "TUESDAY"));
+
+        index.invalidate(childId);
+
+        assertEquals(WeekDayMask.bit(DayOfWeek.TUESDAY), index.occupied(childId, id -> List.of("TUESDAY")));
+    }
+
+    @Test
+    void shouldNotIndexANewOrderForAChildThatWasNeverLoaded() {
+
+        UUID childId = UUID.randomUUID();
+        index.markOrdered(childId, "MONDAY");
+
+        assertEquals(0, index.occupied(childId, id -> List.of()));
+    }
+}